@@ -0,0 +1,49 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, so they can be compared between releases.
+ * Usage: java -jar target/benchmarks.jar [jmh options] [benchmark regex]<br>
+ * Results go to dl4j-benchmarks.json unless another file is given with -rff.
+ * All the usual JMH command line options apply (-f, -wi, -i, -p etc)
+ */
+public class BenchmarkRunner {
+
+    public static final String DEFAULT_RESULT_FILE = "dl4j-benchmarks.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        Options opts = new OptionsBuilder()
+                .parent(cmd)
+                .resultFormat(cmd.getResultFormat().hasValue() ? cmd.getResultFormat().get() : ResultFormatType.JSON)
+                .result(cmd.getResult().hasValue() ? cmd.getResult().get() : DEFAULT_RESULT_FILE)
+                .build();
+        new Runner(opts).run();
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.layers.factory.LayerFactories;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.convolution.Convolution;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Convolution.im2col as used by ConvolutionLayer, and the ConvolutionLayer forward and backward pass built on it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ConvolutionBenchmark {
+
+    @Param({"32"})
+    public int minibatch;
+
+    @Param({"3"})
+    public int channels;
+
+    @Param({"32"})
+    public int size;
+
+    @Param({"5"})
+    public int kernel;
+
+    private final int[] stride = {1, 1};
+    private final int[] padding = {0, 0};
+    private INDArray input;
+    private INDArray epsilon;
+    private Layer layer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Nd4j.getRandom().setSeed(12345);
+        input = Nd4j.rand(new int[]{minibatch, channels, size, size});
+
+        NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .layer(new ConvolutionLayer.Builder(new int[]{kernel, kernel}, stride, padding)
+                        .nIn(channels).nOut(16).activation("relu").build())
+                .build();
+        layer = LayerFactories.getFactory(conf).create(conf);
+        layer.setInput(input);
+        epsilon = Nd4j.rand(layer.activate(true).shape());
+    }
+
+    @Benchmark
+    public INDArray im2col() {
+        return Convolution.im2col(input, new int[]{kernel, kernel}, stride, padding);
+    }
+
+    @Benchmark
+    public INDArray forward() {
+        return layer.activate(true);
+    }
+
+    //Uses the im2col columns from the last forward pass (as in MultiLayerNetwork)
+    @Benchmark
+    public Pair<Gradient, INDArray> backward() {
+        return layer.backpropGradient(epsilon.dup());
+    }
+
+}
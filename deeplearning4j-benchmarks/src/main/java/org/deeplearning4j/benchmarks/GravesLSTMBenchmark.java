@@ -0,0 +1,110 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.layers.factory.LayerFactories;
+import org.deeplearning4j.nn.layers.recurrent.GravesLSTMReference;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GravesLSTM layer forward pass and backward pass (which includes its own forward pass), for a range of time series lengths.
+ * The reference benchmarks run the same passes with GravesLSTMReference (from the deeplearning4j-core test jar),
+ * the implementation with a separate matrix multiply per gate that GravesLSTM replaced, for a before/after comparison
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GravesLSTMBenchmark {
+
+    @Param({"50", "100", "500", "1000"})
+    public int timeSeriesLength;
+
+    @Param({"32"})
+    public int minibatch;
+
+    @Param({"100"})
+    public int layerSize;
+
+    private static final int N_IN = 50;
+
+    private Layer layer;
+    private GravesLSTMReference reference;
+    private INDArray input;
+    private INDArray epsilon;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Nd4j.getRandom().setSeed(12345);
+        NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .layer(new GravesLSTM.Builder().nIn(N_IN).nOut(layerSize)
+                        .weightInit(WeightInit.XAVIER).activation("tanh").build())
+                .build();
+        layer = LayerFactories.getFactory(conf).create(conf);
+        input = Nd4j.rand(new int[]{minibatch, N_IN, timeSeriesLength});
+        epsilon = Nd4j.rand(new int[]{minibatch, layerSize, timeSeriesLength});
+        layer.setInput(input);
+        reference = new GravesLSTMReference((org.deeplearning4j.nn.layers.recurrent.GravesLSTM) layer, input);
+    }
+
+    @Benchmark
+    public INDArray forward() {
+        return layer.activate(false);
+    }
+
+    @Benchmark
+    public Pair<Gradient, INDArray> backward() {
+        return layer.backpropGradient(epsilon);
+    }
+
+    @Benchmark
+    public INDArray referenceForward() {
+        return reference.activate();
+    }
+
+    @Benchmark
+    public Pair<Gradient, INDArray> referenceBackward() {
+        return reference.backpropGradient(epsilon);
+    }
+
+}
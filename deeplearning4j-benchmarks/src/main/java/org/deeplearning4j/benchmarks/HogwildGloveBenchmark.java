@@ -0,0 +1,131 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.glove.CoOccurrenceCounter;
+import org.deeplearning4j.models.glove.HogwildGlove;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One epoch of HogwildGlove over the shuffled co occurrences of a synthetic corpus with Zipf distributed words.
+ * Besides the epoch rate, the recordsPerThread counter reports co occurrences/sec/thread
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HogwildGloveBenchmark {
+
+    @Param({"10000"})
+    public int vocabSize;
+
+    @Param({"100"})
+    public int layerSize;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private static final int NUM_SENTENCES = 20000;
+    private static final int SENTENCE_LENGTH = 20;
+
+    private HogwildGlove trainer;
+    private File cooccurrences;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Counters {
+        public long recordsPerThread;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        Random r = new Random(12345);
+        for (int i = 0; i < vocabSize; i++) {
+            String word = "word" + i;
+            VocabWord vocabWord = new VocabWord(1e6 / (i + 1), word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < NUM_SENTENCES; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < SENTENCE_LENGTH; j++) {
+                int word = (int) Math.min(vocabSize - 1, Math.floor(Math.pow(vocabSize, r.nextDouble())) - 1);
+                sb.append(j > 0 ? " " : "").append("word").append(word);
+            }
+            sentences.add(sb.toString());
+        }
+
+        File counts = File.createTempFile("glove-benchmark", ".bin");
+        cooccurrences = File.createTempFile("glove-benchmark-shuffled", ".bin");
+        new CoOccurrenceCounter.Builder().vocab(cache).windowSize(10).build()
+                .count(new CollectionSentenceIterator(sentences), counts);
+        CoOccurrenceCounter.shuffle(counts, cooccurrences, Runtime.getRuntime().maxMemory() / 4, null, 12345);
+        counts.delete();
+
+        trainer = new HogwildGlove.Builder(cache)
+                .layerSize(layerSize)
+                .iterations(1)
+                .workers(workers)
+                .seed(12345)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cooccurrences.delete();
+    }
+
+    @Benchmark
+    public HogwildGlove epoch(Counters counters) throws IOException {
+        trainer.fit(cooccurrences);
+        counters.recordsPerThread += trainer.getNumRecordsProcessed() / workers;
+        return trainer;
+    }
+
+}
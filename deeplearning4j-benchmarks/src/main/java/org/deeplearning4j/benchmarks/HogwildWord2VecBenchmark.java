@@ -0,0 +1,119 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.word2vec.HogwildWord2Vec;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One epoch of HogwildWord2Vec over a synthetic corpus with Zipf distributed words.
+ * Besides the epoch rate, the wordsPerThread counter reports words/sec/thread,
+ * the figure the original C word2vec prints while training
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HogwildWord2VecBenchmark {
+
+    @Param({"10000"})
+    public int vocabSize;
+
+    @Param({"100"})
+    public int layerSize;
+
+    @Param({"0", "5"})
+    public int negative;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private static final int NUM_SENTENCES = 10000;
+    private static final int SENTENCE_LENGTH = 20;
+
+    private HogwildWord2Vec trainer;
+    private List<int[]> sentences;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Counters {
+        public long wordsPerThread;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        Random r = new Random(12345);
+        for (int i = 0; i < vocabSize; i++) {
+            String word = "word" + i;
+            VocabWord vocabWord = new VocabWord(1e6 / (i + 1), word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+
+        sentences = new ArrayList<>();
+        for (int i = 0; i < NUM_SENTENCES; i++) {
+            int[] sentence = new int[SENTENCE_LENGTH];
+            for (int j = 0; j < SENTENCE_LENGTH; j++)
+                sentence[j] = (int) Math.min(vocabSize - 1, Math.floor(Math.pow(vocabSize, r.nextDouble())) - 1);
+            sentences.add(sentence);
+        }
+
+        trainer = new HogwildWord2Vec.Builder(cache)
+                .layerSize(layerSize)
+                .windowSize(5)
+                .negativeSample(negative)
+                .useHierarchicSoftmax(negative == 0)
+                .workers(workers)
+                .seed(12345)
+                .build();
+    }
+
+    @Benchmark
+    public HogwildWord2Vec epoch(Counters counters) {
+        trainer.fit(sentences);
+        counters.wordsPerThread += trainer.getNumWordsProcessed() / workers;
+        return trainer;
+    }
+
+}
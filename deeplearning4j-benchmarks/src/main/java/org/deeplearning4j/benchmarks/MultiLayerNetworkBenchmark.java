@@ -0,0 +1,155 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.conf.layers.SubsamplingLayer;
+import org.deeplearning4j.nn.conf.layers.setup.ConvolutionLayerSetup;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions.LossFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MultiLayerNetwork.fit(DataSet) and output(INDArray) for a single minibatch, on
+ * a dense (MLP), convolutional and GravesLSTM network
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MultiLayerNetworkBenchmark {
+
+    @Param({"dense", "conv", "lstm"})
+    public String network;
+
+    @Param({"32"})
+    public int minibatch;
+
+    private MultiLayerNetwork net;
+    private DataSet data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Nd4j.getRandom().setSeed(12345);
+        switch (network) {
+            case "dense":
+                net = new MultiLayerNetwork(dense());
+                data = new DataSet(Nd4j.rand(minibatch, 784), labels(minibatch, 10));
+                break;
+            case "conv":
+                net = new MultiLayerNetwork(conv());
+                data = new DataSet(Nd4j.rand(minibatch, 784), labels(minibatch, 10));
+                break;
+            case "lstm":
+                net = new MultiLayerNetwork(lstm());
+                data = new DataSet(Nd4j.rand(new int[]{minibatch, 50, 20}), Nd4j.rand(new int[]{minibatch, 10, 20}));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown network: " + network);
+        }
+        net.init();
+    }
+
+    @Benchmark
+    public MultiLayerNetwork fit() {
+        net.fit(data);
+        return net;
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return net.output(data.getFeatureMatrix(), false);
+    }
+
+    private static INDArray labels(int rows, int nOut) {
+        INDArray labels = Nd4j.zeros(rows, nOut);
+        for (int i = 0; i < rows; i++)
+            labels.putScalar(i, i % nOut, 1.0);
+        return labels;
+    }
+
+    private static NeuralNetConfiguration.Builder base() {
+        return new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .iterations(1)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                .learningRate(0.01)
+                .updater(Updater.NESTEROVS).momentum(0.9)
+                .weightInit(WeightInit.XAVIER);
+    }
+
+    private static MultiLayerConfiguration dense() {
+        return base()
+                .list(3)
+                .layer(0, new DenseLayer.Builder().nIn(784).nOut(500).activation("relu").build())
+                .layer(1, new DenseLayer.Builder().nIn(500).nOut(100).activation("relu").build())
+                .layer(2, new OutputLayer.Builder(LossFunction.MCXENT).nIn(100).nOut(10).activation("softmax").build())
+                .pretrain(false).backprop(true)
+                .build();
+    }
+
+    private static MultiLayerConfiguration conv() {
+        MultiLayerConfiguration.Builder builder = base()
+                .list(4)
+                .layer(0, new ConvolutionLayer.Builder(5, 5).nIn(1).nOut(20).activation("relu").build())
+                .layer(1, new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX, new int[]{2, 2}).build())
+                .layer(2, new DenseLayer.Builder().nOut(100).activation("relu").build())
+                .layer(3, new OutputLayer.Builder(LossFunction.MCXENT).nOut(10).activation("softmax").build())
+                .pretrain(false).backprop(true);
+        new ConvolutionLayerSetup(builder, 28, 28, 1);
+        return builder.build();
+    }
+
+    private static MultiLayerConfiguration lstm() {
+        return base()
+                .list(2)
+                .layer(0, new GravesLSTM.Builder().nIn(50).nOut(100).activation("tanh").build())
+                .layer(1, new RnnOutputLayer.Builder(LossFunction.MSE).nIn(100).nOut(10).activation("identity").build())
+                .pretrain(false).backprop(true)
+                .build();
+    }
+
+}
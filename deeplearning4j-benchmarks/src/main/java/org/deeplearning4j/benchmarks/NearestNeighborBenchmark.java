@@ -0,0 +1,105 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.clustering.kdtree.KDTree;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.vptree.VPTree;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest neighbour queries against VPTree and KDTree, for random query points
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NearestNeighborBenchmark {
+
+    @Param({"10000"})
+    public int numPoints;
+
+    @Param({"10"})
+    public int dims;
+
+    @Param({"10"})
+    public int k;
+
+    private static final int NUM_QUERIES = 100;
+
+    private VPTree vpTree;
+    private KDTree kdTree;
+    private INDArray queries;
+    private int query;
+    private final List<DataPoint> results = new ArrayList<>();
+    private final List<Double> distances = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(numPoints, dims);
+        vpTree = new VPTree(points);
+        kdTree = new KDTree(dims);
+        for (int i = 0; i < numPoints; i++)
+            kdTree.insert(points.getRow(i).dup());
+        queries = Nd4j.rand(NUM_QUERIES, dims);
+    }
+
+    private INDArray nextQuery() {
+        query = (query + 1) % NUM_QUERIES;
+        return queries.getRow(query);
+    }
+
+    @Benchmark
+    public List<DataPoint> vpTreeSearch() {
+        vpTree.search(new DataPoint(-1, nextQuery()), k, results, distances);
+        return results;
+    }
+
+    @Benchmark
+    public Pair<Double, INDArray> kdTreeNearest() {
+        return kdTree.nn(nextQuery());
+    }
+
+    @Benchmark
+    public List<Pair<Double, INDArray>> kdTreeWithinDistance() {
+        return kdTree.knn(nextQuery(), 0.5);
+    }
+
+}
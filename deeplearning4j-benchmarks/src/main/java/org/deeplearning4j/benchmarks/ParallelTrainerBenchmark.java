@@ -0,0 +1,104 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.distribution.NormalDistribution;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.parallelism.ParallelTrainer;
+import org.nd4j.linalg.lossfunctions.LossFunctions.LossFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParallelTrainer.fit for one epoch of iris in minibatches of 5, by number of workers:
+ * the scaling of throughput with the workers, averaging or hogwild
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParallelTrainerBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    @Param({"AVERAGING", "HOGWILD"})
+    public String mode;
+
+    @Param({"5"})
+    public int averagingFrequency;
+
+    private ParallelTrainer trainer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MultiLayerNetwork net = new MultiLayerNetwork(irisConf());
+        net.init();
+        trainer = new ParallelTrainer.Builder(net)
+                .workers(workers).averagingFrequency(averagingFrequency)
+                .mode(ParallelTrainer.Mode.valueOf(mode))
+                .build();
+    }
+
+    @Benchmark
+    public MultiLayerNetwork fitEpoch() {
+        trainer.fit(new IrisDataSetIterator(5, 150));
+        return trainer.getModel();
+    }
+
+    private static MultiLayerConfiguration irisConf() {
+        return new NeuralNetConfiguration.Builder()
+                .iterations(1)
+                .learningRate(0.1)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                .seed(12345L)
+                .list(2)
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 0.1))
+                        .updater(Updater.SGD).activation("tanh").build())
+                .layer(1, new OutputLayer.Builder(LossFunction.MCXENT).nIn(10).nOut(3)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 0.1))
+                        .updater(Updater.SGD).activation("softmax").build())
+                .pretrain(false).backprop(true)
+                .build();
+    }
+
+}
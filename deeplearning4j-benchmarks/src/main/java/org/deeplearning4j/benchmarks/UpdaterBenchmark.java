@@ -0,0 +1,99 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.layers.factory.LayerFactories;
+import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.deeplearning4j.nn.updater.UpdaterCreator;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One Updater.update(...) call for each BaseUpdater implementation, on the gradient of a dense layer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UpdaterBenchmark {
+
+    @Param({"SGD", "ADAM", "ADADELTA", "NESTEROVS", "ADAGRAD", "RMSPROP"})
+    public org.deeplearning4j.nn.conf.Updater updaterType;
+
+    @Param({"1000"})
+    public int layerSize;
+
+    private Layer layer;
+    private Updater updater;
+    private Gradient gradient;
+    private INDArray weightGradient;
+    private INDArray biasGradient;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder()
+                .learningRate(0.01)
+                .momentum(0.9)
+                .layer(new DenseLayer.Builder().nIn(layerSize).nOut(layerSize).updater(updaterType).build())
+                .build();
+        layer = LayerFactories.getFactory(conf).create(conf, null, 0);
+        layer.setInput(Nd4j.rand(32, layerSize));
+        updater = UpdaterCreator.getUpdater(layer);
+        weightGradient = Nd4j.rand(layerSize, layerSize);
+        biasGradient = Nd4j.rand(1, layerSize);
+        gradient = new DefaultGradient();
+    }
+
+    //update(...) modifies the gradient in place: start from the same values every time
+    @Setup(Level.Invocation)
+    public void resetGradient() {
+        gradient.setGradientFor(DefaultParamInitializer.WEIGHT_KEY, weightGradient.dup());
+        gradient.setGradientFor(DefaultParamInitializer.BIAS_KEY, biasGradient.dup());
+    }
+
+    @Benchmark
+    public Gradient update() {
+        updater.update(layer, gradient, iteration++);
+        return gradient;
+    }
+
+}
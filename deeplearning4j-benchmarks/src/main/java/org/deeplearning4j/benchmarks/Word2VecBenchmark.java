@@ -0,0 +1,118 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
+import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryLookupTable.iterateSample (skip gram, hierarchical softmax plus optional negative sampling)
+ * for one word pair, on a synthetic vocabulary with Zipf distributed word frequencies
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class Word2VecBenchmark {
+
+    @Param({"10000"})
+    public int vocabSize;
+
+    @Param({"100"})
+    public int layerSize;
+
+    @Param({"0", "5"})
+    public int negative;
+
+    private static final int NUM_PAIRS = 10000;
+
+    private InMemoryLookupTable table;
+    private VocabWord[] w1;
+    private VocabWord[] w2;
+    private int pair;
+    private final XorShiftRandom random = new XorShiftRandom(5);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Nd4j.getRandom().setSeed(12345);
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        VocabWord[] words = new VocabWord[vocabSize];
+        for (int i = 0; i < vocabSize; i++) {
+            String word = "word" + i;
+            words[i] = new VocabWord(1e6 / (i + 1), word);
+            words[i].setIndex(i);
+            cache.addToken(words[i]);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+        new Huffman(cache.vocabWords()).build();
+
+        table = (InMemoryLookupTable) new InMemoryLookupTable.Builder()
+                .cache(cache)
+                .vectorLength(layerSize)
+                .negative(negative)
+                .useAdaGrad(false)
+                .lr(0.025)
+                .seed(12345)
+                .build();
+        table.resetWeights();
+
+        //Pairs drawn with the same (Zipf) distribution as the word frequencies
+        Random r = new Random(12345);
+        w1 = new VocabWord[NUM_PAIRS];
+        w2 = new VocabWord[NUM_PAIRS];
+        for (int i = 0; i < NUM_PAIRS; i++) {
+            w1[i] = words[zipf(r)];
+            w2[i] = words[zipf(r)];
+        }
+    }
+
+    private int zipf(Random r) {
+        return (int) Math.min(vocabSize - 1, Math.floor(Math.pow(vocabSize, r.nextDouble())) - 1);
+    }
+
+    @Benchmark
+    public InMemoryLookupTable iterateSample() {
+        pair = (pair + 1) % NUM_PAIRS;
+        table.iterateSample(w1[pair], w2[pair], random, 0.025);
+        return table;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.embeddings.index.ExactWordVectorIndex;
+import org.deeplearning4j.models.embeddings.index.RandomProjectionForestIndex;
+import org.deeplearning4j.models.embeddings.index.WordVectorIndex;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top k queries per second against the word vector indexes, for random vectors.
+ * numTrees = 0 is the exact index. The recall against the exact index is printed after setup
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WordVectorIndexBenchmark {
+
+    @Param({"100000"})
+    public int numVectors;
+
+    @Param({"100"})
+    public int dims;
+
+    @Param({"10"})
+    public int k;
+
+    @Param({"0", "10", "50"})
+    public int numTrees;
+
+    private static final int NUM_QUERIES = 100;
+
+    private WordVectorIndex index;
+    private INDArray queries;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray vectors = Nd4j.randn(numVectors, dims);
+        queries = Nd4j.randn(NUM_QUERIES, dims);
+        ExactWordVectorIndex exact = new ExactWordVectorIndex(vectors);
+        if (numTrees == 0) {
+            index = exact;
+            return;
+        }
+        index = new RandomProjectionForestIndex.Builder(vectors).numTrees(numTrees).seed(12345).build();
+
+        int hits = 0;
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            Set<Integer> expected = new HashSet<>();
+            for (int idx : exact.search(queries.getRow(i), k))
+                expected.add(idx);
+            for (int idx : index.search(queries.getRow(i), k))
+                if (expected.contains(idx))
+                    hits++;
+        }
+        System.out.println("Recall@" + k + " with " + numTrees + " trees: " + hits / (double) (k * NUM_QUERIES));
+    }
+
+    @Benchmark
+    public int[] search() {
+        query = (query + 1) % NUM_QUERIES;
+        return index.search(queries.getRow(query), k);
+    }
+
+}
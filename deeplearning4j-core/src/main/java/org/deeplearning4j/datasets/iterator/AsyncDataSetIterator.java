@@ -15,7 +15,8 @@ import java.util.concurrent.TimeUnit;
  * For data sets where DataSetIterator.next() is long running (limited by disk read or processing time
  * for example) this may improve performance by loading the next DataSet asynchronously (i.e., while
  * training is continuing on the previous DataSet). Obviously this may use additional memory.<br>
- * Note however that due to asyncronous loading of data, next(int) is not supported.
+ * Note however that due to asyncronous loading of data, next(int) is not supported.<br>
+ * See {@link MultiThreadedAsyncDataSetIterator} for loading with multiple threads.
  * @author Alex Black
  */
 public class AsyncDataSetIterator implements DataSetIterator {
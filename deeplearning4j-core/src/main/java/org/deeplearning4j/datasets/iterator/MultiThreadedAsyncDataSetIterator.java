@@ -0,0 +1,411 @@
+package org.deeplearning4j.datasets.iterator;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**MultiThreadedAsyncDataSetIterator prefetches DataSet objects using a number of worker threads.
+ * Where {@link AsyncDataSetIterator} uses a single thread, this can keep up with a trainer when
+ * loading and preprocessing a DataSet takes longer than fitting it (record readers, image loading etc).<br>
+ * Data can come from either:<br>
+ * (a) a list of shards (one DataSetIterator each, for example over different files): one worker
+ * thread per shard, so loading is done fully in parallel<br>
+ * (b) a single DataSetIterator shared by all worker threads: calls to the base iterator are
+ * synchronized, so only preprocessing is done in parallel<br>
+ * The DataSetPreProcessor (if any) set on this iterator is applied on the worker threads.<br>
+ * With ordered delivery, DataSets are returned in the order of the base iterator, or round robin
+ * over the shards (skipping shards that have run out); otherwise they are returned as soon as they are ready.
+ * Each worker may have at most queueSize DataSets waiting to be returned.<br>
+ * next(int) merges whole prefetched DataSets, and so returns at most num examples (but at least one DataSet).
+ */
+public class MultiThreadedAsyncDataSetIterator implements DataSetIterator {
+    private final List<DataSetIterator> sources;
+    private final Object[] sourceLocks;
+    private final int numWorkers;
+    private final int queueSize;
+    private final boolean ordered;
+    private volatile DataSetPreProcessor preProcessor;
+    private Run run;
+
+    private final AtomicLong waitTimeNanos = new AtomicLong();
+    private final AtomicLong numWaits = new AtomicLong();
+    private final AtomicLong numReturned = new AtomicLong();
+
+    /** Create a MultiThreadedAsyncDataSetIterator with numWorkers threads sharing a single base iterator,
+     * with ordered delivery and a queue size of 1 per worker
+     * @param baseIterator The DataSetIterator to load data from asynchronously
+     * @param numWorkers number of worker threads
+     */
+    public MultiThreadedAsyncDataSetIterator(DataSetIterator baseIterator, int numWorkers){
+        this(baseIterator, numWorkers, 1, true);
+    }
+
+    /** Create a MultiThreadedAsyncDataSetIterator with numWorkers threads sharing a single base iterator
+     * @param baseIterator The DataSetIterator to load data from asynchronously
+     * @param numWorkers number of worker threads
+     * @param queueSize max number of DataSets each worker may load ahead
+     * @param ordered if true: return DataSets in the same order as the base iterator
+     */
+    public MultiThreadedAsyncDataSetIterator(DataSetIterator baseIterator, int numWorkers, int queueSize, boolean ordered){
+        this(Collections.singletonList(baseIterator), numWorkers, queueSize, ordered);
+    }
+
+    /** Create a MultiThreadedAsyncDataSetIterator with one worker thread per shard
+     * @param shards DataSetIterators to load data from, one per worker thread
+     * @param queueSize max number of DataSets each worker may load ahead
+     * @param ordered if true: return DataSets round robin over the shards
+     */
+    public MultiThreadedAsyncDataSetIterator(List<DataSetIterator> shards, int queueSize, boolean ordered){
+        this(shards, shards.size(), queueSize, ordered);
+    }
+
+    private MultiThreadedAsyncDataSetIterator(List<DataSetIterator> sources, int numWorkers, int queueSize, boolean ordered){
+        if(sources.isEmpty()) throw new IllegalArgumentException("No base iterators");
+        if(numWorkers <= 0) throw new IllegalArgumentException("Number of workers must be > 0");
+        if(queueSize <= 0) throw new IllegalArgumentException("Queue size must be > 0");
+        this.sources = new ArrayList<>(sources);
+        this.sourceLocks = new Object[sources.size()];
+        for( int i=0; i<sourceLocks.length; i++ ) sourceLocks[i] = new Object();
+        this.numWorkers = numWorkers;
+        this.queueSize = queueSize;
+        this.ordered = ordered;
+        run = new Run();
+        run.start();
+    }
+
+    @Override
+    public synchronized DataSet next(int num) {
+        List<DataSet> list = new ArrayList<>();
+        int count = 0;
+        run.lock.lock();
+        try {
+            while(awaitNext()){
+                int n = run.buffer.peek().dataSet.numExamples();
+                if(!list.isEmpty() && count + n > num) break;
+                list.add(take());
+                count += n;
+                if(count >= num) break;
+            }
+        } finally {
+            run.lock.unlock();
+        }
+        if(list.isEmpty()) throw new NoSuchElementException();
+        return list.size() == 1 ? list.get(0) : DataSet.merge(list);
+    }
+
+    @Override
+    public int totalExamples() {
+        int sum = 0;
+        for(DataSetIterator iter : sources) sum += iter.totalExamples();
+        return sum;
+    }
+
+    @Override
+    public int inputColumns() {
+        return sources.get(0).inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return sources.get(0).totalOutcomes();
+    }
+
+    @Override
+    public synchronized void reset() {
+        run.stop();
+        //Worker threads may still be blocked on a base iterator (that can't be interrupted):
+        //wait for them to exit, but only a short period of time
+        run.awaitExit(5, TimeUnit.SECONDS);
+        for( int i=0; i<sources.size(); i++ ){
+            synchronized (sourceLocks[i]){
+                sources.get(i).reset();
+            }
+        }
+        run = new Run();
+        run.start();
+    }
+
+    @Override
+    public int batch() {
+        return sources.get(0).batch();
+    }
+
+    @Override
+    public int cursor() {
+        int sum = 0;
+        for(DataSetIterator iter : sources) sum += iter.cursor();
+        return sum;
+    }
+
+    @Override
+    public int numExamples() {
+        int sum = 0;
+        for(DataSetIterator iter : sources) sum += iter.numExamples();
+        return sum;
+    }
+
+    /** Set the preprocessor to apply on the worker threads. Not passed on to the base iterators.
+     * Applies to DataSets that haven't been loaded yet (i.e., after any currently queued DataSets)
+     */
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        run.lock.lock();
+        try {
+            return awaitNext();
+        } finally {
+            run.lock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized DataSet next() {
+        run.lock.lock();
+        try {
+            if(!awaitNext()) throw new NoSuchElementException();
+            return take();
+        } finally {
+            run.lock.unlock();
+        }
+    }
+
+    /** Number of DataSets that are loaded and waiting to be returned */
+    public int getQueueDepth(){
+        Run r = run;
+        r.lock.lock();
+        try {
+            return r.buffer.size();
+        } finally {
+            r.lock.unlock();
+        }
+    }
+
+    /** Total time (in milliseconds) spent in hasNext()/next() waiting for the worker threads */
+    public long getWaitTimeMs(){
+        return TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.get());
+    }
+
+    /** Number of calls to hasNext()/next() that had to wait for the worker threads */
+    public long getNumWaits(){
+        return numWaits.get();
+    }
+
+    /** Number of DataSets returned so far */
+    public long getNumReturned(){
+        return numReturned.get();
+    }
+
+    /** Shut down the worker threads
+     * This is not typically necessary (threads are daemon threads and so shouldn't block the JVM from exiting)
+     * Behaviour of next(), hasNext() etc methods after shutdown is undefined
+     */
+    public void shutdown(){
+        run.stop();
+    }
+
+    //Call with run.lock held: wait until the next DataSet is ready, or there are none left
+    private boolean awaitNext(){
+        long start = -1;
+        try {
+            while(true){
+                if(run.exception != null) throw run.exception;
+                if(run.nextReady()) return true;
+                if(run.liveWorkers == 0) return false;
+                if(start < 0){
+                    start = System.nanoTime();
+                    numWaits.incrementAndGet();
+                }
+                run.changed.await();
+            }
+        } catch(InterruptedException e ){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            if(start >= 0) waitTimeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    //Call with run.lock held, after awaitNext() returned true
+    private DataSet take(){
+        Entry e = run.buffer.poll();
+        run.expected = e.seq + 1;
+        run.permits[e.worker].release();
+        numReturned.incrementAndGet();
+        return e.dataSet;
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final long seq;
+        private final int worker;
+        private final DataSet dataSet;
+
+        private Entry(long seq, int worker, DataSet dataSet){
+            this.seq = seq;
+            this.worker = worker;
+            this.dataSet = dataSet;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return seq < o.seq ? -1 : (seq == o.seq ? 0 : 1);
+        }
+    }
+
+    /** State for one pass over the base iterators: a new Run is started on reset, so worker threads that
+     * haven't exited yet can't add anything to the queue after the reset
+     */
+    private class Run {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        //Sequence number of k-th DataSet from source i: k * sources.size() + i
+        private final PriorityQueue<Entry> buffer = new PriorityQueue<>();
+        private final long[] counts = new long[sources.size()];
+        private final long[] finalCounts = new long[sources.size()];
+        private final Semaphore[] permits = new Semaphore[numWorkers];
+        private final Thread[] threads = new Thread[numWorkers];
+        private final Semaphore exited = new Semaphore(0);
+        private volatile boolean killRunnable = false;
+        private int liveWorkers = numWorkers;
+        private long expected = 0;
+        private RuntimeException exception;
+
+        private Run(){
+            Arrays.fill(finalCounts, -1);
+            for( int i=0; i<numWorkers; i++ ){
+                permits[i] = new Semaphore(queueSize);
+                threads[i] = new Thread(new Worker(this, i, i % sources.size()), "MultiThreadedAsyncDataSetIterator-" + i);
+                threads[i].setDaemon(true);
+            }
+        }
+
+        private void start(){
+            for(Thread t : threads) t.start();
+        }
+
+        private void stop(){
+            killRunnable = true;
+            for(Thread t : threads) t.interrupt();
+        }
+
+        private void awaitExit(long timeout, TimeUnit unit){
+            try{
+                exited.tryAcquire(numWorkers, timeout, unit);
+            } catch( InterruptedException e ){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        //Call with lock held
+        private boolean nextReady(){
+            if(buffer.isEmpty()) return false;
+            if(!ordered) return true;
+            //Skip over sequence numbers for sources that have run out
+            int n = sources.size();
+            while(true){
+                int source = (int)(expected % n);
+                if(finalCounts[source] >= 0 && expected / n >= finalCounts[source]) expected++;
+                else break;
+            }
+            return buffer.peek().seq == expected;
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final Run run;
+        private final int worker;
+        private final int source;
+
+        private Worker(Run run, int worker, int source){
+            this.run = run;
+            this.worker = worker;
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            try {
+                DataSetIterator iter = sources.get(source);
+                while(!run.killRunnable){
+                    DataSet ds;
+                    long seq;
+                    synchronized (sourceLocks[source]){
+                        if(run.killRunnable) return;
+                        if(!iter.hasNext()){
+                            finished();
+                            return;
+                        }
+                        ds = iter.next();
+                        seq = run.counts[source]++ * sources.size() + source;
+                    }
+                    DataSetPreProcessor p = preProcessor;
+                    if(p != null) p.preProcess(ds);
+
+                    run.permits[worker].acquire();
+                    run.lock.lock();
+                    try {
+                        if(run.killRunnable) return;
+                        run.buffer.add(new Entry(seq, worker, ds));
+                        run.changed.signalAll();
+                    } finally {
+                        run.lock.unlock();
+                    }
+                }
+            } catch( InterruptedException e ){
+                //interrupt() by reset/shutdown while waiting for the queue
+                if(!run.killRunnable) setException(new RuntimeException("Worker interrupted unexpectedly",e));
+            } catch( RuntimeException e ){
+                setException(e);
+            } finally {
+                run.lock.lock();
+                try {
+                    run.liveWorkers--;
+                    run.changed.signalAll();
+                } finally {
+                    run.lock.unlock();
+                }
+                run.exited.release();
+            }
+        }
+
+        //Called with the source lock held, so no other worker can be between hasNext() and next() for this source
+        private void finished(){
+            run.lock.lock();
+            try {
+                if(run.finalCounts[source] < 0) run.finalCounts[source] = run.counts[source];
+                run.changed.signalAll();
+            } finally {
+                run.lock.unlock();
+            }
+        }
+
+        private void setException(RuntimeException e){
+            run.lock.lock();
+            try {
+                if(run.exception == null) run.exception = e;
+                run.changed.signalAll();
+            } finally {
+                run.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove() {
+    }
+
+}
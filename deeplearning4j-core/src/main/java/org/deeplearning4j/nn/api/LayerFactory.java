@@ -22,6 +22,7 @@ import java.util.Collection;
 
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.optimize.api.IterationListener;
+import org.nd4j.linalg.api.ndarray.INDArray;
 
 /**
  *
@@ -63,6 +64,19 @@ public interface LayerFactory {
      */
     <E extends Layer> E create(NeuralNetConfiguration conf, Collection<IterationListener> iterationListeners, int index);
 
+    /**
+     *
+     * Create a layer whose parameters are views of the given flattened vector:
+     * the parameters are neither allocated nor initialized
+     * @param conf the configuration to create the layer based on
+     * @param iterationListeners the list of iterations listners
+     * @param index the layer number
+     * @param paramsView the flattened parameters of the layer,
+     *                   of length {@link ParamInitializer#numParams(NeuralNetConfiguration)}
+     * @return the created layer
+     */
+    <E extends Layer> E create(NeuralNetConfiguration conf, Collection<IterationListener> iterationListeners, int index, INDArray paramsView);
+
 
     /**
      * Get the param initializer used for initializing layers
@@ -45,4 +45,21 @@ public interface ParamInitializer {
      * @param extraConf an extra configuration for extensions
      */
     void init(Map<String,INDArray> params,NeuralNetConfiguration conf,Configuration extraConf);
+
+    /**
+     * The number of parameters {@link #init(Map, NeuralNetConfiguration)} creates
+     * @param conf the configuration
+     * @return the total length of the parameters of the layer
+     */
+    int numParams(NeuralNetConfiguration conf);
+
+    /**
+     * Initialize the parameters as views of a flattened parameter vector.
+     * The keys, shapes, order and variables are those of {@link #init(Map, NeuralNetConfiguration)}
+     * but nothing is allocated or initialized: the values are the ones already in the vector
+     * @param params the parameters to initialize
+     * @param conf the configuration
+     * @param paramsView the flattened parameters of the layer, of length {@link #numParams(NeuralNetConfiguration)}
+     */
+    void initView(Map<String,INDArray> params,NeuralNetConfiguration conf,INDArray paramsView);
 }
@@ -174,7 +174,10 @@ public class MultiLayerConfiguration implements Serializable, Cloneable {
 
 
         /**
-         * Whether to redistribute parameters as a view or not
+         * Whether to redistribute parameters as a view or not.
+         * When true all layer parameters are views of one flattened
+         * parameter vector allocated on init, so getting and setting the
+         * network's parameters does not copy them
          * @param redistributeParams whether to redistribute parameters
          *                           as a view or not
          * @return
@@ -32,6 +32,8 @@ import java.util.*;
 
 public class DefaultGradient implements Gradient {
     private Map<String,INDArray> gradients = new LinkedHashMap<>();
+    //set when every gradient is a view of one flattened vector (in order)
+    private INDArray flattenedGradient;
 
 
 
@@ -53,12 +55,27 @@ public class DefaultGradient implements Gradient {
 
     @Override
     public INDArray gradient() {
+        if(flattenedGradient != null)
+            return flattenedGradient;
         return Nd4j.toFlattened('f',gradients.values());
     }
 
+    /**
+     * Set the flattened vector the gradients for
+     * every variable are views of. {@link #gradient()}
+     * then returns it as is rather than flattening
+     * the gradients in to a new vector.
+     * Reset by {@link #setGradientFor(String, INDArray)}
+     * @param flattenedGradient the flattened gradient
+     */
+    public void setFlattenedGradient(INDArray flattenedGradient) {
+        this.flattenedGradient = flattenedGradient;
+    }
+
     @Override
     public void clear() {
         gradients.clear();
+        flattenedGradient = null;
     }
 
     @Override
@@ -68,6 +85,7 @@ public class DefaultGradient implements Gradient {
 
     @Override
     public INDArray setGradientFor(String variable, INDArray newGradient) {
+        flattenedGradient = null;
         return gradients.put(variable, newGradient);
     }
 
@@ -66,6 +66,18 @@ public class DefaultLayerFactory implements LayerFactory {
         ret.setInputMiniBatchSize(conf.getBatchSize());
         return (E) ret;
     }
+
+    @Override
+    public <E extends Layer> E create(NeuralNetConfiguration conf, Collection<IterationListener> iterationListeners, int index, INDArray paramsView) {
+        Layer ret = getInstance(conf);
+        ret.setListeners(iterationListeners);
+        ret.setIndex(index);
+        Map<String,INDArray> params = getParams(conf, paramsView);
+        ret.setParamTable(params);
+        ret.setConf(conf);
+        ret.setInputMiniBatchSize(conf.getBatchSize());
+        return (E) ret;
+    }
     
     protected Layer getInstance(NeuralNetConfiguration conf) {
         if(layerConfig instanceof DenseLayer)
@@ -103,6 +115,13 @@ public class DefaultLayerFactory implements LayerFactory {
         return params;
     }
 
+    protected Map<String,INDArray> getParams(NeuralNetConfiguration conf, INDArray paramsView) {
+        ParamInitializer init = initializer();
+        Map<String,INDArray> params = Collections.synchronizedMap(new LinkedHashMap<String,INDArray>());
+        init.initView(params,conf,paramsView);
+        return params;
+    }
+
     @Override
     public ParamInitializer initializer() {
         return new DefaultParamInitializer();
@@ -25,7 +25,6 @@ import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.params.GravesLSTMParamInitializer;
 import org.deeplearning4j.util.Dropout;
-import org.nd4j.linalg.api.blas.Level1;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.factory.Nd4j;
@@ -89,41 +88,43 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
             fwdPass = activateHelper(true, null, null, true);
         }
 
-        INDArray inputWeights = getParam(GravesLSTMParamInitializer.INPUT_WEIGHT_KEY);
-        INDArray recurrentWeights = getParam(GravesLSTMParamInitializer.RECURRENT_WEIGHT_KEY);    //Shape: [hiddenLayerSize,4*hiddenLayerSize+3]; order: [wI,wF,wO,wG,wFF,wOO,wGG]
-
         //Expect errors to have shape: [miniBatchSize,n^(L+1),timeSeriesLength]
-        int hiddenLayerSize = recurrentWeights.size(0);    //i.e., n^L
+        INDArray inputWeights = fwdPass.paramsMmulCompatible[0];    //Shape: [n^(L-1),4*hiddenLayerSize]; order: [wi,wf,wo,wg]
+        INDArray wIFOG = fwdPass.paramsMmulCompatible[1];           //Shape: [hiddenLayerSize,4*hiddenLayerSize]; order: [wI,wF,wO,wG]
+        INDArray wFFTranspose = fwdPass.paramsMmulCompatible[2];
+        INDArray wOOTranspose = fwdPass.paramsMmulCompatible[3];
+        INDArray wGGTranspose = fwdPass.paramsMmulCompatible[4];
+        int hiddenLayerSize = wIFOG.size(0);    //i.e., n^L
         int prevLayerSize = inputWeights.size(0);    //n^(L-1)
         int miniBatchSize = epsilon.size(0);
         boolean is2dInput = epsilon.rank() < 3; //Edge case: T=1 may have shape [miniBatchSize,n^(L+1)], equiv. to [miniBatchSize,n^(L+1),1]
         int timeSeriesLength = (is2dInput ? 1 : epsilon.size(2));
 
-        INDArray wi = fwdPass.paramsMmulCompatible[0];
-        INDArray wI = fwdPass.paramsMmulCompatible[1];
-        INDArray wf = fwdPass.paramsMmulCompatible[2];
-        INDArray wF = fwdPass.paramsMmulCompatible[3];
-        INDArray wo = fwdPass.paramsMmulCompatible[5];
-        INDArray wO = fwdPass.paramsMmulCompatible[6];
-        INDArray wg = fwdPass.paramsMmulCompatible[8];
-        INDArray wG = fwdPass.paramsMmulCompatible[9];
-        INDArray wFFTranspose = fwdPass.paramsMmulCompatible[4];
-        INDArray wOOTranspose = fwdPass.paramsMmulCompatible[7];
-        INDArray wGGTranspose = fwdPass.paramsMmulCompatible[10];
-
-        //Parameter gradients, summed across time. bias gradients, input weight gradients, recurrent weight gradients
-        INDArray[] bGradients = new INDArray[4];
-        INDArray[] iwGradients = new INDArray[4];
-        INDArray[] rwGradients = new INDArray[7];    //Order: {I,F,O,G,FF,OO,GG}
-        for (int i = 0; i < 4; i++) {
-            bGradients[i] = Nd4j.create(new int[]{1, hiddenLayerSize}); //Order as per Nd4j.order()
-            iwGradients[i] = Nd4j.create(new int[]{prevLayerSize, hiddenLayerSize}, 'f'); //f order for use in gemm
-            rwGradients[i] = Nd4j.create(new int[]{hiddenLayerSize, hiddenLayerSize}, 'f');
-        }
-        for (int i = 0; i < 3; i++) rwGradients[i + 4] = Nd4j.zeros(1, hiddenLayerSize);    //Order as per Nd4j.order()
+        //Parameter gradients, summed across time. All f order for use in gemm; zero initialized
+        INDArray iwGradients = Nd4j.create(new int[]{prevLayerSize, 4 * hiddenLayerSize}, 'f');
+        INDArray rwGradients = Nd4j.create(new int[]{hiddenLayerSize, 4 * hiddenLayerSize}, 'f');   //Order: {I,F,O,G}
+        //Bias and peephole gradients: summed over the mini-batch only once, after the last time step
+        INDArray bGradientsAcc = Nd4j.create(new int[]{miniBatchSize, 4 * hiddenLayerSize}, 'f');
+        INDArray wFFGradientsAcc = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        INDArray wOOGradientsAcc = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        INDArray wGGGradientsAcc = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
 
         INDArray epsilonNext = Nd4j.zeros(miniBatchSize, prevLayerSize, timeSeriesLength);    //i.e., what would be W^L*(delta^L)^T. Shape: [m,n^(L-1),T]
 
+        //Buffers, reused for every time step. Deltas for all 4 gates are in one [m,4*hiddenLayerSize] array (order: IFOG),
+        //so that one gemm per time step handles all gates. Two of each, for the current and next (t+1) time step
+        INDArray[] deltaIFOG = new INDArray[2];
+        INDArray[][] deltaGates = new INDArray[2][0];
+        INDArray[] nablaCellStates = new INDArray[2];
+        for (int i = 0; i < 2; i++) {
+            deltaIFOG[i] = Nd4j.create(new int[]{miniBatchSize, 4 * hiddenLayerSize}, 'f');
+            deltaGates[i] = gateViews(deltaIFOG[i], hiddenLayerSize);
+            nablaCellStates[i] = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        }
+        INDArray nablaOut = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        INDArray temp = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        INDArray epsilonNextSlice = Nd4j.create(new int[]{miniBatchSize, prevLayerSize}, 'f');
+
 		/*Placeholder. To be replaced by masking array for used for variable length time series
 		 *Idea: M[i,j] = 1 if data is present for time j in example i in mini-batch.
 		 *M[i,j] = 0 otherwise
@@ -132,13 +133,7 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
 		 */
 //		INDArray timeSeriesMaskArray = Nd4j.ones(miniBatchSize,timeSeriesLength);	//For now: assume that all data in mini-batch is of length 'timeSeriesLength'
 
-        INDArray nablaCellStateNext = null;
-        INDArray deltaiNext = null;
-        INDArray deltafNext = null;
-        INDArray deltaoNext = null;
-        INDArray deltagNext = null;
-
-        Level1 l1BLAS = Nd4j.getBlasWrapper().level1();
+        String afn = conf.getLayer().getActivationFunction();
         int endIdx = 0;
         if (truncatedBPTT) endIdx = Math.max(0, timeSeriesLength - tbpttBackwardLength);
         for (int t = timeSeriesLength - 1; t >= endIdx; t--) {
@@ -146,133 +141,105 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
             INDArray prevHiddenUnitActivation = (t == 0 ? null : fwdPass.fwdPassOutputAsArrays[t - 1]);
             INDArray currMemCellState = fwdPass.memCellState[t];
 
+            INDArray delta = deltaIFOG[t % 2];
+            INDArray deltaNext = deltaIFOG[(t + 1) % 2];
+            INDArray deltai = deltaGates[t % 2][0];
+            INDArray deltaf = deltaGates[t % 2][1];
+            INDArray deltao = deltaGates[t % 2][2];
+            INDArray deltag = deltaGates[t % 2][3];
+            INDArray nablaCellState = nablaCellStates[t % 2];
+            INDArray nablaCellStateNext = nablaCellStates[(t + 1) % 2];
+
             //For variable length mini-batch data: Zero out deltas as necessary, so deltas beyond end of each time series are always 0
             //Not implemented yet, but left here for when this is implemented
 			/*
 			if( t < timeSeriesLength-1 ){
 				INDArray maskColumn = timeSeriesMaskArray.getColumn(t);
-				deltaiNext.muliColumnVector(maskColumn);
-				deltafNext.muliColumnVector(maskColumn);
-				deltaoNext.muliColumnVector(maskColumn);
-				deltagNext.muliColumnVector(maskColumn);
+				deltaNext.muliColumnVector(maskColumn);
 			}*/
 
+            INDArray[] gates = gateViews(fwdPass.ifogActivations[t], hiddenLayerSize);
+            INDArray ai = gates[0];
+            INDArray af = gates[1];
+            INDArray ao = gates[2];
+            INDArray ag = gates[3];
+
             //LSTM unit output errors (dL/d(a_out)); not to be confused with \delta=dL/d(z_out)
             INDArray epsilonSlice = (is2dInput ? epsilon : epsilon.tensorAlongDimension(t, 1, 0));        //(w^{L+1}*(delta^{(L+1)t})^T)^T or equiv.
-            INDArray nablaOut = Shape.toOffsetZeroCopy(epsilonSlice, 'f'); //Shape: [m,n^L]
+            nablaOut.assign(epsilonSlice);  //Shape: [m,n^L]
             if (t != timeSeriesLength - 1) {
-                //if t == timeSeriesLength-1 then deltaiNext etc are zeros
-                Nd4j.gemm(deltaiNext, wI, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltaiNext.mmul(wITranspose))
-                Nd4j.gemm(deltafNext, wF, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltafNext.mmul(wFTranspose))
-                Nd4j.gemm(deltaoNext, wO, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltaoNext.mmul(wOTranspose))
-                Nd4j.gemm(deltagNext, wG, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltagNext.mmul(wGTranspose));
+                //if t == timeSeriesLength-1 then deltaNext is zeros
+                Nd4j.gemm(deltaNext, wIFOG, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltaNext.mmul(wIFOGTranspose))
             }
 
             //Output gate deltas:
             INDArray sigmahOfS = fwdPass.memCellActivations[t];
-            INDArray ao = fwdPass.oa[t];
-            INDArray sigmaoPrimeOfZo = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", ao.dup('f')));    //Equivalent to sigmoid deriv on zo
-            //Normally would use zo.dup() in above line, but won't be using zo again (for this time step). Ditto for zf, zg, zi
-            INDArray deltao = nablaOut.dup('f').muli(sigmahOfS).muli(sigmaoPrimeOfZo); //Shape: [m,n^L]
+            deltao.assign(ao);
+            applyTransform("timesoneminus", deltao);    //Equivalent to sigmoid deriv on zo
+            deltao.muli(nablaOut).muli(sigmahOfS);  //Shape: [m,n^L]
 
             //Memory cell error:
-            INDArray sigmahPrimeOfS = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), currMemCellState.dup('f')).derivative());//	shape: [m,n^L]
-            INDArray nablaCellState = ao.muli(nablaOut).muli(sigmahPrimeOfS);
-            INDArray deltaMulRowWOO = deltao.dup('f').muliRowVector(wOOTranspose);
-            l1BLAS.axpy(nablaCellState.length(), 1.0, deltaMulRowWOO, nablaCellState); //nablaCellState.addi(deltao.mulRowVector(wOOTranspose));
+            nablaCellState.assign(currMemCellState);
+            Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(afn, nablaCellState).derivative());
+            nablaCellState.muli(ao).muli(nablaOut);
+            nablaCellState.addi(temp.assign(deltao).muliRowVector(wOOTranspose));
             if (t != timeSeriesLength - 1) {
-                INDArray nextForgetGateAs = fwdPass.fa[t + 1];
-                int length = nablaCellState.length();
-                l1BLAS.axpy(length, 1.0, nextForgetGateAs.muli(nablaCellStateNext), nablaCellState);       //nablaCellState.addi(nextForgetGateAs.mul(nablaCellStateNext))
-                l1BLAS.axpy(length, 1.0, deltafNext.dup('f').muliRowVector(wFFTranspose), nablaCellState);    //nablaCellState.addi(deltafNext.mulRowVector(wFFTranspose))
-                l1BLAS.axpy(length, 1.0, deltagNext.dup('f').muliRowVector(wGGTranspose), nablaCellState);   //nablaCellState.addi(deltagNext.mulRowVector(wGGTranspose));
+                INDArray nextForgetGateAs = gateViews(fwdPass.ifogActivations[t + 1], hiddenLayerSize)[1];
+                INDArray deltafNext = deltaGates[(t + 1) % 2][1];
+                INDArray deltagNext = deltaGates[(t + 1) % 2][3];
+                nablaCellState.addi(temp.assign(nextForgetGateAs).muli(nablaCellStateNext));
+                nablaCellState.addi(temp.assign(deltafNext).muliRowVector(wFFTranspose));
+                nablaCellState.addi(temp.assign(deltagNext).muliRowVector(wGGTranspose));
             }
-            nablaCellStateNext = nablaCellState;    //Store for use in next iteration
 
-            //Forget gate delta:
-            INDArray af = fwdPass.fa[t];
-            INDArray deltaf = null;
+            //Forget gate delta. At t==0 there is no previous memory cell state, so these are 0
             if (t > 0) {
-                deltaf = nablaCellState.dup('f').muli(prevMemCellState)
-                        .muli(Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", af.dup('f'))));    //Equivalent to sigmoid deriv on zf
+                deltaf.assign(af);
+                applyTransform("timesoneminus", deltaf);    //Equivalent to sigmoid deriv on zf
+                deltaf.muli(nablaCellState).muli(prevMemCellState);
+            } else {
+                deltaf.assign(0.0);
             }
-            //Shape: [m,n^L]
 
             //Input modulation gate delta:
-            INDArray ag = fwdPass.ga[t];
-            INDArray ai = fwdPass.ia[t];
-            INDArray deltag = ai.muli(nablaCellState)
-                    .muli(Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", ag.dup('f'))));    //Equivalent to sigmoid deriv on zg
-            //Shape: [m,n^L]
+            deltag.assign(ag);
+            applyTransform("timesoneminus", deltag);    //Equivalent to sigmoid deriv on zg
+            deltag.muli(ai).muli(nablaCellState);
 
             //Network input delta:
-            INDArray zi = fwdPass.iz[t];
-            INDArray deltai = ag.muli(nablaCellState)
-                    .muli(Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), zi).derivative()));
-            //Shape: [m,n^L]
+            deltai.assign(fwdPass.iz[t]);
+            Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(afn, deltai).derivative());
+            deltai.muli(ag).muli(nablaCellState);
 
             INDArray prevLayerActivationSlice = Shape.toMmulCompatible(is2dInput ? input : input.tensorAlongDimension(t, 1, 0));
-            Nd4j.gemm(prevLayerActivationSlice, deltai, iwGradients[0], true, false, 1.0, 1.0);   //iwGradients[0].addi(prevLayerActivationSliceTransposed.mmul(deltai));
-            if (t > 0)
-                Nd4j.gemm(prevLayerActivationSlice, deltaf, iwGradients[1], true, false, 1.0, 1.0);   //iwGradients[1].addi(prevLayerActivationSliceTransposed.mmul(deltaf));
-            Nd4j.gemm(prevLayerActivationSlice, deltao, iwGradients[2], true, false, 1.0, 1.0);   //iwGradients[2].addi(prevLayerActivationSliceTransposed.mmul(deltao));
-            Nd4j.gemm(prevLayerActivationSlice, deltag, iwGradients[3], true, false, 1.0, 1.0);   //iwGradients[3].addi(prevLayerActivationSliceTransposed.mmul(deltag));
+            Nd4j.gemm(prevLayerActivationSlice, delta, iwGradients, true, false, 1.0, 1.0);   //iwGradients.addi(prevLayerActivationSliceTransposed.mmul(delta))
 
             if (t > 0) {
                 //If t==0, then prevHiddenUnitActivation==zeros(n^L,n^L), so dL/dW for recurrent weights will end up as 0 anyway
-                Nd4j.gemm(prevHiddenUnitActivation, deltai, rwGradients[0], true, false, 1.0, 1.0);   //rwGradients[0].addi(prevActTranspose.mmul(deltai));
-                Nd4j.gemm(prevHiddenUnitActivation, deltaf, rwGradients[1], true, false, 1.0, 1.0);   //rwGradients[1].addi(prevActTranspose.mmul(deltaf));
-                Nd4j.gemm(prevHiddenUnitActivation, deltao, rwGradients[2], true, false, 1.0, 1.0);   //rwGradients[2].addi(prevActTranspose.mmul(deltao));
-                Nd4j.gemm(prevHiddenUnitActivation, deltag, rwGradients[3], true, false, 1.0, 1.0);   //rwGradients[3].addi(prevActTranspose.mmul(deltag));
-
-                //Shape: [1,n^L]. sum(0) is sum over examples in mini-batch.
-                //Can use axpy here because result of sum and rwGradients[4 to 6] have order Nd4j.order(), via Nd4j.create()
-                INDArray dLdwFF = deltaf.dup('f').muli(prevMemCellState).sum(0);    //mul not mmul because these weights are from unit j->j only (whereas other recurrent weights are i->j for all i,j)
-                l1BLAS.axpy(rwGradients[4].length(),1.0,dLdwFF,rwGradients[4]);     //rwGradients[4].addi(dLdwFF);    //dL/dw_{FF}
-                INDArray dLdwGG = deltag.dup('f').muli(prevMemCellState).sum(0);
-                l1BLAS.axpy(rwGradients[6].length(),1.0,dLdwGG,rwGradients[6]);     //rwGradients[6].addi(dLdwGG);
-            }
-
-            INDArray dLdwOO = deltao.dup('f').muli(currMemCellState).sum(0);    //Expected shape: [n^L,1]. sum(0) is sum over examples in mini-batch.
-            l1BLAS.axpy(rwGradients[5].length(),1.0,dLdwOO,rwGradients[5]); //rwGradients[5].addi(dLdwOO);    //dL/dw_{OOxy}
+                Nd4j.gemm(prevHiddenUnitActivation, delta, rwGradients, true, false, 1.0, 1.0);   //rwGradients.addi(prevActTranspose.mmul(delta))
 
-            //Can use axpy here because result of sum and bGradients[i] both have order Nd4j.order(), via Nd4j.create()
-            l1BLAS.axpy(bGradients[0].length(),1.0,deltai.sum(0),bGradients[0]);    //bGradients[0].addi(deltai.sum(0));
-            if(t>0) l1BLAS.axpy(bGradients[1].length(),1.0,deltaf.sum(0),bGradients[1]);    //bGradients[1].addi(deltaf.sum(0));
-            l1BLAS.axpy(bGradients[2].length(),1.0,deltao.sum(0),bGradients[2]);    //bGradients[2].addi(deltao.sum(0));
-            l1BLAS.axpy(bGradients[3].length(),1.0,deltag.sum(0),bGradients[3]);    //bGradients[3].addi(deltag.sum(0));
+                //mul not mmul because these weights are from unit j->j only (whereas other recurrent weights are i->j for all i,j)
+                wFFGradientsAcc.addi(temp.assign(deltaf).muli(prevMemCellState));
+                wGGGradientsAcc.addi(temp.assign(deltag).muli(prevMemCellState));
+            }
+            wOOGradientsAcc.addi(temp.assign(deltao).muli(currMemCellState));
+            bGradientsAcc.addi(delta);
 
             //Calculate epsilonNext - i.e., equiv. to what would be (w^L*(d^(Lt))^T)^T in a normal network
-            //But here, need to add 4 weights * deltas for the IFOG gates
-            INDArray epsilonNextSlice = Nd4j.gemm(deltai,wi,false,true);
-            Nd4j.gemm(deltao, wo, epsilonNextSlice, false, true, 1.0, 1.0);   //epsilonNextSlice.addi(deltao.mmul(woTranspose))
-            Nd4j.gemm(deltag, wg, epsilonNextSlice, false, true, 1.0, 1.0);   //epsilonNextSlice.addi(deltag.mmul(wgTranspose));
-            if (t > 0)
-                Nd4j.gemm(deltaf, wf, epsilonNextSlice, false, true, 1.0, 1.0); //epsilonNextSlice.addi(deltaf.mmul(wfTranspose));
+            //Here: one gemm for the 4 weights * deltas of the IFOG gates
+            Nd4j.gemm(delta, inputWeights, epsilonNextSlice, false, true, 1.0, 0.0);  //epsilonNextSlice = delta.mmul(inputWeightsTranspose)
             epsilonNext.tensorAlongDimension(t, 1, 0).assign(epsilonNextSlice);
-
-            deltaiNext = deltai;
-            deltafNext = deltaf;
-            deltaoNext = deltao;
-            deltagNext = deltag;
         }
 
-        //Weight/bias gradients
+        //Weight/bias gradients. sum(0) is sum over examples in mini-batch
         INDArray iwGradientsOut = Nd4j.zeros(prevLayerSize, 4 * hiddenLayerSize);
         INDArray rwGradientsOut = Nd4j.zeros(hiddenLayerSize, 4 * hiddenLayerSize + 3);    //Order: {I,F,O,G,FF,OO,GG}
-        INDArray bGradientsOut = Nd4j.hstack(bGradients);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(0, hiddenLayerSize)}, iwGradients[0]);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize)}, iwGradients[1]);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize)}, iwGradients[2]);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize)}, iwGradients[3]);
-
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(0, hiddenLayerSize)}, rwGradients[0]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize)}, rwGradients[1]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize)}, rwGradients[2]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize)}, rwGradients[3]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize)}, rwGradients[4].transpose());
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 1)}, rwGradients[5].transpose());
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 2)}, rwGradients[6].transpose());
+        INDArray bGradientsOut = bGradientsAcc.sum(0);
+        iwGradientsOut.assign(iwGradients);
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(0, 4 * hiddenLayerSize)}, rwGradients);
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize)}, wFFGradientsAcc.sum(0).transpose());
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 1)}, wOOGradientsAcc.sum(0).transpose());
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 2)}, wGGGradientsAcc.sum(0).transpose());
 
         Gradient retGradient = new DefaultGradient();
         retGradient.gradientForVariable().put(GravesLSTMParamInitializer.INPUT_WEIGHT_KEY, iwGradientsOut);
@@ -316,7 +283,10 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
 
     /**
      * Returns FwdPassReturn object with activations/INDArrays. Allows activateHelper to be used for forward pass, backward pass
-     * and rnnTimeStep whilst being reasonably efficient for all
+     * and rnnTimeStep whilst being reasonably efficient for all.<br>
+     * For each time step, the pre-activations of all 4 gates (order: IFOG) are calculated in one [m,4*hiddenLayerSize]
+     * array, with one gemm for the inputs and one for the recurrent connections; the gate activations, memory cell state
+     * and outputs are then calculated in place on views of that array and a few buffers allocated once per call.
      */
     private FwdPassReturn activateHelper(boolean training, INDArray prevOutputActivations, INDArray prevMemCellState, boolean forBackprop) {
         //Mini-batch data format: for mini-batch size m, nIn inputs, and T time series length
@@ -324,7 +294,7 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
 
         INDArray recurrentWeights = getParam(GravesLSTMParamInitializer.RECURRENT_WEIGHT_KEY);    //Shape: [hiddenLayerSize,4*hiddenLayerSize+3]; order: [wI,wF,wO,wG,wFF,wOO,wGG]
         INDArray inputWeights = getParam(GravesLSTMParamInitializer.INPUT_WEIGHT_KEY);            //Shape: [n^(L-1),4*hiddenLayerSize]; order: [wi,wf,wo,wg]
-        INDArray biases = getParam(GravesLSTMParamInitializer.BIAS_KEY); //by row: IFOG			//Shape: [4,hiddenLayerSize]; order: [bi,bf,bo,bg]^T
+        INDArray biases = getParam(GravesLSTMParamInitializer.BIAS_KEY); //Shape: [1,4*hiddenLayerSize]; order: [bi,bf,bo,bg]
 
         boolean is2dInput = input.rank() < 3;        //Edge case of T=1, may have shape [m,nIn], equiv. to [m,nIn,1]
         int timeSeriesLength = (is2dInput ? 1 : input.size(2));
@@ -337,120 +307,97 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
                 inputWeights = Dropout.applyDropConnect(this, GravesLSTMParamInitializer.INPUT_WEIGHT_KEY);
             }
         }
+        inputWeights = Shape.toMmulCompatible(inputWeights);
+        biases = Shape.toMmulCompatible(biases);
 
-        //Extract weights and biases:
-        INDArray wi = inputWeights.get(NDArrayIndex.all(), interval(0, hiddenLayerSize));    //i.e., want rows 0..nIn, columns 0..hiddenLayerSize
-        INDArray wI = recurrentWeights.get(NDArrayIndex.all(), interval(0, hiddenLayerSize));
-        INDArray bi = biases.get(NDArrayIndex.point(0), interval(0, hiddenLayerSize));
-
-        INDArray wf = inputWeights.get(NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
-        INDArray wF = recurrentWeights.get(NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize)); //previous
-        INDArray wFFTranspose = recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize, 4 * hiddenLayerSize + 1)).transpose(); //current
-        INDArray bf = biases.get(NDArrayIndex.point(0), interval(hiddenLayerSize, 2 * hiddenLayerSize));
-
-        INDArray wo = inputWeights.get(NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
-        INDArray wO = recurrentWeights.get(NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize)); //previous
-        INDArray wOOTranspose = recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 1, 4 * hiddenLayerSize + 2)).transpose(); //current
-        INDArray bo = biases.get(NDArrayIndex.point(0), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
-
-        INDArray wg = inputWeights.get(NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
-        INDArray wG = recurrentWeights.get(NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize)); //previous
-        INDArray wGGTranspose = recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 2, 4 * hiddenLayerSize + 3)).transpose(); //previous
-        INDArray bg = biases.get(NDArrayIndex.point(0), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
-
-        if (timeSeriesLength > 1 || forBackprop) {
-            wi = Shape.toMmulCompatible(wi);
-            wI = Shape.toMmulCompatible(wI);
-            wf = Shape.toMmulCompatible(wf);
-            wF = Shape.toMmulCompatible(wF);
-            wFFTranspose = Shape.toMmulCompatible(wFFTranspose);
-            wo = Shape.toMmulCompatible(wo);
-            wO = Shape.toMmulCompatible(wO);
-            wOOTranspose = Shape.toMmulCompatible(wOOTranspose);
-            wg = Shape.toMmulCompatible(wg);
-            wG = Shape.toMmulCompatible(wG);
-            wGGTranspose = Shape.toMmulCompatible(wGGTranspose);
-            bi = Shape.toMmulCompatible(bi);
-            bf = Shape.toMmulCompatible(bf);
-            bo = Shape.toMmulCompatible(bo);
-            bg = Shape.toMmulCompatible(bg);
+        //Recurrent weights for all 4 gates, as one matrix. Not needed for a single time step with no previous state
+        INDArray wIFOG = null;
+        if (timeSeriesLength > 1 || forBackprop || prevOutputActivations != null) {
+            wIFOG = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(0, 4 * hiddenLayerSize)));
         }
+        INDArray wFFTranspose = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize, 4 * hiddenLayerSize + 1)).transpose()); //previous
+        INDArray wOOTranspose = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 1, 4 * hiddenLayerSize + 2)).transpose()); //current
+        INDArray wGGTranspose = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 2, 4 * hiddenLayerSize + 3)).transpose()); //previous
 
         //Allocate arrays for activations:
         INDArray outputActivations = null;
 
         FwdPassReturn toReturn = new FwdPassReturn();
         if (forBackprop) {
-            toReturn.paramsMmulCompatible = new INDArray[]{wi, wI, wf, wF, wFFTranspose, wo, wO, wOOTranspose, wg, wG, wGGTranspose};
+            toReturn.paramsMmulCompatible = new INDArray[]{inputWeights, wIFOG, wFFTranspose, wOOTranspose, wGGTranspose};
             toReturn.fwdPassOutputAsArrays = new INDArray[timeSeriesLength];
             toReturn.memCellState = new INDArray[timeSeriesLength];
             toReturn.memCellActivations = new INDArray[timeSeriesLength];
             toReturn.iz = new INDArray[timeSeriesLength];
-            toReturn.ia = new INDArray[timeSeriesLength];
-            toReturn.fa = new INDArray[timeSeriesLength];
-            toReturn.oa = new INDArray[timeSeriesLength];
-            toReturn.ga = new INDArray[timeSeriesLength];
+            toReturn.ifogActivations = new INDArray[timeSeriesLength];
         } else {
-            outputActivations = Nd4j.zeros(new int[]{miniBatchSize, hiddenLayerSize, timeSeriesLength});
+            outputActivations = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize, timeSeriesLength});
             toReturn.fwdPassOutput = outputActivations;
         }
 
-        Level1 l1BLAS = Nd4j.getBlasWrapper().level1();
+        //Buffers. For backprop, the per time step values are kept, so these are only reused for the forward pass.
+        //Two of the output and memory cell state buffers: for the current and previous time step
+        INDArray ifogBuffer = (forBackprop ? null : Nd4j.create(new int[]{miniBatchSize, 4 * hiddenLayerSize}, 'f'));
+        INDArray[] outputBuffers = new INDArray[2];
+        INDArray[] memCellBuffers = new INDArray[2];
+        INDArray memCellActivationBuffer = null;
+        if (!forBackprop) {
+            for (int i = 0; i < 2; i++) {
+                outputBuffers[i] = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+                memCellBuffers[i] = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+            }
+            memCellActivationBuffer = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        }
+        INDArray temp = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
 
-        if (prevOutputActivations == null)
-            prevOutputActivations = Nd4j.zeros(new int[]{miniBatchSize, hiddenLayerSize});
-        if (prevMemCellState == null) prevMemCellState = Nd4j.zeros(new int[]{miniBatchSize, hiddenLayerSize});
+        String afn = conf.getLayer().getActivationFunction();
+        //No previous output/memory cell state is equivalent to zeros: the recurrent and peephole terms are skipped at t=0
         for (int t = 0; t < timeSeriesLength; t++) {
             INDArray miniBatchData = (is2dInput ? input : input.tensorAlongDimension(t, 1, 0));    //[Expected shape: [m,nIn]. Also deals with edge case of T=1, with 'time series' data of shape [m,nIn], equiv. to [m,nIn,1]
             miniBatchData = Shape.toMmulCompatible(miniBatchData);
 
-            //Calculate activations for: network input + forget, output, input modulation gates.
-            INDArray inputActivations = miniBatchData.mmul(wi);
-            Nd4j.gemm(prevOutputActivations, wI, inputActivations, false, false, 1.0, 1.0);
-            inputActivations.addiRowVector(bi);
+            //Calculate pre-activations for: network input + forget, output, input modulation gates.
+            INDArray ifogActivations = (forBackprop ? Nd4j.create(new int[]{miniBatchSize, 4 * hiddenLayerSize}, 'f') : ifogBuffer);
+            Nd4j.gemm(miniBatchData, inputWeights, ifogActivations, false, false, 1.0, 0.0);
+            if (prevOutputActivations != null)
+                Nd4j.gemm(prevOutputActivations, wIFOG, ifogActivations, false, false, 1.0, 1.0);
+            ifogActivations.addiRowVector(biases);
+            INDArray[] gates = gateViews(ifogActivations, hiddenLayerSize);
+            INDArray inputActivations = gates[0];
+            INDArray forgetGateActivations = gates[1];
+            INDArray outputGateActivations = gates[2];
+            INDArray inputModGateActivations = gates[3];
+
             if (forBackprop) toReturn.iz[t] = inputActivations.dup('f');
-            Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), inputActivations));
-            if (forBackprop) toReturn.ia[t] = inputActivations;
-
-            INDArray forgetGateActivations = miniBatchData.mmul(wf);
-            Nd4j.gemm(prevOutputActivations, wF, forgetGateActivations, false, false, 1.0, 1.0);
-            INDArray pmcellWFF = prevMemCellState.dup('f').muliRowVector(wFFTranspose);
-            l1BLAS.axpy(pmcellWFF.length(), 1.0, pmcellWFF, forgetGateActivations);   //y = a*x + y i.e., forgetGateActivations.addi(pmcellWFF)
-            //Above line: treats matrix as a vector. Can only do this because we're sure both pwcelWFF and forgetGateACtivations are f order, offset 0 and have same strides
-            forgetGateActivations.addiRowVector(bf);
-            Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("sigmoid", forgetGateActivations));
-            if (forBackprop) toReturn.fa[t] = forgetGateActivations;
-
-
-            INDArray inputModGateActivations = miniBatchData.mmul(wg);
-            Nd4j.gemm(prevOutputActivations, wG, inputModGateActivations, false, false, 1.0, 1.0);
-            INDArray pmcellWGG = prevMemCellState.dup('f').muliRowVector(wGGTranspose);
-            l1BLAS.axpy(pmcellWGG.length(), 1.0, pmcellWGG, inputModGateActivations);   //inputModGateActivations.addi(pmcellWGG)
-            inputModGateActivations.addiRowVector(bg);
-            Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("sigmoid", inputModGateActivations));
-            if (forBackprop) toReturn.ga[t] = inputModGateActivations;
+            applyTransform(afn, inputActivations);
+
+            if (prevMemCellState != null) {
+                forgetGateActivations.addi(temp.assign(prevMemCellState).muliRowVector(wFFTranspose));
+                inputModGateActivations.addi(temp.assign(prevMemCellState).muliRowVector(wGGTranspose));
+            }
+            applyTransform("sigmoid", forgetGateActivations);
+            applyTransform("sigmoid", inputModGateActivations);
 
             //Memory cell state
-            INDArray currentMemoryCellState = forgetGateActivations.dup('f').muli(prevMemCellState);
-            INDArray inputModMulInput = inputModGateActivations.dup('f').muli(inputActivations);
-            l1BLAS.axpy(currentMemoryCellState.length(), 1.0, inputModMulInput, currentMemoryCellState);   //currentMemoryCellState.addi(inputModMulInput)
-
-            INDArray outputGateActivations = miniBatchData.mmul(wo);
-            Nd4j.gemm(prevOutputActivations, wO, outputGateActivations, false, false, 1.0, 1.0);
-            INDArray pmcellWOO = currentMemoryCellState.dup('f').muliRowVector(wOOTranspose);
-            l1BLAS.axpy(pmcellWOO.length(), 1.0, pmcellWOO, outputGateActivations);   //outputGateActivations.addi(pmcellWOO)
-            outputGateActivations.addiRowVector(bo);
-            Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("sigmoid", outputGateActivations));
-            if (forBackprop) toReturn.oa[t] = outputGateActivations;
+            INDArray currentMemoryCellState = (forBackprop ? Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f') : memCellBuffers[t % 2]);
+            currentMemoryCellState.assign(inputModGateActivations).muli(inputActivations);
+            if (prevMemCellState != null)
+                currentMemoryCellState.addi(temp.assign(forgetGateActivations).muli(prevMemCellState));
+
+            outputGateActivations.addi(temp.assign(currentMemoryCellState).muliRowVector(wOOTranspose));
+            applyTransform("sigmoid", outputGateActivations);
 
             //LSTM unit outputs:
-            INDArray currMemoryCellActivation = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), currentMemoryCellState.dup('f')));
-            INDArray currHiddenUnitActivations = currMemoryCellActivation.dup('f').muli(outputGateActivations);    //Expected shape: [m,hiddenLayerSize]
+            INDArray currMemoryCellActivation = (forBackprop ? Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f') : memCellActivationBuffer);
+            applyTransform(afn, currMemoryCellActivation.assign(currentMemoryCellState));
+            INDArray currHiddenUnitActivations = (forBackprop ? Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f') : outputBuffers[t % 2]);
+            currHiddenUnitActivations.assign(currMemoryCellActivation).muli(outputGateActivations);    //Expected shape: [m,hiddenLayerSize]
 
             if (forBackprop) {
                 toReturn.fwdPassOutputAsArrays[t] = currHiddenUnitActivations;
                 toReturn.memCellState[t] = currentMemoryCellState;
                 toReturn.memCellActivations[t] = currMemoryCellActivation;
+                toReturn.ifogActivations[t] = ifogActivations;
             } else {
                 outputActivations.tensorAlongDimension(t, 1, 0).assign(currHiddenUnitActivations);
             }
@@ -458,6 +405,7 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
             prevOutputActivations = currHiddenUnitActivations;
             prevMemCellState = currentMemoryCellState;
 
+            //Buffers aren't reused after the last time step, so these are safe to keep
             toReturn.lastAct = currHiddenUnitActivations;
             toReturn.lastMemCell = currentMemoryCellState;
         }
@@ -465,6 +413,19 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
         return toReturn;
     }
 
+    /** Views of the I, F, O and G blocks (in that order) of a [m,4*hiddenLayerSize] gate array */
+    private static INDArray[] gateViews(INDArray ifog, int hiddenLayerSize) {
+        INDArray[] out = new INDArray[4];
+        for (int i = 0; i < 4; i++) {
+            out[i] = ifog.get(NDArrayIndex.all(), interval(i * hiddenLayerSize, (i + 1) * hiddenLayerSize));
+        }
+        return out;
+    }
+
+    private static INDArray applyTransform(String name, INDArray inPlace) {
+        return Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(name, inPlace));
+    }
+
     @Override
     public INDArray activationMean() {
         return activate();
@@ -512,15 +473,12 @@ public class GravesLSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.la
         //First: needed by standard forward pass only
         private INDArray fwdPassOutput;
         //Arrays: Needed for backpropGradient only
-        private INDArray[] paramsMmulCompatible;    //{wi,wI,wf,wF,wFF,wo,wO,wOO,wg,wG,wGG}
+        private INDArray[] paramsMmulCompatible;    //{inputWeights,wIFOG,wFF,wOO,wGG}
         private INDArray[] fwdPassOutputAsArrays;
         private INDArray[] memCellState;        //Pre nonlinearity
         private INDArray[] memCellActivations;    //Post nonlinearity
         private INDArray[] iz;
-        private INDArray[] ia;
-        private INDArray[] fa;
-        private INDArray[] oa;
-        private INDArray[] ga;
+        private INDArray[] ifogActivations;     //Post nonlinearity, all 4 gates. Shape: [m,4*hiddenLayerSize]; order: IFOG
         //Last 2: needed for rnnTimeStep only
         private INDArray lastAct;
         private INDArray lastMemCell;
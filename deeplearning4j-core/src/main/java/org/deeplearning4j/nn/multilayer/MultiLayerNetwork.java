@@ -24,6 +24,7 @@ import org.deeplearning4j.berkeley.Pair;
 import org.deeplearning4j.eval.Evaluation;
 import org.deeplearning4j.nn.api.*;
 import org.deeplearning4j.nn.conf.BackpropType;
+import org.deeplearning4j.nn.conf.InputPreProcessor;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
@@ -39,6 +40,7 @@ import org.deeplearning4j.optimize.api.ConvexOptimizer;
 import org.deeplearning4j.optimize.api.IterationListener;
 import org.deeplearning4j.util.MultiLayerUtil;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.transforms.SoftMax;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
@@ -90,6 +92,10 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
 
     protected transient Solver solver;	//Used to call optimizers during backprop
 
+    //Activation buffers for inference(INDArray), per thread
+    private transient volatile ThreadLocal<INDArray[]> inferenceBuffers;
+    private int inferenceBatchSize = 1;
+
 
     public MultiLayerNetwork(MultiLayerConfiguration conf) {
         this.layerWiseConfigurations = conf;
@@ -250,6 +256,30 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * The updater used by fit(), which holds the updater state (momentum, AdaGrad history etc)
+     * @return the updater, or null if the network hasn't been fit yet
+     */
+    public Updater getUpdater() {
+        if (solver == null)
+            return null;
+        return solver.getOptimizer().getUpdater();
+    }
+
+    /**
+     * Set the updater used by fit(), for example to continue training with updater state restored from a checkpoint
+     * @param updater the updater, created for a network with the same configuration
+     */
+    public void setUpdater(Updater updater) {
+        if (solver == null) {
+            solver = new Solver.Builder()
+                    .configure(conf())
+                    .listeners(getListeners())
+                    .model(this).build();
+        }
+        solver.getOptimizer().setUpdater(updater);
+    }
+
     @Override
     public INDArray getParam(String param) {
         //Get params for MultiLayerNetwork sub layers.
@@ -351,18 +381,67 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
             initMask();
         }
 
-        //Set parameters in MultiLayerNetwork.defaultConfiguration for later use in BaseOptimizer.setupSearchState() etc
-        //Keyed as per backprop()
+        initVariables();
+
+        //all params are views
+        if(getLayerWiseConfigurations().isRedistributeParams())
+            reDistributeParams();
+    }
+
+    /**
+     * Initialize the network over the given flattened parameters.
+     * The parameters of each layer are created as views of the vector
+     * (see {@link #reDistributeParams(INDArray)}) instead of being allocated
+     * and randomly initialized first, so a saved or memory mapped vector
+     * can be loaded without any model sized allocation.
+     * If the network is already initialized the parameters are redistributed instead
+     *
+     * @param parameters the flattened parameters, of length {@link #numParams()}
+     */
+    public void init(INDArray parameters) {
+        if (layerWiseConfigurations == null || layers == null)
+            intializeConfigurations();
+        if (initCalled) {
+            reDistributeParams(parameters);
+            return;
+        }
+
+        if (getnLayers() < 1)
+            throw new IllegalStateException("Unable to createComplex network neuralNets; number specified is less than 1");
+
+        int[] numParams = new int[getnLayers()];
+        int length = 0;
+        for (int i = 0; i < getnLayers(); i++) {
+            NeuralNetConfiguration conf = layerWiseConfigurations.getConf(i);
+            numParams[i] = LayerFactories.getFactory(conf).initializer().numParams(conf);
+            length += numParams[i];
+        }
+        if(parameters.length() != length)
+            throw new IllegalArgumentException("Unable to initialize from parameters: must be of length " + length + " but was " + parameters.length());
+
+        this.layers = new Layer[getnLayers()];
+        int idx = 0;
+        for (int i = 0; i < getnLayers(); i++) {
+            NeuralNetConfiguration conf = layerWiseConfigurations.getConf(i);
+            INDArray view = numParams[i] < 1 ? null : parameters.get(NDArrayIndex.point(0),NDArrayIndex.interval(idx, idx + numParams[i]));
+            layers[i] = LayerFactories.getFactory(conf).create(conf, listeners, i, view);
+            idx += numParams[i];
+        }
+        //the drop connect mask is model sized: leave it to be created lazily when it is first used
+        initCalled = true;
+        initVariables();
+        this.params = parameters;
+    }
+
+    //Set parameters in MultiLayerNetwork.defaultConfiguration for later use in BaseOptimizer.setupSearchState() etc
+    //Keyed as per backprop()
+    private void initVariables() {
         defaultConfiguration.clearVariables();
         for( int i=0; i<layers.length; i++ ){
             for( String s : layers[i].conf().variables() ){
                 defaultConfiguration.addVariable(i+"_"+s);
             }
         }
-
-        //all params are views
-        if(getLayerWiseConfigurations().isRedistributeParams())
-            reDistributeParams();
     }
 
 
@@ -416,7 +495,12 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
 
     /**
      * Redistribute parameters handles
-     * having parameters as a view
+     * having parameters as a view.
+     * The parameters of every layer are copied once in to
+     * a single contiguous row vector and each layer's parameters
+     * are then replaced by views of that vector.
+     * After this {@link #params()} returns the vector itself
+     * and {@link #setParams(INDArray)} copies in to it in place.
      */
     public void reDistributeParams() {
         List<INDArray> params = new ArrayList<>();
@@ -425,20 +509,41 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
             params.add(paramsForL);
         }
 
-        this.params = Nd4j.toFlattened('f', params);
+        reDistributeParams(Nd4j.toFlattened('f', params));
+    }
+
+    /**
+     * Redistribute parameters as views of the given vector.
+     * The values in the vector become the parameters of the network:
+     * the vector is not copied. Several networks with the same configuration
+     * can be given the same vector to share their parameters
+     *
+     * @param params the vector to use as the flattened parameters, of length {@link #numParams()}
+     */
+    public void reDistributeParams(INDArray params) {
+        if(params.length() != numParams())
+            throw new IllegalArgumentException("Unable to redistribute parameters: must be of length " + numParams() + " but was " + params.length());
+        this.params = params;
         int idx = 0;
         for(Layer l : layers) {
-            INDArray paramsForL = l.params();
-            params.add(paramsForL);
             int range = l.numParams();
-            INDArray get = this.params.get(NDArrayIndex.point(0),NDArrayIndex.interval(idx, range + idx));
-            if (get.length() < 1)
+            if (range < 1)
                 continue;
+            INDArray get = this.params.get(NDArrayIndex.point(0),NDArrayIndex.interval(idx, range + idx));
             l.setParams(get);
             idx += range;
         }
+    }
 
-
+    /**
+     * Whether the parameters of this network
+     * are views of one flattened parameter vector
+     * (see {@link #reDistributeParams()})
+     * @return true if {@link #params()} returns the
+     * backing parameter vector rather than a copy
+     */
+    public boolean isParamsFlattened() {
+        return params != null;
     }
 
     /**
@@ -803,7 +908,10 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
     /**
      * Returns a 1 x m vector where the vector is composed of
      * a flattened vector of all of the weights for the
-     * various neuralNets(w,hbias NOT VBIAS) and output layer
+     * various neuralNets(w,hbias NOT VBIAS) and output layer.
+     * When the parameters have been redistributed
+     * this is the backing vector itself (no copy is made): changes to it
+     * are changes to the network
      *
      * @return the params for this neural net
      */
@@ -824,13 +932,24 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
      * Set the parameters for this model.
      * This expects a linear ndarray
      * which then be unpacked internally
-     * relative to the expected ordering of the model
+     * relative to the expected ordering of the model.
+     * When the parameters have been redistributed the values are copied
+     * in to the backing vector so that the layer views stay valid
+     * (passing the backing vector itself is a no op)
      *
      * @param params the parameters for the model
      */
     @Override
     public void setParams(INDArray params) {
-        if(this.params != null) this.params = params;  //not null if isRedistributeParams
+        if(this.params != null) {
+            //not null if isRedistributeParams: layer params are views of this.params
+            if(params == this.params)
+                return;
+            if(params.length() != this.params.length())
+                throw new IllegalArgumentException("Unable to set parameters: must be of length " + this.params.length() + " but was " + params.length());
+            this.params.assign(params);
+            return;
+        }
         int idx = 0;
         for (int i = 0; i < getLayers().length; i++) {
             Layer layer = getLayer(i);
@@ -1450,6 +1569,106 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         return output(input, TrainingMode.TRAIN);
     }
 
+    /**
+     * Output of the network for the given input, for inference only: equivalent to output(input, false),
+     * but without keeping the activations of every layer (or setting the input on the network).<br>
+     * Fully connected layers (DenseLayer, OutputLayer) are activated in to per thread buffers sized for
+     * the largest (pre processed) layer input seen so far (see {@link #setInferenceBatchSize(int)}), so no new
+     * arrays are created for them. Other layers are activated as per Layer.activate(input, false).<br>
+     * Note that the returned array may be a buffer that is overwritten by the next call on the same thread:
+     * use dup() to keep it.
+     *
+     * @param input the input to label
+     * @return the output of the last layer
+     */
+    public INDArray inference(INDArray input) {
+        if (input == null)
+            throw new IllegalArgumentException("No null input allowed");
+        int miniBatchSize = input.size(0);
+        INDArray[] buffers = inferenceBuffers();
+        INDArray currInput = input;
+        for (int i = 0; i < layers.length; i++) {
+            InputPreProcessor preProcessor = getLayerWiseConfigurations().getInputPreProcess(i);
+            if (preProcessor != null) {
+                //Preprocessors reshape with the layer's minibatch size, which is shared between threads
+                synchronized (layers[i]) {
+                    layers[i].setInputMiniBatchSize(miniBatchSize);
+                    currInput = preProcessor.preProcess(currInput, layers[i]);
+                }
+            }
+            if (isFullyConnected(layers[i]) && currInput.rank() == 2) {
+                currInput = activateInto(layers[i], currInput, inferenceBuffer(buffers, i, currInput.rows()));
+            } else {
+                //activate(...) sets the input on the layer
+                synchronized (layers[i]) {
+                    layers[i].setInputMiniBatchSize(miniBatchSize);
+                    currInput = layers[i].activate(currInput, false);
+                }
+            }
+        }
+        return currInput;
+    }
+
+    /**
+     * Set the number of examples the per thread inference buffers are created for.
+     * Buffers grow as necessary: this just avoids reallocating them for a larger batch later
+     *
+     * @param maxBatchSize the largest number of examples expected in a call to inference(INDArray)
+     */
+    public void setInferenceBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be > 0");
+        this.inferenceBatchSize = maxBatchSize;
+    }
+
+    //Per layer buffers for this thread, created as layers are activated in to them
+    private INDArray[] inferenceBuffers() {
+        if (inferenceBuffers == null) {
+            synchronized (this) {
+                if (inferenceBuffers == null)
+                    inferenceBuffers = new ThreadLocal<>();
+            }
+        }
+        INDArray[] buffers = inferenceBuffers.get();
+        if (buffers == null || buffers.length != layers.length) {
+            buffers = new INDArray[layers.length];
+            inferenceBuffers.set(buffers);
+        }
+        return buffers;
+    }
+
+    //The first rows of the buffer for layer i, replacing the buffer if it has fewer rows.
+    //Rows are those of the (pre processed) layer input, so mb*T for a layer after an RNN layer
+    private INDArray inferenceBuffer(INDArray[] buffers, int i, int rows) {
+        INDArray buffer = buffers[i];
+        if (buffer == null || buffer.rows() < rows) {
+            int nOut = layers[i].getParam(DefaultParamInitializer.WEIGHT_KEY).columns();
+            buffer = Nd4j.create(new int[]{Math.max(rows, inferenceBatchSize), nOut}, 'c');
+            buffers[i] = buffer;
+        }
+        return buffer.rows() == rows ? buffer : buffer.get(NDArrayIndex.interval(0, rows), NDArrayIndex.all());
+    }
+
+    private static boolean isFullyConnected(Layer layer) {
+        return layer instanceof org.deeplearning4j.nn.layers.feedforward.dense.DenseLayer
+                || layer instanceof org.deeplearning4j.nn.layers.OutputLayer;
+    }
+
+    //Activation of a fully connected layer, without dropout, in place in out
+    private static INDArray activateInto(Layer layer, INDArray input, INDArray out) {
+        INDArray W = layer.getParam(DefaultParamInitializer.WEIGHT_KEY);
+        INDArray b = layer.getParam(DefaultParamInitializer.BIAS_KEY);
+        input.mmul(W, out);
+        out.addiRowVector(b);
+        String activation = layer.conf().getLayer().getActivationFunction();
+        if (activation.equals("softmax")) {
+            SoftMax softMax = new SoftMax(out);
+            softMax.exec(1);
+            return softMax.z();
+        }
+        return Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(activation, out));
+    }
+
 
     /**
      * Reconstructs the input.
@@ -1497,6 +1716,8 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         setInput(network.input);
         this.labels = network.labels;
         this.layers = ArrayUtils.clone(network.layers);
+        //the layers are shared: so is the vector their parameters are views of
+        this.params = network.params;
     }
 
 
@@ -1608,9 +1829,11 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
      */
 
     public double score(INDArray param) {
-        INDArray params = params();
+        INDArray params = params().dup();
         setParameters(param);
         double ret = score();
+        if (mask == null)
+            initMask();
         double regCost = 0.5f * defaultConfiguration.getLayer().getL2() * (double) Transforms.pow(mask.mul(param), 2).sum(Integer.MAX_VALUE).element();
         setParameters(params);
         return ret + regCost;
@@ -1694,6 +1917,10 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
      * @param params a parameter vector equal 1,numParameters
      */
     public void setParameters(INDArray params) {
+        if(this.params != null) {
+            setParams(params);
+            return;
+        }
         int idx = 0;
         for (int i = 0; i < getLayers().length; i++) {
             Layer layer = getLayer(i);
@@ -49,4 +49,24 @@ public class BatchNormalizationParamInitializer implements ParamInitializer {
     public void init(Map<String, INDArray> params, NeuralNetConfiguration conf, Configuration extraConf) {
 
     }
+
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        BatchNormalization normalization = (BatchNormalization) conf.getLayer();
+        return 6 * ArrayUtil.prod(normalization.getShape());
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        BatchNormalization normalization = (BatchNormalization) conf.getLayer();
+        int size = ArrayUtil.prod(normalization.getShape());
+
+        ParamViews views = new ParamViews(paramsView);
+        params.put(AVG_MEAN, views.next(1,size,1));
+        params.put(AVG_VAR, views.next(1,size,1));
+        params.put(GAMMA, views.next(1,size,1));
+        params.put(GAMMA_GRADIENT, views.next(1,size,1));
+        params.put(BETA, views.next(1,size,1));
+        params.put(BETA_GRADIENT, views.next(1,size,1));
+    }
 }
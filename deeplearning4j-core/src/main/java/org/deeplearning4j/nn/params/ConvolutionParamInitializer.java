@@ -57,6 +57,30 @@ public class ConvolutionParamInitializer implements ParamInitializer {
         init(params,conf);
     }
 
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        org.deeplearning4j.nn.conf.layers.ConvolutionLayer layerConf =
+                (org.deeplearning4j.nn.conf.layers.ConvolutionLayer) conf.getLayer();
+        int weights = layerConf.getNOut() * layerConf.getNIn();
+        for(int k : layerConf.getKernelSize())
+            weights *= k;
+        return layerConf.getNOut() + weights;
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        org.deeplearning4j.nn.conf.layers.ConvolutionLayer layerConf =
+                (org.deeplearning4j.nn.conf.layers.ConvolutionLayer) conf.getLayer();
+        if(layerConf.getKernelSize().length < 2)
+            throw new IllegalArgumentException("Filter size must be == 2");
+
+        ParamViews views = new ParamViews(paramsView);
+        params.put(BIAS_KEY,views.next(1,layerConf.getNOut()));
+        params.put(WEIGHT_KEY,views.next(Ints.concat(new int[] {layerConf.getNOut(), layerConf.getNIn()}, layerConf.getKernelSize())));
+        conf.addVariable(WEIGHT_KEY);
+        conf.addVariable(BIAS_KEY);
+    }
+
     //1 bias per feature map
     protected INDArray createBias(NeuralNetConfiguration conf) {
         //the bias is a 1D tensor -- one bias per output feature map
@@ -56,6 +56,27 @@ public class DefaultParamInitializer implements ParamInitializer {
 
     }
 
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        org.deeplearning4j.nn.conf.layers.FeedForwardLayer layerConf =
+                (org.deeplearning4j.nn.conf.layers.FeedForwardLayer) conf.getLayer();
+        return layerConf.getNIn() * layerConf.getNOut() + layerConf.getNOut();
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        if(!(conf.getLayer() instanceof org.deeplearning4j.nn.conf.layers.FeedForwardLayer))
+            throw new IllegalArgumentException("unsupported layer type: " + conf.getLayer().getClass().getName());
+        org.deeplearning4j.nn.conf.layers.FeedForwardLayer layerConf =
+                (org.deeplearning4j.nn.conf.layers.FeedForwardLayer) conf.getLayer();
+
+        ParamViews views = new ParamViews(paramsView);
+        params.put(WEIGHT_KEY,views.next(layerConf.getNIn(),layerConf.getNOut()));
+        params.put(BIAS_KEY,views.next(1,layerConf.getNOut()));
+        conf.addVariable(WEIGHT_KEY);
+        conf.addVariable(BIAS_KEY);
+    }
+
 
     protected INDArray createBias(NeuralNetConfiguration conf) {
         org.deeplearning4j.nn.conf.layers.FeedForwardLayer layerConf =
@@ -64,4 +64,30 @@ public class GRUParamInitializer implements ParamInitializer {
     public void init(Map<String, INDArray> params, NeuralNetConfiguration conf, Configuration extraConf) {
         init(params,conf);
     }
+
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        org.deeplearning4j.nn.conf.layers.GRU layerConf =
+                (org.deeplearning4j.nn.conf.layers.GRU) conf.getLayer();
+        int nL = layerConf.getNOut();
+        int nLast = layerConf.getNIn();
+        return nLast * 3 * nL + nL * 3 * nL + 3 * nL;
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        org.deeplearning4j.nn.conf.layers.GRU layerConf =
+                (org.deeplearning4j.nn.conf.layers.GRU) conf.getLayer();
+        int nL = layerConf.getNOut();
+        int nLast = layerConf.getNIn();
+
+        conf.addVariable(INPUT_WEIGHT_KEY);
+        conf.addVariable(RECURRENT_WEIGHT_KEY);
+        conf.addVariable(BIAS_KEY);
+
+        ParamViews views = new ParamViews(paramsView);
+        params.put(INPUT_WEIGHT_KEY,views.next(nLast, 3 * nL));
+        params.put(RECURRENT_WEIGHT_KEY,views.next(nL, 3 * nL));
+        params.put(BIAS_KEY,views.next(1, 3 * nL));
+    }
 }
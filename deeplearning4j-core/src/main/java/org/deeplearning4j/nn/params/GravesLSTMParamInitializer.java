@@ -79,4 +79,30 @@ public class GravesLSTMParamInitializer implements ParamInitializer {
     public void init(Map<String, INDArray> params, NeuralNetConfiguration conf, Configuration extraConf) {
         init(params,conf);
     }
+
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        org.deeplearning4j.nn.conf.layers.GravesLSTM layerConf =
+                (org.deeplearning4j.nn.conf.layers.GravesLSTM) conf.getLayer();
+        int nL = layerConf.getNOut();
+        int nLast = layerConf.getNIn();
+        return nLast * 4 * nL + nL * (4 * nL + 3) + 4 * nL;
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        org.deeplearning4j.nn.conf.layers.GravesLSTM layerConf =
+                (org.deeplearning4j.nn.conf.layers.GravesLSTM) conf.getLayer();
+        int nL = layerConf.getNOut();
+        int nLast = layerConf.getNIn();
+
+        conf.addVariable(INPUT_WEIGHT_KEY);
+        conf.addVariable(RECURRENT_WEIGHT_KEY);
+        conf.addVariable(BIAS_KEY);
+
+        ParamViews views = new ParamViews(paramsView);
+        params.put(INPUT_WEIGHT_KEY,views.next(nLast, 4 * nL));
+        params.put(RECURRENT_WEIGHT_KEY,views.next(nL, 4 * nL + 3));
+        params.put(BIAS_KEY,views.next(1, 4 * nL));
+    }
 }
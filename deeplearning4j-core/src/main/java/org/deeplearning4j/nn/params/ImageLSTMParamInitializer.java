@@ -68,4 +68,32 @@ public class ImageLSTMParamInitializer implements ParamInitializer {
     public void init(Map<String, INDArray> params, NeuralNetConfiguration conf, Configuration extraConf) {
         init(params,conf);
     }
+
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        org.deeplearning4j.nn.conf.layers.ImageLSTM layerConf =
+                (org.deeplearning4j.nn.conf.layers.ImageLSTM) conf.getLayer();
+        int inputSize = layerConf.getNIn();
+        int hiddenSize = 8;
+        int outputSize = layerConf.getNOut();
+        return (inputSize + hiddenSize) * 4 * hiddenSize + hiddenSize * outputSize + outputSize;
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        org.deeplearning4j.nn.conf.layers.ImageLSTM layerConf =
+                (org.deeplearning4j.nn.conf.layers.ImageLSTM) conf.getLayer();
+        int inputSize = layerConf.getNIn();
+        int hiddenSize = 8; //must match init
+        int outputSize = layerConf.getNOut();
+
+        conf.addVariable(RECURRENT_WEIGHT_KEY);
+        conf.addVariable(INPUT_WEIGHT_KEY);
+        conf.addVariable(BIAS_KEY);
+
+        ParamViews views = new ParamViews(paramsView);
+        params.put(RECURRENT_WEIGHT_KEY,views.next(inputSize + hiddenSize, 4 * hiddenSize));
+        params.put(INPUT_WEIGHT_KEY,views.next(hiddenSize, outputSize));
+        params.put(BIAS_KEY,views.next(1, outputSize));
+    }
 }
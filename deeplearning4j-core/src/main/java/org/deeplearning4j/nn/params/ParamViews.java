@@ -0,0 +1,64 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.nn.params;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.util.Arrays;
+
+/**
+ * Hands out consecutive views of a flattened parameter vector,
+ * reshaped in the same 'f' order {@link org.deeplearning4j.nn.layers.BaseLayer#setParams(INDArray)} uses
+ */
+public class ParamViews {
+
+    private final INDArray flattened;
+    private int offset;
+
+    public ParamViews(INDArray flattened) {
+        this(flattened,0);
+    }
+
+    /**
+     * @param flattened the flattened parameters
+     * @param offset where the first view starts
+     */
+    public ParamViews(INDArray flattened, int offset) {
+        this.flattened = flattened;
+        this.offset = offset;
+    }
+
+    /**
+     * The next parameter of the given shape
+     * @param shape the shape of the parameter
+     * @return a view of the flattened vector
+     */
+    public INDArray next(int... shape) {
+        int length = ArrayUtil.prod(shape);
+        if(offset + length > flattened.length())
+            throw new IllegalArgumentException("Parameters of length " + flattened.length() + " are too short for a parameter of shape " + Arrays.toString(shape) + " at offset " + offset);
+        INDArray ret = flattened.get(NDArrayIndex.point(0),NDArrayIndex.interval(offset, offset + length)).reshape('f',shape);
+        offset += length;
+        return ret;
+    }
+
+}
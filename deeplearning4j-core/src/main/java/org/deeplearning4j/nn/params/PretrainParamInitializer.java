@@ -44,5 +44,23 @@ public class PretrainParamInitializer extends DefaultParamInitializer {
         params.get(VISIBLE_BIAS_KEY).data().persist();
     }
 
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        org.deeplearning4j.nn.conf.layers.BasePretrainNetwork layerConf =
+                (org.deeplearning4j.nn.conf.layers.BasePretrainNetwork) conf.getLayer();
+        return super.numParams(conf) + layerConf.getNIn();
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        super.initView(params, conf, paramsView);
+        org.deeplearning4j.nn.conf.layers.BasePretrainNetwork layerConf =
+                (org.deeplearning4j.nn.conf.layers.BasePretrainNetwork) conf.getLayer();
+
+        ParamViews views = new ParamViews(paramsView,super.numParams(conf));
+        params.put(VISIBLE_BIAS_KEY, views.next(1,layerConf.getNIn()));
+        conf.addVariable(VISIBLE_BIAS_KEY);
+    }
+
 
 }
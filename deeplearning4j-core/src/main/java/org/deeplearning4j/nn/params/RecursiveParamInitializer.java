@@ -62,5 +62,32 @@ public class RecursiveParamInitializer extends DefaultParamInitializer {
         conf.addVariable(VISIBLE_BIAS_KEY);
     }
 
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        int vis = ((org.deeplearning4j.nn.conf.layers.RecursiveAutoEncoder) conf.getLayer()).getNIn();
+        int out = vis * 2;
+        return 2 * vis * out + out + vis;
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+        org.deeplearning4j.nn.conf.layers.RecursiveAutoEncoder layerConf =
+                (org.deeplearning4j.nn.conf.layers.RecursiveAutoEncoder) conf.getLayer();
+
+        int vis = layerConf.getNIn();
+        int out = vis * 2;
+
+        ParamViews views = new ParamViews(paramsView);
+        params.put(ENCODER_WEIGHT_KEY, views.next(vis, out));
+        params.put(DECODER_WEIGHT_KEY, views.next(out, vis));
+        params.put(HIDDEN_BIAS_KEY, views.next(1, out));
+        params.put(VISIBLE_BIAS_KEY, views.next(1, vis));
+
+        conf.addVariable(ENCODER_WEIGHT_KEY);
+        conf.addVariable(DECODER_WEIGHT_KEY);
+        conf.addVariable(HIDDEN_BIAS_KEY);
+        conf.addVariable(VISIBLE_BIAS_KEY);
+    }
+
 
 }
@@ -20,4 +20,14 @@ public class SubsampleParamInitializer implements ParamInitializer {
     public void init(Map<String, INDArray> params, NeuralNetConfiguration conf, Configuration extraConf) {
 
     }
+
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        return 0;
+    }
+
+    @Override
+    public void initView(Map<String, INDArray> params, NeuralNetConfiguration conf, INDArray paramsView) {
+
+    }
 }
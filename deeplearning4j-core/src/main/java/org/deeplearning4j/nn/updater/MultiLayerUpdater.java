@@ -1,5 +1,8 @@
 package org.deeplearning4j.nn.updater;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.deeplearning4j.nn.api.Layer;
@@ -8,14 +11,31 @@ import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.GradientUpdater;
 
 /**MultiLayerUpdater: Gradient updater for MultiLayerNetworks.
  * Expects backprop gradients for all layers to be in single Gradient object,
- * keyed by "0_b", "1_w" etc., as per MultiLayerNetwork.backward()
+ * keyed by "0_b", "1_w" etc., as per MultiLayerNetwork.backward()<br>
+ * If the network's parameters are flattened (see MultiLayerNetwork.reDistributeParams()),
+ * the gradient is instead copied in to one flattened gradient vector laid out like the
+ * parameters, and each run of consecutive layers with the same updater configuration
+ * is updated in a single pass with one updater (and so one flat updater state) for the run.
  */
 public class MultiLayerUpdater implements Updater {
 	
 	private final Updater[] layerUpdaters; 
+
+	//Flattened mode only. The views are set up in the constructor, and again after deserialization;
+	//the block updaters (which hold the updater state) are only created once
+	private boolean flattened;
+	private transient INDArray flattenedGradient;
+	private transient Gradient[] layerGradientViews;
+	private transient Map<String,INDArray> gradientViews;
+	private transient INDArray[] blockViews;
+	private int[] blockStartLayers;
+	private GradientUpdater[] blockUpdaters;
 	
 	public MultiLayerUpdater( MultiLayerNetwork network ){
 		Layer[] layers = network.getLayers();
@@ -23,12 +43,86 @@ public class MultiLayerUpdater implements Updater {
 		for( int i=0; i<layers.length; i++ ){
 			layerUpdaters[i] = UpdaterCreator.getUpdater(layers[i]);
 		}
+		if( network.isParamsFlattened() ) initFlattened(network);
+	}
+
+	/** Whether gradients are updated in place in one flattened gradient vector */
+	public boolean isFlattened(){
+		return flattened;
+	}
+
+	private void initFlattened( MultiLayerNetwork network ){
+		flattened = true;
+		initViews(network);
+		Layer[] layers = network.getLayers();
+		blockUpdaters = new GradientUpdater[blockViews.length];
+		for( int i=0; i<blockViews.length; i++ ){
+			int start = blockStartLayers[i];
+			blockUpdaters[i] = ((BaseUpdater)layerUpdaters[start]).init("block_" + start, blockViews[i], layers[start]);
+		}
+	}
+
+	private void initViews( MultiLayerNetwork network ){
+		Layer[] layers = network.getLayers();
+		flattenedGradient = Nd4j.zeros(1, network.numParams());
+		layerGradientViews = new Gradient[layers.length];
+		gradientViews = new HashMap<>();
+
+		//Same layout as the flattened parameters: layer by layer, in param table order
+		int[] layerOffsets = new int[layers.length + 1];
+		int idx = 0;
+		for( int i=0; i<layers.length; i++ ){
+			layerOffsets[i] = idx;
+			layerGradientViews[i] = new DefaultGradient();
+			for( Map.Entry<String,INDArray> entry : layers[i].paramTable().entrySet() ){
+				INDArray param = entry.getValue();
+				INDArray view = flattenedGradient.get(NDArrayIndex.point(0),NDArrayIndex.interval(idx, idx + param.length()))
+						.reshape('f',param.shape());
+				layerGradientViews[i].setGradientFor(entry.getKey(), view);
+				gradientViews.put(i + "_" + entry.getKey(), view);
+				idx += param.length();
+			}
+		}
+		layerOffsets[layers.length] = idx;
+
+		//Consecutive layers with identical updater configuration share one updater over their part of the vector
+		List<INDArray> views = new ArrayList<>();
+		List<Integer> starts = new ArrayList<>();
+		int start = 0;
+		for( int i=1; i<=layers.length; i++ ){
+			if( i < layers.length && sameUpdaterConfig(layers[start], layers[i]) ) continue;
+			if( layerOffsets[i] > layerOffsets[start] ){
+				views.add(flattenedGradient.get(NDArrayIndex.point(0),NDArrayIndex.interval(layerOffsets[start], layerOffsets[i])));
+				starts.add(start);
+			}
+			start = i;
+		}
+		blockViews = views.toArray(new INDArray[views.size()]);
+		blockStartLayers = new int[starts.size()];
+		for( int i=0; i<blockStartLayers.length; i++ ) blockStartLayers[i] = starts.get(i);
+	}
+
+	private static boolean sameUpdaterConfig( Layer first, Layer second ){
+		org.deeplearning4j.nn.conf.layers.Layer a = first.conf().getLayer();
+		org.deeplearning4j.nn.conf.layers.Layer b = second.conf().getLayer();
+		if( a.getUpdater() != b.getUpdater() ) return false;
+		if( a.getMomentumAfter() == null ? b.getMomentumAfter() != null : !a.getMomentumAfter().equals(b.getMomentumAfter()) ) return false;
+		return a.getLearningRate() == b.getLearningRate()
+				&& a.getMomentum() == b.getMomentum()
+				&& a.getRho() == b.getRho()
+				&& a.getRmsDecay() == b.getRmsDecay()
+				&& a.getAdamMeanDecay() == b.getAdamMeanDecay()
+				&& a.getAdamVarDecay() == b.getAdamVarDecay();
 	}
 
 	@Override
 	public void update(Layer layer, Gradient gradient, int iteration) {
 		MultiLayerNetwork mln = (MultiLayerNetwork)layer;
-		
+		if( isFlattened() ){
+			updateFlattened(mln, gradient, iteration);
+			return;
+		}
+
 		Gradient[] layerGradients = new Gradient[layerUpdaters.length];
 		for( int i=0; i<layerGradients.length; i++ ) layerGradients[i] = new DefaultGradient();
 		
@@ -37,7 +131,7 @@ public class MultiLayerUpdater implements Updater {
 			int idx = key.indexOf("_");
 			if( idx == -1 ) throw new IllegalStateException("Invalid key: MuliLayerNetwork Gradient key does not have layer separator: \""+key+"\"");
 			int layerIdx = Integer.parseInt(key.substring(0, idx));
-			
+		
 			String newKey = key.substring(idx+1);
 			layerGradients[layerIdx].gradientForVariable().put(newKey, gradientPair.getValue());
         }
@@ -52,4 +146,37 @@ public class MultiLayerUpdater implements Updater {
 		}
 	}
 
+	private void updateFlattened(MultiLayerNetwork mln, Gradient gradient, int iteration) {
+		if( flattenedGradient == null ) initViews(mln);	//Deserialized
+		//Copy in to the flattened vector, then point the gradient at the views
+		for(Map.Entry<String,INDArray> gradientPair : gradient.gradientForVariable().entrySet()) {
+			INDArray view = gradientViews.get(gradientPair.getKey());
+			if( view == null ) throw new IllegalStateException("Invalid key: no parameter for MultiLayerNetwork gradient \""+gradientPair.getKey()+"\"");
+			if( view != gradientPair.getValue() ) view.assign(gradientPair.getValue());
+		}
+		for( Map.Entry<String,INDArray> entry : gradientViews.entrySet() ){
+			gradient.setGradientFor(entry.getKey(), entry.getValue());
+		}
+
+		//Per layer normalization/clipping works in place on the views
+		for( int i=0; i<layerUpdaters.length; i++ ){
+			((BaseUpdater)layerUpdaters[i]).preApply(mln.getLayer(i), layerGradientViews[i], iteration);
+		}
+
+		//One pass per block of layers sharing an updater configuration
+		for( int i=0; i<blockUpdaters.length; i++ ){
+			INDArray updated = blockUpdaters[i].getGradient(blockViews[i], iteration);
+			if( updated != blockViews[i] ) blockViews[i].assign(updated);
+		}
+
+		//Regularization, mini batch scaling etc
+		for( int i=0; i<layerUpdaters.length; i++ ){
+			for( Map.Entry<String,INDArray> entry : layerGradientViews[i].gradientForVariable().entrySet() ){
+				((BaseUpdater)layerUpdaters[i]).postApply(mln.getLayer(i), entry.getValue(), entry.getKey());
+			}
+		}
+
+		if( gradient instanceof DefaultGradient ) ((DefaultGradient)gradient).setFlattenedGradient(flattenedGradient);
+	}
+
 }
@@ -43,6 +43,12 @@ public interface ConvexOptimizer extends Serializable {
 
     Updater getUpdater();
 
+    /**
+     * Set the updater (and so the updater state) to use, for example one restored from a checkpoint
+     * @param updater the updater
+     */
+    void setUpdater(Updater updater);
+
     NeuralNetConfiguration getConf();
 
     /**
@@ -115,6 +115,11 @@ public abstract class BaseOptimizer implements ConvexOptimizer {
         return updater;
     }
 
+    @Override
+    public void setUpdater(Updater updater) {
+        this.updater = updater;
+    }
+
     @Override
     public NeuralNetConfiguration getConf() { return conf; }
 
@@ -261,7 +266,8 @@ public abstract class BaseOptimizer implements ConvexOptimizer {
     @Override
     public  void setupSearchState(Pair<Gradient, Double> pair) {
         INDArray gradient = pair.getFirst().gradient(conf.variables());
-        INDArray params = model.params();
+        //params() may be the model's backing vector: line search needs its own copy to step from
+        INDArray params = model.params().dup();
         searchState.put(GRADIENT_KEY,gradient);
         searchState.put(SCORE_KEY,pair.getSecond());
         searchState.put(PARAMS_KEY,params);
@@ -0,0 +1,357 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.parallelism;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe inference for a {@link MultiLayerNetwork}.
+ * Requests (usually a single example each) from any number of threads are queued and
+ * grouped in to micro batches of up to maxBatchSize examples: a batch is run as soon as it is
+ * full, or maxWaitMs after its first request arrived. Batches are run by a number of replicas
+ * of the network (each on its own thread), which share one copy of the parameters.
+ *
+ * The parameters are copied from the network when this is built: later changes to the
+ * network are not seen unless {@link #updateModel()} is called.
+ */
+public class ParallelInference {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelInference.class);
+
+    private MultiLayerNetwork model;
+    private int replicas = Runtime.getRuntime().availableProcessors();
+    private int maxBatchSize = 32;
+    private long maxWaitMs = 2;
+    private int latencyWindow = 10000;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private INDArray params;
+    private Thread[] threads;
+    private volatile boolean running = true;
+    //held while queueing a request and while shutting down, so no request is queued after the queue is drained
+    private final Object queueLock = new Object();
+
+    //Statistics
+    private final AtomicLong numRequests = new AtomicLong();
+    private final AtomicLong numBatches = new AtomicLong();
+    private final AtomicLong numExamples = new AtomicLong();
+    private long[] latencies;
+    private int latencyIdx;
+    private long latencyCount;
+
+    private ParallelInference() {
+    }
+
+    private void init() {
+        model.init();
+        params = model.params().dup();
+        latencies = new long[latencyWindow];
+        threads = new Thread[replicas];
+        for (int i = 0; i < replicas; i++) {
+            MultiLayerConfiguration conf = model.getLayerWiseConfigurations().clone();
+            conf.setRedistributeParams(true);
+            MultiLayerNetwork replica = new MultiLayerNetwork(conf);
+            replica.init();
+            //all replicas are views of the same parameters
+            replica.reDistributeParams(params);
+            replica.setInferenceBatchSize(maxBatchSize);
+            threads[i] = new Thread(new Worker(replica), "ParallelInference-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Queue the given input for inference
+     * @param input the example(s) to run, one per row
+     * @return a future for the output of the network for the input
+     */
+    public ListenableFuture<INDArray> output(INDArray input) {
+        Request request = new Request(input.isVector() && input.rows() != 1 ? input.reshape(1, input.length()) : input);
+        synchronized (queueLock) {
+            if (!running)
+                throw shutdownException();
+            numRequests.incrementAndGet();
+            queue.add(request);
+        }
+        return request.future;
+    }
+
+    /**
+     * Copy the current parameters of the network to the replicas.
+     * Should not be called while requests are being run
+     */
+    public void updateModel() {
+        params.assign(model.params());
+    }
+
+    /**
+     * Stop the replicas. Requests that haven't been run yet fail with an IllegalStateException,
+     * and new requests are rejected with one
+     */
+    public void shutdown() {
+        synchronized (queueLock) {
+            running = false;
+        }
+        for (Thread t : threads)
+            t.interrupt();
+        List<Request> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        fail(pending, shutdownException());
+    }
+
+    private static IllegalStateException shutdownException() {
+        return new IllegalStateException("ParallelInference has been shut down");
+    }
+
+    private static void fail(List<Request> requests, Throwable t) {
+        for (Request r : requests)
+            r.future.setException(t);
+    }
+
+    /**
+     * Latency (from request to output) percentile over the most recent requests
+     * @param percentile the percentile, 0 to 100 (50 for the median)
+     * @return the latency in milliseconds, or 0 if no requests have completed yet
+     */
+    public double getLatencyPercentileMs(double percentile) {
+        long[] copy;
+        synchronized (this) {
+            int n = (int) Math.min(latencyCount, latencies.length);
+            if (n == 0)
+                return 0.0;
+            copy = Arrays.copyOf(latencies, n);
+        }
+        Arrays.sort(copy);
+        int idx = (int) Math.ceil(percentile / 100.0 * copy.length) - 1;
+        idx = Math.max(0, Math.min(copy.length - 1, idx));
+        return copy[idx] / 1e6;
+    }
+
+    /** Average number of examples per batch */
+    public double getAverageBatchSize() {
+        long batches = numBatches.get();
+        return batches == 0 ? 0.0 : numExamples.get() / (double) batches;
+    }
+
+    /** Average fraction of maxBatchSize used per batch */
+    public double getBatchFill() {
+        return getAverageBatchSize() / maxBatchSize;
+    }
+
+    public long getNumRequests() {
+        return numRequests.get();
+    }
+
+    public long getNumBatches() {
+        return numBatches.get();
+    }
+
+    public MultiLayerNetwork getModel() {
+        return model;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyIdx] = nanos;
+        latencyIdx = (latencyIdx + 1) % latencies.length;
+        latencyCount++;
+    }
+
+    private static class Request {
+        private final INDArray input;
+        private final long start = System.nanoTime();
+        private final SettableFuture<INDArray> future = SettableFuture.create();
+
+        private Request(INDArray input) {
+            this.input = input;
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final MultiLayerNetwork replica;
+        private final List<Request> batch = new ArrayList<>();
+        //request taken off the queue that didn't fit in the last batch: it starts the next one
+        private Request carry;
+
+        private Worker(MultiLayerNetwork replica) {
+            this.replica = replica;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    nextBatch();
+                    runBatch();
+                }
+            } catch (InterruptedException e) {
+                //shut down
+            } finally {
+                //requests taken off the queue that will not be run
+                if (carry != null)
+                    batch.add(carry);
+                fail(batch, shutdownException());
+            }
+        }
+
+        //Wait for the first request, then until the batch is full or maxWaitMs has passed.
+        //A request that would take the batch over maxBatchSize is kept for the next batch
+        private void nextBatch() throws InterruptedException {
+            Request first = carry != null ? carry : queue.take();
+            carry = null;
+            batch.add(first);
+            int examples = first.input.rows();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            while (examples < maxBatchSize) {
+                long remaining = deadline - System.nanoTime();
+                Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null)
+                    break;
+                if (examples + next.input.rows() > maxBatchSize) {
+                    carry = next;
+                    break;
+                }
+                batch.add(next);
+                examples += next.input.rows();
+            }
+        }
+
+        private void runBatch() {
+            try {
+                INDArray input;
+                if (batch.size() == 1) {
+                    input = batch.get(0).input;
+                } else {
+                    INDArray[] inputs = new INDArray[batch.size()];
+                    for (int i = 0; i < inputs.length; i++)
+                        inputs[i] = batch.get(i).input;
+                    input = Nd4j.vstack(inputs);
+                }
+                INDArray output = replica.inference(input);
+                numBatches.incrementAndGet();
+                numExamples.addAndGet(input.rows());
+
+                int row = 0;
+                for (Request r : batch) {
+                    int rows = r.input.rows();
+                    //output is a buffer reused for the next batch: copy out each result
+                    INDArray result = output.get(NDArrayIndex.interval(row, row + rows), NDArrayIndex.all()).dup();
+                    row += rows;
+                    recordLatency(System.nanoTime() - r.start);
+                    r.future.set(result);
+                }
+            } catch (Throwable t) {
+                log.warn("Error running batch of " + batch.size() + " requests", t);
+                fail(batch, t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    public static class Builder {
+        private MultiLayerNetwork model;
+        private int replicas = Runtime.getRuntime().availableProcessors();
+        private int maxBatchSize = 32;
+        private long maxWaitMs = 2;
+        private int latencyWindow = 10000;
+
+        /**
+         * @param model the network to run. Its parameters are copied when built
+         */
+        public Builder(MultiLayerNetwork model) {
+            this.model = model;
+        }
+
+        /**
+         * Number of replicas (and threads) running batches
+         * @param replicas the number of replicas, defaults to the number of processors
+         * @return builder pattern
+         */
+        public Builder replicas(int replicas) {
+            this.replicas = replicas;
+            return this;
+        }
+
+        /**
+         * Max number of examples in one batch
+         * @param maxBatchSize the batch size, default 32
+         * @return builder pattern
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Max time to wait for a batch to fill up after its first request
+         * @param maxWaitMs the time in milliseconds, default 2. 0 runs whatever is queued immediately
+         * @return builder pattern
+         */
+        public Builder maxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+            return this;
+        }
+
+        /**
+         * Number of most recent requests used for latency percentiles
+         * @param latencyWindow the number of requests, default 10000
+         * @return builder pattern
+         */
+        public Builder latencyWindow(int latencyWindow) {
+            this.latencyWindow = latencyWindow;
+            return this;
+        }
+
+        public ParallelInference build() {
+            if (replicas < 1)
+                throw new IllegalArgumentException("Number of replicas must be > 0");
+            if (maxBatchSize < 1)
+                throw new IllegalArgumentException("Max batch size must be > 0");
+            if (maxWaitMs < 0)
+                throw new IllegalArgumentException("Max wait time must be >= 0");
+            if (latencyWindow < 1)
+                throw new IllegalArgumentException("Latency window must be > 0");
+            ParallelInference inference = new ParallelInference();
+            inference.model = model;
+            inference.replicas = replicas;
+            inference.maxBatchSize = maxBatchSize;
+            inference.maxWaitMs = maxWaitMs;
+            inference.latencyWindow = latencyWindow;
+            inference.init();
+            return inference;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data parallel training of a {@link MultiLayerNetwork} on a single machine.
+ * A number of replicas of the network are trained on their own thread,
+ * each getting minibatches in turn from one {@link DataSetIterator}.
+ *
+ * In {@link Mode#AVERAGING} mode every replica has its own parameters, which are
+ * averaged (and set on the original network) after every replica has fit
+ * averagingFrequency minibatches, as with the spark and akka parameter averaging.
+ * In {@link Mode#HOGWILD} mode all replicas are views of the one parameter vector
+ * and update it without any locking.
+ *
+ * Updater state (momentum, adagrad history etc) is kept per replica.
+ */
+public class ParallelTrainer {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelTrainer.class);
+
+    public enum Mode {
+        AVERAGING, HOGWILD
+    }
+
+    private MultiLayerNetwork model;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int averagingFrequency = 1;
+    private int prefetchBuffer = 2;
+    private Mode mode = Mode.AVERAGING;
+
+    private MultiLayerNetwork[] replicas;
+    private INDArray shared;
+    private INDArray averaged;
+
+    private ParallelTrainer() {
+    }
+
+    /**
+     * Fit the network on the iterator, splitting the minibatches between the replicas
+     * @param iterator the data to fit on
+     */
+    public void fit(DataSetIterator iterator) {
+        if(replicas == null)
+            initReplicas();
+
+        Worker[] runnables = new Worker[workers];
+        Thread[] threads = new Thread[workers];
+        for(int i = 0; i < workers; i++) {
+            runnables[i] = new Worker(replicas[i], prefetchBuffer);
+            threads[i] = new Thread(runnables[i], "ParallelTrainer-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+
+        int[] pending = new int[workers];
+        long count = 0;
+        try {
+            while(iterator.hasNext()) {
+                DataSet next = iterator.next();
+                if (next.getFeatureMatrix() == null || next.getLabels() == null)
+                    break;
+                int worker = (int) (count % workers);
+                runnables[worker].queue.put(next);
+                pending[worker]++;
+                count++;
+
+                if(mode == Mode.AVERAGING && count % (workers * averagingFrequency) == 0) {
+                    awaitWorkers(runnables, pending);
+                    averageParams();
+                }
+            }
+
+            awaitWorkers(runnables, pending);
+            if(mode == Mode.AVERAGING)
+                averageParams();
+            else
+                model.setParams(shared);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while training", e);
+        } finally {
+            for(int i = 0; i < workers; i++) {
+                runnables[i].running = false;
+                threads[i].interrupt();
+            }
+        }
+
+        log.debug("Fit " + count + " minibatches on " + workers + " workers");
+    }
+
+    protected void initReplicas() {
+        model.init();
+        replicas = new MultiLayerNetwork[workers];
+        if(mode == Mode.HOGWILD)
+            //the network's own vector when flattened, so updates are visible as they happen
+            shared = model.params();
+        else
+            averaged = Nd4j.create(1, model.numParams());
+
+        for(int i = 0; i < workers; i++) {
+            MultiLayerConfiguration conf = model.getLayerWiseConfigurations().clone();
+            conf.setRedistributeParams(true);
+            MultiLayerNetwork replica = new MultiLayerNetwork(conf);
+            replica.init();
+            if(mode == Mode.HOGWILD)
+                replica.reDistributeParams(shared);
+            else
+                replica.setParams(model.params());
+            //report progress for one replica only
+            if(i == 0)
+                replica.setListeners(model.getListeners());
+            replicas[i] = replica;
+        }
+    }
+
+    /**
+     * Average the parameters of the replicas
+     * and set them on the network and every replica
+     */
+    protected void averageParams() {
+        averaged.assign(replicas[0].params());
+        for(int i = 1; i < replicas.length; i++)
+            averaged.addi(replicas[i].params());
+        averaged.divi(replicas.length);
+
+        model.setParams(averaged);
+        for(MultiLayerNetwork replica : replicas)
+            replica.setParams(averaged);
+    }
+
+    private void awaitWorkers(Worker[] runnables, int[] pending) throws InterruptedException {
+        for(int i = 0; i < runnables.length; i++) {
+            runnables[i].done.acquire(pending[i]);
+            pending[i] = 0;
+            if(runnables[i].exception != null)
+                throw new RuntimeException("Worker " + i + " failed", runnables[i].exception);
+        }
+    }
+
+    public MultiLayerNetwork getModel() {
+        return model;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    private static class Worker implements Runnable {
+        private final MultiLayerNetwork replica;
+        private final BlockingQueue<DataSet> queue;
+        private final Semaphore done = new Semaphore(0);
+        private volatile boolean running = true;
+        private volatile RuntimeException exception;
+
+        private Worker(MultiLayerNetwork replica, int queueSize) {
+            this.replica = replica;
+            this.queue = new LinkedBlockingQueue<>(queueSize);
+        }
+
+        @Override
+        public void run() {
+            while(running) {
+                DataSet next;
+                try {
+                    next = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    //interrupted by fit() when it's done
+                    return;
+                }
+                if(next == null)
+                    continue;
+                try {
+                    replica.fit(next);
+                } catch (RuntimeException e) {
+                    exception = e;
+                } finally {
+                    done.release();
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private MultiLayerNetwork model;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int averagingFrequency = 1;
+        private int prefetchBuffer = 2;
+        private Mode mode = Mode.AVERAGING;
+
+        /**
+         * @param model the network to train. Holds the result after fit
+         */
+        public Builder(MultiLayerNetwork model) {
+            this.model = model;
+        }
+
+        /**
+         * Number of replicas (and threads) to train with
+         * @param workers the number of workers, defaults to the number of processors
+         * @return builder pattern
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Number of minibatches each replica fits between parameter averaging.
+         * Only applicable with {@link Mode#AVERAGING}
+         * @param averagingFrequency the number of minibatches per replica
+         * @return builder pattern
+         */
+        public Builder averagingFrequency(int averagingFrequency) {
+            this.averagingFrequency = averagingFrequency;
+            return this;
+        }
+
+        /**
+         * Number of minibatches queued up for each replica
+         * @param prefetchBuffer the queue size per replica
+         * @return builder pattern
+         */
+        public Builder prefetchBuffer(int prefetchBuffer) {
+            this.prefetchBuffer = prefetchBuffer;
+            return this;
+        }
+
+        public Builder mode(Mode mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        public ParallelTrainer build() {
+            if(workers < 1)
+                throw new IllegalArgumentException("Number of workers must be > 0");
+            if(averagingFrequency < 1)
+                throw new IllegalArgumentException("Averaging frequency must be > 0");
+            if(prefetchBuffer < 1)
+                throw new IllegalArgumentException("Prefetch buffer must be > 0");
+            ParallelTrainer trainer = new ParallelTrainer();
+            trainer.model = model;
+            trainer.workers = workers;
+            trainer.averagingFrequency = averagingFrequency;
+            trainer.prefetchBuffer = prefetchBuffer;
+            trainer.mode = mode;
+            return trainer;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.parallelism;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.layers.recurrent.BaseRecurrentLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming {@link MultiLayerNetwork#rnnTimeStep(INDArray)} for many concurrent sessions (sequences) with one network.
+ * The RNN state of each session is kept in a {@link RnnSessionStateStore} (with LRU and time to live eviction) instead
+ * of in the layers. Time steps from different sessions are grouped in to batches of up to maxBatchSize sessions:
+ * the state of those sessions is stacked and set on the network, one rnnTimeStep is done for the whole batch, and the
+ * new state of each session is put back in the store.<br>
+ * Steps for the same session are run in the order they were submitted. A new (or evicted) session starts from the
+ * default (zero) state. Networks with a MultiLayerNetwork as a layer are not supported.<br>
+ * The parameters are copied from the network when this is built: later changes to the network are not seen unless
+ * {@link #updateModel()} is called.
+ */
+public class RnnSessionInference {
+
+    private static final Logger log = LoggerFactory.getLogger(RnnSessionInference.class);
+
+    private MultiLayerNetwork model;
+    private int maxBatchSize = 64;
+    private long maxWaitMs = 2;
+    private RnnSessionStateStore store;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private INDArray params;
+    private Thread thread;
+    private volatile boolean running = true;
+    //Guards running against steps being queued after shutdown drains the queue
+    private final Object queueLock = new Object();
+
+    //Statistics
+    private final AtomicLong numSteps = new AtomicLong();
+    private final AtomicLong numBatches = new AtomicLong();
+
+    private RnnSessionInference() {
+    }
+
+    private void init() {
+        model.init();
+        params = model.params().dup();
+        MultiLayerConfiguration conf = model.getLayerWiseConfigurations().clone();
+        conf.setRedistributeParams(true);
+        MultiLayerNetwork replica = new MultiLayerNetwork(conf);
+        replica.init();
+        replica.reDistributeParams(params);
+        thread = new Thread(new Worker(replica), "RnnSessionInference-worker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue one time step of a session
+     * @param sessionId the session (sequence) the input belongs to
+     * @param input input for one time step of one example: shape [1,nIn] or [nIn]
+     * @return a future for the output of the network for the time step, shape [1,nOut]
+     */
+    public ListenableFuture<INDArray> step(String sessionId, INDArray input) {
+        if (!input.isVector())
+            throw new IllegalArgumentException("Expected input for one time step of one example, got shape "
+                    + Arrays.toString(input.shape()));
+        Request request = new Request(sessionId, input.rows() != 1 ? input.reshape(1, input.length()) : input);
+        synchronized (queueLock) {
+            if (!running)
+                throw shutdownException();
+            queue.add(request);
+        }
+        return request.future;
+    }
+
+    /**
+     * End a session, discarding its state. Steps already queued for the session still run
+     * @return true if the session had state stored
+     */
+    public boolean endSession(String sessionId) {
+        return store.remove(sessionId);
+    }
+
+    /**
+     * Copy the current parameters of the network. Should not be called while steps are being run
+     */
+    public void updateModel() {
+        params.assign(model.params());
+    }
+
+    /**
+     * Stop the worker thread. Steps that haven't been run yet fail with an IllegalStateException,
+     * and new steps are rejected with one
+     */
+    public void shutdown() {
+        synchronized (queueLock) {
+            running = false;
+        }
+        thread.interrupt();
+        List<Request> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        fail(pending, shutdownException());
+    }
+
+    private static IllegalStateException shutdownException() {
+        return new IllegalStateException("RnnSessionInference has been shut down");
+    }
+
+    private static void fail(List<Request> requests, Throwable t) {
+        for (Request r : requests)
+            r.future.setException(t);
+    }
+
+    public RnnSessionStateStore getStateStore() {
+        return store;
+    }
+
+    /** Number of sessions with state stored */
+    public int getNumSessions() {
+        return store.size();
+    }
+
+    public long getNumSteps() {
+        return numSteps.get();
+    }
+
+    public long getNumBatches() {
+        return numBatches.get();
+    }
+
+    /** Average number of sessions per batch */
+    public double getAverageBatchSize() {
+        long batches = numBatches.get();
+        return batches == 0 ? 0.0 : numSteps.get() / (double) batches;
+    }
+
+    public MultiLayerNetwork getModel() {
+        return model;
+    }
+
+    private static class Request {
+        private final String sessionId;
+        private final INDArray input;
+        private final SettableFuture<INDArray> future = SettableFuture.create();
+
+        private Request(String sessionId, INDArray input) {
+            this.sessionId = sessionId;
+            this.input = input;
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final MultiLayerNetwork replica;
+        private final Layer[] layers;
+        private final List<Request> batch = new ArrayList<>();
+        private final Set<String> batchSessions = new HashSet<>();
+        //Steps for sessions that were already in the batch: these go first in the next batch, to keep them in order
+        private final LinkedList<Request> deferred = new LinkedList<>();
+
+        private Worker(MultiLayerNetwork replica) {
+            this.replica = replica;
+            this.layers = replica.getLayers();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    nextBatch();
+                    runBatch();
+                }
+            } catch (InterruptedException e) {
+                //shut down
+            } finally {
+                //steps taken off the queue (or queued while stopping) that will not be run
+                batch.addAll(deferred);
+                queue.drainTo(batch);
+                fail(batch, shutdownException());
+            }
+        }
+
+        private void add(Request r) {
+            //Once a step of a session is deferred (batch full, or the session is already in the batch),
+            //its later steps are too
+            if (batch.size() >= maxBatchSize || !batchSessions.add(r.sessionId))
+                deferred.add(r);
+            else
+                batch.add(r);
+        }
+
+        //Wait for the first request, then until the batch is full or maxWaitMs has passed
+        private void nextBatch() throws InterruptedException {
+            batch.clear();
+            batchSessions.clear();
+            List<Request> previouslyDeferred = new ArrayList<>(deferred);
+            deferred.clear();
+            for (Request r : previouslyDeferred)
+                add(r);
+            if (batch.isEmpty())
+                add(queue.take());
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            while (batch.size() < maxBatchSize) {
+                long remaining = deadline - System.nanoTime();
+                Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null)
+                    break;
+                add(next);
+            }
+        }
+
+        private void runBatch() {
+            try {
+                int n = batch.size();
+                INDArray[] inputs = new INDArray[n];
+                List<List<Map<String, INDArray>>> states = new ArrayList<>(n);
+                boolean anyState = false;
+                for (int i = 0; i < n; i++) {
+                    Request r = batch.get(i);
+                    inputs[i] = r.input;
+                    List<Map<String, INDArray>> state = store.get(r.sessionId);
+                    states.add(state);
+                    anyState |= state != null;
+                }
+
+                //Gather: stack the state of the sessions, with zeros for new sessions
+                replica.rnnClearPreviousState();
+                if (anyState) {
+                    for (int layer = 0; layer < layers.length; layer++) {
+                        if (!(layers[layer] instanceof BaseRecurrentLayer))
+                            continue;
+                        Map<String, INDArray> stacked = new HashMap<>();
+                        for (String key : firstState(states, layer).keySet()) {
+                            INDArray[] rows = new INDArray[n];
+                            for (int i = 0; i < n; i++) {
+                                List<Map<String, INDArray>> state = states.get(i);
+                                rows[i] = state != null ? state.get(layer).get(key)
+                                        : Nd4j.zeros(1, firstState(states, layer).get(key).columns());
+                            }
+                            stacked.put(key, n == 1 ? rows[0] : Nd4j.vstack(rows));
+                        }
+                        replica.rnnSetPreviousState(layer, stacked);
+                    }
+                }
+
+                INDArray output = replica.rnnTimeStep(n == 1 ? inputs[0] : Nd4j.vstack(inputs));
+                numBatches.incrementAndGet();
+                numSteps.addAndGet(n);
+
+                //Scatter: new state of each session back to the store
+                List<List<Map<String, INDArray>>> newStates = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    List<Map<String, INDArray>> state = new ArrayList<>(layers.length);
+                    for (int layer = 0; layer < layers.length; layer++)
+                        state.add(new HashMap<String, INDArray>());
+                    newStates.add(state);
+                }
+                for (int layer = 0; layer < layers.length; layer++) {
+                    if (!(layers[layer] instanceof BaseRecurrentLayer))
+                        continue;
+                    for (Map.Entry<String, INDArray> e : replica.rnnGetPreviousState(layer).entrySet()) {
+                        for (int i = 0; i < n; i++)
+                            newStates.get(i).get(layer).put(e.getKey(), e.getValue().getRow(i).dup());
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    Request r = batch.get(i);
+                    store.put(r.sessionId, newStates.get(i));
+                    r.future.set(output.getRow(i).dup());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Error running batch of " + batch.size() + " steps", e);
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private Map<String, INDArray> firstState(List<List<Map<String, INDArray>>> states, int layer) {
+            for (List<Map<String, INDArray>> state : states) {
+                if (state != null)
+                    return state.get(layer);
+            }
+            return null;
+        }
+    }
+
+    public static class Builder {
+        private MultiLayerNetwork model;
+        private int maxBatchSize = 64;
+        private long maxWaitMs = 2;
+        private int maxSessions = 100000;
+        private long sessionTtlMs = 0;
+        private RnnSessionStateStore store;
+
+        /**
+         * @param model the network to run. Its parameters are copied when built
+         */
+        public Builder(MultiLayerNetwork model) {
+            this.model = model;
+        }
+
+        /**
+         * Max number of sessions in one batch
+         * @param maxBatchSize the batch size, default 64
+         * @return builder pattern
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Max time to wait for a batch to fill up after its first step
+         * @param maxWaitMs the time in milliseconds, default 2. 0 runs whatever is queued immediately
+         * @return builder pattern
+         */
+        public Builder maxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+            return this;
+        }
+
+        /**
+         * Max number of sessions to keep state for. The least recently used sessions are evicted first
+         * @param maxSessions the number of sessions, default 100000
+         * @return builder pattern
+         */
+        public Builder maxSessions(int maxSessions) {
+            this.maxSessions = maxSessions;
+            return this;
+        }
+
+        /**
+         * Time after which the state of an unused session is evicted
+         * @param sessionTtlMs the time in milliseconds, default 0 (no time limit)
+         * @return builder pattern
+         */
+        public Builder sessionTtlMs(long sessionTtlMs) {
+            this.sessionTtlMs = sessionTtlMs;
+            return this;
+        }
+
+        /**
+         * Use the given store for session state, instead of one created with maxSessions and sessionTtlMs
+         * @return builder pattern
+         */
+        public Builder stateStore(RnnSessionStateStore store) {
+            this.store = store;
+            return this;
+        }
+
+        public RnnSessionInference build() {
+            if (maxBatchSize < 1)
+                throw new IllegalArgumentException("Max batch size must be > 0");
+            if (maxWaitMs < 0)
+                throw new IllegalArgumentException("Max wait time must be >= 0");
+            RnnSessionInference inference = new RnnSessionInference();
+            inference.model = model;
+            inference.maxBatchSize = maxBatchSize;
+            inference.maxWaitMs = maxWaitMs;
+            inference.store = (store != null ? store : new RnnSessionStateStore(maxSessions, sessionTtlMs));
+            inference.init();
+            return inference;
+        }
+    }
+}
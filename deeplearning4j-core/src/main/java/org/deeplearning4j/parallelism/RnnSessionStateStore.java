@@ -0,0 +1,138 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.parallelism;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store of RNN state (as returned by {@link org.deeplearning4j.nn.multilayer.MultiLayerNetwork#rnnGetPreviousState(int)}
+ * for each layer) by session ID, for {@link RnnSessionInference}.
+ * Sessions are evicted when they have not been used for more than the time to live, or (least recently used first)
+ * when there are more than maxSessions of them. Evicted sessions start again from the default (zero) state.
+ * Thread safe.
+ */
+public class RnnSessionStateStore {
+
+    private final int maxSessions;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>(16, 0.75f, true);   //access order: least recently used first
+    private long numEvicted;
+
+    /**
+     * @param maxSessions max number of sessions to keep
+     * @param ttlMs time (since last used) after which a session is evicted. 0 for no time limit
+     */
+    public RnnSessionStateStore(int maxSessions, long ttlMs) {
+        if (maxSessions < 1)
+            throw new IllegalArgumentException("Max number of sessions must be > 0");
+        if (ttlMs < 0)
+            throw new IllegalArgumentException("Time to live must be >= 0");
+        this.maxSessions = maxSessions;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Get the state of a session
+     * @param sessionId the session
+     * @return the state for each layer (empty for non RNN layers), or null if the session is new or was evicted
+     */
+    public synchronized List<Map<String, INDArray>> get(String sessionId) {
+        Entry e = sessions.get(sessionId);
+        if (e == null)
+            return null;
+        long now = System.currentTimeMillis();
+        if (expired(e, now)) {
+            sessions.remove(sessionId);
+            numEvicted++;
+            return null;
+        }
+        e.lastUsed = now;
+        return e.state;
+    }
+
+    /**
+     * Set the state of a session, evicting sessions if necessary
+     * @param sessionId the session
+     * @param state the state for each layer
+     */
+    public synchronized void put(String sessionId, List<Map<String, INDArray>> state) {
+        Entry e = sessions.get(sessionId);
+        if (e == null) {
+            e = new Entry();
+            sessions.put(sessionId, e);
+        }
+        e.state = state;
+        e.lastUsed = System.currentTimeMillis();
+        removeExpired();
+        Iterator<Entry> iter = sessions.values().iterator();
+        while (sessions.size() > maxSessions) {
+            iter.next();
+            iter.remove();
+            numEvicted++;
+        }
+    }
+
+    /**
+     * Remove a session
+     * @return true if the session was present
+     */
+    public synchronized boolean remove(String sessionId) {
+        return sessions.remove(sessionId) != null;
+    }
+
+    /** Evict all sessions that have not been used for more than the time to live */
+    public synchronized void removeExpired() {
+        if (ttlMs == 0)
+            return;
+        long now = System.currentTimeMillis();
+        //Least recently used first: stop at the first that hasn't expired
+        Iterator<Entry> iter = sessions.values().iterator();
+        while (iter.hasNext() && expired(iter.next(), now)) {
+            iter.remove();
+            numEvicted++;
+        }
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    public synchronized void clear() {
+        sessions.clear();
+    }
+
+    /** Number of sessions evicted (by time to live or max number of sessions) so far */
+    public synchronized long getNumEvicted() {
+        return numEvicted;
+    }
+
+    private boolean expired(Entry e, long now) {
+        return ttlMs > 0 && now - e.lastUsed > ttlMs;
+    }
+
+    private static class Entry {
+        private List<Map<String, INDArray>> state;
+        private long lastUsed;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Binary checkpoint format for a {@link MultiLayerNetwork}, as an alternative to Java serialization of the whole network.
+ * A checkpoint is (all numbers little endian):
+ * <ul>
+ *     <li>Header: magic bytes "DL4JCKPT", format version (int), parameter data type (int: 0 float, 1 double),
+ *     number of parameters (long), configuration length (long), updater length (long)</li>
+ *     <li>The {@link MultiLayerConfiguration} as UTF-8 JSON</li>
+ *     <li>Padding to a multiple of 8 bytes, then the flattened parameters (as per {@link MultiLayerNetwork#params()})
+ *     as raw floats or doubles</li>
+ *     <li>Optionally, the updater (updater state) as a serialized Java object</li>
+ * </ul>
+ * When loading, the parameter section is memory mapped (copy on write) where possible and the layers are created over
+ * it, so loading costs little more than reading the configuration and processes loading the same file share its pages.
+ * Where it isn't possible (parameter data type different to Nd4j.dataType(), big endian platform, or parameters over 2GB)
+ * the parameters are read in to memory instead.
+ * Checkpoints are written to a temporary file in the same directory which is then atomically moved over the target.
+ */
+public class ModelCheckpoint {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = "DL4JCKPT".getBytes(Charset.forName("US-ASCII"));
+    private static final int HEADER_LENGTH = 40;
+    private static final int TYPE_FLOAT = 0;
+    private static final int TYPE_DOUBLE = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ModelCheckpoint() {
+    }
+
+    /**
+     * Write a checkpoint of the network, including the updater state if the network has been fit
+     * @param network the network to save
+     * @param file the file to write to
+     */
+    public static void write(MultiLayerNetwork network, File file) throws IOException {
+        write(network, file, true);
+    }
+
+    /**
+     * Write a checkpoint of the network
+     * @param network the network to save
+     * @param file the file to write to
+     * @param saveUpdater whether to save the updater state (if the network has been fit), needed to continue training
+     */
+    public static void write(MultiLayerNetwork network, File file, boolean saveUpdater) throws IOException {
+        byte[] conf = network.getLayerWiseConfigurations().toJson().getBytes(UTF8);
+        INDArray params = network.params();
+        int dataType = (params.data().dataType() == DataBuffer.Type.FLOAT ? TYPE_FLOAT : TYPE_DOUBLE);
+        int elementSize = (dataType == TYPE_FLOAT ? 4 : 8);
+        Updater updater = (saveUpdater ? network.getUpdater() : null);
+
+        //write a sibling file and move it over the checkpoint, so that a crash never leaves a truncated checkpoint
+        //and networks already loaded (memory mapped) from the old file keep their pages
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile("." + file.getName() + ".", ".tmp", dir);
+        boolean moved = false;
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw"); FileChannel channel = raf.getChannel()) {
+                writeCheckpoint(channel, conf, params, dataType, elementSize, updater);
+                channel.force(true);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            if (!moved)
+                tmp.delete();
+        }
+    }
+
+    private static void writeCheckpoint(FileChannel channel, byte[] conf, INDArray params, int dataType, int elementSize,
+                                        Updater updater) throws IOException {
+        channel.position(HEADER_LENGTH);
+        writeFully(channel, ByteBuffer.wrap(conf));
+        channel.position(paramsOffset(conf.length));
+
+        //parameters are copied a buffer at a time, in bulk, from a view of their data
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int length = params.length();
+        Buffer values = values(params, dataType);
+        while (values.hasRemaining()) {
+            int n = Math.min(BUFFER_SIZE / elementSize, values.remaining());
+            int end = values.position() + n;
+            if (dataType == TYPE_FLOAT) {
+                FloatBuffer chunk = ((FloatBuffer) values).duplicate();
+                chunk.limit(end);
+                buffer.clear();
+                buffer.asFloatBuffer().put(chunk);
+            } else {
+                DoubleBuffer chunk = ((DoubleBuffer) values).duplicate();
+                chunk.limit(end);
+                buffer.clear();
+                buffer.asDoubleBuffer().put(chunk);
+            }
+            values.position(end);
+            buffer.limit(n * elementSize);
+            writeFully(channel, buffer);
+        }
+
+        long updaterLength = 0;
+        if (updater != null) {
+            long start = channel.position();
+            ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            oos.writeObject(updater);
+            oos.flush();
+            updaterLength = channel.position() - start;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(dataType);
+        header.putLong(length);
+        header.putLong(conf.length);
+        header.putLong(updaterLength);
+        header.flip();
+        channel.position(0);
+        writeFully(channel, header);
+    }
+
+    //The values of the parameters, in order: a view of their data where they are the whole of a buffer
+    private static Buffer values(INDArray params, int dataType) {
+        DataBuffer data = params.data();
+        if (params.offset() != 0 || params.length() != data.length())
+            data = params.dup().data();
+        Buffer ret = (dataType == TYPE_FLOAT ? data.asNioFloat().duplicate() : data.asNioDouble().duplicate());
+        ret.clear();
+        ret.limit(params.length());
+        return ret;
+    }
+
+    /**
+     * Load a network from a checkpoint, without the updater state (for example for inference)
+     * @param file the checkpoint file
+     * @return the network, with parameters memory mapped from the file where possible
+     */
+    public static MultiLayerNetwork load(File file) throws IOException {
+        return load(file, false);
+    }
+
+    /**
+     * Load a network from a checkpoint
+     * @param file the checkpoint file
+     * @param loadUpdater whether to load the updater state (if present), to continue training
+     * @return the network, with parameters memory mapped from the file where possible
+     */
+    public static MultiLayerNetwork load(File file, boolean loadUpdater) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException("Not a model checkpoint: " + file);
+            int version = header.getInt();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported checkpoint format version " + version + " (supported: up to " + VERSION + ")");
+            int dataType = header.getInt();
+            if (dataType != TYPE_FLOAT && dataType != TYPE_DOUBLE)
+                throw new IOException("Invalid parameter data type " + dataType);
+            long numParams = header.getLong();
+            long confLength = header.getLong();
+            long updaterLength = header.getLong();
+            if (numParams > Integer.MAX_VALUE || confLength > Integer.MAX_VALUE)
+                throw new IOException("Invalid checkpoint header: " + numParams + " parameters, configuration length " + confLength);
+
+            ByteBuffer conf = ByteBuffer.allocate((int) confLength);
+            readFully(channel, conf, HEADER_LENGTH);
+            MultiLayerConfiguration configuration = MultiLayerConfiguration.fromJson(new String(conf.array(), UTF8));
+
+            long paramsOffset = paramsOffset(confLength);
+            INDArray params = readParams(channel, paramsOffset, (int) numParams, dataType);
+
+            //the layers are created directly over the (mapped) parameters: nothing model sized is allocated
+            MultiLayerNetwork network = new MultiLayerNetwork(configuration);
+            network.init(params);
+
+            if (loadUpdater && updaterLength > 0) {
+                channel.position(paramsOffset + numParams * (dataType == TYPE_FLOAT ? 4 : 8));
+                ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                try {
+                    network.setUpdater((Updater) ois.readObject());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Unable to read updater", e);
+                }
+            }
+            return network;
+        }
+    }
+
+    private static INDArray readParams(FileChannel channel, long offset, int numParams, int dataType) throws IOException {
+        int elementSize = (dataType == TYPE_FLOAT ? 4 : 8);
+        long bytes = (long) numParams * elementSize;
+        DataBuffer.Type type = (dataType == TYPE_FLOAT ? DataBuffer.Type.FLOAT : DataBuffer.Type.DOUBLE);
+        if (type == Nd4j.dataType() && ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN && bytes <= Integer.MAX_VALUE) {
+            //Private: copy on write, so the network can still be trained without changing the file
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.PRIVATE, offset, bytes);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return Nd4j.create(Nd4j.createBuffer(mapped, type, numParams), new int[]{1, numParams});
+        }
+
+        //read a buffer at a time in to an array of Nd4j.dataType(), in bulk unless the data type has to be converted
+        boolean toFloat = (Nd4j.dataType() == DataBuffer.Type.FLOAT);
+        float[] floats = (toFloat ? new float[numParams] : null);
+        double[] doubles = (toFloat ? null : new double[numParams]);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int i = 0;
+        long position = offset;
+        while (i < numParams) {
+            int n = Math.min(BUFFER_SIZE / elementSize, numParams - i);
+            buffer.clear();
+            buffer.limit(n * elementSize);
+            readFully(channel, buffer, position);
+            position += n * elementSize;
+            buffer.flip();
+            if (dataType == TYPE_FLOAT && toFloat) {
+                buffer.asFloatBuffer().get(floats, i, n);
+            } else if (dataType == TYPE_DOUBLE && !toFloat) {
+                buffer.asDoubleBuffer().get(doubles, i, n);
+            } else {
+                for (int j = 0; j < n; j++) {
+                    if (toFloat)
+                        floats[i + j] = (float) buffer.getDouble();
+                    else
+                        doubles[i + j] = buffer.getFloat();
+                }
+            }
+            i += n;
+        }
+        int[] shape = {1, numParams};
+        return toFloat ? Nd4j.create(floats, shape) : Nd4j.create(doubles, shape);
+    }
+
+    //Parameters start at a multiple of 8 bytes
+    private static long paramsOffset(long confLength) {
+        long end = HEADER_LENGTH + confLength;
+        return (end + 7) / 8 * 8;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new EOFException("Unexpected end of checkpoint file");
+            position += read;
+        }
+    }
+}
@@ -6,6 +6,12 @@ import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -123,17 +129,119 @@ public class TestAsyncIterator {
         async.shutdown();
     }
 
+    @Test
+    public void testMultiThreadedOrdered(){
+        int size = 23;
+        //Shared base iterator, ordered: same order as base iterator
+        for( int queueSize : new int[]{1,3} ) {
+            DataSetIterator baseIter = new TestIterator(size, 5);
+            MultiThreadedAsyncDataSetIterator async = new MultiThreadedAsyncDataSetIterator(baseIter, 4, queueSize, true);
+            for( int epoch=0; epoch<2; epoch++ ) {
+                for (int i = 0; i < size; i++) {
+                    assertTrue(async.hasNext());
+                    DataSet ds = async.next();
+                    assertEquals(ds.getFeatureMatrix().getDouble(0), i, 0.0);
+                    assertEquals(ds.getLabels().getDouble(0), i, 0.0);
+                }
+                assertFalse(async.hasNext());
+                async.reset();
+            }
+            assertEquals(size * 2, async.getNumReturned());
+            async.shutdown();
+        }
+
+        //Shards of different sizes, ordered: round robin over the shards
+        List<DataSetIterator> shards = new ArrayList<>();
+        shards.add(new TestIterator(3, 10, 0));
+        shards.add(new TestIterator(1, 0, 100));
+        shards.add(new TestIterator(4, 0, 200));
+        MultiThreadedAsyncDataSetIterator async = new MultiThreadedAsyncDataSetIterator(shards, 2, true);
+        double[] expected = {0, 100, 200, 1, 201, 2, 202, 203};
+        for( int epoch=0; epoch<2; epoch++ ) {
+            for (double d : expected) {
+                assertTrue(async.hasNext());
+                assertEquals(d, async.next().getFeatureMatrix().getDouble(0), 0.0);
+            }
+            assertFalse(async.hasNext());
+            async.reset();
+        }
+        async.shutdown();
+    }
+
+    @Test
+    public void testMultiThreadedUnordered(){
+        List<DataSetIterator> shards = new ArrayList<>();
+        for( int i=0; i<4; i++ ) shards.add(new TestIterator(10, 5, 100*i));
+        MultiThreadedAsyncDataSetIterator async = new MultiThreadedAsyncDataSetIterator(shards, 2, false);
+        //Preprocessor is applied on the worker threads
+        async.setPreProcessor(new DataSetPreProcessor() {
+            @Override
+            public void preProcess(DataSet toPreProcess) {
+                toPreProcess.getLabels().muli(-1);
+            }
+        });
+        assertEquals(40, async.totalExamples());
+
+        Set<Double> seen = new HashSet<>();
+        while(async.hasNext()){
+            DataSet ds = async.next();
+            double f = ds.getFeatureMatrix().getDouble(0);
+            assertEquals(-f, ds.getLabels().getDouble(0), 0.0);
+            assertTrue(seen.add(f));
+        }
+        assertEquals(40, seen.size());
+        assertEquals(40, async.getNumReturned());
+        assertEquals(0, async.getQueueDepth());
+        assertTrue(async.getWaitTimeMs() >= 0);
+
+        //next(int) merges whole DataSets
+        async.reset();
+        DataSet merged = async.next(3);
+        assertEquals(3, merged.numExamples());
+        async.shutdown();
+    }
+
+    @Test
+    public void testMultiThreadedResetWhileBlocking(){
+        int size = 6;
+        DataSetIterator baseIter = new TestIterator(size, 1000);
+        MultiThreadedAsyncDataSetIterator async = new MultiThreadedAsyncDataSetIterator(baseIter, 2);
+        async.next();
+        //Workers should be waiting on baseIter.next(); reset should start from the beginning again
+        async.reset();
+        for( int i=0; i<size; i++ ){
+            assertTrue(async.hasNext());
+            assertEquals(i, async.next().getFeatureMatrix().getDouble(0), 0.0);
+        }
+        assertFalse(async.hasNext());
+        async.shutdown();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMultiThreadedException(){
+        List<DataSetIterator> shards = Arrays.asList((DataSetIterator)new TestIterator(5, 0, 0), new TestIterator(5, 0, -1));
+        MultiThreadedAsyncDataSetIterator async = new MultiThreadedAsyncDataSetIterator(shards, 1, true);
+        while(async.hasNext()) async.next();
+    }
+
 
     private static class TestIterator implements DataSetIterator {
 
         private int size;
         private int cursor;
         private long delayMSOnNext;
+        private int offset;
 
         private TestIterator(int size, long delayMSOnNext ){
+            this(size, delayMSOnNext, 0);
+        }
+
+        //offset < 0: throw an exception on next()
+        private TestIterator(int size, long delayMSOnNext, int offset ){
             this.size = size;
             this.cursor = 0;
             this.delayMSOnNext = delayMSOnNext;
+            this.offset = offset;
         }
 
         @Override
@@ -195,8 +303,9 @@ public class TestAsyncIterator {
                     throw new RuntimeException(e);
                 }
             }
-            INDArray features = Nd4j.scalar(cursor);
-            INDArray labels = Nd4j.scalar(cursor);
+            if(offset < 0) throw new IllegalStateException("Test exception");
+            INDArray features = Nd4j.scalar(cursor + offset);
+            INDArray labels = Nd4j.scalar(cursor + offset);
             cursor++;
             return new DataSet(features,labels);
         }
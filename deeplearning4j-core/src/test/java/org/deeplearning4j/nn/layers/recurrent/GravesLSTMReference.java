@@ -0,0 +1,190 @@
+package org.deeplearning4j.nn.layers.recurrent;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.params.GravesLSTMParamInitializer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
+
+/**
+ * Reference implementation of the GravesLSTM forward and backward pass, with separate matrix multiplies
+ * for each of the IFOG gates (as GravesLSTM was implemented before its gates were combined).
+ * Used to test GravesLSTM against, and as the baseline of GravesLSTMBenchmark in deeplearning4j-benchmarks;
+ * no dropconnect or truncated BPTT.
+ */
+public class GravesLSTMReference {
+
+    private final INDArray input;
+    private final int hiddenLayerSize;
+    private final int miniBatchSize;
+    private final int timeSeriesLength;
+    private final String afn;
+
+    //Per gate weights: [0..3] = IFOG. Peephole weights: FF, OO, GG (as row vectors)
+    private final INDArray[] w = new INDArray[4];
+    private final INDArray[] wR = new INDArray[4];
+    private final INDArray[] b = new INDArray[4];
+    private final INDArray wFF;
+    private final INDArray wOO;
+    private final INDArray wGG;
+
+    //Forward pass values by time step
+    private INDArray[] h;
+    private INDArray[] c;
+    private INDArray[] actC;
+    private INDArray[] zi;
+    private INDArray[][] a;    //[gate][t]
+
+    public GravesLSTMReference(GravesLSTM layer, INDArray input) {
+        this.input = input;
+        INDArray rw = layer.getParam(GravesLSTMParamInitializer.RECURRENT_WEIGHT_KEY);
+        INDArray iw = layer.getParam(GravesLSTMParamInitializer.INPUT_WEIGHT_KEY);
+        INDArray bias = layer.getParam(GravesLSTMParamInitializer.BIAS_KEY);
+        hiddenLayerSize = rw.size(0);
+        miniBatchSize = input.size(0);
+        timeSeriesLength = input.rank() < 3 ? 1 : input.size(2);
+        afn = layer.conf().getLayer().getActivationFunction();
+        int n = hiddenLayerSize;
+        for (int i = 0; i < 4; i++) {
+            w[i] = iw.get(NDArrayIndex.all(), interval(i * n, (i + 1) * n)).dup();
+            wR[i] = rw.get(NDArrayIndex.all(), interval(i * n, (i + 1) * n)).dup();
+            b[i] = bias.get(NDArrayIndex.point(0), interval(i * n, (i + 1) * n)).dup();
+        }
+        wFF = rw.get(NDArrayIndex.all(), interval(4 * n, 4 * n + 1)).transpose().dup();
+        wOO = rw.get(NDArrayIndex.all(), interval(4 * n + 1, 4 * n + 2)).transpose().dup();
+        wGG = rw.get(NDArrayIndex.all(), interval(4 * n + 2, 4 * n + 3)).transpose().dup();
+    }
+
+    private INDArray inputSlice(int t) {
+        return Shape.toMmulCompatible(input.rank() < 3 ? input : input.tensorAlongDimension(t, 1, 0)).dup();
+    }
+
+    private static INDArray transform(String name, INDArray x) {
+        return Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(name, x.dup()));
+    }
+
+    private static INDArray derivative(String name, INDArray x) {
+        return Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(name, x.dup()).derivative());
+    }
+
+    /** Forward pass. Returns output activations, shape [m,hiddenLayerSize,T] */
+    public INDArray activate() {
+        int T = timeSeriesLength;
+        h = new INDArray[T];
+        c = new INDArray[T];
+        actC = new INDArray[T];
+        zi = new INDArray[T];
+        a = new INDArray[4][T];
+        INDArray out = Nd4j.zeros(miniBatchSize, hiddenLayerSize, T);
+        INDArray prevH = Nd4j.zeros(miniBatchSize, hiddenLayerSize);
+        INDArray prevC = Nd4j.zeros(miniBatchSize, hiddenLayerSize);
+        for (int t = 0; t < T; t++) {
+            INDArray x = inputSlice(t);
+            INDArray[] z = new INDArray[4];
+            for (int i = 0; i < 4; i++) {
+                z[i] = x.mmul(w[i]).addi(prevH.mmul(wR[i])).addiRowVector(b[i]);
+            }
+            z[1].addi(prevC.mulRowVector(wFF));
+            z[3].addi(prevC.mulRowVector(wGG));
+            zi[t] = z[0].dup();
+            a[0][t] = transform(afn, z[0]);
+            a[1][t] = transform("sigmoid", z[1]);
+            a[3][t] = transform("sigmoid", z[3]);
+            c[t] = a[1][t].mul(prevC).addi(a[3][t].mul(a[0][t]));
+            z[2].addi(c[t].mulRowVector(wOO));
+            a[2][t] = transform("sigmoid", z[2]);
+            actC[t] = transform(afn, c[t]);
+            h[t] = actC[t].mul(a[2][t]);
+            out.tensorAlongDimension(t, 1, 0).assign(h[t]);
+            prevH = h[t];
+            prevC = c[t];
+        }
+        return out;
+    }
+
+    /** Backward pass; calls {@link #activate()} first. Returns gradients and epsilon for the layer below */
+    public Pair<Gradient, INDArray> backpropGradient(INDArray epsilon) {
+        activate();
+        int T = timeSeriesLength;
+        int n = hiddenLayerSize;
+        int nIn = w[0].size(0);
+        INDArray[] iwGrad = new INDArray[4];
+        INDArray[] rwGrad = new INDArray[4];
+        INDArray[] bGrad = new INDArray[4];
+        for (int i = 0; i < 4; i++) {
+            iwGrad[i] = Nd4j.zeros(nIn, n);
+            rwGrad[i] = Nd4j.zeros(n, n);
+            bGrad[i] = Nd4j.zeros(1, n);
+        }
+        INDArray wFFGrad = Nd4j.zeros(1, n);
+        INDArray wOOGrad = Nd4j.zeros(1, n);
+        INDArray wGGGrad = Nd4j.zeros(1, n);
+        INDArray epsilonNext = Nd4j.zeros(miniBatchSize, nIn, T);
+
+        INDArray[] deltaNext = null;
+        INDArray nablaCellNext = null;
+        for (int t = T - 1; t >= 0; t--) {
+            INDArray nablaOut = (epsilon.rank() < 3 ? epsilon : epsilon.tensorAlongDimension(t, 1, 0)).dup();
+            if (deltaNext != null) {
+                for (int i = 0; i < 4; i++) nablaOut.addi(deltaNext[i].mmul(wR[i].transpose()));
+            }
+            INDArray[] delta = new INDArray[4];
+            delta[2] = nablaOut.mul(actC[t]).muli(a[2][t].mul(a[2][t].rsub(1.0)));
+
+            INDArray nablaCell = nablaOut.mul(a[2][t]).muli(derivative(afn, c[t]));
+            nablaCell.addi(delta[2].mulRowVector(wOO));
+            if (deltaNext != null) {
+                nablaCell.addi(a[1][t + 1].mul(nablaCellNext));
+                nablaCell.addi(deltaNext[1].mulRowVector(wFF));
+                nablaCell.addi(deltaNext[3].mulRowVector(wGG));
+            }
+
+            if (t > 0) delta[1] = nablaCell.mul(c[t - 1]).muli(a[1][t].mul(a[1][t].rsub(1.0)));
+            else delta[1] = Nd4j.zeros(miniBatchSize, n);
+            delta[3] = nablaCell.mul(a[0][t]).muli(a[3][t].mul(a[3][t].rsub(1.0)));
+            delta[0] = nablaCell.mul(a[3][t]).muli(derivative(afn, zi[t]));
+
+            INDArray x = inputSlice(t);
+            INDArray epsNextSlice = Nd4j.zeros(miniBatchSize, nIn);
+            for (int i = 0; i < 4; i++) {
+                iwGrad[i].addi(x.transpose().mmul(delta[i]));
+                if (t > 0) rwGrad[i].addi(h[t - 1].transpose().mmul(delta[i]));
+                bGrad[i].addi(delta[i].sum(0));
+                epsNextSlice.addi(delta[i].mmul(w[i].transpose()));
+            }
+            if (t > 0) {
+                wFFGrad.addi(delta[1].mul(c[t - 1]).sum(0));
+                wGGGrad.addi(delta[3].mul(c[t - 1]).sum(0));
+            }
+            wOOGrad.addi(delta[2].mul(c[t]).sum(0));
+            epsilonNext.tensorAlongDimension(t, 1, 0).assign(epsNextSlice);
+
+            deltaNext = delta;
+            nablaCellNext = nablaCell;
+        }
+
+        INDArray iwGradOut = Nd4j.zeros(nIn, 4 * n);
+        INDArray rwGradOut = Nd4j.zeros(n, 4 * n + 3);
+        INDArray bGradOut = Nd4j.zeros(1, 4 * n);
+        for (int i = 0; i < 4; i++) {
+            iwGradOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(i * n, (i + 1) * n)}, iwGrad[i]);
+            rwGradOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(i * n, (i + 1) * n)}, rwGrad[i]);
+            bGradOut.put(new INDArrayIndex[]{NDArrayIndex.point(0), interval(i * n, (i + 1) * n)}, bGrad[i]);
+        }
+        rwGradOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * n)}, wFFGrad.transpose());
+        rwGradOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * n + 1)}, wOOGrad.transpose());
+        rwGradOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * n + 2)}, wGGGrad.transpose());
+
+        Gradient g = new DefaultGradient();
+        g.gradientForVariable().put(GravesLSTMParamInitializer.INPUT_WEIGHT_KEY, iwGradOut);
+        g.gradientForVariable().put(GravesLSTMParamInitializer.RECURRENT_WEIGHT_KEY, rwGradOut);
+        g.gradientForVariable().put(GravesLSTMParamInitializer.BIAS_KEY, bGradOut);
+        return new Pair<>(g, epsilonNext);
+    }
+}
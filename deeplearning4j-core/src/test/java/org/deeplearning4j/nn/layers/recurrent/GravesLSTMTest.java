@@ -160,4 +160,83 @@ public class GravesLSTMTest {
 			assertTrue(sliceFalse.equals(sliceTrue));
 		}
 	}
+
+	@Test
+	public void testSameAsReferenceImplementation(){
+		//GravesLSTM combines the 4 gates into one gemm per time step, with in place gate activations.
+		//Compare forward and backward pass to the (per gate) reference implementation
+		Nd4j.getRandom().setSeed(12345);
+		int nIn = 5;
+		int layerSize = 6;
+		String[] activations = {"tanh","sigmoid"};
+		int[] miniBatchSizes = {1,4};
+		int[] timeSeriesLengths = {1,2,7};
+
+		for( String afn : activations ){
+			for( int miniBatchSize : miniBatchSizes ){
+				for( int timeSeriesLength : timeSeriesLengths ){
+					String msg = "afn=" + afn + ", miniBatchSize=" + miniBatchSize + ", timeSeriesLength=" + timeSeriesLength;
+					GravesLSTM lstm = getLSTM(nIn,layerSize,afn);
+					INDArray input = Nd4j.rand(new int[]{miniBatchSize,nIn,timeSeriesLength});
+					INDArray epsilon = Nd4j.rand(new int[]{miniBatchSize,layerSize,timeSeriesLength}).subi(0.5);
+					GravesLSTMReference reference = new GravesLSTMReference(lstm,input);
+
+					INDArray expOut = reference.activate();
+					INDArray out = lstm.activate(input,false);
+					assertArrayEquals(msg,expOut.shape(),out.shape());
+					assertArraysClose(msg,expOut,out);
+
+					Pair<Gradient,INDArray> expGrad = reference.backpropGradient(epsilon);
+					Pair<Gradient,INDArray> grad = lstm.backpropGradient(epsilon);
+					for( String key : new String[]{GravesLSTMParamInitializer.INPUT_WEIGHT_KEY,
+							GravesLSTMParamInitializer.RECURRENT_WEIGHT_KEY, GravesLSTMParamInitializer.BIAS_KEY} ){
+						INDArray exp = expGrad.getFirst().getGradientFor(key);
+						INDArray act = grad.getFirst().getGradientFor(key);
+						assertArrayEquals(msg + ", " + key,exp.shape(),act.shape());
+						assertArraysClose(msg + ", " + key,exp,act);
+					}
+					assertArraysClose(msg + ", epsilon",expGrad.getSecond(),grad.getSecond());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRnnTimeStepSameAsActivate(){
+		//rnnTimeStep one step at a time (with stored state) should give the same output as a forward pass over all steps
+		Nd4j.getRandom().setSeed(12345);
+		int miniBatchSize = 3;
+		int timeSeriesLength = 5;
+		GravesLSTM lstm = getLSTM(4,6,"tanh");
+		INDArray input = Nd4j.rand(new int[]{miniBatchSize,4,timeSeriesLength});
+		INDArray out = lstm.activate(input,false);
+
+		lstm.rnnClearPreviousState();
+		for( int t=0; t<timeSeriesLength; t++ ){
+			INDArray step = lstm.rnnTimeStep(input.tensorAlongDimension(t,1,0).dup());
+			assertArraysClose("t=" + t,out.tensorAlongDimension(t,1,0),step);
+		}
+	}
+
+	private static GravesLSTM getLSTM(int nIn, int layerSize, String afn){
+		NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder()
+				.seed(12345)
+				.layer(new org.deeplearning4j.nn.conf.layers.GravesLSTM.Builder()
+						.nIn(nIn).nOut(layerSize)
+						.weightInit(WeightInit.DISTRIBUTION).dist(new UniformDistribution(-1, 1))
+						.activation(afn)
+						.build())
+				.build();
+		return LayerFactories.getFactory(conf.getLayer()).create(conf);
+	}
+
+	private static void assertArraysClose(String msg, INDArray expected, INDArray actual){
+		assertEquals(msg,expected.length(),actual.length());
+		for( int i=0; i<expected.length(); i++ ){
+			double e = expected.getDouble(i);
+			double a = actual.getDouble(i);
+			double relError = Math.abs(e - a) / Math.max(1e-6, Math.abs(e) + Math.abs(a));
+			assertTrue(msg + ": index " + i + ", expected " + e + " but was " + a, relError < 1e-4 || Math.abs(e - a) < 1e-8);
+		}
+	}
 }
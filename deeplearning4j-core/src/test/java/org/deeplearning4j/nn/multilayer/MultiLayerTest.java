@@ -31,7 +31,11 @@ import org.deeplearning4j.nn.conf.distribution.NormalDistribution;
 import org.deeplearning4j.nn.conf.distribution.UniformDistribution;
 import org.deeplearning4j.nn.conf.layers.BatchNormalization;
 import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
 import org.deeplearning4j.nn.conf.layers.RBM;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.conf.preprocessor.FeedForwardToRnnPreProcessor;
+import org.deeplearning4j.nn.conf.preprocessor.RnnToFeedForwardPreProcessor;
 import org.deeplearning4j.nn.layers.BaseOutputLayer;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.optimize.api.IterationListener;
@@ -41,6 +45,7 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.SplitTestAndTrain;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -327,6 +332,89 @@ public class MultiLayerTest {
     }
 
 
+    @Test
+    public void testInferenceSameAsOutput(){
+        MultiLayerConfiguration dense = new NeuralNetConfiguration.Builder()
+                .seed(12345L)
+                .list(3)
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation("tanh").dropOut(0.5)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(1, new DenseLayer.Builder().nIn(10).nOut(8).activation("relu")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(2, new org.deeplearning4j.nn.conf.layers.OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation("softmax").nIn(8).nOut(3)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .build();
+
+        //Second configuration: RBM layer is activated as normal, output layer in to the buffer
+        for(MultiLayerConfiguration conf : Arrays.asList(dense, getConf())) {
+            MultiLayerNetwork network = new MultiLayerNetwork(conf);
+            network.init();
+            network.setInferenceBatchSize(10);
+            DataSet data = new IrisDataSetIterator(150, 150).next();
+
+            //Smaller, equal and larger batches than the initial buffers
+            for (int n : new int[]{5, 10, 150, 1, 150}) {
+                INDArray in = data.getFeatureMatrix().get(NDArrayIndex.interval(0, n), NDArrayIndex.all());
+                INDArray expected = network.output(in, false);
+                INDArray actual = network.inference(in);
+                assertArrayEquals(expected.shape(), actual.shape());
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testInferenceSameAsOutputRecurrent(){
+        int nIn = 4;
+        int timeSeriesLength = 6;
+        //RNN -> dense: dense layer inputs have miniBatchSize*timeSeriesLength rows
+        MultiLayerConfiguration rnnToDense = new NeuralNetConfiguration.Builder()
+                .seed(12345L)
+                .list(3)
+                .layer(0, new GravesLSTM.Builder().nIn(nIn).nOut(5).activation("tanh")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(1, new DenseLayer.Builder().nIn(5).nOut(6).activation("relu")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(2, new org.deeplearning4j.nn.conf.layers.OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation("softmax").nIn(6).nOut(3)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .inputPreProcessor(1, new RnnToFeedForwardPreProcessor())
+                .build();
+
+        //dense -> RNN: reshaping back to time series needs the minibatch size
+        MultiLayerConfiguration denseToRnn = new NeuralNetConfiguration.Builder()
+                .seed(12345L)
+                .list(3)
+                .layer(0, new DenseLayer.Builder().nIn(nIn).nOut(5).activation("tanh")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(1, new GravesLSTM.Builder().nIn(5).nOut(6).activation("tanh")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(2, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation("softmax").nIn(6).nOut(3)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .inputPreProcessor(0, new RnnToFeedForwardPreProcessor())
+                .inputPreProcessor(1, new FeedForwardToRnnPreProcessor())
+                .build();
+
+        for(MultiLayerConfiguration conf : Arrays.asList(rnnToDense, denseToRnn)) {
+            MultiLayerNetwork network = new MultiLayerNetwork(conf);
+            network.init();
+            network.setInferenceBatchSize(2);
+            Nd4j.getRandom().setSeed(12345);
+            INDArray data = Nd4j.rand(new int[]{10, nIn, timeSeriesLength});
+
+            //Smaller, equal and larger batches than the initial buffers
+            for (int n : new int[]{1, 2, 10, 3}) {
+                INDArray in = data.get(NDArrayIndex.interval(0, n), NDArrayIndex.all(), NDArrayIndex.all()).dup();
+                INDArray expected = network.output(in, false);
+                INDArray actual = network.inference(in);
+                assertArrayEquals(expected.shape(), actual.shape());
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
     private static MultiLayerConfiguration getConf(){
         MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
                 .seed(12345L)
@@ -2,8 +2,12 @@ package org.deeplearning4j.nn.multilayer;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.distribution.NormalDistribution;
@@ -18,6 +22,7 @@ import org.deeplearning4j.nn.weights.WeightInit;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.lossfunctions.LossFunctions.LossFunction;
 
 public class TestSetGetParameters {
@@ -98,4 +103,105 @@ public class TestSetGetParameters {
 		
 		assertEquals(net.params(),randomParams);
 	}
+
+	@Test
+	public void testSetParametersFlattened(){
+		//With redistributed params, all layer params are views of one vector: get/set should not copy
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+			.list(3)
+			.layer(0, new DenseLayer.Builder().nIn(9).nOut(10)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(1, new GravesLSTM.Builder().nIn(10).nOut(11)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(2, new RnnOutputLayer.Builder(LossFunction.MSE).nIn(11).nOut(12)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.redistributeParams(true)
+			.build();
+
+		MultiLayerNetwork net = new MultiLayerNetwork(conf);
+		net.init();
+		assertTrue(net.isParamsFlattened());
+
+		INDArray params = net.params();
+		assertTrue(params == net.params());
+		assertEquals(net.numParams(), params.length());
+
+		//Changes to the flattened vector are visible in the layers
+		List<Map<String,INDArray>> before = new ArrayList<>();
+		for( int i=0; i<net.getnLayers(); i++ ){
+			Map<String,INDArray> copy = new HashMap<>();
+			for( Map.Entry<String,INDArray> e : net.getLayer(i).paramTable().entrySet() ) copy.put(e.getKey(),e.getValue().dup());
+			before.add(copy);
+		}
+		params.muli(2.0);
+		for( int i=0; i<net.getnLayers(); i++ ){
+			Layer layer = net.getLayer(i);
+			for( Map.Entry<String,INDArray> e : before.get(i).entrySet() ){
+				INDArray expected = e.getValue().mul(2.0);
+				assertEquals("Params not a view: layer "+i+" "+e.getKey(), expected, layer.paramTable().get(e.getKey()));
+				assertEquals(expected, layer.getParam(e.getKey()));
+			}
+		}
+		INDArray layerParams = net.getLayer(0).params();
+		assertEquals(params.get(NDArrayIndex.point(0),NDArrayIndex.interval(0,layerParams.length())),layerParams);
+
+		//Setting copies in to the existing vector rather than replacing it
+		INDArray randomParams = Nd4j.rand(params.shape());
+		net.setParams(randomParams);
+		assertTrue(params == net.params());
+		assertEquals(randomParams,net.params());
+		assertEquals(randomParams.get(NDArrayIndex.point(0),NDArrayIndex.interval(0,layerParams.length())),net.getLayer(0).params());
+	}
+
+	@Test
+	public void testInitFromFlattenedParameters(){
+		//Initializing over a flattened vector gives the same layout as init() then setParams(), without copying
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+			.list(4)
+			.layer(0, new DenseLayer.Builder().nIn(9).nOut(10)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(1, new RBM.Builder().nIn(10).nOut(11)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(2, new GravesLSTM.Builder().nIn(11).nOut(12)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(3, new RnnOutputLayer.Builder(LossFunction.MSE).nIn(12).nOut(12)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.build();
+
+		MultiLayerNetwork expected = new MultiLayerNetwork(conf.clone());
+		expected.init();
+		INDArray params = Nd4j.rand(1, expected.numParams());
+		expected.setParams(params.dup());
+
+		MultiLayerNetwork net = new MultiLayerNetwork(conf.clone());
+		net.init(params);
+		assertTrue(net.isParamsFlattened());
+		assertTrue(params == net.params());
+		assertEquals(expected.numParams(), net.numParams());
+
+		Map<String,INDArray> expectedTable = expected.paramTable();
+		Map<String,INDArray> paramTable = net.paramTable();
+		assertEquals(expectedTable.keySet(), paramTable.keySet());
+		for( String s : expectedTable.keySet() ){
+			assertArrayEquals("Shapes differ: "+s, expectedTable.get(s).shape(), paramTable.get(s).shape());
+			assertEquals("Params differ: "+s, expectedTable.get(s), paramTable.get(s));
+		}
+		for( int i = 0; i < 4; i++ )
+			assertEquals(expected.getLayer(i).conf().variables(), net.getLayer(i).conf().variables());
+
+		//The layers are views of the vector
+		params.muli(2.0);
+		assertEquals(expected.params().mul(2.0), net.params());
+		assertEquals(expected.getLayer(0).params().mul(2.0), net.getLayer(0).params());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInitFromFlattenedParametersWrongLength(){
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+			.list(2)
+			.layer(0, new DenseLayer.Builder().nIn(9).nOut(10).build())
+			.layer(1, new OutputLayer.Builder(LossFunction.MSE).nIn(10).nOut(3).build())
+			.build();
+		new MultiLayerNetwork(conf).init(Nd4j.create(1, 10));
+	}
 }
@@ -2,7 +2,9 @@ package org.deeplearning4j.nn.updater;
 
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -457,6 +459,78 @@ public class TestUpdaters {
 		}
 	}
 
+	@Test
+	public void testMultiLayerUpdaterFlattened() throws Exception {
+		//Flattened params -> flattened gradient: results should be identical to the per layer updaters
+		Nd4j.getRandom().setSeed(12345L);
+		int nLayers = 4;
+		double lr = 0.03;
+
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+			.learningRate(lr)
+			.momentum(0.6)
+			.list(nLayers)
+			.layer(0, new DenseLayer.Builder().nIn(4).nOut(5).updater(org.deeplearning4j.nn.conf.Updater.ADAGRAD).build())
+			.layer(1, new DenseLayer.Builder().nIn(5).nOut(6).updater(org.deeplearning4j.nn.conf.Updater.ADAGRAD).build())
+			.layer(2, new DenseLayer.Builder().nIn(6).nOut(7).updater(org.deeplearning4j.nn.conf.Updater.NESTEROVS).build())
+			.layer(3, new DenseLayer.Builder().nIn(7).nOut(8).updater(org.deeplearning4j.nn.conf.Updater.NESTEROVS).build())
+			.redistributeParams(true)
+			.build();
+
+		MultiLayerNetwork net = new MultiLayerNetwork(conf);
+		net.init();
+
+		MultiLayerUpdater updater = (MultiLayerUpdater)UpdaterCreator.getUpdater(net);
+		assertTrue(updater.isFlattened());
+
+		Field f = MultiLayerUpdater.class.getDeclaredField("blockUpdaters");
+		f.setAccessible(true);
+		assertEquals(2, ((Object[])f.get(updater)).length);
+
+		Updater[] uArr = new Updater[4];
+		uArr[0] = new AdaGradUpdater();
+		uArr[1] = new AdaGradUpdater();
+		uArr[2] = new NesterovsUpdater();
+		uArr[3] = new NesterovsUpdater();
+
+		int[] nIns = {4,5,6,7};
+		int[] nOuts = {5,6,7,8};
+
+		for( int i=0; i<5; i++ ){
+			Gradient gradient = new DefaultGradient();
+			Map<String,INDArray> expectedGradient = new HashMap<>();
+
+			for( int j=0; j<nLayers; j++ ){
+				INDArray wGrad = Nd4j.rand(nIns[j],nOuts[j]);
+				INDArray bGrad = Nd4j.rand(1,nOuts[j]);
+
+				gradient.setGradientFor(j + "_" + DefaultParamInitializer.WEIGHT_KEY, wGrad);
+				gradient.setGradientFor(j + "_" + DefaultParamInitializer.BIAS_KEY, bGrad);
+
+				Gradient layerGradient = new DefaultGradient();
+				layerGradient.setGradientFor(DefaultParamInitializer.WEIGHT_KEY, wGrad.dup());
+				layerGradient.setGradientFor(DefaultParamInitializer.BIAS_KEY, bGrad.dup());
+				uArr[j].update(net.getLayer(j), layerGradient, i);
+				for( String s : layerGradient.gradientForVariable().keySet() ){
+					expectedGradient.put(j+"_"+s,layerGradient.getGradientFor(s));
+				}
+			}
+
+			updater.update(net, gradient, i);
+			for( String s : expectedGradient.keySet() ){
+				assertEquals(s, expectedGradient.get(s), gradient.getGradientFor(s));
+			}
 
+			//Flattened gradient is laid out like the flattened params, and is not copied
+			INDArray flat = gradient.gradient();
+			assertTrue(flat == gradient.gradient());
+			assertEquals(net.numParams(), flat.length());
+			List<INDArray> inParamOrder = new ArrayList<>();
+			for( int j=0; j<nLayers; j++ ){
+				for( String s : net.getLayer(j).paramTable().keySet() ) inParamOrder.add(expectedGradient.get(j+"_"+s));
+			}
+			assertEquals(Nd4j.toFlattened('f',inParamOrder), flat);
+		}
+	}
 
 }
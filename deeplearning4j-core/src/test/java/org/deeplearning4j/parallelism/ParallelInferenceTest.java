@@ -0,0 +1,129 @@
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.distribution.NormalDistribution;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.lossfunctions.LossFunctions.LossFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ParallelInferenceTest {
+
+    @Test
+    public void testOutputSameAsNetwork() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        final INDArray features = new IrisDataSetIterator(150, 150).next().getFeatureMatrix();
+        INDArray expected = net.output(features, false);
+
+        final ParallelInference inference = new ParallelInference.Builder(net)
+                .replicas(2).maxBatchSize(16).maxWaitMs(20)
+                .build();
+
+        //Single example requests from a number of threads at once
+        int numThreads = 5;
+        final List<List<Future<INDArray>>> futures = new ArrayList<>();
+        Thread[] threads = new Thread[numThreads];
+        for( int t = 0; t < numThreads; t++ ) {
+            final List<Future<INDArray>> list = new ArrayList<>();
+            futures.add(list);
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for( int i = thread; i < 150; i += 5 )
+                        list.add(inference.output(features.getRow(i)));
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread t : threads)
+            t.join();
+
+        for( int t = 0; t < numThreads; t++ ) {
+            int i = t;
+            for(Future<INDArray> f : futures.get(t)) {
+                assertEquals(expected.getRow(i), f.get());
+                i += numThreads;
+            }
+        }
+
+        assertEquals(150, inference.getNumRequests());
+        assertTrue(inference.getNumBatches() <= 150);
+        assertTrue(inference.getAverageBatchSize() >= 1.0);
+        assertTrue(inference.getBatchFill() <= 1.0);
+        assertTrue(inference.getLatencyPercentileMs(50) <= inference.getLatencyPercentileMs(99));
+        inference.shutdown();
+    }
+
+    @Test
+    public void testUpdateModel() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        INDArray features = new IrisDataSetIterator(150, 150).next().getFeatureMatrix();
+        ParallelInference inference = new ParallelInference.Builder(net).replicas(1).build();
+
+        INDArray before = inference.output(features.getRow(0)).get();
+        net.setParams(net.params().mul(2));
+        //Parameters are only copied on updateModel()
+        assertEquals(before, inference.output(features.getRow(0)).get());
+        inference.updateModel();
+        assertEquals(net.output(features.getRow(0), false), inference.output(features.getRow(0)).get());
+        inference.shutdown();
+    }
+
+    @Test
+    public void testBatchNotOverfilled() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        INDArray features = new IrisDataSetIterator(150, 150).next().getFeatureMatrix();
+        ParallelInference inference = new ParallelInference.Builder(net)
+                .replicas(1).maxBatchSize(4).maxWaitMs(50)
+                .build();
+
+        //Requests of 3 examples: two would overfill a batch, so each runs on its own
+        List<Future<INDArray>> futures = new ArrayList<>();
+        for( int i = 0; i < 10; i++ )
+            futures.add(inference.output(features.get(NDArrayIndex.interval(3 * i, 3 * i + 3), NDArrayIndex.all())));
+        for( int i = 0; i < 10; i++ ) {
+            INDArray rows = features.get(NDArrayIndex.interval(3 * i, 3 * i + 3), NDArrayIndex.all());
+            assertEquals(net.output(rows, false), futures.get(i).get());
+        }
+        assertEquals(10, inference.getNumBatches());
+        assertTrue(inference.getBatchFill() <= 1.0);
+        inference.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOutputAfterShutdown() {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        ParallelInference inference = new ParallelInference.Builder(net).replicas(1).build();
+        inference.shutdown();
+        inference.output(new IrisDataSetIterator(1, 150).next().getFeatureMatrix());
+    }
+
+    private static MultiLayerConfiguration getConf() {
+        return new NeuralNetConfiguration.Builder()
+                .seed(12345L)
+                .list(2)
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation("tanh")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(1, new OutputLayer.Builder(LossFunction.MCXENT).nIn(10).nOut(3).activation("softmax")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .pretrain(false).backprop(true)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.distribution.NormalDistribution;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.lossfunctions.LossFunctions.LossFunction;
+
+import static org.junit.Assert.*;
+
+public class ParallelTrainerTest {
+
+    @Test
+    public void testSingleWorkerSameAsFit() {
+        //One replica, averaging after every minibatch: should be exactly the same as fitting the network itself
+        MultiLayerNetwork expected = new MultiLayerNetwork(getIrisConf());
+        expected.init();
+        MultiLayerNetwork net = new MultiLayerNetwork(getIrisConf());
+        net.init();
+        assertEquals(expected.params(), net.params());
+
+        expected.fit(new IrisDataSetIterator(10, 150));
+
+        ParallelTrainer trainer = new ParallelTrainer.Builder(net)
+                .workers(1).averagingFrequency(1)
+                .build();
+        trainer.fit(new IrisDataSetIterator(10, 150));
+
+        assertEquals(expected.params(), net.params());
+    }
+
+    @Test
+    public void testAveraging() {
+        MultiLayerNetwork net = new MultiLayerNetwork(getIrisConf());
+        net.init();
+        INDArray initParams = net.params().dup();
+        DataSet all = new IrisDataSetIterator(150, 150).next();
+        double scoreBefore = net.score(all);
+
+        ParallelTrainer trainer = new ParallelTrainer.Builder(net)
+                .workers(4).averagingFrequency(2)
+                .build();
+        for( int i = 0; i < 5; i++ )
+            trainer.fit(new IrisDataSetIterator(10, 150));
+
+        assertNotEquals(initParams, net.params());
+        assertTrue(net.score(all) < scoreBefore);
+    }
+
+    @Test
+    public void testHogwild() {
+        MultiLayerNetwork net = new MultiLayerNetwork(getIrisConf());
+        net.init();
+        INDArray initParams = net.params().dup();
+        DataSet all = new IrisDataSetIterator(150, 150).next();
+        double scoreBefore = net.score(all);
+
+        ParallelTrainer trainer = new ParallelTrainer.Builder(net)
+                .workers(4).mode(ParallelTrainer.Mode.HOGWILD)
+                .build();
+        for( int i = 0; i < 5; i++ )
+            trainer.fit(new IrisDataSetIterator(10, 150));
+
+        assertNotEquals(initParams, net.params());
+        assertTrue(net.score(all) < scoreBefore);
+    }
+
+    private static MultiLayerConfiguration getIrisConf() {
+        return new NeuralNetConfiguration.Builder()
+                .iterations(1)
+                .learningRate(0.1)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                .seed(12345L)
+                .list(2)
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 0.1))
+                        .updater(Updater.SGD).activation("tanh").build())
+                .layer(1, new OutputLayer.Builder(LossFunction.MCXENT).nIn(10).nOut(3)
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 0.1))
+                        .updater(Updater.SGD).activation("softmax").build())
+                .pretrain(false).backprop(true)
+                .build();
+    }
+}
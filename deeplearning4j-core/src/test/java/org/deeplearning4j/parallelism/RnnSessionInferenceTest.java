@@ -0,0 +1,152 @@
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.distribution.NormalDistribution;
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions.LossFunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class RnnSessionInferenceTest {
+
+    @Test
+    public void testSameAsRnnTimeStep() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        Nd4j.getRandom().setSeed(12345);
+        final int numSessions = 6;
+        final int timeSeriesLength = 8;
+        final INDArray[] sequences = new INDArray[numSessions];
+        for( int i = 0; i < numSessions; i++ )
+            sequences[i] = Nd4j.rand(timeSeriesLength, 3);
+
+        final RnnSessionInference inference = new RnnSessionInference.Builder(net)
+                .maxBatchSize(4).maxWaitMs(10)
+                .build();
+
+        //Steps of all sessions submitted at the same time, from one thread per session
+        final List<List<Future<INDArray>>> futures = new ArrayList<>();
+        Thread[] threads = new Thread[numSessions];
+        for( int i = 0; i < numSessions; i++ ) {
+            final List<Future<INDArray>> list = new ArrayList<>();
+            futures.add(list);
+            final int session = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for( int t = 0; t < timeSeriesLength; t++ )
+                        list.add(inference.step("session" + session, sequences[session].getRow(t)));
+                }
+            });
+            threads[i].start();
+        }
+        for(Thread t : threads)
+            t.join();
+
+        for( int i = 0; i < numSessions; i++ ) {
+            net.rnnClearPreviousState();
+            for( int t = 0; t < timeSeriesLength; t++ ) {
+                INDArray expected = net.rnnTimeStep(sequences[i].getRow(t));
+                assertEquals(expected, futures.get(i).get(t).get());
+            }
+        }
+
+        assertEquals(numSessions * timeSeriesLength, inference.getNumSteps());
+        assertEquals(numSessions, inference.getNumSessions());
+        assertTrue(inference.getAverageBatchSize() >= 1.0);
+        assertTrue(inference.endSession("session0"));
+        assertEquals(numSessions - 1, inference.getNumSessions());
+        inference.shutdown();
+    }
+
+    @Test
+    public void testStepsForOneSessionInOrder() throws Exception {
+        //All steps of a session queued at once: must not be run in the same batch
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        INDArray sequence = Nd4j.rand(5, 3);
+        RnnSessionInference inference = new RnnSessionInference.Builder(net).maxWaitMs(20).build();
+        List<Future<INDArray>> futures = new ArrayList<>();
+        for( int t = 0; t < 5; t++ )
+            futures.add(inference.step("s", sequence.getRow(t)));
+
+        net.rnnClearPreviousState();
+        for( int t = 0; t < 5; t++ )
+            assertEquals(net.rnnTimeStep(sequence.getRow(t)), futures.get(t).get());
+        assertEquals(5, inference.getNumBatches());
+        inference.shutdown();
+    }
+
+    @Test
+    public void testEvictionRestartsSession() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        INDArray input = Nd4j.rand(1, 3);
+        RnnSessionInference inference = new RnnSessionInference.Builder(net).maxSessions(2).build();
+        INDArray first = inference.step("a", input).get();
+        assertNotEquals(first, inference.step("a", input).get());
+        inference.step("b", input).get();
+        inference.step("c", input).get();
+        //"a" is least recently used: evicted, and starts again from the initial state
+        assertEquals(2, inference.getNumSessions());
+        assertEquals(first, inference.step("a", input).get());
+        inference.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStepAfterShutdown() {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        RnnSessionInference inference = new RnnSessionInference.Builder(net).build();
+        inference.shutdown();
+        inference.step("s", Nd4j.rand(1, 3));
+    }
+
+    @Test
+    public void testStateStore() throws Exception {
+        List<Map<String, INDArray>> state = Collections.emptyList();
+        RnnSessionStateStore store = new RnnSessionStateStore(2, 0);
+        store.put("a", state);
+        store.put("b", state);
+        assertNotNull(store.get("a"));
+        store.put("c", state);
+        //"b" is least recently used
+        assertNull(store.get("b"));
+        assertNotNull(store.get("a"));
+        assertEquals(2, store.size());
+        assertEquals(1, store.getNumEvicted());
+
+        store = new RnnSessionStateStore(10, 20);
+        store.put("a", state);
+        Thread.sleep(50);
+        store.put("b", state);
+        assertNull(store.get("a"));
+        assertNotNull(store.get("b"));
+        assertEquals(1, store.size());
+    }
+
+    private static MultiLayerConfiguration getConf() {
+        return new NeuralNetConfiguration.Builder()
+                .seed(12345L)
+                .list(2)
+                .layer(0, new GravesLSTM.Builder().nIn(3).nOut(5).activation("tanh")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(1, new RnnOutputLayer.Builder(LossFunction.MCXENT).nIn(5).nOut(2).activation("softmax")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .pretrain(false).backprop(true)
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package org.deeplearning4j.util;
+
+import org.apache.commons.io.FileUtils;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.distribution.NormalDistribution;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.lossfunctions.LossFunctions.LossFunction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class ModelCheckpointTest {
+
+    @Test
+    public void testWriteLoad() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        DataSet data = new IrisDataSetIterator(150, 150).next();
+        net.fit(data);
+
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        ModelCheckpoint.write(net, file);
+        MultiLayerNetwork loaded = ModelCheckpoint.load(file);
+
+        assertEquals(net.getLayerWiseConfigurations(), loaded.getLayerWiseConfigurations());
+        assertEquals(net.params(), loaded.params());
+        assertEquals(net.output(data.getFeatureMatrix(), false), loaded.output(data.getFeatureMatrix(), false));
+        assertNull(loaded.getUpdater());
+    }
+
+    @Test
+    public void testContinueTrainingWithUpdaterState() throws Exception {
+        //Nesterovs momentum: continuing training from the checkpoint needs the updater state
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        DataSet data = new IrisDataSetIterator(150, 150).next();
+        for( int i = 0; i < 3; i++ )
+            net.fit(data);
+
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        ModelCheckpoint.write(net, file);
+        MultiLayerNetwork loaded = ModelCheckpoint.load(file, true);
+        assertNotNull(loaded.getUpdater());
+
+        net.fit(data);
+        loaded.fit(data);
+        INDArray expected = net.params();
+        INDArray actual = loaded.params();
+        for( int i = 0; i < expected.length(); i++ )
+            assertEquals(expected.getDouble(i), actual.getDouble(i), 1e-5);
+
+        //Training the loaded network does not change the file
+        assertNotEquals(loaded.params(), ModelCheckpoint.load(file).params());
+    }
+
+    @Test
+    public void testWithoutUpdater() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        net.fit(new IrisDataSetIterator(150, 150).next());
+        File withUpdater = File.createTempFile("checkpoint", ".bin");
+        File withoutUpdater = File.createTempFile("checkpoint", ".bin");
+        withUpdater.deleteOnExit();
+        withoutUpdater.deleteOnExit();
+        ModelCheckpoint.write(net, withUpdater, true);
+        ModelCheckpoint.write(net, withoutUpdater, false);
+        assertTrue(withoutUpdater.length() < withUpdater.length());
+        assertNull(ModelCheckpoint.load(withoutUpdater, true).getUpdater());
+    }
+
+    @Test
+    public void testOverwrite() throws Exception {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        DataSet data = new IrisDataSetIterator(150, 150).next();
+        File dir = new File(System.getProperty("java.io.tmpdir"), "checkpoint-" + System.nanoTime());
+        assertTrue(dir.mkdirs());
+        try {
+            File file = new File(dir, "model.bin");
+            ModelCheckpoint.write(net, file);
+            MultiLayerNetwork first = ModelCheckpoint.load(file);
+            INDArray firstParams = first.params().dup();
+
+            net.fit(data);
+            ModelCheckpoint.write(net, file);
+            //The checkpoint is replaced as a whole, without leaving temporary files behind
+            assertEquals(net.params(), ModelCheckpoint.load(file).params());
+            assertArrayEquals(new String[]{"model.bin"}, dir.list());
+            //A network loaded from the old checkpoint is unaffected
+            assertEquals(firstParams, first.params());
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testLoadOtherDataType() throws Exception {
+        //A checkpoint with parameters of the other data type can't be memory mapped: it is read in to memory
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf());
+        net.init();
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        ModelCheckpoint.write(net, file, false);
+
+        ByteBuffer in = ByteBuffer.wrap(FileUtils.readFileToByteArray(file)).order(ByteOrder.LITTLE_ENDIAN);
+        int dataType = in.getInt(12);
+        int numParams = (int) in.getLong(16);
+        int paramsOffset = (int) ((40 + in.getLong(24) + 7) / 8 * 8);
+        ByteBuffer out = ByteBuffer.allocate(paramsOffset + numParams * (dataType == 0 ? 8 : 4)).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(in.array(), 0, paramsOffset);
+        out.putInt(12, 1 - dataType);
+        in.position(paramsOffset);
+        for( int i = 0; i < numParams; i++ ) {
+            if(dataType == 0)
+                out.putDouble(in.getFloat());
+            else
+                out.putFloat((float) in.getDouble());
+        }
+        FileUtils.writeByteArrayToFile(file, out.array());
+
+        INDArray expected = net.params();
+        INDArray actual = ModelCheckpoint.load(file).params();
+        assertEquals(expected.length(), actual.length());
+        for( int i = 0; i < expected.length(); i++ )
+            assertEquals(expected.getDouble(i), actual.getDouble(i), 1e-6);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotACheckpoint() throws Exception {
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "this is not a checkpoint file, just some text");
+        ModelCheckpoint.load(file);
+    }
+
+    private static MultiLayerConfiguration getConf() {
+        return new NeuralNetConfiguration.Builder()
+                .seed(12345L)
+                .iterations(1)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                .learningRate(0.1)
+                .updater(Updater.NESTEROVS).momentum(0.9)
+                .list(2)
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation("tanh")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .layer(1, new OutputLayer.Builder(LossFunction.MCXENT).nIn(10).nOut(3).activation("softmax")
+                        .weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+                .pretrain(false).backprop(true)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.embeddings;
+
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
+import org.deeplearning4j.models.word2vec.VocabWord;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for lookup tables, implementing each sampling method in terms of the other:
+ * subclasses override at least one of them.
+ * The lookup tables in this package override the generator method, and get the deprecated
+ * AtomicLong one from here. Tables written against the AtomicLong method only get the generator
+ * method from here, seeded from the calling thread's generator.
+ */
+public abstract class BaseWeightLookupTable implements WeightLookupTable {
+
+    /**
+     * @deprecated nextRandom is advanced once to seed the samples of this call:
+     * use {@link #iterateSample(VocabWord, VocabWord, XorShiftRandom, double)}
+     */
+    @Override
+    @Deprecated
+    public void iterateSample(VocabWord w1, VocabWord w2, AtomicLong nextRandom, double alpha) {
+        iterateSample(w1, w2, XorShiftRandom.of(nextRandom), alpha);
+    }
+
+    @Override
+    public void iterateSample(VocabWord w1, VocabWord w2, XorShiftRandom random, double alpha) {
+        iterateSample(w1, w2, new AtomicLong(random.nextLong()), alpha);
+    }
+
+}
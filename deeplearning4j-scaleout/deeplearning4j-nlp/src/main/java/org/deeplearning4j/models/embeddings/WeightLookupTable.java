@@ -18,6 +18,7 @@
 
 package org.deeplearning4j.models.embeddings;
 
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.plot.Tsne;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -27,7 +28,9 @@ import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * General weight lookup table
+ * General weight lookup table.
+ * Implementations that predate {@link #iterateSample(VocabWord, VocabWord, XorShiftRandom, double)}
+ * can extend {@link BaseWeightLookupTable} rather than implement it.
  *
  * @author Adam Gibson
  */
@@ -83,9 +86,21 @@ public interface WeightLookupTable extends Serializable {
      * @param w2 the second word to iterate on
      * @param nextRandom nextRandom for sampling
      * @param alpha the alpha to use for learning
+     * @deprecated a shared AtomicLong is a point of contention between threads:
+     * use {@link #iterateSample(VocabWord, VocabWord, XorShiftRandom, double)}
      */
+    @Deprecated
     void iterateSample(VocabWord w1,VocabWord w2,AtomicLong nextRandom,double alpha);
 
+    /**
+     * Iterate on the given 2 vocab words
+     * @param w1 the first word to iterate on
+     * @param w2 the second word to iterate on
+     * @param random the random number generator of the calling thread, for sampling
+     * @param alpha the alpha to use for learning
+     */
+    void iterateSample(VocabWord w1,VocabWord w2,XorShiftRandom random,double alpha);
+
 
     /**
      * Inserts a word vector
@@ -0,0 +1,106 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.index;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * Keeps a normalized copy of the vectors in one flat float array (row major),
+ * so similarities are dot products over primitive arrays.
+ * Any index can also be searched exactly, with {@link #searchExact(INDArray, int)}
+ */
+public abstract class BaseWordVectorIndex implements WordVectorIndex {
+
+    private static final long serialVersionUID = 4185337562036851532L;
+
+    protected float[] vectors;
+    protected int numVectors;
+    protected int dims;
+
+    protected BaseWordVectorIndex(INDArray vectors) {
+        this.numVectors = vectors.rows();
+        this.dims = vectors.columns();
+        this.vectors = new float[numVectors * dims];
+        for (int i = 0; i < numVectors; i++) {
+            INDArray row = vectors.getRow(i);
+            for (int j = 0; j < dims; j++)
+                this.vectors[i * dims + j] = row.getFloat(j);
+            normalize(this.vectors, i * dims, dims);
+        }
+    }
+
+    private static void normalize(float[] x, int offset, int length) {
+        double norm = 0;
+        for (int i = 0; i < length; i++)
+            norm += x[offset + i] * x[offset + i];
+        if (norm == 0)
+            return;
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < length; i++)
+            x[offset + i] *= scale;
+    }
+
+    /**
+     * The query as a normalized float array
+     */
+    protected float[] toQuery(INDArray query) {
+        if (query.length() != dims)
+            throw new IllegalArgumentException("Query has length " + query.length() + ", expected " + dims);
+        float[] ret = new float[dims];
+        for (int i = 0; i < dims; i++)
+            ret[i] = query.getFloat(i);
+        normalize(ret, 0, dims);
+        return ret;
+    }
+
+    /**
+     * Cosine similarity of the (normalized) query to the given vector
+     */
+    protected float similarity(float[] query, int index) {
+        return dot(query, 0, vectors, index * dims, dims);
+    }
+
+    protected static float dot(float[] x, int xOffset, float[] y, int yOffset, int n) {
+        float ret = 0;
+        for (int i = 0; i < n; i++)
+            ret += x[xOffset + i] * y[yOffset + i];
+        return ret;
+    }
+
+    /**
+     * The true k nearest neighbours, comparing the query to every vector
+     */
+    public int[] searchExact(INDArray query, int k) {
+        float[] q = toQuery(query);
+        TopK topK = new TopK(Math.max(1, Math.min(k, numVectors)));
+        for (int i = 0; i < numVectors; i++)
+            topK.offer(i, similarity(q, i));
+        return topK.indicesDescending();
+    }
+
+    @Override
+    public int size() {
+        return numVectors;
+    }
+
+    public int getDims() {
+        return dims;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.index;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * Exact index: every query is compared to every vector, keeping the top k in a bounded heap
+ */
+public class ExactWordVectorIndex extends BaseWordVectorIndex {
+
+    private static final long serialVersionUID = -3541379325683207437L;
+
+    /**
+     * @param vectors one vector per row, typically syn0
+     */
+    public ExactWordVectorIndex(INDArray vectors) {
+        super(vectors);
+    }
+
+    @Override
+    public int[] search(INDArray query, int k) {
+        return searchExact(query, k);
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+}
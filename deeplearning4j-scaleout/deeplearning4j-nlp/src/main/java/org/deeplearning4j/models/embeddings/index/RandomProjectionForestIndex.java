@@ -0,0 +1,298 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.index;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Approximate index: a forest of random projection trees, as in Annoy.
+ *
+ * Each tree splits the vectors recursively by the hyperplane half way between two randomly picked vectors,
+ * until a node has at most maxLeafSize vectors. A query walks all the trees at once, always expanding the
+ * node whose hyperplane is furthest on the query's side, until searchK candidates have been collected.
+ * The candidates are then compared to the query exactly. More trees or a larger searchK give higher
+ * recall at the cost of speed.
+ */
+public class RandomProjectionForestIndex extends BaseWordVectorIndex {
+
+    private static final long serialVersionUID = -2468094342434120775L;
+
+    private int numTrees;
+    private int maxLeafSize;
+    private int searchK;
+
+    private int[] roots;
+    //internal nodes: hyperplane normal and offset, children (>= 0: node, < 0: -(leaf + 1))
+    private float[] normals;
+    private float[] offsets;
+    private int[] left;
+    private int[] right;
+    private int numNodes;
+    //leaves: a range of items, the items of all trees one after the other
+    private int[] leafStart;
+    private int[] leafEnd;
+    private int numLeaves;
+    private int[] items;
+
+    //per thread: the query number each item was last scored for, with the current query number at the end
+    private transient ThreadLocal<int[]> visited = new ThreadLocal<>();
+
+    private RandomProjectionForestIndex(INDArray vectors) {
+        super(vectors);
+    }
+
+    private void build(long seed) {
+        Random r = new Random(seed);
+        roots = new int[numTrees];
+        normals = new float[16 * dims];
+        offsets = new float[16];
+        left = new int[16];
+        right = new int[16];
+        leafStart = new int[16];
+        leafEnd = new int[16];
+        items = new int[numTrees * numVectors];
+        float[] normal = new float[dims];
+        for (int t = 0; t < numTrees; t++) {
+            int from = t * numVectors;
+            for (int i = 0; i < numVectors; i++)
+                items[from + i] = i;
+            roots[t] = split(from, from + numVectors, r, normal);
+        }
+        normals = Arrays.copyOf(normals, numNodes * dims);
+        offsets = Arrays.copyOf(offsets, numNodes);
+        left = Arrays.copyOf(left, numNodes);
+        right = Arrays.copyOf(right, numNodes);
+        leafStart = Arrays.copyOf(leafStart, numLeaves);
+        leafEnd = Arrays.copyOf(leafEnd, numLeaves);
+    }
+
+    //build the subtree for items[from, to), returning its node (or -(leaf + 1))
+    private int split(int from, int to, Random r, float[] normal) {
+        int n = to - from;
+        if (n <= maxLeafSize)
+            return -(addLeaf(from, to) + 1);
+
+        int p = items[from + r.nextInt(n)];
+        int q = items[from + r.nextInt(n)];
+        for (int attempt = 0; attempt < 3 && q == p; attempt++)
+            q = items[from + r.nextInt(n)];
+        float offset = 0;
+        for (int j = 0; j < dims; j++) {
+            float vp = vectors[p * dims + j];
+            float vq = vectors[q * dims + j];
+            normal[j] = vp - vq;
+            offset += normal[j] * (vp + vq) / 2;
+        }
+
+        //partition: items on the positive side of the hyperplane first
+        int mid = from;
+        for (int i = from; i < to; i++) {
+            if (dot(normal, 0, vectors, items[i] * dims, dims) - offset > 0)
+                swap(i, mid++);
+        }
+        //degenerate split (duplicate vectors): split at random
+        if (mid == from || mid == to) {
+            for (int i = from; i < to; i++)
+                swap(i, from + r.nextInt(i - from + 1));
+            mid = from + n / 2;
+        }
+
+        int node = numNodes++;
+        if (node >= offsets.length) {
+            int capacity = offsets.length * 2;
+            normals = Arrays.copyOf(normals, capacity * dims);
+            offsets = Arrays.copyOf(offsets, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+        }
+        System.arraycopy(normal, 0, normals, node * dims, dims);
+        offsets[node] = offset;
+        //the arrays may be grown while building the children
+        int leftChild = split(from, mid, r, normal);
+        int rightChild = split(mid, to, r, normal);
+        left[node] = leftChild;
+        right[node] = rightChild;
+        return node;
+    }
+
+    private int addLeaf(int from, int to) {
+        if (numLeaves >= leafStart.length) {
+            leafStart = Arrays.copyOf(leafStart, leafStart.length * 2);
+            leafEnd = Arrays.copyOf(leafEnd, leafEnd.length * 2);
+        }
+        leafStart[numLeaves] = from;
+        leafEnd[numLeaves] = to;
+        return numLeaves++;
+    }
+
+    private void swap(int i, int j) {
+        int tmp = items[i];
+        items[i] = items[j];
+        items[j] = tmp;
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+        private final float priority;
+        private final int node;
+
+        private Candidate(float priority, int node) {
+            this.priority = priority;
+            this.node = node;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            //highest priority first
+            return Float.compare(o.priority, priority);
+        }
+    }
+
+    @Override
+    public int[] search(INDArray query, int k) {
+        float[] q = toQuery(query);
+        int limit = searchK > 0 ? searchK : 10 * k * numTrees;
+        TopK topK = new TopK(Math.max(1, Math.min(k, numVectors)));
+
+        //stamp each item with the query number the first time it is scored, to skip duplicates across trees
+        int[] seen = visited.get();
+        if (seen == null) {
+            seen = new int[numVectors + 1];
+            visited.set(seen);
+        }
+        int current = ++seen[numVectors];
+        if (current == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            seen[numVectors] = current = 1;
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        for (int root : roots)
+            queue.add(new Candidate(Float.POSITIVE_INFINITY, root));
+        int numCandidates = 0;
+        while (numCandidates < limit && !queue.isEmpty()) {
+            Candidate c = queue.poll();
+            if (c.node < 0) {
+                int leaf = -c.node - 1;
+                for (int i = leafStart[leaf]; i < leafEnd[leaf]; i++) {
+                    int item = items[i];
+                    if (seen[item] == current)
+                        continue;
+                    seen[item] = current;
+                    topK.offer(item, similarity(q, item));
+                    numCandidates++;
+                }
+            } else {
+                float margin = dot(q, 0, normals, c.node * dims, dims) - offsets[c.node];
+                queue.add(new Candidate(Math.min(c.priority, margin), left[c.node]));
+                queue.add(new Candidate(Math.min(c.priority, -margin), right[c.node]));
+            }
+        }
+        return topK.indicesDescending();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        visited = new ThreadLocal<>();
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    public int getNumTrees() {
+        return numTrees;
+    }
+
+    public int getSearchK() {
+        return searchK;
+    }
+
+    /**
+     * Number of candidates compared exactly per query
+     * @param searchK the number of candidates, 0 for 10 * k * numTrees
+     */
+    public void setSearchK(int searchK) {
+        this.searchK = searchK;
+    }
+
+    public static class Builder {
+        private INDArray vectors;
+        private int numTrees = 10;
+        private int maxLeafSize = 32;
+        private int searchK = 0;
+        private long seed = 123;
+
+        /**
+         * @param vectors one vector per row, typically syn0
+         */
+        public Builder(INDArray vectors) {
+            this.vectors = vectors;
+        }
+
+        /**
+         * Number of trees, default 10
+         */
+        public Builder numTrees(int numTrees) {
+            this.numTrees = numTrees;
+            return this;
+        }
+
+        /**
+         * Max number of vectors in a leaf, default 32
+         */
+        public Builder maxLeafSize(int maxLeafSize) {
+            this.maxLeafSize = maxLeafSize;
+            return this;
+        }
+
+        /**
+         * Number of candidates compared exactly per query, default 0: 10 * k * numTrees
+         */
+        public Builder searchK(int searchK) {
+            this.searchK = searchK;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public RandomProjectionForestIndex build() {
+            if (vectors == null)
+                throw new IllegalStateException("Vectors must be specified");
+            if (numTrees < 1 || maxLeafSize < 1)
+                throw new IllegalArgumentException("Number of trees and max leaf size must be > 0");
+            RandomProjectionForestIndex ret = new RandomProjectionForestIndex(vectors);
+            ret.numTrees = numTrees;
+            ret.maxLeafSize = maxLeafSize;
+            ret.searchK = searchK;
+            ret.build(seed);
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.index;
+
+import java.util.Arrays;
+
+/**
+ * Bounded min heap keeping the k highest scoring indexes offered to it,
+ * so picking the top k of n scores takes O(n log k) without sorting all of them. Not thread safe
+ */
+public class TopK {
+
+    private final int k;
+    private final int[] indices;
+    private final float[] scores;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be > 0");
+        this.k = k;
+        this.indices = new int[k];
+        this.scores = new float[k];
+    }
+
+    /**
+     * @return the lowest score kept, or negative infinity while fewer than k have been offered
+     */
+    public float minScore() {
+        return size < k ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * Keep the index if its score is among the k highest so far
+     */
+    public void offer(int index, float score) {
+        if (size < k) {
+            int i = size++;
+            //sift up
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score)
+                    break;
+                scores[i] = scores[parent];
+                indices[i] = indices[parent];
+                i = parent;
+            }
+            scores[i] = score;
+            indices[i] = index;
+        } else if (score > scores[0]) {
+            siftDown(index, score);
+        }
+    }
+
+    //replace the root and restore the heap
+    private void siftDown(int index, float score) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && scores[child + 1] < scores[child])
+                child++;
+            if (scores[child] >= score)
+                break;
+            scores[i] = scores[child];
+            indices[i] = indices[child];
+            i = child;
+        }
+        scores[i] = score;
+        indices[i] = index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the indexes kept, highest score first. Empties the heap
+     */
+    public int[] indicesDescending() {
+        int[] ret = new int[size];
+        for (int i = ret.length - 1; i >= 0; i--) {
+            ret[i] = indices[0];
+            int lastIndex = indices[size - 1];
+            float lastScore = scores[size - 1];
+            size--;
+            if (size > 0)
+                siftDown(lastIndex, lastScore);
+        }
+        return ret;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "TopK{k=" + k + ", indices=" + Arrays.toString(Arrays.copyOf(indices, size)) + '}';
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.index;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+
+/**
+ * Nearest neighbour index over word vectors, by cosine similarity.
+ * Indexes refer to rows of the vectors it was built from (the vocab index of each word)
+ */
+public interface WordVectorIndex extends Serializable {
+
+    /**
+     * The indexes of the k vectors most similar to the query
+     * @param query the query vector, need not be normalized
+     * @param k the number of neighbours
+     * @return up to k indexes, most similar first
+     */
+    int[] search(INDArray query, int k);
+
+    /**
+     * @return true if {@link #search(INDArray, int)} always returns the true nearest neighbours
+     */
+    boolean isExact();
+
+    /**
+     * @return the number of vectors indexed
+     */
+    int size();
+
+}
@@ -20,14 +20,16 @@ package org.deeplearning4j.models.embeddings.inmemory;
 
 import com.google.common.util.concurrent.AtomicDouble;
 import org.apache.commons.math3.util.FastMath;
+import org.deeplearning4j.models.embeddings.BaseWeightLookupTable;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.AliasTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.Word2Vec;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.deeplearning4j.plot.Tsne;
 import org.deeplearning4j.plot.dropwizard.RenderApplication;
 import org.nd4j.linalg.api.buffer.DataBuffer;
-import org.nd4j.linalg.api.buffer.FloatBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.rng.Random;
 import org.nd4j.linalg.factory.Nd4j;
@@ -35,14 +37,13 @@ import org.nd4j.linalg.factory.Nd4j;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default word lookup table
  *
  * @author Adam Gibson
  */
-public class InMemoryLookupTable implements WeightLookupTable {
+public class InMemoryLookupTable extends BaseWeightLookupTable {
 
 
     protected INDArray syn0,syn1;
@@ -53,7 +54,8 @@ public class InMemoryLookupTable implements WeightLookupTable {
     protected static double MAX_EXP = 6;
     protected long seed = 123;
     //negative sampling table
-    protected INDArray table,syn1Neg;
+    protected AliasTable unigramTable;
+    protected INDArray syn1Neg;
     protected boolean useAdaGrad;
     protected double negative = 0;
     protected VocabCache vocab;
@@ -162,7 +164,7 @@ public class InMemoryLookupTable implements WeightLookupTable {
     protected void initNegative() {
         if(negative > 0) {
             syn1Neg = Nd4j.zeros(syn0.shape());
-            makeTable(10000,0.75);
+            makeTable(0.75);
         }
     }
 
@@ -184,10 +186,10 @@ public class InMemoryLookupTable implements WeightLookupTable {
      *
      * @param w1 the first word to iterate on
      * @param w2 the second word to iterate on
-     * @param nextRandom next random for sampling
+     * @param random the random number generator of the calling thread, for sampling
      */
     @Override
-    public  void iterateSample(VocabWord w1, VocabWord w2,AtomicLong nextRandom,double alpha) {
+    public  void iterateSample(VocabWord w1, VocabWord w2,XorShiftRandom random,double alpha) {
         if(w2 == null || w2.getIndex() < 0 || w1.getIndex() == w2.getIndex() || w1.getWord().equals("STOP") || w2.getWord().equals("STOP") || w1.getWord().equals("UNK") || w2.getWord().equals("UNK"))
            return;
             //current word vector
@@ -244,18 +246,12 @@ public class InMemoryLookupTable implements WeightLookupTable {
         int target = w1.getIndex();
         int label;
         //negative sampling
-        if(negative > 0)
+        if(negative > 0 && unigramTable != null)
             for (int d = 0; d < negative + 1; d++) {
                 if (d == 0)
                     label = 1;
                 else {
-                    nextRandom.set(nextRandom.get() * 25214903917L + 11);
-                    int idx = Math.abs((int) (nextRandom.get() >> 16) % table.length());
-
-                    target = table.getInt(idx);
-                    if (target <= 0)
-                        target = (int) nextRandom.get() % (vocab.numWords() - 1) + 1;
-
+                    target = unigramTable.sample(random);
                     if (target == w1.getIndex())
                         continue;
                     label = 0;
@@ -397,37 +393,13 @@ public class InMemoryLookupTable implements WeightLookupTable {
     }
 
 
-    protected void makeTable(int tableSize,double power) {
-        int vocabSize = syn0.rows();
-        table = Nd4j.create(new FloatBuffer(tableSize));
-        double trainWordsPow = 0.0;
-        for(String word : vocab.words()) {
-            trainWordsPow += Math.pow(vocab.wordFrequency(word), power);
-        }
-
-
-        for(String word : vocab.words()) {
-            double d1 = Math.pow(vocab.wordFrequency(word),power) / trainWordsPow;
-            for(int i = 0; i < tableSize; i++) {
-                int wordIdx = vocab.indexOf(word);
-                if(wordIdx < 0)
-                    continue;
-
-                table.putScalar(i,wordIdx);
-                double mul = i * 1.0 / (double) tableSize;
-                if(mul > d1) {
-                    wordIdx++;
-                    String wordAtIndex = vocab.wordAtIndex(wordIdx);
-                    if(wordAtIndex == null)
-                        continue;
-                    d1 += Math.pow(vocab.wordFrequency(wordAtIndex),power) / trainWordsPow;
-
-                }
-
-            }
-
-        }
-
+    /**
+     * Build the negative sampling table: an alias table over the
+     * word frequencies raised to the given power
+     * @param power the power, 0.75 in word2vec
+     */
+    protected void makeTable(double power) {
+        unigramTable = AliasTable.unigram(vocab, Math.min(syn0.rows(), vocab.numWords()), power);
     }
 
     /**
@@ -447,12 +419,55 @@ public class InMemoryLookupTable implements WeightLookupTable {
 
     }
 
+    public AliasTable getUnigramTable() {
+        return unigramTable;
+    }
+
+    public void setUnigramTable(AliasTable unigramTable) {
+        this.unigramTable = unigramTable;
+    }
+
+    /**
+     * The negative sampling table in the word2vec layout: word indexes, each
+     * repeated in proportion to its probability of being sampled
+     * @return a table of 10000 word indexes, or null if there is no negative sampling
+     * @deprecated sampling uses {@link #getUnigramTable()}
+     */
+    @Deprecated
     public INDArray getTable() {
+        if(unigramTable == null)
+            return null;
+        int tableSize = 10000;
+        INDArray table = Nd4j.create(tableSize);
+        double[] probabilities = unigramTable.probabilities();
+        int i = 0;
+        double cumulative = probabilities[0];
+        for(int a = 0; a < tableSize; a++) {
+            while(i < probabilities.length - 1 && (a + 0.5) / tableSize > cumulative)
+                cumulative += probabilities[++i];
+            table.putScalar(a, i);
+        }
         return table;
     }
 
+    /**
+     * Set the negative sampling table from one in the word2vec layout
+     * @param table word indexes, each repeated in proportion to its probability of being sampled
+     * @deprecated use {@link #setUnigramTable(AliasTable)}
+     */
+    @Deprecated
     public void setTable(INDArray table) {
-        this.table = table;
+        if(table == null) {
+            unigramTable = null;
+            return;
+        }
+        double[] counts = new double[vocab.numWords()];
+        for(int i = 0; i < table.length(); i++) {
+            int idx = table.getInt(i);
+            if(idx >= 0 && idx < counts.length)
+                counts[idx]++;
+        }
+        unigramTable = new AliasTable(counts);
     }
 
     public INDArray getSyn1Neg() {
@@ -631,7 +646,7 @@ public class InMemoryLookupTable implements WeightLookupTable {
                 ", lr=" + lr +
                 ", expTable=" + Arrays.toString(expTable) +
                 ", seed=" + seed +
-                ", table=" + table +
+                ", unigramTable=" + unigramTable +
                 ", syn1Neg=" + syn1Neg +
                 ", useAdaGrad=" + useAdaGrad +
                 ", negative=" + negative +
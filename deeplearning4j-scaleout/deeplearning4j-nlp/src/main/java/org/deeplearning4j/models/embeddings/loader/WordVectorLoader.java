@@ -0,0 +1,643 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.embeddings.loader;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads word2vec (and GloVe) vector files quickly, for large models such as the 3M word GoogleNews vectors.
+ * The file is memory mapped and parsed straight from its bytes: only the words themselves become Strings,
+ * and all vectors are written in to one preallocated syn0 array. Text files are split in to chunks of whole
+ * lines that are parsed in parallel; for binary files a single pass finds where each vector starts, after which
+ * the vectors are read in parallel.
+ *
+ * Text files may have a "numWords dims" header line (word2vec) or not (GloVe). Binary files are in the
+ * word2vec format, with or without line breaks after each vector. Compressed files are not supported:
+ * use {@link WordVectorSerializer#loadGoogleModel(File, boolean)} for those.
+ *
+ * As word2vec files are sorted by word frequency, {@link Builder#maxWords(int)} loads only the most
+ * frequent words, without reading the rest of the file.
+ */
+public class WordVectorLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(WordVectorLoader.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MAX_HEADER_LENGTH = 1024;
+    private static final int MAX_WINDOW = 256 * 1024 * 1024;
+    //Powers of ten that are exact as doubles
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++)
+            POW10[i] = POW10[i - 1] * 10.0;
+    }
+
+    private boolean binary = false;
+    private int maxWords = 0;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private boolean normalize = false;
+    private int chunkSize = 16 * 1024 * 1024;
+
+    private WordVectorLoader() {
+    }
+
+    /**
+     * Load the word vectors in the given file
+     * @param file the vectors file
+     * @return the vectors
+     * @throws IOException if the file can't be read
+     */
+    public WordVectors loadWordVectors(File file) throws IOException {
+        return WordVectorSerializer.fromPair(load(file));
+    }
+
+    /**
+     * Load the word vectors in the given file
+     * @param file the vectors file
+     * @return the lookup table (with syn0 set) and the vocab, with the words indexed in file order
+     * @throws IOException if the file can't be read
+     */
+    public Pair<InMemoryLookupTable, VocabCache> load(File file) throws IOException {
+        long start = System.currentTimeMillis();
+        Vectors vectors;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            vectors = binary ? readBinary(channel, executor) : readText(channel, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InMemoryLookupCache cache = new InMemoryLookupCache(false);
+        for (int i = 0; i < vectors.rows; i++) {
+            String word = vectors.words[i];
+            VocabWord vocabWord = new VocabWord(1.0, word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+
+        InMemoryLookupTable lookupTable = (InMemoryLookupTable) new InMemoryLookupTable.Builder()
+                .vectorLength(vectors.dims).useAdaGrad(false).cache(cache).build();
+        lookupTable.setSyn0(Nd4j.create(vectors.syn0, new int[]{vectors.rows, vectors.dims}));
+
+        log.info("Loaded " + vectors.rows + " word vectors of length " + vectors.dims + " from " + file
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+        return new Pair<InMemoryLookupTable, VocabCache>(lookupTable, cache);
+    }
+
+    private Vectors readText(FileChannel channel, ExecutorService executor) throws IOException {
+        long size = channel.size();
+        int[] header = readHeader(channel);
+        long dataStart = header == null ? 0 : header[2];
+        long limit = header == null ? Long.MAX_VALUE : header[0];
+        if (maxWords > 0)
+            limit = Math.min(limit, maxWords);
+
+        //Count lines a wave of chunks at a time, so only as much of the file as needed is read
+        final List<Chunk> chunks = new ArrayList<>();
+        long total = 0;
+        long pos = dataStart;
+        while (pos < size && total < limit) {
+            List<Future<Integer>> counts = new ArrayList<>();
+            int first = chunks.size();
+            for (int i = 0; i < workers && pos < size; i++) {
+                long end = nextLineStart(channel, Math.min(pos + chunkSize, size), size);
+                final Chunk chunk = new Chunk();
+                chunk.buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, end - pos);
+                chunks.add(chunk);
+                counts.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return countLines(chunk.buffer);
+                    }
+                }));
+                pos = end;
+            }
+            for (int i = 0; i < counts.size(); i++) {
+                Chunk chunk = chunks.get(first + i);
+                chunk.firstRow = total;
+                chunk.numRows = get(counts.get(i));
+                total += chunk.numRows;
+            }
+        }
+        if (total == 0)
+            throw new IllegalStateException("No word vectors found");
+
+        final int dims = header == null ? firstLineLength(chunks.get(0).buffer) - 1 : header[1];
+        if (dims < 1)
+            throw new IllegalStateException("No vector values found on the first line");
+        final Vectors vectors = new Vectors(Math.min(total, limit), dims);
+        final int lineOffset = header == null ? 1 : 2;
+
+        List<Future<Integer>> parsed = new ArrayList<>();
+        for (final Chunk chunk : chunks) {
+            if (chunk.firstRow >= vectors.rows)
+                break;
+            parsed.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    Parser parser = new Parser(chunk.buffer);
+                    int end = (int) Math.min(vectors.rows, chunk.firstRow + chunk.numRows);
+                    for (int row = (int) chunk.firstRow; row < end; row++) {
+                        parser.skipWhitespace();
+                        String word = parser.nextWord();
+                        vectors.words[row] = word;
+                        int offset = row * dims;
+                        for (int j = 0; j < dims; j++) {
+                            if (!parser.skipSpaces())
+                                throw new IllegalStateException("Line " + (row + lineOffset) + " (" + word + ") has "
+                                        + j + " values, expected " + dims);
+                            vectors.syn0[offset + j] = parser.nextFloat();
+                        }
+                        parser.skipLine();
+                        if (normalize)
+                            normalize(vectors.syn0, offset, dims);
+                    }
+                    chunk.buffer = null;
+                    return end - (int) chunk.firstRow;
+                }
+            }));
+        }
+        for (Future<Integer> f : parsed)
+            get(f);
+        return vectors;
+    }
+
+    private Vectors readBinary(FileChannel channel, ExecutorService executor) throws IOException {
+        long size = channel.size();
+        int[] header = readHeader(channel);
+        if (header == null)
+            throw new IllegalStateException("Binary file has no \"numWords dims\" header");
+        int rows = maxWords > 0 ? Math.min(header[0], maxWords) : header[0];
+        final int dims = header[1];
+        final Vectors vectors = new Vectors(rows, dims);
+        final long recordLength = 4L * dims;
+
+        //One pass over the words to find where each vector starts: each is followed by 4 * dims bytes
+        final long[] offsets = new long[rows];
+        Window window = new Window(channel, size);
+        byte[] bytes = new byte[64];
+        long pos = header[2];
+        for (int i = 0; i < rows; i++) {
+            while (pos < size && isWhitespace(window.get(pos)))
+                pos++;
+            int length = 0;
+            byte b;
+            while (pos < size && (b = window.get(pos)) != ' ') {
+                if (length == bytes.length)
+                    bytes = Arrays.copyOf(bytes, 2 * length);
+                bytes[length++] = b;
+                pos++;
+            }
+            if (pos + 1 + recordLength > size)
+                throw new IllegalStateException("File ends before the vector for word " + i + " of " + rows);
+            vectors.words[i] = new String(bytes, 0, length, UTF8);
+            offsets[i] = pos + 1;
+            pos += 1 + recordLength;
+        }
+
+        //Then read the vectors in parallel, in chunks of consecutive records
+        List<Future<Integer>> parsed = new ArrayList<>();
+        int first = 0;
+        while (first < rows) {
+            int last = first + 1;
+            while (last < rows && offsets[last] + recordLength - offsets[first] <= chunkSize)
+                last++;
+            final int from = first;
+            final int to = last;
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offsets[from],
+                    offsets[to - 1] + recordLength - offsets[from]);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            parsed.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    for (int row = from; row < to; row++) {
+                        int position = (int) (offsets[row] - offsets[from]);
+                        int offset = row * dims;
+                        for (int j = 0; j < dims; j++)
+                            vectors.syn0[offset + j] = buffer.getFloat(position + 4 * j);
+                        if (normalize)
+                            normalize(vectors.syn0, offset, dims);
+                    }
+                    return to - from;
+                }
+            }));
+            first = last;
+        }
+        for (Future<Integer> f : parsed)
+            get(f);
+        return vectors;
+    }
+
+    //"numWords dims" and the length of the header line, or null if the first line isn't a header
+    private static int[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), MAX_HEADER_LENGTH));
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+        }
+        buffer.flip();
+        long[] values = new long[2];
+        int numValues = 0;
+        int pos = 0;
+        int limit = buffer.limit();
+        while (pos < limit && buffer.get(pos) != '\n') {
+            byte b = buffer.get(pos);
+            if (b >= '0' && b <= '9') {
+                if (numValues == 2)
+                    return null;
+                long value = 0;
+                while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                    value = 10 * value + (b - '0');
+                    if (value > Integer.MAX_VALUE)
+                        return null;
+                    pos++;
+                }
+                values[numValues++] = value;
+            } else if (isWhitespace(b)) {
+                pos++;
+            } else {
+                return null;
+            }
+        }
+        if (numValues != 2 || pos == limit)
+            return null;
+        return new int[]{(int) values[0], (int) values[1], pos + 1};
+    }
+
+    //Position after the first line break at or after pos
+    private static long nextLineStart(FileChannel channel, long pos, long size) throws IOException {
+        if (pos == 0 || pos >= size)
+            return pos;
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        //start from the previous byte, in case pos is already the start of a line
+        pos--;
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0)
+                break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n')
+                    return pos + i + 1;
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    //Lines with anything other than whitespace on them
+    private static int countLines(ByteBuffer buffer) {
+        int lines = 0;
+        boolean inLine = false;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                inLine = false;
+            } else if (!inLine && !isWhitespace(b)) {
+                inLine = true;
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    //Number of tokens on the first non empty line
+    private static int firstLineLength(ByteBuffer buffer) {
+        Parser parser = new Parser(buffer);
+        parser.skipWhitespace();
+        int tokens = 0;
+        while (parser.skipSpaces()) {
+            parser.nextWord();
+            tokens++;
+        }
+        return tokens;
+    }
+
+    private static void normalize(float[] syn0, int offset, int dims) {
+        double sum = 0.0;
+        for (int j = 0; j < dims; j++)
+            sum += syn0[offset + j] * syn0[offset + j];
+        if (sum == 0.0)
+            return;
+        float scale = (float) (1.0 / Math.sqrt(sum));
+        for (int j = 0; j < dims; j++)
+            syn0[offset + j] *= scale;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static int get(Future<Integer> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading word vectors", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static class Vectors {
+        private final int rows;
+        private final int dims;
+        private final String[] words;
+        private final float[] syn0;
+
+        private Vectors(long rows, int dims) {
+            if (rows * dims > Integer.MAX_VALUE)
+                throw new IllegalStateException(rows + " vectors of length " + dims
+                        + " are too many for one array: use maxWords to load fewer");
+            this.rows = (int) rows;
+            this.dims = dims;
+            this.words = new String[this.rows];
+            this.syn0 = new float[this.rows * dims];
+        }
+    }
+
+    //A range of whole lines of a text file
+    private static class Chunk {
+        private long firstRow;
+        private int numRows;
+        private volatile MappedByteBuffer buffer;
+    }
+
+    //Maps the file a window at a time, for files bigger than one buffer can hold
+    private static class Window {
+        private final FileChannel channel;
+        private final long size;
+        private long start;
+        private long end;
+        private MappedByteBuffer buffer;
+
+        private Window(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        private byte get(long pos) throws IOException {
+            if (pos < start || pos >= end) {
+                start = pos;
+                end = Math.min(size, pos + MAX_WINDOW);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+            return buffer.get((int) (pos - start));
+        }
+    }
+
+    //Parses words and floats from a buffer of text, without creating a String for each value
+    private static class Parser {
+        private final ByteBuffer buffer;
+        private final int limit;
+        private int pos;
+        private byte[] bytes = new byte[64];
+
+        private Parser(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        private void skipWhitespace() {
+            while (pos < limit && isWhitespace(buffer.get(pos)))
+                pos++;
+        }
+
+        //Skip spaces up to the next token: false if the line ends first
+        private boolean skipSpaces() {
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (b == '\n' || b == '\r')
+                    return false;
+                if (b != ' ' && b != '\t')
+                    return true;
+                pos++;
+            }
+            return false;
+        }
+
+        private void skipLine() {
+            while (pos < limit && buffer.get(pos) != '\n')
+                pos++;
+        }
+
+        private String nextWord() {
+            int length = 0;
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (isWhitespace(b))
+                    break;
+                if (length == bytes.length)
+                    bytes = Arrays.copyOf(bytes, 2 * length);
+                bytes[length++] = b;
+                pos++;
+            }
+            return new String(bytes, 0, length, UTF8);
+        }
+
+        private float nextFloat() {
+            int start = pos;
+            boolean negative = false;
+            byte b = buffer.get(pos);
+            if (b == '-' || b == '+') {
+                negative = b == '-';
+                pos++;
+            }
+            long mantissa = 0;
+            int numDigits = 0;
+            int exponent = 0;
+            boolean anyDigits = false;
+            //Up to 18 significant digits fit in a long, more don't matter for a float
+            while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                anyDigits = true;
+                if (numDigits < 18) {
+                    mantissa = 10 * mantissa + (b - '0');
+                    if (mantissa != 0)
+                        numDigits++;
+                } else {
+                    exponent++;
+                }
+                pos++;
+            }
+            if (pos < limit && buffer.get(pos) == '.') {
+                pos++;
+                while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                    anyDigits = true;
+                    if (numDigits < 18) {
+                        mantissa = 10 * mantissa + (b - '0');
+                        if (mantissa != 0)
+                            numDigits++;
+                        exponent--;
+                    }
+                    pos++;
+                }
+            }
+            if (!anyDigits)
+                return parseSpecial(start);
+            if (pos < limit && ((b = buffer.get(pos)) == 'e' || b == 'E')) {
+                pos++;
+                boolean negativeExponent = false;
+                if (pos < limit && ((b = buffer.get(pos)) == '-' || b == '+')) {
+                    negativeExponent = b == '-';
+                    pos++;
+                }
+                int e = 0;
+                while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                    if (e < 10000)
+                        e = 10 * e + (b - '0');
+                    pos++;
+                }
+                exponent += negativeExponent ? -e : e;
+            }
+            if (pos < limit && !isWhitespace(buffer.get(pos)))
+                return parseSpecial(start);
+
+            double value;
+            if (mantissa == 0)
+                value = 0.0;
+            else if (exponent >= 0 && exponent < POW10.length)
+                value = mantissa * POW10[exponent];
+            else if (exponent < 0 && -exponent < POW10.length)
+                value = mantissa / POW10[-exponent];
+            else
+                value = mantissa * Math.pow(10.0, exponent);
+            return (float) (negative ? -value : value);
+        }
+
+        //Values such as nan and inf (as written by C), or anything else the fast path doesn't handle
+        private float parseSpecial(int start) {
+            pos = start;
+            String token = nextWord();
+            String lower = token.toLowerCase();
+            if (lower.equals("nan") || lower.equals("-nan"))
+                return Float.NaN;
+            if (lower.equals("inf") || lower.equals("infinity") || lower.equals("+inf"))
+                return Float.POSITIVE_INFINITY;
+            if (lower.equals("-inf") || lower.equals("-infinity"))
+                return Float.NEGATIVE_INFINITY;
+            return Float.parseFloat(token);
+        }
+    }
+
+    public static class Builder {
+        private boolean binary = false;
+        private int maxWords = 0;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private boolean normalize = false;
+        private int chunkSize = 16 * 1024 * 1024;
+
+        /**
+         * Whether the file is in the word2vec binary format
+         * @param binary true for binary, default false (text)
+         * @return builder pattern
+         */
+        public Builder binary(boolean binary) {
+            this.binary = binary;
+            return this;
+        }
+
+        /**
+         * Load only the first (most frequent) words in the file
+         * @param maxWords the number of words to load, 0 (the default) for all of them
+         * @return builder pattern
+         */
+        public Builder maxWords(int maxWords) {
+            this.maxWords = maxWords;
+            return this;
+        }
+
+        /**
+         * Number of threads parsing vectors
+         * @param workers the number of threads, defaults to the number of processors
+         * @return builder pattern
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Whether to scale each vector to unit length
+         * @param normalize true to normalize, default false
+         * @return builder pattern
+         */
+        public Builder normalize(boolean normalize) {
+            this.normalize = normalize;
+            return this;
+        }
+
+        /**
+         * Size of the chunks the file is split in to for parsing in parallel
+         * @param chunkSize the size in bytes, default 16MB
+         * @return builder pattern
+         */
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public WordVectorLoader build() {
+            if (maxWords < 0)
+                throw new IllegalArgumentException("Max words must be >= 0");
+            if (workers < 1)
+                throw new IllegalArgumentException("Number of workers must be > 0");
+            if (chunkSize < 1)
+                throw new IllegalArgumentException("Chunk size must be > 0");
+            WordVectorLoader loader = new WordVectorLoader();
+            loader.binary = binary;
+            loader.maxWords = maxWords;
+            loader.workers = workers;
+            loader.normalize = normalize;
+            loader.chunkSize = chunkSize;
+            return loader;
+        }
+    }
+}
@@ -19,26 +19,26 @@
 package org.deeplearning4j.models.embeddings.loader;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.compress.compressors.gzip.GzipUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.LineIterator;
 import org.deeplearning4j.berkeley.Pair;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.index.WordVectorIndex;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
@@ -88,14 +88,27 @@ public class WordVectorSerializer {
      * @param lineBreaks
      *            if true, the input file is expected to terminate each line with a line break. This
      *            is typically the case for files created with recent versions of Word2Vec, but not
-     *            for the downloadable model files.
+     *            for the downloadable model files. Only used for compressed files: otherwise the file
+     *            is loaded with a {@link WordVectorLoader}, which handles both.
+     *            Vectors of binary models are normalized to unit length, those of text models are loaded
+     *            as they are, compressed or not.
      * @return a {@link Word2Vec} object
      * @throws IOException
      * @author Carsten Schnober
      */
     public static WordVectors loadGoogleModel(File modelFile, boolean binary, boolean lineBreaks)
         throws IOException {
-        return binary ? readBinaryModel(modelFile, lineBreaks) : WordVectorSerializer.fromPair(loadTxt(modelFile));
+        if (GzipUtils.isCompressedFilename(modelFile.getName()))
+            return binary ? readBinaryModel(modelFile, lineBreaks) : readTextModel(modelFile);
+
+        Pair<InMemoryLookupTable, VocabCache> pair = new WordVectorLoader.Builder()
+                .binary(binary).normalize(binary).build().load(modelFile);
+        if (!binary)
+            return fromPair(pair);
+        Word2Vec ret = new Word2Vec();
+        ret.setLookupTable(pair.getFirst());
+        ret.setVocab(pair.getSecond());
+        return ret;
     }
 
     /**
@@ -114,7 +127,7 @@ public class WordVectorSerializer {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(
                 GzipUtils.isCompressedFilename(modelFile.getName())
                         ? new GZIPInputStream(new FileInputStream(modelFile))
-                        : new FileInputStream(modelFile)))) {
+                        : new FileInputStream(modelFile), "UTF-8"))) {
             String line = reader.readLine();
             String[] initial = line.split(" ");
             int words = Integer.parseInt(initial[0]);
@@ -134,7 +147,8 @@ public class WordVectorSerializer {
                     vector[i - 1] = Float.parseFloat(split[i]);
                 }
 
-                syn0.putRow(currLine, Transforms.unitVec(Nd4j.create(vector)));
+                //as stored, like text models loaded by WordVectorLoader
+                syn0.putRow(currLine, Nd4j.create(vector));
 
                 cache.addWordToIndex(cache.numWords(), word);
                 cache.addToken(new VocabWord(1, word));
@@ -361,6 +375,53 @@ public class WordVectorSerializer {
 
     }
 
+    /**
+     * The file an index for the given vectors file is kept in: the same path with .index appended
+     *
+     * @param vectorsFile
+     *            the word vectors file
+     * @return the index file
+     */
+    public static File indexFileFor(File vectorsFile)
+    {
+        return new File(vectorsFile.getPath() + ".index");
+    }
+
+    /**
+     * Writes a nearest neighbour index, usually next to its vectors: see {@link #indexFileFor(File)}
+     *
+     * @param index
+     *            the index to write
+     * @param file
+     *            the file to write to
+     * @throws IOException
+     */
+    public static void writeIndex(WordVectorIndex index, File file)
+        throws IOException
+    {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            oos.writeObject(index);
+        }
+    }
+
+    /**
+     * Reads a nearest neighbour index written by {@link #writeIndex(WordVectorIndex, File)}
+     *
+     * @param file
+     *            the file to read
+     * @return the index
+     * @throws IOException
+     */
+    public static WordVectorIndex readIndex(File file)
+        throws IOException
+    {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (WordVectorIndex) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to read index from " + file, e);
+        }
+    }
+
     /**
      * Load word vectors for the given vocab and table
      *
@@ -420,44 +481,16 @@ public class WordVectorSerializer {
     public static Pair<InMemoryLookupTable, VocabCache> loadTxt(File vectorsFile)
         throws FileNotFoundException
     {
-        BufferedReader write = new BufferedReader(new FileReader(vectorsFile));
-        VocabCache cache = new InMemoryLookupCache();
-
-        InMemoryLookupTable lookupTable;
-
-        LineIterator iter = IOUtils.lineIterator(write);
-        List<INDArray> arrays = new ArrayList<>();
-        while (iter.hasNext()) {
-            String line = iter.nextLine();
-            String[] split = line.split(" ");
-            String word = split[0];
-            VocabWord word1 = new VocabWord(1.0, word);
-            cache.addToken(word1);
-            cache.addWordToIndex(cache.numWords(), word);
-            word1.setIndex(cache.numWords());
-            cache.putVocabWord(word);
-            INDArray row = Nd4j.create(Nd4j.createBuffer(split.length - 1));
-            for (int i = 1; i < split.length; i++) {
-                row.putScalar(i - 1, Float.parseFloat(split[i]));
-            }
-            arrays.add(row);
+        if (!vectorsFile.exists())
+            throw new FileNotFoundException(vectorsFile.getAbsolutePath());
+        Pair<InMemoryLookupTable, VocabCache> pair;
+        try {
+            pair = new WordVectorLoader.Builder().build().load(vectorsFile);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load " + vectorsFile, e);
         }
-
-        INDArray syn = Nd4j.create(new int[] { arrays.size(), arrays.get(0).columns() });
-        for (int i = 0; i < syn.rows(); i++) {
-            syn.putRow(i, arrays.get(i));
-        }
-
-        lookupTable = (InMemoryLookupTable) new InMemoryLookupTable.Builder()
-                .vectorLength(arrays.get(0).columns())
-                .useAdaGrad(false).cache(cache)
-                .build();
-        Nd4j.clearNans(syn);
-        lookupTable.setSyn0(syn);
-
-        iter.close();
-
-        return new Pair<>(lookupTable, cache);
+        Nd4j.clearNans(pair.getFirst().getSyn0());
+        return pair;
     }
 
     /**
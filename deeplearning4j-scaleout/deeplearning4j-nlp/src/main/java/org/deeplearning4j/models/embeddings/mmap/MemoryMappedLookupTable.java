@@ -0,0 +1,728 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.embeddings.mmap;
+
+import org.deeplearning4j.models.embeddings.BaseWeightLookupTable;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.AliasTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.plot.Tsne;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link WeightLookupTable} kept in a memory mapped file instead of on the heap, for vocabularies too big
+ * to fit in memory. Only the pages of rows actually looked up are read in, and processes serving the same
+ * file share those pages.
+ *
+ * The file is (all numbers little endian): a header page with magic bytes "DL4JMMLT", format version (int),
+ * page size (int), layer size (int), flags (int: 1 has syn1, 2 has syn1Neg) and number of rows (long),
+ * then syn0, syn1 and syn1Neg as raw floats, each starting on a page boundary. Rows are page aligned: as many
+ * whole rows as fit are packed in to each page (rows longer than a page start on their own page), so looking up
+ * one row never touches more pages than it has to.
+ *
+ * Opened read only, the table serves lookups such as {@link #vector(String)}. Opened read write,
+ * it can also be trained with {@link #iterateSample(VocabWord, VocabWord, XorShiftRandom, double)} (skip gram,
+ * hierarchical softmax and negative sampling, updating the file in place without locking, as
+ * {@link InMemoryLookupTable} does). {@link #flush()} writes changes to disk.
+ *
+ * Methods returning vectors return copies of the rows. {@link #getWeights()} copies the whole of syn0 on to
+ * the heap, so should be avoided for big tables.
+ */
+public class MemoryMappedLookupTable extends BaseWeightLookupTable {
+
+    public static final int VERSION = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryMappedLookupTable.class);
+    private static final byte[] MAGIC = "DL4JMMLT".getBytes(Charset.forName("US-ASCII"));
+    private static final int HEADER_LENGTH = 32;
+    private static final int FLAG_SYN1 = 1;
+    private static final int FLAG_SYN1_NEG = 2;
+    private static final int MAX_BUFFER_SIZE = 1 << 30;
+    private static final int EXP_TABLE_SIZE = 1000;
+    private static final float MAX_EXP = 6;
+
+    private File file;
+    private boolean readOnly;
+    private VocabCache vocab;
+    private int vectorLength;
+    private int numRows;
+    private int pageSize;
+    private int flags;
+    private double negative;
+    private volatile double lr;
+    private Map<Integer, INDArray> codes = new ConcurrentHashMap<>();
+    private long seed = 5;
+
+    private transient Section syn0;
+    private transient Section syn1;
+    private transient Section syn1Neg;
+    private transient AliasTable unigramTable;
+    private transient float[] expTable;
+    private transient ThreadLocal<float[][]> scratch;
+
+    private MemoryMappedLookupTable() {
+    }
+
+    /**
+     * Write the weights of the given lookup table to a file that can be opened as a memory mapped table
+     * @param lookupTable the table to write: syn0, and syn1 and syn1Neg if set
+     * @param file the file to write
+     * @param pageSize the page size to align rows to
+     */
+    public static void write(InMemoryLookupTable lookupTable, File file, int pageSize) throws IOException {
+        INDArray s0 = lookupTable.getSyn0();
+        INDArray s1 = lookupTable.getSyn1();
+        INDArray s1Neg = lookupTable.getSyn1Neg();
+        int flags = (s1 != null ? FLAG_SYN1 : 0) | (s1Neg != null ? FLAG_SYN1_NEG : 0);
+        MemoryMappedLookupTable table = create(file, s0.rows(), s0.columns(), flags, pageSize);
+        float[] row = new float[s0.columns()];
+        INDArray[] sources = {s0, s1, s1Neg};
+        Section[] sections = {table.syn0, table.syn1, table.syn1Neg};
+        for (int s = 0; s < sources.length; s++) {
+            if (sources[s] == null)
+                continue;
+            for (int i = 0; i < s0.rows(); i++) {
+                INDArray source = sources[s].getRow(i);
+                for (int j = 0; j < row.length; j++)
+                    row[j] = source.getFloat(j);
+                sections[s].put(i, row);
+            }
+        }
+        table.flush();
+    }
+
+    /**
+     * Write the weights of the given lookup table to a file that can be opened as a memory mapped table,
+     * with rows aligned to 4KB pages
+     */
+    public static void write(InMemoryLookupTable lookupTable, File file) throws IOException {
+        write(lookupTable, file, 4096);
+    }
+
+    //Create the file (all zeros) and map it read write
+    private static MemoryMappedLookupTable create(File file, int numRows, int vectorLength, int flags, int pageSize) throws IOException {
+        if (pageSize < HEADER_LENGTH || pageSize % 4 != 0)
+            throw new IllegalArgumentException("Page size must be a multiple of 4, at least " + HEADER_LENGTH);
+        MemoryMappedLookupTable table = new MemoryMappedLookupTable();
+        table.file = file;
+        table.numRows = numRows;
+        table.vectorLength = vectorLength;
+        table.flags = flags;
+        table.pageSize = pageSize;
+        int numSections = 1 + ((flags & FLAG_SYN1) != 0 ? 1 : 0) + ((flags & FLAG_SYN1_NEG) != 0 ? 1 : 0);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            raf.setLength(pageSize + numSections * table.sectionLength());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).putInt(VERSION).putInt(pageSize).putInt(vectorLength).putInt(flags).putLong(numRows);
+            header.flip();
+            while (header.hasRemaining())
+                channel.write(header, header.position());
+        }
+        table.map();
+        return table;
+    }
+
+    private void open() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0)
+                    throw new EOFException("Unexpected end of lookup table file " + file);
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException("Not a memory mapped lookup table: " + file);
+            int version = header.getInt();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported lookup table format version " + version + " (supported: up to " + VERSION + ")");
+            pageSize = header.getInt();
+            vectorLength = header.getInt();
+            flags = header.getInt();
+            long rows = header.getLong();
+            if (pageSize < HEADER_LENGTH || pageSize % 4 != 0 || vectorLength < 1 || rows < 0 || rows > Integer.MAX_VALUE)
+                throw new IOException("Invalid lookup table header: page size " + pageSize + ", layer size "
+                        + vectorLength + ", " + rows + " rows");
+            numRows = (int) rows;
+        }
+        map();
+    }
+
+    private void map() throws IOException {
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        try (RandomAccessFile raf = new RandomAccessFile(file, readOnly ? "r" : "rw"); FileChannel channel = raf.getChannel()) {
+            long offset = pageSize;
+            syn0 = new Section(channel, mode, offset);
+            offset += sectionLength();
+            if ((flags & FLAG_SYN1) != 0) {
+                syn1 = new Section(channel, mode, offset);
+                offset += sectionLength();
+            }
+            if ((flags & FLAG_SYN1_NEG) != 0)
+                syn1Neg = new Section(channel, mode, offset);
+        }
+
+        expTable = new float[EXP_TABLE_SIZE];
+        for (int i = 0; i < EXP_TABLE_SIZE; i++) {
+            double exp = Math.exp((i / (double) EXP_TABLE_SIZE * 2 - 1) * MAX_EXP);
+            expTable[i] = (float) (exp / (exp + 1));
+        }
+        scratch = new ThreadLocal<float[][]>() {
+            @Override
+            protected float[][] initialValue() {
+                return new float[2][vectorLength];
+            }
+        };
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        map();
+        if (!readOnly)
+            initNegative();
+    }
+
+    //Rows per block, and block length in bytes: a block is one page, or as many pages as one row needs
+    private int rowsPerBlock() {
+        int rowBytes = 4 * vectorLength;
+        return rowBytes <= pageSize ? pageSize / rowBytes : 1;
+    }
+
+    private int blockLength() {
+        int rowBytes = 4 * vectorLength;
+        return rowBytes <= pageSize ? pageSize : (rowBytes + pageSize - 1) / pageSize * pageSize;
+    }
+
+    private long sectionLength() {
+        long blocks = (numRows + rowsPerBlock() - 1) / rowsPerBlock();
+        return blocks * blockLength();
+    }
+
+    //Offset in the file of the given syn0 row
+    long rowOffset(int row) {
+        return pageSize + (long) (row / rowsPerBlock()) * blockLength() + (long) (row % rowsPerBlock()) * 4 * vectorLength;
+    }
+
+    private void initNegative() {
+        if (negative <= 0 || syn1Neg == null)
+            return;
+        //unigram distribution raised to the 3/4 power, for picking negative samples
+        unigramTable = AliasTable.unigram(vocab, Math.min(numRows, vocab.numWords()), 0.75);
+    }
+
+    private void checkWritable() {
+        if (readOnly)
+            throw new IllegalStateException("Lookup table " + file + " is read only");
+    }
+
+    /**
+     * Write all changes to disk
+     */
+    public void flush() {
+        for (Section section : new Section[]{syn0, syn1, syn1Neg}) {
+            if (section != null)
+                section.force();
+        }
+    }
+
+    @Override
+    public int layerSize() {
+        return vectorLength;
+    }
+
+    @Override
+    public void resetWeights(boolean reset) {
+        checkWritable();
+        if (!reset)
+            return;
+        //same initialization as the C implementation: syn0 small and random, the output weights zero
+        Random r = new Random(seed);
+        float[] row = new float[vectorLength];
+        float[] zeros = new float[vectorLength];
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < vectorLength; j++)
+                row[j] = (r.nextFloat() - 0.5f) / vectorLength;
+            syn0.put(i, row);
+            if (syn1 != null)
+                syn1.put(i, zeros);
+            if (syn1Neg != null)
+                syn1Neg.put(i, zeros);
+        }
+        initNegative();
+    }
+
+    @Override
+    public void resetWeights() {
+        resetWeights(true);
+    }
+
+    @Override
+    public void plotVocab(Tsne tsne) {
+        try {
+            List<String> plot = new ArrayList<>();
+            for (String s : vocab.words())
+                plot.add(s);
+            tsne.plot(getWeights(), 2, plot);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void plotVocab() {
+        plotVocab(new Tsne.Builder().normalize(false).setFinalMomentum(0.8f).setMaxIter(1000).build());
+    }
+
+    @Override
+    public void putCode(int codeIndex, INDArray code) {
+        codes.put(codeIndex, code);
+    }
+
+    @Override
+    public INDArray loadCodes(int[] codes) {
+        if (syn1 == null)
+            throw new IllegalStateException("Lookup table has no syn1");
+        INDArray ret = Nd4j.create(codes.length, vectorLength);
+        float[] row = new float[vectorLength];
+        for (int i = 0; i < codes.length; i++) {
+            syn1.get(codes[i], row);
+            for (int j = 0; j < vectorLength; j++)
+                ret.putScalar(i, j, row[j]);
+        }
+        return ret;
+    }
+
+    @Override
+    public void iterate(VocabWord w1, VocabWord w2) {
+        iterateSample(w1, w2, XorShiftRandom.current(), lr);
+    }
+
+    @Override
+    public void iterateSample(VocabWord w1, VocabWord w2, XorShiftRandom random, double alpha) {
+        checkWritable();
+        if (w2 == null || w2.getIndex() < 0 || w1.getIndex() == w2.getIndex() || w1.getWord().equals("STOP")
+                || w2.getWord().equals("STOP") || w1.getWord().equals("UNK") || w2.getWord().equals("UNK"))
+            return;
+        float[][] rows = scratch.get();
+        float[] l1 = rows[0];
+        float[] neu1e = rows[1];
+        syn0.get(w2.getIndex(), l1);
+        Arrays.fill(neu1e, 0f);
+        float a = (float) alpha;
+
+        if (syn1 != null) {
+            for (int i = 0; i < w1.getCodeLength(); i++) {
+                int code = w1.getCodes().get(i);
+                int point = w1.getPoints().get(i);
+                if (point >= numRows || point < 0)
+                    throw new IllegalStateException("Illegal point " + point);
+                FloatBuffer buffer = syn1.buffer(point);
+                int offset = syn1.offset(point);
+                float f = dot(buffer, offset, l1);
+                if (f <= -MAX_EXP || f >= MAX_EXP)
+                    continue;
+                f = expTable[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))];
+                update((1 - code - f) * a, buffer, offset, l1, neu1e);
+            }
+        }
+
+        if (negative > 0 && syn1Neg != null && unigramTable != null) {
+            for (int d = 0; d < negative + 1; d++) {
+                int target;
+                int label;
+                if (d == 0) {
+                    target = w1.getIndex();
+                    label = 1;
+                } else {
+                    target = unigramTable.sample(random);
+                    if (target == w1.getIndex())
+                        continue;
+                    label = 0;
+                }
+                if (target < 0 || target >= numRows)
+                    continue;
+                FloatBuffer buffer = syn1Neg.buffer(target);
+                int offset = syn1Neg.offset(target);
+                float f = dot(buffer, offset, l1);
+                float g;
+                if (f > MAX_EXP)
+                    g = (label - 1) * a;
+                else if (f < -MAX_EXP)
+                    g = label * a;
+                else
+                    g = (label - expTable[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * a;
+                update(g, buffer, offset, l1, neu1e);
+            }
+        }
+
+        FloatBuffer buffer = syn0.buffer(w2.getIndex());
+        int offset = syn0.offset(w2.getIndex());
+        for (int j = 0; j < vectorLength; j++)
+            buffer.put(offset + j, buffer.get(offset + j) + neu1e[j]);
+    }
+
+    private float dot(FloatBuffer buffer, int offset, float[] x) {
+        float ret = 0;
+        for (int j = 0; j < vectorLength; j++)
+            ret += buffer.get(offset + j) * x[j];
+        return ret;
+    }
+
+    //neu1e += g * row, row += g * l1
+    private void update(float g, FloatBuffer buffer, int offset, float[] l1, float[] neu1e) {
+        for (int j = 0; j < vectorLength; j++) {
+            float v = buffer.get(offset + j);
+            neu1e[j] += g * v;
+            buffer.put(offset + j, v + g * l1[j]);
+        }
+    }
+
+    @Override
+    public void putVector(String word, INDArray vector) {
+        checkWritable();
+        if (word == null)
+            throw new IllegalArgumentException("No null words allowed");
+        if (vector == null)
+            throw new IllegalArgumentException("No null vectors allowed");
+        int idx = vocab.indexOf(word);
+        if (idx < 0 || idx >= numRows)
+            throw new IllegalArgumentException("Word " + word + " is not in the lookup table");
+        float[] row = new float[vectorLength];
+        for (int j = 0; j < vectorLength; j++)
+            row[j] = vector.getFloat(j);
+        syn0.put(idx, row);
+    }
+
+    /**
+     * @param word the word to look up
+     * @return a copy of the word's vector, the UNK vector for words not in the vocab
+     */
+    @Override
+    public INDArray vector(String word) {
+        if (word == null)
+            return null;
+        int idx = vocab.indexOf(word);
+        if (idx < 0)
+            idx = vocab.indexOf(Word2Vec.UNK);
+        if (idx < 0 || idx >= numRows)
+            return null;
+        return row(idx);
+    }
+
+    /**
+     * @param idx the vocab index
+     * @return a copy of row idx of syn0
+     */
+    public INDArray row(int idx) {
+        float[] row = new float[vectorLength];
+        syn0.get(idx, row);
+        return Nd4j.create(row, new int[]{1, vectorLength});
+    }
+
+    @Override
+    public void setLearningRate(double lr) {
+        this.lr = lr;
+    }
+
+    /**
+     * Copies of the rows of syn0, one at a time
+     */
+    @Override
+    public Iterator<INDArray> vectors() {
+        return new Iterator<INDArray>() {
+            private int idx = 0;
+
+            @Override
+            public boolean hasNext() {
+                return idx < numRows;
+            }
+
+            @Override
+            public INDArray next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return row(idx++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return a copy of syn0 on the heap
+     */
+    @Override
+    public INDArray getWeights() {
+        if ((long) numRows * vectorLength > Integer.MAX_VALUE)
+            throw new IllegalStateException("Lookup table is too big to copy in to one array");
+        float[] weights = new float[numRows * vectorLength];
+        float[] row = new float[vectorLength];
+        for (int i = 0; i < numRows; i++) {
+            syn0.get(i, row);
+            System.arraycopy(row, 0, weights, i * vectorLength, vectorLength);
+        }
+        return Nd4j.create(weights, new int[]{numRows, vectorLength});
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public VocabCache getVocab() {
+        return vocab;
+    }
+
+    public Map<Integer, INDArray> getCodes() {
+        return codes;
+    }
+
+    //One of syn0, syn1 or syn1Neg, mapped in buffers of whole blocks
+    private class Section {
+        private final MappedByteBuffer[] mapped;
+        private final FloatBuffer[] buffers;
+        private final int rowsPerBuffer;
+        private final int rowsPerBlock;
+        private final int blockFloats;
+
+        private Section(FileChannel channel, FileChannel.MapMode mode, long offset) throws IOException {
+            rowsPerBlock = rowsPerBlock();
+            int blockLength = blockLength();
+            blockFloats = blockLength / 4;
+            int blocksPerBuffer = Math.max(1, MAX_BUFFER_SIZE / blockLength);
+            rowsPerBuffer = blocksPerBuffer * rowsPerBlock;
+            long blocks = (numRows + rowsPerBlock - 1) / rowsPerBlock;
+            int numBuffers = (int) ((blocks + blocksPerBuffer - 1) / blocksPerBuffer);
+            mapped = new MappedByteBuffer[numBuffers];
+            buffers = new FloatBuffer[numBuffers];
+            for (int i = 0; i < numBuffers; i++) {
+                long start = offset + (long) i * blocksPerBuffer * blockLength;
+                long length = Math.min(blocksPerBuffer, blocks - (long) i * blocksPerBuffer) * blockLength;
+                mapped[i] = channel.map(mode, start, length);
+                mapped[i].order(ByteOrder.LITTLE_ENDIAN);
+                buffers[i] = mapped[i].asFloatBuffer();
+            }
+        }
+
+        private FloatBuffer buffer(int row) {
+            return buffers[row / rowsPerBuffer];
+        }
+
+        private int offset(int row) {
+            int r = row % rowsPerBuffer;
+            return (r / rowsPerBlock) * blockFloats + (r % rowsPerBlock) * vectorLength;
+        }
+
+        private void get(int row, float[] dst) {
+            FloatBuffer buffer = buffer(row);
+            int offset = offset(row);
+            for (int j = 0; j < vectorLength; j++)
+                dst[j] = buffer.get(offset + j);
+        }
+
+        private void put(int row, float[] src) {
+            FloatBuffer buffer = buffer(row);
+            int offset = offset(row);
+            for (int j = 0; j < vectorLength; j++)
+                buffer.put(offset + j, src[j]);
+        }
+
+        private void force() {
+            if (readOnly)
+                return;
+            for (MappedByteBuffer buffer : mapped)
+                buffer.force();
+        }
+    }
+
+    public static class Builder {
+        private File file;
+        private VocabCache vocab;
+        private int vectorLength = 100;
+        private double negative = 0;
+        private boolean useHierarchicSoftmax = true;
+        private double lr = 0.025;
+        private long seed = 123;
+        private boolean readOnly = false;
+        private boolean overwrite = false;
+        private int pageSize = 4096;
+
+        /**
+         * @param file the file for the table. If it exists (and overwrite is false) the table is opened,
+         *             otherwise a new table is created with random weights
+         */
+        public Builder(File file) {
+            this.file = file;
+        }
+
+        /**
+         * The vocab for the table: row i is the vector for the word at index i
+         */
+        public Builder cache(VocabCache vocab) {
+            this.vocab = vocab;
+            return this;
+        }
+
+        /**
+         * Layer size for a new table
+         * @param vectorLength the layer size, default 100
+         * @return builder pattern
+         */
+        public Builder vectorLength(int vectorLength) {
+            this.vectorLength = vectorLength;
+            return this;
+        }
+
+        /**
+         * Number of negative samples when training: a new table gets syn1Neg if > 0
+         * @param negative the number of samples, default 0
+         * @return builder pattern
+         */
+        public Builder negative(double negative) {
+            this.negative = negative;
+            return this;
+        }
+
+        /**
+         * Whether a new table gets syn1 for hierarchical softmax
+         * @param useHierarchicSoftmax true (the default) for syn1
+         * @return builder pattern
+         */
+        public Builder useHierarchicSoftmax(boolean useHierarchicSoftmax) {
+            this.useHierarchicSoftmax = useHierarchicSoftmax;
+            return this;
+        }
+
+        public Builder lr(double lr) {
+            this.lr = lr;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Open the table read only, for serving lookups
+         * @param readOnly true for read only, default false (read write)
+         * @return builder pattern
+         */
+        public Builder readOnly(boolean readOnly) {
+            this.readOnly = readOnly;
+            return this;
+        }
+
+        /**
+         * Create a new table even if the file exists
+         * @param overwrite true to replace any existing file, default false
+         * @return builder pattern
+         */
+        public Builder overwrite(boolean overwrite) {
+            this.overwrite = overwrite;
+            return this;
+        }
+
+        /**
+         * Page size rows of a new table are aligned to
+         * @param pageSize the page size in bytes, default 4096
+         * @return builder pattern
+         */
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public MemoryMappedLookupTable build() throws IOException {
+            if (vocab == null)
+                throw new IllegalStateException("Vocab cache must be specified");
+            if (vectorLength < 1)
+                throw new IllegalArgumentException("Vector length must be > 0");
+            if (pageSize < HEADER_LENGTH || pageSize % 4 != 0)
+                throw new IllegalArgumentException("Page size must be a multiple of 4, at least " + HEADER_LENGTH);
+
+            MemoryMappedLookupTable table;
+            boolean created = !file.exists() || overwrite;
+            if (!created) {
+                table = new MemoryMappedLookupTable();
+                table.file = file;
+                table.readOnly = readOnly;
+                table.open();
+                if (table.numRows < vocab.numWords())
+                    throw new IllegalStateException("Lookup table " + file + " has " + table.numRows
+                            + " rows, but the vocab has " + vocab.numWords() + " words");
+            } else {
+                if (readOnly)
+                    throw new IllegalStateException("Can't create a read only lookup table: " + file + " does not exist");
+                int flags = (useHierarchicSoftmax ? FLAG_SYN1 : 0) | (negative > 0 ? FLAG_SYN1_NEG : 0);
+                table = create(file, vocab.numWords(), vectorLength, flags, pageSize);
+            }
+            table.vocab = vocab;
+            table.negative = negative;
+            table.lr = lr;
+            table.seed = seed;
+            if (created) {
+                table.resetWeights(true);
+                log.info("Created lookup table " + file + " with " + table.numRows + " rows of length " + vectorLength);
+            } else if (!readOnly) {
+                table.initNegative();
+            }
+            return table;
+        }
+    }
+}
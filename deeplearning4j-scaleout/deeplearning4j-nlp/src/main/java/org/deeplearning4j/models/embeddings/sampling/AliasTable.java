@@ -0,0 +1,156 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.sampling;
+
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+
+import java.io.Serializable;
+
+/**
+ * Walker alias table: samples an index in proportion to its weight in constant time, from two arrays
+ * the size of the number of weights.
+ * Used for picking negative samples from the unigram distribution raised to the 3/4 power: unlike the
+ * word2vec table of word indexes it is exact for any vocab size, and takes 8 bytes per word rather than
+ * a fixed 10^7 or 10^8 ints.
+ *
+ * The table is immutable, so it can be shared between threads; each thread supplies its own random bits.
+ */
+public class AliasTable implements Serializable {
+
+    private static final long serialVersionUID = 7408157263871325469L;
+
+    private final float[] probability;
+    private final int[] alias;
+
+    /**
+     * Build a table using Vose's method
+     * @param weights the non negative weight of each index, not all 0
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        if (n < 1)
+            throw new IllegalArgumentException("No weights");
+        double sum = 0.0;
+        for (double w : weights) {
+            if (w < 0 || Double.isNaN(w) || Double.isInfinite(w))
+                throw new IllegalArgumentException("Weights must be finite and non negative: " + w);
+            sum += w;
+        }
+        if (sum <= 0)
+            throw new IllegalArgumentException("Weights must not all be 0");
+
+        probability = new float[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        //work lists of indexes with a scaled weight below and at least 1, as stacks in one array
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1.0)
+                small[numSmall++] = i;
+            else
+                large[numLarge++] = i;
+        }
+        while (numSmall > 0 && numLarge > 0) {
+            int less = small[--numSmall];
+            int more = large[--numLarge];
+            probability[less] = (float) scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0)
+                small[numSmall++] = more;
+            else
+                large[numLarge++] = more;
+        }
+        //whatever is left is 1 up to rounding error
+        while (numLarge > 0) {
+            int i = large[--numLarge];
+            probability[i] = 1f;
+            alias[i] = i;
+        }
+        while (numSmall > 0) {
+            int i = small[--numSmall];
+            probability[i] = 1f;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * Table for the unigram distribution of the words of the vocab raised to the given power
+     * @param vocab the vocab
+     * @param numWords the number of words (indexes 0 to numWords - 1) to sample from
+     * @param power the power, 0.75 in word2vec
+     * @return the table, indexed by vocab index
+     */
+    public static AliasTable unigram(VocabCache vocab, int numWords, double power) {
+        double[] weights = new double[numWords];
+        for (int i = 0; i < numWords; i++) {
+            String word = vocab.wordAtIndex(i);
+            weights[i] = word == null ? 0.0 : Math.pow(vocab.wordFrequency(word), power);
+        }
+        return new AliasTable(weights);
+    }
+
+    /**
+     * Sample an index
+     * @param random 64 random bits: the high 32 pick a column, the low 24 the side of it
+     * @return the index
+     */
+    public int sample(long random) {
+        int column = (int) (((random >>> 32) * probability.length) >>> 32);
+        float coin = (random & 0xFFFFFF) / (float) (1 << 24);
+        return coin < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Sample an index
+     * @param random the random number generator of the calling thread
+     * @return the index
+     */
+    public int sample(XorShiftRandom random) {
+        return sample(random.nextLong());
+    }
+
+    /**
+     * The probability of sampling each index
+     * @return the probabilities (each weight over the sum of weights, up to float rounding)
+     */
+    public double[] probabilities() {
+        double[] ret = new double[probability.length];
+        for (int i = 0; i < probability.length; i++) {
+            ret[i] += probability[i];
+            ret[alias[i]] += 1.0 - probability[i];
+        }
+        for (int i = 0; i < ret.length; i++)
+            ret[i] /= probability.length;
+        return ret;
+    }
+
+    /**
+     * @return the number of indexes
+     */
+    public int size() {
+        return probability.length;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.sampling;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+
+import java.io.Serializable;
+
+/**
+ * Probability of keeping each word of the vocab when subsampling frequent words, as in word2vec:
+ * a word with frequency f out of n words is kept with probability (sqrt(f / (sample * n)) + 1) * (sample * n) / f.
+ * The probabilities are computed once per vocab, so deciding whether to keep a word is one array lookup
+ * and one random number.
+ */
+public class SubsamplingTable implements Serializable {
+
+    private static final long serialVersionUID = -4237160853364528710L;
+
+    private final float[] keep;
+
+    /**
+     * @param vocab the vocab
+     * @param sample the subsampling threshold, such as 1e-3 or 1e-5. Must be positive
+     */
+    public SubsamplingTable(VocabCache vocab, double sample) {
+        if (sample <= 0)
+            throw new IllegalArgumentException("Sample must be positive");
+        double threshold = sample * Math.max(1L, vocab.totalWordOccurrences());
+        keep = new float[vocab.numWords()];
+        for (int i = 0; i < keep.length; i++) {
+            String word = vocab.wordAtIndex(i);
+            double frequency = word == null ? 0 : vocab.wordFrequency(word);
+            keep[i] = frequency <= 0 ? 1f : (float) Math.min(1.0, (Math.sqrt(frequency / threshold) + 1) * threshold / frequency);
+        }
+    }
+
+    /**
+     * @param index the vocab index of a word
+     * @return the probability of keeping it: 1 for indexes not in the vocab when this was built
+     */
+    public float keepProbability(int index) {
+        return index < 0 || index >= keep.length ? 1f : keep[index];
+    }
+
+    /**
+     * Decide whether to keep an occurrence of a word
+     * @param word the word
+     * @param random the random number generator of the calling thread
+     * @return true to keep the word, false to drop it
+     */
+    public boolean keep(VocabWord word, XorShiftRandom random) {
+        float p = keepProbability(word.getIndex());
+        return p >= 1f || random.nextFloat() < p;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.embeddings.sampling;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small, fast xorshift64* random number generator, for sampling in training loops.
+ * An instance is not thread safe: each thread should use its own, such as {@link #current()},
+ * rather than sharing one (or an AtomicLong) that every core contends on.
+ * Training loops should get theirs from {@link #perThread(long)} so that runs with the same seed are reproducible.
+ */
+public class XorShiftRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long DEFAULT_SEED = 123;
+    private static final ThreadLocal<XorShiftRandom> CURRENT = perThread(DEFAULT_SEED);
+
+    private long state;
+
+    /**
+     * @param seed the seed: any value, including 0
+     */
+    public XorShiftRandom(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * The generator of the calling thread, for callers that have no seed of their own
+     * @return the generator, only to be used from the calling thread
+     */
+    public static XorShiftRandom current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Per thread generators derived from a seed: the n-th thread to ask for one
+     * is seeded with seed + n * gamma, so that no two threads share a sequence
+     * @param seed the seed, usually the model's
+     * @return the generators, one per calling thread
+     */
+    public static ThreadLocal<XorShiftRandom> perThread(final long seed) {
+        final AtomicInteger threads = new AtomicInteger();
+        return new ThreadLocal<XorShiftRandom>() {
+            @Override
+            protected XorShiftRandom initialValue() {
+                return new XorShiftRandom(seed + threads.getAndIncrement() * GOLDEN_GAMMA);
+            }
+        };
+    }
+
+    /**
+     * A generator seeded from, and advancing, a shared AtomicLong,
+     * for the deprecated methods that still take one
+     * @param nextRandom the shared random state
+     * @return a generator only to be used from the calling thread
+     */
+    public static XorShiftRandom of(AtomicLong nextRandom) {
+        long seed;
+        do {
+            seed = nextRandom.get();
+        } while (!nextRandom.compareAndSet(seed, seed * 25214903917L + 11));
+        return new XorShiftRandom(seed);
+    }
+
+    public void setSeed(long seed) {
+        //xorshift needs a non zero state: scramble the seed so that nearby seeds give unrelated sequences
+        long z = seed + GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        state = z == 0 ? GOLDEN_GAMMA : z;
+    }
+
+    public long nextLong() {
+        long x = state;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        state = x;
+        return x * 2685821657736338717L;
+    }
+
+    /**
+     * @param bound the upper bound (exclusive), must be positive
+     * @return a uniform int in [0, bound)
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * @return a uniform float in [0, 1)
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) / (float) (1 << 24);
+    }
+
+    /**
+     * @return a uniform double in [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) / (double) (1L << 53);
+    }
+
+}
@@ -21,6 +21,9 @@ package org.deeplearning4j.models.embeddings.wordvectors;
 import com.google.common.collect.Lists;
 import org.deeplearning4j.berkeley.Counter;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.index.ExactWordVectorIndex;
+import org.deeplearning4j.models.embeddings.index.RandomProjectionForestIndex;
+import org.deeplearning4j.models.embeddings.index.WordVectorIndex;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
@@ -46,6 +49,49 @@ public class WordVectorsImpl implements WordVectors {
     protected int layerSize = 100;
     public final static String UNK = "UNK";
     protected List<String> stopWords = StopWords.getStopWords();
+    //when set, used for all nearest word queries
+    protected WordVectorIndex index;
+
+    /**
+     * Build a nearest neighbour index over the vectors. From then on the wordsNearest
+     * and wordsNearestSum methods rank words by cosine similarity using the index
+     * @param exact true for an {@link ExactWordVectorIndex}, false for a {@link RandomProjectionForestIndex}
+     *              with its default settings
+     * @return the index built
+     */
+    public WordVectorIndex buildIndex(boolean exact) {
+        INDArray weights = lookupTable().getWeights();
+        index = exact ? new ExactWordVectorIndex(weights) : new RandomProjectionForestIndex.Builder(weights).build();
+        return index;
+    }
+
+    public WordVectorIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Use the given index for nearest word queries, null to go back to comparing against every word
+     * @param index an index built over the vectors of this model
+     */
+    public void setIndex(WordVectorIndex index) {
+        this.index = index;
+    }
+
+    //the top words for the query from the index, skipping the excluded words
+    private Collection<String> wordsNearest(WordVectorIndex index, INDArray query, int top, Collection<String> exclude) {
+        int[] nearest = index.search(query, top + exclude.size() + 2);
+        List<String> ret = new ArrayList<>();
+        for (int i : nearest) {
+            String word = vocab().wordAtIndex(i);
+            if (word == null || word.equals("UNK") || word.equals("STOP") || exclude.contains(word))
+                continue;
+            ret.add(word);
+            if (ret.size() >= top)
+                break;
+        }
+        return ret;
+    }
+
     /**
      * Returns true if the model has this word in the vocab
      * @param word the word to test for
@@ -71,6 +117,8 @@ public class WordVectorsImpl implements WordVectors {
         for(String s : negative)
             words.addi(lookupTable.vector(s).mul(-1));
 
+        if(index != null)
+            return wordsNearest(index, words, top, union);
 
         if(lookupTable() instanceof InMemoryLookupTable) {
             InMemoryLookupTable l = (InMemoryLookupTable) lookupTable();
@@ -130,6 +178,8 @@ public class WordVectorsImpl implements WordVectors {
      */
     @Override
     public Collection<String> wordsNearestSum(INDArray words,int top) {
+        if(index != null)
+            return wordsNearest(index, words, top, Collections.<String>emptySet());
 
         if(lookupTable() instanceof InMemoryLookupTable) {
             InMemoryLookupTable l = (InMemoryLookupTable) lookupTable();
@@ -181,6 +231,8 @@ public class WordVectorsImpl implements WordVectors {
      */
     @Override
     public Collection<String> wordsNearest(INDArray words, int top) {
+        if(index != null)
+            return wordsNearest(index, words, top, Collections.<String>emptySet());
         if(lookupTable() instanceof InMemoryLookupTable) {
             InMemoryLookupTable l = (InMemoryLookupTable) lookupTable();
             INDArray syn0 = l.getSyn0();
@@ -233,7 +285,8 @@ public class WordVectorsImpl implements WordVectors {
      */
     public Collection<String> wordsNearestSum(String word,int n) {
         INDArray vec = Transforms.unitVec(this.getWordVectorMatrix(word));
-
+        if(index != null)
+            return wordsNearest(index, vec, n, Collections.singleton(word));
 
         if(lookupTable() instanceof InMemoryLookupTable) {
             InMemoryLookupTable l = (InMemoryLookupTable) lookupTable();
@@ -401,6 +454,8 @@ public class WordVectorsImpl implements WordVectors {
         }
 
         INDArray mean = words.isMatrix() ? words.mean(0) : words;
+        if (index != null)
+            return wordsNearest(index, mean, top, union);
         if (lookupTable() instanceof InMemoryLookupTable) {
             InMemoryLookupTable l = (InMemoryLookupTable) lookupTable();
 
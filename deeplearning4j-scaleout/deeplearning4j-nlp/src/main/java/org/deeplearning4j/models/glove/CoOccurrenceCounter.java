@@ -0,0 +1,778 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.glove;
+
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counts word co occurrences for GloVe without holding them all in memory, like the
+ * cooccur tool of the reference GloVe implementation.
+ *
+ * Sentences are read on the calling thread and tokenized and counted by a number of worker threads.
+ * Each worker counts a batch of sentences in its own map, then merges it in to a number of shards,
+ * each an open addressing map from a pair of word indices (packed in to a long) to its weighted count.
+ * When a shard holds more than its share of the memory budget, its pairs are sorted and written
+ * to a temporary run file and the shard is emptied. Once every sentence is counted the runs are
+ * merged in to one file of records sorted by (word1, word2), each pair once.
+ *
+ * Word pairs are counted as in {@link org.deeplearning4j.models.glove.actor.CoOccurrenceActor}:
+ * words within windowSize of each other add 1 / distance, words not in the vocab, {@link Glove#UNK}
+ * and pairs of the same word are skipped. When not symmetric, each pair is counted once, with the
+ * lower index first.
+ *
+ * The records can be read with {@link CoOccurrenceReader}, and {@link #shuffle(File, File, long, File, long)}
+ * shuffles them for training
+ */
+public class CoOccurrenceCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(CoOccurrenceCounter.class);
+
+    //approximate bytes per pair held in a shard: the map at its max load factor plus the arrays sorted when spilling
+    private static final int BYTES_PER_PAIR = 40;
+
+    private VocabCache vocab;
+    private TokenizerFactory tokenizerFactory = new DefaultTokenizerFactory();
+    private int windowSize = 15;
+    private boolean symmetric = true;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int numShards = 64;
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private int batchSize = 1000;
+    private File tempDir;
+
+    private PairMap[] shards;
+    private Object[] locks;
+    private long maxPerShard;
+    private final List<File> runs = Collections.synchronizedList(new ArrayList<File>());
+    private final AtomicLong numSentences = new AtomicLong();
+    private final AtomicLong numRecords = new AtomicLong();
+
+    private CoOccurrenceCounter() {
+    }
+
+    /**
+     * Count the co occurrences in every sentence and write them, sorted by (word1, word2), to the given file.
+     * The iterator is read once, from its current position
+     * @param iter the sentences
+     * @param output the file to write the records to
+     * @return the number of records written
+     */
+    public long count(SentenceIterator iter, File output) throws IOException {
+        shards = new PairMap[numShards];
+        locks = new Object[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new PairMap(1024);
+            locks[i] = new Object();
+        }
+        maxPerShard = Math.max(1, memoryBudget / numShards / BYTES_PER_PAIR);
+        runs.clear();
+        numSentences.set(0);
+        numRecords.set(0);
+
+        final BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(workers * 2);
+        final List<String> poison = Collections.emptyList();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            threads[i] = new Thread(new Worker(queue, poison), "CoOccurrenceCounter-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+
+        long start = System.currentTimeMillis();
+        boolean joined = false;
+        try {
+            try {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (iter.hasNext() && error.get() == null) {
+                    String sentence = iter.nextSentence();
+                    if (sentence == null || sentence.isEmpty())
+                        continue;
+                    batch.add(sentence);
+                    if (batch.size() >= batchSize) {
+                        put(queue, batch, error);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty())
+                    put(queue, batch, error);
+                for (int i = 0; i < workers; i++)
+                    put(queue, poison, error);
+                if (error.get() != null) {
+                    for (Thread t : threads)
+                        t.interrupt();
+                }
+                for (Thread t : threads)
+                    t.join();
+                joined = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while counting co occurrences", e);
+            } finally {
+                //reading failed or we were interrupted: the workers may never see their poison
+                if (!joined)
+                    stopWorkers(threads);
+            }
+            if (error.get() != null) {
+                if (error.get() instanceof SpillException)
+                    throw ((SpillException) error.get()).getCause();
+                throw new RuntimeException("Worker failed", error.get());
+            }
+
+            int spilled = runs.size();
+            for (int s = 0; s < numShards; s++) {
+                if (shards[s].size() > 0)
+                    spill(shards[s]);
+                shards[s] = null;
+            }
+            long written = merge(runs, output);
+            numRecords.set(written);
+            log.info("Counted " + written + " co occurrences in " + numSentences.get() + " sentences ("
+                    + spilled + " runs spilled) in " + (System.currentTimeMillis() - start) + " ms");
+            return written;
+        } finally {
+            for (File run : runs)
+                run.delete();
+            runs.clear();
+            shards = null;
+        }
+    }
+
+    //interrupt the workers and wait for them, so none spills a run after the runs are deleted
+    private static void stopWorkers(Thread[] threads) {
+        for (Thread t : threads)
+            t.interrupt();
+        boolean interrupted = false;
+        for (Thread t : threads) {
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    //blocks until there is room in the queue, unless a worker has failed
+    private static void put(BlockingQueue<List<String>> queue, List<String> batch, AtomicReference<Throwable> error)
+            throws InterruptedException {
+        while (error.get() == null) {
+            if (queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+                return;
+        }
+    }
+
+    //add a worker's counts to the shards, taking each shard's lock once
+    private void merge(PairMap local) throws IOException {
+        int[] shardOf = new int[local.capacity()];
+        int[] shardCounts = new int[numShards + 1];
+        for (int i = 0; i < local.capacity(); i++) {
+            if (local.keys[i] != PairMap.EMPTY) {
+                shardOf[i] = shard(local.keys[i]);
+                shardCounts[shardOf[i] + 1]++;
+            }
+        }
+        for (int s = 0; s < numShards; s++)
+            shardCounts[s + 1] += shardCounts[s];
+        int[] order = new int[local.size()];
+        int[] next = Arrays.copyOf(shardCounts, numShards);
+        for (int i = 0; i < local.capacity(); i++) {
+            if (local.keys[i] != PairMap.EMPTY)
+                order[next[shardOf[i]]++] = i;
+        }
+
+        for (int s = 0; s < numShards; s++) {
+            if (shardCounts[s] == shardCounts[s + 1])
+                continue;
+            PairMap full = null;
+            synchronized (locks[s]) {
+                PairMap shard = shards[s];
+                for (int j = shardCounts[s]; j < shardCounts[s + 1]; j++) {
+                    int i = order[j];
+                    shard.add(local.keys[i], local.values[i]);
+                }
+                if (shard.size() > maxPerShard) {
+                    full = shard;
+                    shards[s] = new PairMap(1024);
+                }
+            }
+            //written outside the lock, so other workers can keep merging in to the shard
+            if (full != null)
+                spill(full);
+        }
+    }
+
+    //write the pairs of the given map, sorted, to a new run file
+    private void spill(PairMap map) throws IOException {
+        long[] keys = map.sortedKeys();
+        File run = File.createTempFile("cooccur-run", ".bin", tempDir);
+        run.deleteOnExit();
+        runs.add(run);
+        try (RecordWriter out = new RecordWriter(run)) {
+            for (long key : keys)
+                out.write(word1(key), word2(key), map.get(key));
+        }
+        log.debug("Spilled " + keys.length + " co occurrences to " + run);
+    }
+
+    //k way merge of sorted runs, summing the counts of pairs in more than one run
+    private static long merge(List<File> runs, File output) throws IOException {
+        final CoOccurrenceReader[] readers = new CoOccurrenceReader[runs.size()];
+        final long[] heads = new long[runs.size()];
+        float[] counts = new float[runs.size()];
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, runs.size()), new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(heads[o1], heads[o2]);
+            }
+        });
+        long written = 0;
+        try (RecordWriter out = new RecordWriter(output)) {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new CoOccurrenceReader(runs.get(i), 1 << 16);
+                if (readers[i].next()) {
+                    heads[i] = key(readers[i].getWord1(), readers[i].getWord2());
+                    counts[i] = readers[i].getCount();
+                    heap.add(i);
+                }
+            }
+            long current = PairMap.EMPTY;
+            float sum = 0;
+            while (!heap.isEmpty()) {
+                int r = heap.poll();
+                if (heads[r] != current) {
+                    if (current != PairMap.EMPTY) {
+                        out.write(word1(current), word2(current), sum);
+                        written++;
+                    }
+                    current = heads[r];
+                    sum = 0;
+                }
+                sum += counts[r];
+                if (readers[r].next()) {
+                    heads[r] = key(readers[r].getWord1(), readers[r].getWord2());
+                    counts[r] = readers[r].getCount();
+                    heap.add(r);
+                }
+            }
+            if (current != PairMap.EMPTY) {
+                out.write(word1(current), word2(current), sum);
+                written++;
+            }
+        } finally {
+            for (CoOccurrenceReader reader : readers) {
+                if (reader != null)
+                    reader.close();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Shuffle a file of co occurrence records, like the shuffle tool of the reference GloVe implementation:
+     * chunks that fit in the memory budget are shuffled and written to temporary files, then blocks taken
+     * from each temporary file in turn are shuffled together and written to the output
+     * @param input the records to shuffle
+     * @param output the file to write the shuffled records to
+     * @param memoryBudget the max number of bytes of records held in memory at once
+     * @param tempDir the directory for temporary files, null for the default
+     * @param seed the seed for the shuffle
+     */
+    public static void shuffle(File input, File output, long memoryBudget, File tempDir, long seed) throws IOException {
+        int chunk = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, memoryBudget / CoOccurrenceReader.RECORD_SIZE));
+        chunk = (int) Math.min(chunk, Math.max(1, CoOccurrenceReader.numRecords(input)));
+        int[] words1 = new int[chunk];
+        int[] words2 = new int[chunk];
+        float[] counts = new float[chunk];
+        Random random = new Random(seed);
+
+        //all of it fits in memory: one shuffle
+        if (CoOccurrenceReader.numRecords(input) <= chunk) {
+            try (CoOccurrenceReader in = new CoOccurrenceReader(input);
+                 RecordWriter out = new RecordWriter(output)) {
+                int n = in.read(words1, words2, counts);
+                shuffle(words1, words2, counts, n, random);
+                out.write(words1, words2, counts, n);
+            }
+            return;
+        }
+
+        List<File> temps = new ArrayList<>();
+        try {
+            try (CoOccurrenceReader in = new CoOccurrenceReader(input)) {
+                int n;
+                while ((n = in.read(words1, words2, counts)) > 0) {
+                    shuffle(words1, words2, counts, n, random);
+                    File temp = File.createTempFile("cooccur-shuffle", ".bin", tempDir);
+                    temp.deleteOnExit();
+                    temps.add(temp);
+                    try (RecordWriter out = new RecordWriter(temp)) {
+                        out.write(words1, words2, counts, n);
+                    }
+                }
+            }
+
+            CoOccurrenceReader[] readers = new CoOccurrenceReader[temps.size()];
+            try (RecordWriter out = new RecordWriter(output)) {
+                for (int i = 0; i < readers.length; i++)
+                    readers[i] = new CoOccurrenceReader(temps.get(i), 1 << 16);
+                int block = Math.max(1, chunk / readers.length);
+                while (true) {
+                    int n = 0;
+                    for (CoOccurrenceReader reader : readers)
+                        n += readBlock(reader, words1, words2, counts, n, block);
+                    if (n == 0)
+                        break;
+                    shuffle(words1, words2, counts, n, random);
+                    out.write(words1, words2, counts, n);
+                }
+            } finally {
+                for (CoOccurrenceReader reader : readers) {
+                    if (reader != null)
+                        reader.close();
+                }
+            }
+        } finally {
+            for (File temp : temps)
+                temp.delete();
+        }
+    }
+
+    //read up to max records in to the arrays from the given offset
+    private static int readBlock(CoOccurrenceReader reader, int[] words1, int[] words2, float[] counts, int offset, int max)
+            throws IOException {
+        int n = 0;
+        while (n < max && offset + n < words1.length && reader.next()) {
+            words1[offset + n] = reader.getWord1();
+            words2[offset + n] = reader.getWord2();
+            counts[offset + n] = reader.getCount();
+            n++;
+        }
+        return n;
+    }
+
+    //Fisher-Yates shuffle of the first n records
+    private static void shuffle(int[] words1, int[] words2, float[] counts, int n, Random random) {
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int w1 = words1[i];
+            words1[i] = words1[j];
+            words1[j] = w1;
+            int w2 = words2[i];
+            words2[i] = words2[j];
+            words2[j] = w2;
+            float c = counts[i];
+            counts[i] = counts[j];
+            counts[j] = c;
+        }
+    }
+
+    //pairs sort by the first word, then the second
+    private static long key(int word1, int word2) {
+        return ((long) word1 << 32) | (word2 & 0xffffffffL);
+    }
+
+    private static int word1(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int word2(long key) {
+        return (int) key;
+    }
+
+    //murmur3 finalizer: word indices are small and dense, so spread them before picking shards and slots
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private int shard(long key) {
+        return (int) ((mix(key) >>> 40) % numShards);
+    }
+
+    private class Worker implements Runnable {
+        private final BlockingQueue<List<String>> queue;
+        private final List<String> poison;
+        private final PairMap local = new PairMap(65536);
+        private int[] indices = new int[256];
+        private int[] positions = new int[256];
+
+        private Worker(BlockingQueue<List<String>> queue, List<String> poison) {
+            this.queue = queue;
+            this.poison = poison;
+        }
+
+        @Override
+        public void run() {
+            int unk = vocab.indexOf(Glove.UNK);
+            try {
+                List<String> batch;
+                while ((batch = queue.take()) != poison) {
+                    for (String sentence : batch) {
+                        int n = encode(sentence, unk);
+                        for (int i = 0; i < n; i++) {
+                            for (int j = i + 1; j < n && positions[j] - positions[i] <= windowSize; j++) {
+                                int w1 = indices[i];
+                                int w2 = indices[j];
+                                if (w1 == w2)
+                                    continue;
+                                float weight = 1.0f / (positions[j] - positions[i]);
+                                if (symmetric) {
+                                    local.add(key(w1, w2), weight);
+                                    local.add(key(w2, w1), weight);
+                                } else {
+                                    local.add(key(Math.min(w1, w2), Math.max(w1, w2)), weight);
+                                }
+                            }
+                        }
+                    }
+                    merge(local);
+                    local.clear();
+                    numSentences.addAndGet(batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                throw new SpillException(e);
+            }
+        }
+
+        //the vocab indices of the sentence's tokens and their positions in the sentence, skipping unknown words.
+        //Skipped words still count towards the distance between words, as in CoOccurrenceActor
+        private int encode(String sentence, int unk) {
+            Tokenizer t = tokenizerFactory.create(sentence);
+            int n = 0;
+            int position = -1;
+            while (t.hasMoreTokens()) {
+                String token = t.nextToken();
+                position++;
+                if (token == null || token.isEmpty())
+                    continue;
+                int idx = vocab.indexOf(token);
+                if (idx < 0 || idx == unk)
+                    continue;
+                if (n == indices.length) {
+                    indices = Arrays.copyOf(indices, n * 2);
+                    positions = Arrays.copyOf(positions, n * 2);
+                }
+                indices[n] = idx;
+                positions[n++] = position;
+            }
+            return n;
+        }
+    }
+
+    //carries an IOException out of a worker thread
+    private static class SpillException extends RuntimeException {
+        private SpillException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Open addressing (linear probing) map from a pair of word indices to a count. Not thread safe
+     */
+    private static class PairMap {
+        //word indices are never negative, so neither is a key
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+        private float[] values;
+        private int size;
+
+        private PairMap(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new float[capacity];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private int capacity() {
+            return keys.length;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void add(long key, float by) {
+            int mask = keys.length - 1;
+            int i = (int) mix(key) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    values[i] += by;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = by;
+            if (++size > keys.length * 0.7)
+                rehash(keys.length * 2);
+        }
+
+        private float get(long key) {
+            int mask = keys.length - 1;
+            int i = (int) mix(key) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key)
+                    return values[i];
+                i = (i + 1) & mask;
+            }
+            return 0f;
+        }
+
+        private long[] sortedKeys() {
+            long[] ret = new long[size];
+            int n = 0;
+            for (long key : keys) {
+                if (key != EMPTY)
+                    ret[n++] = key;
+            }
+            Arrays.sort(ret);
+            return ret;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            float[] oldValues = values;
+            allocate(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY)
+                    add(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private void clear() {
+            if (size == 0)
+                return;
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    /**
+     * Buffered writer of co occurrence records, in the format read by {@link CoOccurrenceReader}
+     */
+    private static class RecordWriter implements Closeable {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CoOccurrenceReader.RECORD_SIZE * 65536)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        private RecordWriter(File output) throws IOException {
+            file = new RandomAccessFile(output, "rw");
+            file.setLength(0);
+            channel = file.getChannel();
+        }
+
+        private void write(int word1, int word2, float count) throws IOException {
+            if (buffer.remaining() < CoOccurrenceReader.RECORD_SIZE)
+                flush();
+            buffer.putInt(word1);
+            buffer.putInt(word2);
+            buffer.putFloat(count);
+        }
+
+        private void write(int[] words1, int[] words2, float[] counts, int n) throws IOException {
+            for (int i = 0; i < n; i++)
+                write(words1[i], words2[i], counts[i]);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    /** Number of sentences counted by the last call to count */
+    public long getNumSentences() {
+        return numSentences.get();
+    }
+
+    /** Number of distinct pairs written by the last call to count */
+    public long getNumRecords() {
+        return numRecords.get();
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public static class Builder {
+        protected VocabCache vocab;
+        protected TokenizerFactory tokenizerFactory = new DefaultTokenizerFactory();
+        protected int windowSize = 15;
+        protected boolean symmetric = true;
+        protected int workers = Runtime.getRuntime().availableProcessors();
+        protected int numShards = 64;
+        protected long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+        protected int batchSize = 1000;
+        protected File tempDir;
+
+        /**
+         * The vocab giving the word indices. Must not change while counting
+         */
+        public Builder vocab(VocabCache vocab) {
+            this.vocab = vocab;
+            return this;
+        }
+
+        public Builder tokenizerFactory(TokenizerFactory tokenizerFactory) {
+            this.tokenizerFactory = tokenizerFactory;
+            return this;
+        }
+
+        /**
+         * Max distance between words counted as co occurring, default 15
+         */
+        public Builder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Whether to count each pair in both orders, default true
+         */
+        public Builder symmetric(boolean symmetric) {
+            this.symmetric = symmetric;
+            return this;
+        }
+
+        /**
+         * Number of threads tokenizing and counting, defaults to the number of processors
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Number of independently locked count maps, default 64
+         */
+        public Builder numShards(int numShards) {
+            this.numShards = numShards;
+            return this;
+        }
+
+        /**
+         * Approximate number of bytes the shards may hold before they are spilled to disk,
+         * default a quarter of the max heap size. Each worker's own map for a batch of sentences comes on top
+         */
+        public Builder memoryBudget(long memoryBudget) {
+            this.memoryBudget = memoryBudget;
+            return this;
+        }
+
+        /**
+         * Number of sentences handed to a worker at a time, default 1000
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Directory for the runs spilled to disk, defaults to java.io.tmpdir
+         */
+        public Builder tempDir(File tempDir) {
+            this.tempDir = tempDir;
+            return this;
+        }
+
+        public CoOccurrenceCounter build() {
+            if (vocab == null)
+                throw new IllegalStateException("Vocab must be specified");
+            if (tokenizerFactory == null)
+                throw new IllegalStateException("Tokenizer factory must be specified");
+            if (windowSize < 1 || workers < 1 || numShards < 1 || memoryBudget < 1 || batchSize < 1)
+                throw new IllegalArgumentException("Window size, workers, number of shards, memory budget and batch size must be > 0");
+            CoOccurrenceCounter ret = new CoOccurrenceCounter();
+            ret.vocab = vocab;
+            ret.tokenizerFactory = tokenizerFactory;
+            ret.windowSize = windowSize;
+            ret.symmetric = symmetric;
+            ret.workers = workers;
+            ret.numShards = numShards;
+            ret.memoryBudget = memoryBudget;
+            ret.batchSize = batchSize;
+            ret.tempDir = tempDir;
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.glove;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a file of co occurrence records written by {@link CoOccurrenceCounter}.
+ * Each record is 12 bytes, little endian: the index of the first word (int),
+ * the index of the second word (int) and the weighted count (float), the same layout
+ * as the CREC records of the reference GloVe tools (with 0 based word indices).
+ * Not thread safe
+ */
+public class CoOccurrenceReader implements Closeable {
+
+    public static final int RECORD_SIZE = 12;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long bytesLeft;
+    private int word1;
+    private int word2;
+    private float count;
+
+    public CoOccurrenceReader(File file) throws IOException {
+        this(file, 1 << 20);
+    }
+
+    /**
+     * @param file the file to read
+     * @param bufferSize the size of the read buffer in bytes
+     */
+    public CoOccurrenceReader(File file, int bufferSize) throws IOException {
+        this(file, 0, numRecords(file), bufferSize);
+    }
+
+    /**
+     * Read a range of the records of a file, for example one thread's shard
+     * @param file the file to read
+     * @param from the first record to read
+     * @param to the record to stop at (exclusive)
+     * @param bufferSize the size of the read buffer in bytes
+     */
+    public CoOccurrenceReader(File file, long from, long to, int bufferSize) throws IOException {
+        if (from < 0 || to < from)
+            throw new IllegalArgumentException("Invalid record range " + from + " to " + to);
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        channel.position(from * RECORD_SIZE);
+        bytesLeft = (to - from) * RECORD_SIZE;
+        int records = Math.max(1, bufferSize / RECORD_SIZE);
+        buffer = ByteBuffer.allocateDirect(records * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+    }
+
+    /**
+     * Number of records in the given file
+     */
+    public static long numRecords(File file) {
+        return file.length() / RECORD_SIZE;
+    }
+
+    /**
+     * Advance to the next record
+     * @return false if there are no more records
+     */
+    public boolean next() throws IOException {
+        if (buffer.remaining() < RECORD_SIZE && !fill())
+            return false;
+        word1 = buffer.getInt();
+        word2 = buffer.getInt();
+        count = buffer.getFloat();
+        return true;
+    }
+
+    /**
+     * Read up to words1.length records in to the given arrays
+     * @return the number of records read, 0 at the end of the file
+     */
+    public int read(int[] words1, int[] words2, float[] counts) throws IOException {
+        int n = 0;
+        while (n < words1.length) {
+            if (buffer.remaining() < RECORD_SIZE && !fill())
+                break;
+            while (n < words1.length && buffer.remaining() >= RECORD_SIZE) {
+                words1[n] = buffer.getInt();
+                words2[n] = buffer.getInt();
+                counts[n] = buffer.getFloat();
+                n++;
+            }
+        }
+        return n;
+    }
+
+    //refill the buffer, keeping any partial record
+    private boolean fill() throws IOException {
+        buffer.compact();
+        while (buffer.position() < RECORD_SIZE && bytesLeft > 0) {
+            buffer.limit((int) Math.min(buffer.capacity(), buffer.position() + bytesLeft));
+            int read = channel.read(buffer);
+            if (read < 0)
+                break;
+            bytesLeft -= read;
+        }
+        buffer.flip();
+        return buffer.remaining() >= RECORD_SIZE;
+    }
+
+    public int getWord1() {
+        return word1;
+    }
+
+    public int getWord2() {
+        return word2;
+    }
+
+    public float getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
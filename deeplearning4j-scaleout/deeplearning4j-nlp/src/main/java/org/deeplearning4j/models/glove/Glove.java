@@ -45,12 +45,17 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Glove by socher et. al
@@ -79,6 +84,7 @@ public class Glove  extends WordVectorsImpl {
     private boolean shuffle = true;
     private transient Random shuffleRandom;
     private int numWorkers = Runtime.getRuntime().availableProcessors();
+    private long seed = 123;
 
     private Glove(){}
 
@@ -103,6 +109,7 @@ public class Glove  extends WordVectorsImpl {
         this.maxCount = maxCount;
         this.iterations = iterations;
         this.symmetric = symmetric;
+        this.seed = seed;
         shuffleRandom = Nd4j.getRandom();
     }
 
@@ -126,19 +133,9 @@ public class Glove  extends WordVectorsImpl {
         if(sentenceIterator != null)
             sentenceIterator.reset();
 
-        if(coOccurrences == null) {
-            coOccurrences = new CoOccurrences.Builder()
-                    .cache(vocab()).iterate(sentenceIterator).symmetric(symmetric)
-                    .tokenizer(tokenizerFactory).windowSize(windowSize)
-                    .build();
-
-            coOccurrences.fit();
-
-        }
-
         if(lookupTable == null) {
             lookupTable = new GloveWeightLookupTable.Builder()
-                    .cache(textVectorizer.vocab()).lr(learningRate)
+                    .cache(vocab()).lr(learningRate)
                     .vectorLength(layerSize).maxCount(maxCount)
                    .build();
         }
@@ -146,6 +143,16 @@ public class Glove  extends WordVectorsImpl {
 
         if(lookupTable().getSyn0() == null)
             lookupTable().resetWeights();
+
+        if(coOccurrences == null) {
+            try {
+                fitFromDisk();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to count co occurrences", e);
+            }
+            return;
+        }
+
         final List<Pair<String,String>> pairList = coOccurrences.coOccurrenceList();
         if(shuffle)
             Collections.shuffle(pairList,new java.util.Random());
@@ -166,6 +173,148 @@ public class Glove  extends WordVectorsImpl {
     }
 
 
+    //count the co occurrences to a file and stream it through the workers every iteration,
+    //so the counts are never all held in memory
+    private void fitFromDisk() throws IOException {
+        CoOccurrenceCounter counter = new CoOccurrenceCounter.Builder()
+                .vocab(vocab()).tokenizerFactory(tokenizerFactory)
+                .windowSize(windowSize).symmetric(symmetric).workers(numWorkers)
+                .build();
+        File counts = File.createTempFile("glove-cooccurrences", ".bin");
+        counts.deleteOnExit();
+        File shuffled = null;
+        try {
+            long numRecords = counter.count(sentenceIterator, counts);
+            log.info("Processing # of co occurrences " + numRecords);
+
+            VocabWord[] words = new VocabWord[vocab().numWords()];
+            for(int i = 0; i < words.length; i++)
+                words[i] = vocab().wordFor(vocab().wordAtIndex(i));
+
+            for(int i = 0; i < iterations; i++) {
+                File input = counts;
+                if(shuffle) {
+                    if(shuffled == null) {
+                        shuffled = File.createTempFile("glove-cooccurrences-shuffled", ".bin");
+                        shuffled.deleteOnExit();
+                    }
+                    CoOccurrenceCounter.shuffle(counts, shuffled, counter.getMemoryBudget(), null, seed + i);
+                    input = shuffled;
+                }
+                double error = doIteration(i, input, words);
+                log.info("Iteration " + i + " processed " + numRecords + " co occurrences, error was " + error);
+            }
+        } finally {
+            counts.delete();
+            if(shuffled != null)
+                shuffled.delete();
+        }
+    }
+
+    /**
+     * One pass over a file of co occurrence records (see {@link CoOccurrenceReader}).
+     * Batches of records are read on the calling thread and trained on by numWorkers threads
+     * @param i the iteration
+     * @param counts the co occurrence records
+     * @param words the vocab words by index
+     * @return the sum of the error over every record
+     */
+    public double doIteration(int i, File counts, final VocabWord[] words) throws IOException {
+        log.info("Iteration " + i);
+        final BlockingQueue<CoOccurrenceBatch> queue = new ArrayBlockingQueue<>(numWorkers * 2);
+        final CoOccurrenceBatch poison = new CoOccurrenceBatch(0);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final double[] errors = new double[numWorkers];
+        Thread[] threads = new Thread[numWorkers];
+        for(int t = 0; t < numWorkers; t++) {
+            final int worker = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        CoOccurrenceBatch batch;
+                        while((batch = queue.take()) != poison) {
+                            for(int j = 0; j < batch.size; j++) {
+                                if(batch.counts[j] <= 0)
+                                    continue;
+                                errors[worker] += lookupTable().iterateSample(words[batch.words1[j]], words[batch.words2[j]], batch.counts[j]);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "Glove-worker-" + t);
+            threads[t].setDaemon(true);
+            threads[t].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+
+        boolean joined = false;
+        try (CoOccurrenceReader reader = new CoOccurrenceReader(counts)) {
+            while(error.get() == null) {
+                CoOccurrenceBatch batch = new CoOccurrenceBatch(batchSize);
+                batch.size = reader.read(batch.words1, batch.words2, batch.counts);
+                if(batch.size == 0)
+                    break;
+                put(queue, batch, error);
+            }
+            for(int t = 0; t < numWorkers; t++)
+                put(queue, poison, error);
+            if(error.get() != null) {
+                for(Thread t : threads)
+                    t.interrupt();
+            }
+            for(Thread t : threads)
+                t.join();
+            joined = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during iteration " + i, e);
+        } finally {
+            //reading the records failed: the workers may never see their poison, so stop them
+            if(!joined) {
+                for(Thread t : threads)
+                    t.interrupt();
+            }
+        }
+        if(error.get() != null)
+            throw new RuntimeException("Worker failed", error.get());
+
+        double sum = 0;
+        for(double e : errors)
+            sum += e;
+        return sum;
+    }
+
+    //blocks until there is room in the queue, unless a worker has failed
+    private static void put(BlockingQueue<CoOccurrenceBatch> queue, CoOccurrenceBatch batch, AtomicReference<Throwable> error)
+            throws InterruptedException {
+        while(error.get() == null) {
+            if(queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+                return;
+        }
+    }
+
+    private static class CoOccurrenceBatch {
+        private final int[] words1;
+        private final int[] words2;
+        private final float[] counts;
+        private int size;
+
+        private CoOccurrenceBatch(int capacity) {
+            words1 = new int[capacity];
+            words2 = new int[capacity];
+            counts = new float[capacity];
+        }
+    }
+
+
     public void doIteration(final int i,List<Pair<String,String>> pairList, final Counter<Integer> errorPerIteration,final AtomicInteger processed,final AtomicInteger countUp) {
         log.info("Iteration " + i);
         if(shuffle)
@@ -314,7 +463,18 @@ public class Glove  extends WordVectorsImpl {
     }
 
 
+    /**
+     * The co occurrence count of two words, when the co occurrences are held in memory.
+     * After a fit that counted co occurrences on disk (see {@link CoOccurrenceCounter}) there are
+     * no counts in memory to look up: read the records with a {@link CoOccurrenceReader} instead
+     * @param w1 the first word
+     * @param w2 the second word
+     * @return the co occurrence count of the two words
+     * @throws IllegalStateException if the co occurrences were counted on disk
+     */
     public double getCount(String w1,String w2) {
+        if(coOccurrences == null)
+            throw new IllegalStateException("Co occurrences were counted on disk and are not held in memory");
         return coOccurrences.getCoOCurreneCounts().getCount(w1,w2);
     }
 
@@ -23,6 +23,7 @@ package org.deeplearning4j.models.glove;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.Word2Vec;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
@@ -243,6 +244,12 @@ public class GloveWeightLookupTable extends InMemoryLookupTable {
 
     }
 
+    @Override
+    public void iterateSample(VocabWord w1, VocabWord w2, XorShiftRandom random, double alpha) {
+        throw new UnsupportedOperationException();
+
+    }
+
     public double getxMax() {
         return xMax;
     }
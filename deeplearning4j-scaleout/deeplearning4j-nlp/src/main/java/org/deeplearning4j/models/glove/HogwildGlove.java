@@ -0,0 +1,459 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.glove;
+
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * GloVe trainer working the way the reference C implementation does: the word and context vectors,
+ * their biases and the AdaGrad squared gradient history are flat float arrays, and every epoch a number of
+ * plain threads each train on their own contiguous shard of a (shuffled) file of co occurrence records,
+ * updating the shared weights without any locking (Hogwild).
+ *
+ * The co occurrence records are the ones written by {@link CoOccurrenceCounter}, and should be shuffled
+ * (see {@link CoOccurrenceCounter#shuffle(File, File, long, File, long)}) so each shard is a sample of
+ * the whole file. {@link #fit(SentenceIterator, TokenizerFactory)} does the counting and shuffling.
+ * After training, the weights can be turned in to a {@link Glove} model with {@link #toGlove()}:
+ * the vector of a word is the sum of its word and context vectors, as in the reference implementation
+ */
+public class HogwildGlove {
+
+    private static final Logger log = LoggerFactory.getLogger(HogwildGlove.class);
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private VocabCache vocab;
+    private int layerSize = 100;
+    private int windowSize = 15;
+    private boolean symmetric = true;
+    private float learningRate = 0.05f;
+    private double xMax = 0.75;
+    private double maxCount = 100;
+    private int iterations = 25;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private File tempDir;
+    private long seed = 123;
+
+    private int numWords;
+    //word vectors for rows 0 to numWords - 1, context vectors for rows numWords to 2 * numWords - 1
+    private float[] weights;
+    private float[] biases;
+    private float[] gradSq;
+    private float[] biasGradSq;
+
+    private final List<Double> costs = Collections.synchronizedList(new ArrayList<Double>());
+    private final AtomicLong recordCount = new AtomicLong();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private long trainingTimeNs;
+    private int trainingWorkers = 1;
+
+    private HogwildGlove() {
+    }
+
+    private void init() {
+        numWords = vocab.numWords();
+        if (numWords < 1)
+            throw new IllegalStateException("Vocab is empty");
+
+        //same initialization as the C implementation: small and random, with the squared gradients at 1
+        Random r = new Random(seed);
+        weights = new float[2 * numWords * layerSize];
+        for (int i = 0; i < weights.length; i++)
+            weights[i] = (r.nextFloat() - 0.5f) / (layerSize + 1);
+        biases = new float[2 * numWords];
+        for (int i = 0; i < biases.length; i++)
+            biases[i] = (r.nextFloat() - 0.5f) / (layerSize + 1);
+        gradSq = new float[weights.length];
+        Arrays.fill(gradSq, 1.0f);
+        biasGradSq = new float[biases.length];
+        Arrays.fill(biasGradSq, 1.0f);
+    }
+
+    /**
+     * Count the co occurrences of the given sentences, shuffle them and train on them.
+     * The counts are written to temporary files in tempDir, which are deleted afterwards
+     * @param iter the sentences, read once
+     * @param tokenizerFactory the tokenizer for each sentence
+     */
+    public void fit(SentenceIterator iter, TokenizerFactory tokenizerFactory) throws IOException {
+        File counts = File.createTempFile("glove-cooccurrences", ".bin", tempDir);
+        File shuffled = File.createTempFile("glove-cooccurrences-shuffled", ".bin", tempDir);
+        counts.deleteOnExit();
+        shuffled.deleteOnExit();
+        try {
+            new CoOccurrenceCounter.Builder()
+                    .vocab(vocab).tokenizerFactory(tokenizerFactory)
+                    .windowSize(windowSize).symmetric(symmetric)
+                    .workers(workers).memoryBudget(memoryBudget).tempDir(tempDir)
+                    .build()
+                    .count(iter, counts);
+            CoOccurrenceCounter.shuffle(counts, shuffled, memoryBudget, tempDir, seed);
+            counts.delete();
+            fit(shuffled);
+        } finally {
+            counts.delete();
+            shuffled.delete();
+        }
+    }
+
+    /**
+     * Train for the configured number of iterations on a file of co occurrence records.
+     * The file is split in to one contiguous shard per worker, read once per iteration
+     * @param cooccurrences the records, see {@link CoOccurrenceReader}
+     */
+    public void fit(final File cooccurrences) throws IOException {
+        final long numRecords = CoOccurrenceReader.numRecords(cooccurrences);
+        if (numRecords < 1)
+            throw new IllegalStateException("Unable to train, no co occurrences in " + cooccurrences);
+        int numWorkers = (int) Math.min(workers, numRecords);
+        trainingWorkers = numWorkers;
+        recordCount.set(0);
+        costs.clear();
+
+        log.info("Training on " + numRecords + " co occurrences with " + numWorkers + " workers");
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            final double[] cost = new double[numWorkers];
+            Runnable[] runnables = new Runnable[numWorkers];
+            for (int t = 0; t < numWorkers; t++) {
+                final int worker = t;
+                final long from = numRecords * t / numWorkers;
+                final long to = numRecords * (t + 1) / numWorkers;
+                runnables[t] = new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            cost[worker] = train(cooccurrences, from, to);
+                        } catch (IOException e) {
+                            throw new RuntimeException("Unable to read " + cooccurrences, e);
+                        }
+                    }
+                };
+            }
+            runWorkers(runnables);
+
+            double total = 0;
+            for (double c : cost)
+                total += c;
+            costs.add(total / numRecords);
+            log.info("Iteration " + (i + 1) + ", cost: " + (total / numRecords));
+        }
+        trainingTimeNs = System.nanoTime() - start;
+        log.info("Trained on " + getNumRecordsProcessed() + " co occurrences, " + (int) getRecordsPerSecondPerThread()
+                + " records/sec/thread");
+    }
+
+    private void runWorkers(Runnable[] runnables) {
+        error.set(null);
+        Thread[] threads = new Thread[runnables.length];
+        for (int i = 0; i < runnables.length; i++) {
+            threads[i] = new Thread(runnables[i], "HogwildGlove-worker-" + i);
+            threads[i].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+        try {
+            for (Thread t : threads)
+                t.join();
+        } catch (InterruptedException e) {
+            for (Thread t : threads)
+                t.interrupt();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while training", e);
+        }
+        if (error.get() != null)
+            throw new RuntimeException("Worker failed", error.get());
+    }
+
+    //one pass over records [from, to): the cost is half the weighted squared error summed over the records
+    private double train(File cooccurrences, long from, long to) throws IOException {
+        int[] words1 = new int[BUFFER_SIZE / CoOccurrenceReader.RECORD_SIZE];
+        int[] words2 = new int[words1.length];
+        float[] counts = new float[words1.length];
+        double cost = 0;
+        long records = 0;
+        try (CoOccurrenceReader reader = new CoOccurrenceReader(cooccurrences, from, to, BUFFER_SIZE)) {
+            int n;
+            while ((n = reader.read(words1, words2, counts)) > 0) {
+                for (int i = 0; i < n; i++)
+                    cost += update(words1[i], words2[i], counts[i]);
+                records += n;
+            }
+        }
+        recordCount.addAndGet(records);
+        return cost;
+    }
+
+    //AdaGrad step for one co occurrence, as in the C implementation
+    private double update(int word, int context, float count) {
+        if (word < 0 || word >= numWords || context < 0 || context >= numWords)
+            throw new IllegalArgumentException("Co occurrence of words " + word + " and " + context
+                    + " out of the vocab of " + numWords + " words");
+        int l1 = word * layerSize;
+        int l2 = (context + numWords) * layerSize;
+        int b2 = context + numWords;
+
+        float diff = biases[word] + biases[b2] - (float) Math.log(count);
+        for (int i = 0; i < layerSize; i++)
+            diff += weights[l1 + i] * weights[l2 + i];
+        float fDiff = count > maxCount ? diff : (float) Math.pow(count / maxCount, xMax) * diff;
+        if (Float.isNaN(fDiff) || Float.isInfinite(fDiff))
+            return 0;
+        double cost = 0.5 * fDiff * diff;
+
+        fDiff *= learningRate;
+        for (int i = 0; i < layerSize; i++) {
+            float g1 = fDiff * weights[l2 + i];
+            float g2 = fDiff * weights[l1 + i];
+            weights[l1 + i] -= g1 / (float) Math.sqrt(gradSq[l1 + i]);
+            weights[l2 + i] -= g2 / (float) Math.sqrt(gradSq[l2 + i]);
+            gradSq[l1 + i] += g1 * g1;
+            gradSq[l2 + i] += g2 * g2;
+        }
+        biases[word] -= fDiff / (float) Math.sqrt(biasGradSq[word]);
+        biases[b2] -= fDiff / (float) Math.sqrt(biasGradSq[b2]);
+        biasGradSq[word] += fDiff * fDiff;
+        biasGradSq[b2] += fDiff * fDiff;
+        return cost;
+    }
+
+    /**
+     * The vector of each word: the sum of its word and context vectors
+     * @return numWords * layerSize, row major
+     */
+    public float[] getWordVectors() {
+        int half = numWords * layerSize;
+        float[] ret = new float[half];
+        for (int i = 0; i < half; i++)
+            ret[i] = weights[i] + weights[half + i];
+        return ret;
+    }
+
+    /**
+     * Copy the trained weights in to a lookup table
+     * @return a lookup table for the vocab, with the summed word and context vectors and biases
+     */
+    public GloveWeightLookupTable lookupTable() {
+        GloveWeightLookupTable table = new GloveWeightLookupTable.Builder()
+                .cache(vocab).vectorLength(layerSize).lr(learningRate)
+                .xMax(xMax).maxCount(maxCount).seed(seed)
+                .build();
+        table.setSyn0(Nd4j.create(getWordVectors(), new int[]{numWords, layerSize}));
+        float[] bias = new float[numWords];
+        for (int i = 0; i < numWords; i++)
+            bias[i] = biases[i] + biases[numWords + i];
+        table.setBias(Nd4j.create(bias));
+        return table;
+    }
+
+    /**
+     * @return a model with the vocab and a copy of the trained weights
+     */
+    public Glove toGlove() {
+        return new Glove.Builder()
+                .cache(vocab).weights(lookupTable()).layerSize(layerSize)
+                .learningRate(learningRate).xMax(xMax).maxCount(maxCount)
+                .windowSize(windowSize).symmetric(symmetric).iterations(iterations)
+                .build();
+    }
+
+    /** Word vectors then context vectors, 2 * numWords * layerSize, row major. Trained in place */
+    public float[] getWeights() {
+        return weights;
+    }
+
+    /** Word biases then context biases, 2 * numWords. Trained in place */
+    public float[] getBiases() {
+        return biases;
+    }
+
+    public VocabCache getVocab() {
+        return vocab;
+    }
+
+    public int getLayerSize() {
+        return layerSize;
+    }
+
+    /** The mean cost over the co occurrences of each iteration of the last call to fit */
+    public List<Double> getCosts() {
+        return new ArrayList<>(costs);
+    }
+
+    /** Number of co occurrences trained on by the last call to fit, over all iterations */
+    public long getNumRecordsProcessed() {
+        return recordCount.get();
+    }
+
+    /** Throughput of the last call to fit, over all workers */
+    public double getRecordsPerSecond() {
+        return trainingTimeNs == 0 ? 0.0 : getNumRecordsProcessed() * 1e9 / trainingTimeNs;
+    }
+
+    /** Throughput of the last call to fit, per worker thread */
+    public double getRecordsPerSecondPerThread() {
+        return getRecordsPerSecond() / trainingWorkers;
+    }
+
+    public static class Builder {
+        protected VocabCache vocab;
+        protected int layerSize = 100;
+        protected int windowSize = 15;
+        protected boolean symmetric = true;
+        protected double learningRate = 0.05;
+        protected double xMax = 0.75;
+        protected double maxCount = 100;
+        protected int iterations = 25;
+        protected int workers = Runtime.getRuntime().availableProcessors();
+        protected long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+        protected File tempDir;
+        protected long seed = 123;
+
+        /**
+         * @param vocab the vocab, with every word indexed from 0 to numWords - 1
+         */
+        public Builder(VocabCache vocab) {
+            this.vocab = vocab;
+        }
+
+        public Builder layerSize(int layerSize) {
+            this.layerSize = layerSize;
+            return this;
+        }
+
+        /**
+         * Max distance between words counted as co occurring, default 15.
+         * Only used when counting, see {@link #fit(SentenceIterator, TokenizerFactory)}
+         */
+        public Builder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Whether to count each pair in both orders, default true.
+         * Only used when counting, see {@link #fit(SentenceIterator, TokenizerFactory)}
+         */
+        public Builder symmetric(boolean symmetric) {
+            this.symmetric = symmetric;
+            return this;
+        }
+
+        /**
+         * Initial AdaGrad learning rate, default 0.05
+         */
+        public Builder learningRate(double learningRate) {
+            this.learningRate = learningRate;
+            return this;
+        }
+
+        /**
+         * Exponent of the weighting function (alpha in the paper), default 0.75
+         */
+        public Builder xMax(double xMax) {
+            this.xMax = xMax;
+            return this;
+        }
+
+        /**
+         * Count above which co occurrences get the full weight (x_max in the paper), default 100
+         */
+        public Builder maxCount(double maxCount) {
+            this.maxCount = maxCount;
+            return this;
+        }
+
+        public Builder iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * Number of threads training at once, defaults to the number of processors
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Memory used for counting and shuffling co occurrences before spilling to disk,
+         * default a quarter of the max heap size
+         */
+        public Builder memoryBudget(long memoryBudget) {
+            this.memoryBudget = memoryBudget;
+            return this;
+        }
+
+        /**
+         * Directory for the co occurrence files, defaults to java.io.tmpdir
+         */
+        public Builder tempDir(File tempDir) {
+            this.tempDir = tempDir;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public HogwildGlove build() {
+            if (vocab == null)
+                throw new IllegalStateException("Vocab cache must be specified");
+            if (layerSize < 1 || windowSize < 1 || iterations < 1 || workers < 1 || memoryBudget < 1)
+                throw new IllegalArgumentException("Layer size, window size, iterations, workers and memory budget must be > 0");
+            HogwildGlove ret = new HogwildGlove();
+            ret.vocab = vocab;
+            ret.layerSize = layerSize;
+            ret.windowSize = windowSize;
+            ret.symmetric = symmetric;
+            ret.learningRate = (float) learningRate;
+            ret.xMax = xMax;
+            ret.maxCount = maxCount;
+            ret.iterations = iterations;
+            ret.workers = workers;
+            ret.memoryBudget = memoryBudget;
+            ret.tempDir = tempDir;
+            ret.seed = seed;
+            ret.init();
+            return ret;
+        }
+    }
+}
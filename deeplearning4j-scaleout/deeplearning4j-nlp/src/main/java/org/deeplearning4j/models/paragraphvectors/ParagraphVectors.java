@@ -26,6 +26,8 @@ import org.deeplearning4j.berkeley.Counter;
 import org.deeplearning4j.berkeley.Pair;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.SubsamplingTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.Word2Vec;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
@@ -62,11 +64,14 @@ public class ParagraphVectors extends Word2Vec {
     //labels are also vocab words
     protected Queue<LinkedList<Pair<List<VocabWord>, Collection<VocabWord>>>> jobQueue = new LinkedBlockingDeque<>(10000);
     protected List<String> labels = new CopyOnWriteArrayList<>();
+    private transient volatile ParagraphVectorsInference inference;
     /**
      * Train the model
      */
     @Override
     public void fit() throws IOException {
+        inference = null;
+        randoms = XorShiftRandom.perThread(seed);
         boolean loaded = buildVocab();
         //save vocab after building
         if (!loaded && saveVocab)
@@ -97,7 +102,7 @@ public class ParagraphVectors extends Word2Vec {
         final AtomicLong numWordsSoFar = new AtomicLong(0);
 
 
-        final AtomicLong nextRandom = new AtomicLong(5);
+        subsampling = sample > 0 ? new SubsamplingTable(vocab(), sample) : null;
         final AtomicInteger doc = new AtomicInteger(0);
         ExecutorService exec = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
                 Runtime.getRuntime().availableProcessors(),
@@ -124,7 +129,7 @@ public class ParagraphVectors extends Word2Vec {
             @Override
             public Void apply(@Nullable Pair<List<VocabWord>, Collection<String>> input) {
                 List<VocabWord> batch = new ArrayList<>();
-                addWords(input.getFirst(), nextRandom, batch);
+                addWords(input.getFirst(), batch);
 
                 if (batch.isEmpty())
                     return null;
@@ -161,7 +166,7 @@ public class ParagraphVectors extends Word2Vec {
         }
 
         for(int i = 0; i < numIterations; i++)
-            doIteration(batch2,numWordsSoFar,nextRandom);
+            doIteration(batch2,numWordsSoFar);
 
     }
 
@@ -269,30 +274,90 @@ public class ParagraphVectors extends Word2Vec {
 
 
 
+    /**
+     * Infer the vector of a document not seen in training, training a new paragraph vector
+     * against the frozen word weights. See {@link #getInference()}
+     * @param document the words of the document
+     * @return the document's vector
+     */
+    public INDArray inferVector(List<VocabWord> document) {
+        return getInference().inferVector(document);
+    }
+
+    /**
+     * Infer the vectors of a batch of documents not seen in training, in parallel. See {@link #getInference()}
+     * @param documents the documents
+     * @return the vectors, in the same order as the documents
+     */
+    public List<INDArray> inferVectors(List<List<VocabWord>> documents) {
+        return getInference().inferVectors(documents);
+    }
+
+    /**
+     * The labels nearest to the inferred vector of a document not seen in training
+     * @param document the words of the document
+     * @param k the max number of labels
+     * @return the labels and their cosine similarity, most similar first
+     */
+    public List<Pair<String,Double>> nearestLabels(List<VocabWord> document, int k) {
+        return getInference().nearestLabels(document, k);
+    }
+
+    /**
+     * The inference used by {@link #inferVector(List)}: the default {@link ParagraphVectorsInference}
+     * with this model's learning rates and seed. It is built from a copy of the weights on first use,
+     * and again after the model is fit. Build a {@link ParagraphVectorsInference} directly for other settings
+     * @return the inference, safe to use from many threads
+     */
+    public ParagraphVectorsInference getInference() {
+        ParagraphVectorsInference ret = inference;
+        if(ret == null) {
+            synchronized (this) {
+                if(inference == null)
+                    inference = new ParagraphVectorsInference.Builder(this)
+                            .learningRate(alpha.get()).minLearningRate(Math.min(minLearningRate, alpha.get()))
+                            .seed(seed).build();
+                ret = inference;
+            }
+        }
+        return ret;
+    }
+
     /**
      * Train on a list of vocab words
      * @param sentenceWithLabel the list of vocab words to train on
+     * @param random the random number generator of the calling thread
      */
-    public void trainSentence(final Pair<List<VocabWord>, Collection<VocabWord>> sentenceWithLabel,AtomicLong nextRandom,double alpha) {
+    public void trainSentence(final Pair<List<VocabWord>, Collection<VocabWord>> sentenceWithLabel,XorShiftRandom random,double alpha) {
         if(sentenceWithLabel == null || sentenceWithLabel.getFirst().isEmpty())
             return;
         for(int i = 0; i < sentenceWithLabel.getFirst().size(); i++) {
-            nextRandom.set(nextRandom.get() * 25214903917L + 11);
-            dbow(i, sentenceWithLabel, (int) nextRandom.get() % window, nextRandom, alpha);
+            dbow(i, sentenceWithLabel, random.nextInt(window), random, alpha);
         }
 
     }
 
+    /**
+     * Train on a list of vocab words
+     * @param sentenceWithLabel the list of vocab words to train on
+     * @param nextRandom the shared random state, advanced once to seed this sentence
+     * @deprecated use {@link #trainSentence(Pair, XorShiftRandom, double)}
+     */
+    @Deprecated
+    public void trainSentence(final Pair<List<VocabWord>, Collection<VocabWord>> sentenceWithLabel,AtomicLong nextRandom,double alpha) {
+        trainSentence(sentenceWithLabel, XorShiftRandom.of(nextRandom), alpha);
+    }
+
     /**
      * Train the distributed bag of words
      * model
      * @param i the word to train
      * @param sentenceWithLabel the sentence with labels to train
      * @param b
-     * @param nextRandom
+     * @param random the random number generator of the calling thread
      * @param alpha
      */
-    public void dbow(int i, Pair<List<VocabWord>, Collection<VocabWord>> sentenceWithLabel, int b, AtomicLong nextRandom, double alpha) {
+    public void dbow(int i, Pair<List<VocabWord>, Collection<VocabWord>> sentenceWithLabel, int b, XorShiftRandom random, double alpha) {
 
         final VocabWord word = sentenceWithLabel.getFirst().get(i);
         List<VocabWord> sentence = sentenceWithLabel.getFirst();
@@ -308,12 +373,22 @@ public class ParagraphVectors extends Word2Vec {
                 int c = i - window + a;
                 if(c >= 0 && c < labels.size()) {
                     VocabWord lastWord = labels.get(c);
-                    iterate(word,lastWord,nextRandom,alpha);
+                    iterate(word,lastWord,random,alpha);
                 }
             }
         }
     }
 
+    /**
+     * Train the distributed bag of words
+     * model
+     * @deprecated use {@link #dbow(int, Pair, int, XorShiftRandom, double)}
+     */
+    @Deprecated
+    public void dbow(int i, Pair<List<VocabWord>, Collection<VocabWord>> sentenceWithLabel, int b, AtomicLong nextRandom, double alpha) {
+        dbow(i, sentenceWithLabel, b, XorShiftRandom.of(nextRandom), alpha);
+    }
+
     public List<String> getLabels() {
         return labels;
     }
@@ -322,32 +397,7 @@ public class ParagraphVectors extends Word2Vec {
         this.labels = labels;
     }
 
-    protected void addWords(List<VocabWord> sentence,AtomicLong nextRandom,List<VocabWord> currMiniBatch) {
-        for (VocabWord word : sentence) {
-            if(word == null)
-                continue;
-            // The subsampling randomly discards frequent words while keeping the ranking same
-            if (sample > 0) {
-                double numDocs =  vectorizer.index().numDocuments();
-                double ran = (Math.sqrt(word.getWordFrequency() / (sample * numDocs)) + 1)
-                        * (sample * numDocs) / word.getWordFrequency();
-
-                if (ran < (nextRandom.get() & 0xFFFF) / (double) 65536) {
-                    continue;
-                }
-
-                currMiniBatch.add(word);
-            }
-            else
-                currMiniBatch.add(word);
-
-
-
-        }
-    }
-
-
-    private void doIteration(Queue<Pair<List<VocabWord>,Collection<VocabWord>>> batch2,final AtomicLong numWordsSoFar,final AtomicLong nextRandom) {
+    private void doIteration(Queue<Pair<List<VocabWord>,Collection<VocabWord>>> batch2,final AtomicLong numWordsSoFar) {
         ActorSystem actorSystem = ActorSystem.create();
         final AtomicLong lastReport = new AtomicLong(System.currentTimeMillis());
         Parallelization.iterateInParallel(batch2, new Parallelization.RunnableWithParams<Pair<List<VocabWord>, Collection<VocabWord>>>() {
@@ -361,7 +411,7 @@ public class ParagraphVectors extends Word2Vec {
                 }
                 long increment = 0;
                 double diff2 = 0.0;
-                trainSentence(sentenceWithLabel, nextRandom, alpha);
+                trainSentence(sentenceWithLabel, random(), alpha);
                 increment += sentenceWithLabel.getFirst().size();
 
 
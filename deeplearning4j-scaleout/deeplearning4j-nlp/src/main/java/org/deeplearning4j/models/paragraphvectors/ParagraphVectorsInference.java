@@ -0,0 +1,484 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.paragraphvectors;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.index.TopK;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.AliasTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Infers vectors for documents not seen in training, the way paragraph vectors are trained (distributed bag of words):
+ * a document starts with a small random vector, which is trained for a number of epochs to predict the document's words,
+ * through hierarchical softmax and/or negative sampling, while the word weights stay frozen.
+ *
+ * The weights needed (syn1, syn1Neg, the negative sampling table and the label vectors) are copied from the model
+ * in to float arrays when this is built and are never written, so any number of threads can infer at once.
+ * Later training of the model is not seen. A document's vector only depends on its words and the seed, and the most recently
+ * inferred vectors are cached by their words, so a repeated document is only inferred once
+ */
+public class ParagraphVectorsInference {
+
+    private static final int EXP_TABLE_SIZE = 1000;
+    private static final float MAX_EXP = 6;
+
+    private int epochs = 10;
+    private float learningRate = 0.025f;
+    private float minLearningRate = 1e-4f;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int cacheSize = 10000;
+    private long seed = 123;
+
+    private int layerSize;
+    private int negative;
+    private float[] syn1;
+    private float[] syn1Neg;
+    private AliasTable unigramTable;
+    private int numWords;
+    private final float[] expTable = new float[EXP_TABLE_SIZE];
+    private String[] labels;
+    //unit length label vectors, row major
+    private float[] labelVectors;
+    private Map<List<String>, float[]> cache;
+
+    private ParagraphVectorsInference() {
+    }
+
+    private void init(ParagraphVectors model) {
+        WeightLookupTable weights = model.lookupTable();
+        if (!(weights instanceof InMemoryLookupTable))
+            throw new IllegalStateException("Inference needs an InMemoryLookupTable, not " + weights.getClass().getName());
+        InMemoryLookupTable lookupTable = (InMemoryLookupTable) weights;
+        if (lookupTable.getSyn0() == null)
+            throw new IllegalStateException("Model has not been trained");
+        layerSize = lookupTable.layerSize();
+        numWords = model.vocab().numWords();
+        if (lookupTable.getSyn1() != null)
+            syn1 = toFloats(lookupTable.getSyn1());
+        if (lookupTable.getSyn1Neg() != null && lookupTable.getUnigramTable() != null && lookupTable.getNegative() > 0) {
+            negative = (int) lookupTable.getNegative();
+            syn1Neg = toFloats(lookupTable.getSyn1Neg());
+            //immutable, so shared rather than copied
+            unigramTable = lookupTable.getUnigramTable();
+        }
+        if (syn1 == null && syn1Neg == null)
+            throw new IllegalStateException("Model has neither hierarchical softmax nor negative sampling weights");
+
+        for (int i = 0; i < EXP_TABLE_SIZE; i++) {
+            double exp = Math.exp((i / (double) EXP_TABLE_SIZE * 2 - 1) * MAX_EXP);
+            expTable[i] = (float) (exp / (exp + 1));
+        }
+
+        List<String> modelLabels = model.getLabels() == null ? new ArrayList<String>() : model.getLabels();
+        labels = modelLabels.toArray(new String[modelLabels.size()]);
+        labelVectors = new float[labels.length * layerSize];
+        for (int i = 0; i < labels.length; i++) {
+            INDArray vector = lookupTable.vector(labels[i]);
+            if (vector == null)
+                throw new IllegalStateException("No vector for label " + labels[i]);
+            float[] row = toFloats(vector);
+            System.arraycopy(row, 0, labelVectors, i * layerSize, layerSize);
+            normalize(labelVectors, i * layerSize, layerSize);
+        }
+
+        if (cacheSize > 0) {
+            cache = new LinkedHashMap<List<String>, float[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<String>, float[]> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        }
+    }
+
+    private static float[] toFloats(INDArray arr) {
+        //a copy is contiguous, in row major order
+        return arr.dup().data().asFloat();
+    }
+
+    /**
+     * Infer the vector of a document
+     * @param document the words of the document, from the model's vocab
+     * @return the vector, a row vector of the model's layer size
+     */
+    public INDArray inferVector(List<VocabWord> document) {
+        return inferVectors(Collections.singletonList(document)).get(0);
+    }
+
+    /**
+     * Infer the vectors of a batch of documents. Documents not already cached are split between up to workers threads,
+     * each running all epochs for its documents
+     * @param documents the documents, each a list of words from the model's vocab
+     * @return the vectors, one row vector per document in the same order
+     */
+    public List<INDArray> inferVectors(List<List<VocabWord>> documents) {
+        final float[][] vectors = new float[documents.size()][];
+        //distinct documents that have to be inferred, and where their vectors go
+        final List<List<VocabWord>> toInfer = new ArrayList<>();
+        final List<List<String>> keys = new ArrayList<>();
+        Map<List<String>, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            List<String> key = key(documents.get(i));
+            float[] cached = getCached(key);
+            if (cached != null) {
+                vectors[i] = cached;
+                continue;
+            }
+            List<Integer> at = positions.get(key);
+            if (at == null) {
+                at = new ArrayList<>();
+                positions.put(key, at);
+                toInfer.add(documents.get(i));
+                keys.add(key);
+            }
+            at.add(i);
+        }
+
+        if (!toInfer.isEmpty()) {
+            final float[][] inferred = new float[toInfer.size()][];
+            int numThreads = Math.min(workers, toInfer.size());
+            if (numThreads == 1) {
+                new Worker().infer(toInfer, keys, inferred, 0, toInfer.size());
+            } else {
+                final AtomicReference<Throwable> error = new AtomicReference<>();
+                Thread[] threads = new Thread[numThreads];
+                for (int t = 0; t < numThreads; t++) {
+                    final int from = toInfer.size() * t / numThreads;
+                    final int to = toInfer.size() * (t + 1) / numThreads;
+                    threads[t] = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            new Worker().infer(toInfer, keys, inferred, from, to);
+                        }
+                    }, "ParagraphVectorsInference-worker-" + t);
+                    threads[t].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                        @Override
+                        public void uncaughtException(Thread t, Throwable e) {
+                            error.compareAndSet(null, e);
+                        }
+                    });
+                    threads[t].start();
+                }
+                try {
+                    for (Thread t : threads)
+                        t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while inferring vectors", e);
+                }
+                if (error.get() != null)
+                    throw new RuntimeException("Worker failed", error.get());
+            }
+
+            for (int i = 0; i < inferred.length; i++) {
+                putCached(keys.get(i), inferred[i]);
+                for (int position : positions.get(keys.get(i)))
+                    vectors[position] = inferred[i];
+            }
+        }
+
+        List<INDArray> ret = new ArrayList<>(vectors.length);
+        for (float[] vector : vectors)
+            ret.add(Nd4j.create(Arrays.copyOf(vector, layerSize)));
+        return ret;
+    }
+
+    /**
+     * The labels most similar (by cosine similarity) to a document's inferred vector
+     * @param document the words of the document
+     * @param k the max number of labels to return
+     * @return the labels and their similarity, most similar first
+     */
+    public List<Pair<String, Double>> nearestLabels(List<VocabWord> document, int k) {
+        return nearestLabels(inferVector(document), k);
+    }
+
+    /**
+     * The labels most similar (by cosine similarity) to the given vector, picked with a bounded heap
+     * rather than sorting the similarities of every label
+     * @param vector the vector, for example from {@link #inferVector(List)}
+     * @param k the max number of labels to return
+     * @return the labels and their similarity, most similar first
+     */
+    public List<Pair<String, Double>> nearestLabels(INDArray vector, int k) {
+        List<Pair<String, Double>> ret = new ArrayList<>();
+        if (labels.length == 0)
+            return ret;
+        float[] query = toFloats(vector);
+        if (query.length != layerSize)
+            throw new IllegalArgumentException("Vector length " + query.length + " does not match layer size " + layerSize);
+        normalize(query, 0, layerSize);
+        TopK top = new TopK(Math.min(k, labels.length));
+        float[] similarities = new float[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            similarities[i] = dot(query, 0, labelVectors, i * layerSize, layerSize);
+            top.offer(i, similarities[i]);
+        }
+        for (int i : top.indicesDescending())
+            ret.add(new Pair<>(labels[i], (double) similarities[i]));
+        return ret;
+    }
+
+    /**
+     * The label most similar to a document's inferred vector, or null if the model has no labels
+     */
+    public String predict(List<VocabWord> document) {
+        List<Pair<String, Double>> nearest = nearestLabels(document, 1);
+        return nearest.isEmpty() ? null : nearest.get(0).getFirst();
+    }
+
+    private static List<String> key(List<VocabWord> document) {
+        List<String> key = new ArrayList<>(document.size());
+        for (VocabWord word : document)
+            key.add(word == null ? null : word.getWord());
+        return key;
+    }
+
+    private float[] getCached(List<String> key) {
+        if (cache == null)
+            return null;
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void putCached(List<String> key, float[] vector) {
+        if (cache == null)
+            return;
+        synchronized (cache) {
+            cache.put(key, vector);
+        }
+    }
+
+    /** Number of document vectors cached */
+    public int getCacheSize() {
+        if (cache == null)
+            return 0;
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public void clearCache() {
+        if (cache == null)
+            return;
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int getLayerSize() {
+        return layerSize;
+    }
+
+    public int getEpochs() {
+        return epochs;
+    }
+
+    private static float dot(float[] x, int xOffset, float[] y, int yOffset, int n) {
+        float ret = 0;
+        for (int i = 0; i < n; i++)
+            ret += x[xOffset + i] * y[yOffset + i];
+        return ret;
+    }
+
+    private static void axpy(float a, float[] x, int xOffset, float[] y, int yOffset, int n) {
+        for (int i = 0; i < n; i++)
+            y[yOffset + i] += a * x[xOffset + i];
+    }
+
+    private static void normalize(float[] x, int offset, int n) {
+        float norm = (float) Math.sqrt(dot(x, offset, x, offset, n));
+        if (norm == 0)
+            return;
+        for (int i = 0; i < n; i++)
+            x[offset + i] /= norm;
+    }
+
+    //scratch space for one thread
+    private class Worker {
+        private final float[] neu1e = new float[layerSize];
+
+        //run every epoch for documents [from, to)
+        private void infer(List<List<VocabWord>> documents, List<List<String>> keys, float[][] out, int from, int to) {
+            XorShiftRandom[] randoms = new XorShiftRandom[to - from];
+            for (int d = from; d < to; d++) {
+                //seeded by the words, so a document's vector doesn't depend on the batch or thread it was inferred in
+                XorShiftRandom random = new XorShiftRandom(seed ^ keys.get(d).hashCode());
+                float[] vector = new float[layerSize];
+                for (int i = 0; i < layerSize; i++)
+                    vector[i] = (random.nextFloat() - 0.5f) / layerSize;
+                out[d] = vector;
+                randoms[d - from] = random;
+            }
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                float alpha = learningRate - (learningRate - minLearningRate) * epoch / epochs;
+                for (int d = from; d < to; d++) {
+                    for (VocabWord word : documents.get(d))
+                        train(out[d], word, randoms[d - from], alpha);
+                }
+            }
+        }
+
+        //one step of predicting the word from the document vector, as in InMemoryLookupTable.iterateSample,
+        //updating only the document vector
+        private void train(float[] vector, VocabWord word, XorShiftRandom random, float alpha) {
+            if (word == null || word.getIndex() < 0 || word.getIndex() >= numWords
+                    || word.getWord().equals("STOP") || word.getWord().equals(Word2Vec.UNK))
+                return;
+            Arrays.fill(neu1e, 0);
+
+            if (syn1 != null) {
+                List<Integer> codes = word.getCodes();
+                List<Integer> points = word.getPoints();
+                for (int i = 0; i < word.getCodeLength(); i++) {
+                    int l2 = points.get(i) * layerSize;
+                    if (l2 < 0 || l2 >= syn1.length)
+                        continue;
+                    float f = dot(vector, 0, syn1, l2, layerSize);
+                    if (f <= -MAX_EXP || f >= MAX_EXP)
+                        continue;
+                    f = expTable[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))];
+                    float g = (1 - codes.get(i) - f) * alpha;
+                    axpy(g, syn1, l2, neu1e, 0, layerSize);
+                }
+            }
+
+            if (syn1Neg != null) {
+                for (int d = 0; d < negative + 1; d++) {
+                    int target;
+                    int label;
+                    if (d == 0) {
+                        target = word.getIndex();
+                        label = 1;
+                    } else {
+                        target = unigramTable.sample(random);
+                        if (target == word.getIndex())
+                            continue;
+                        label = 0;
+                    }
+                    int l2 = target * layerSize;
+                    if (l2 < 0 || l2 >= syn1Neg.length)
+                        continue;
+                    float f = dot(vector, 0, syn1Neg, l2, layerSize);
+                    float g;
+                    if (f > MAX_EXP)
+                        g = (label - 1) * alpha;
+                    else if (f < -MAX_EXP)
+                        g = label * alpha;
+                    else
+                        g = (label - expTable[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * alpha;
+                    axpy(g, syn1Neg, l2, neu1e, 0, layerSize);
+                }
+            }
+
+            axpy(1, neu1e, 0, vector, 0, layerSize);
+        }
+    }
+
+    public static class Builder {
+        protected ParagraphVectors model;
+        protected int epochs = 10;
+        protected double learningRate = 0.025;
+        protected double minLearningRate = 1e-4;
+        protected int workers = Runtime.getRuntime().availableProcessors();
+        protected int cacheSize = 10000;
+        protected long seed = 123;
+
+        /**
+         * @param model the trained model. Its weights are copied when built
+         */
+        public Builder(ParagraphVectors model) {
+            this.model = model;
+        }
+
+        /**
+         * Number of passes over each document's words, default 10
+         */
+        public Builder epochs(int epochs) {
+            this.epochs = epochs;
+            return this;
+        }
+
+        /**
+         * Learning rate of the first epoch, decaying linearly towards minLearningRate. Default 0.025
+         */
+        public Builder learningRate(double learningRate) {
+            this.learningRate = learningRate;
+            return this;
+        }
+
+        public Builder minLearningRate(double minLearningRate) {
+            this.minLearningRate = minLearningRate;
+            return this;
+        }
+
+        /**
+         * Max number of threads inferring one batch, defaults to the number of processors
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Number of most recently inferred document vectors kept, default 10000. 0 disables the cache
+         */
+        public Builder cacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public ParagraphVectorsInference build() {
+            if (model == null)
+                throw new IllegalStateException("Model must be specified");
+            if (epochs < 1 || workers < 1 || cacheSize < 0)
+                throw new IllegalArgumentException("Epochs and workers must be > 0 and cache size >= 0");
+            ParagraphVectorsInference ret = new ParagraphVectorsInference();
+            ret.epochs = epochs;
+            ret.learningRate = (float) learningRate;
+            ret.minLearningRate = (float) minLearningRate;
+            ret.workers = workers;
+            ret.cacheSize = cacheSize;
+            ret.seed = seed;
+            ret.init(model);
+            return ret;
+        }
+    }
+}
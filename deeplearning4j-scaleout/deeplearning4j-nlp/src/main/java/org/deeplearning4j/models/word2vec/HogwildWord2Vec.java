@@ -0,0 +1,651 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.word2vec;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.AliasTable;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Skip gram word2vec trainer working the way the original C implementation does:
+ * the weights (syn0, syn1 and syn1Neg) are flat float arrays, the Huffman codes and points
+ * are precomputed in to int arrays and a number of plain threads each train on their own
+ * shard of the sentences, updating the shared weights without any locking (Hogwild).
+ *
+ * Sentences are either streamed from a {@link SentenceIterator} once per iteration, or trained on as arrays
+ * of vocab indices, see {@link #encode(VocabCache, SentenceIterator, TokenizerFactory)}.
+ * The vocab (for example from {@link org.deeplearning4j.models.word2vec.wordstore.StreamingVocabBuilder}) must be complete (every word indexed from 0 to numWords - 1) before training.
+ * After {@link #fit(List)}, the weights can be turned in to a {@link Word2Vec} model with {@link #toWord2Vec()}.
+ */
+public class HogwildWord2Vec {
+
+    private static final Logger log = LoggerFactory.getLogger(HogwildWord2Vec.class);
+
+    private static final int EXP_TABLE_SIZE = 1000;
+    private static final float MAX_EXP = 6;
+    //number of words a worker trains on between learning rate updates
+    private static final int UPDATE_EVERY = 10000;
+    //number of sentences handed to a worker at a time when streaming
+    private static final int BATCH_SIZE = 1000;
+
+    private VocabCache vocab;
+    private int layerSize = 100;
+    private int window = 5;
+    private int negative = 0;
+    private boolean hierarchicSoftmax = true;
+    private double sample = 0;
+    private float learningRate = 0.025f;
+    private float minLearningRate = 1e-4f;
+    private int iterations = 1;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private long seed = 123;
+    private int tableSize = (int) 1e7;
+
+    private int numWords;
+    private float[] syn0;
+    private float[] syn1;
+    private float[] syn1Neg;
+    private int[][] codes;
+    private int[][] points;
+    private long[] counts;
+    private long totalCount;
+    private int[] table;
+    //one extra entry, as in the C implementation: f == MAX_EXP (or just under it, after float rounding) maps to EXP_TABLE_SIZE
+    private final float[] expTable = new float[EXP_TABLE_SIZE + 1];
+
+    private final AtomicLong wordCount = new AtomicLong();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private volatile long trainWords;
+    private long trainingStart;
+    private long trainingTimeNs;
+    private int trainingWorkers = 1;
+
+    private HogwildWord2Vec() {
+    }
+
+    private void init() {
+        numWords = vocab.numWords();
+        if (numWords < 1)
+            throw new IllegalStateException("Vocab is empty");
+        if (negative > 0 && numWords < 2)
+            throw new IllegalStateException("Negative sampling needs at least 2 words in the vocab");
+
+        for (int i = 0; i <= EXP_TABLE_SIZE; i++) {
+            double exp = Math.exp((i / (double) EXP_TABLE_SIZE * 2 - 1) * MAX_EXP);
+            expTable[i] = (float) (exp / (exp + 1));
+        }
+
+        boolean huffmanBuilt = true;
+        for (VocabWord word : vocab.vocabWords()) {
+            if (word.getCodeLength() == 0)
+                huffmanBuilt = false;
+        }
+        if (hierarchicSoftmax && !huffmanBuilt && numWords > 1)
+            new Huffman(vocab.vocabWords()).build();
+
+        counts = new long[numWords];
+        codes = new int[numWords][];
+        points = new int[numWords][];
+        for (VocabWord word : vocab.vocabWords()) {
+            int idx = word.getIndex();
+            if (idx < 0 || idx >= numWords)
+                throw new IllegalStateException("Word " + word.getWord() + " has index " + idx + ", expected 0 to " + (numWords - 1));
+            counts[idx] = (long) word.getWordFrequency();
+            totalCount += counts[idx];
+            int codeLength = hierarchicSoftmax ? word.getCodeLength() : 0;
+            codes[idx] = new int[codeLength];
+            points[idx] = new int[codeLength];
+            for (int i = 0; i < codeLength; i++) {
+                codes[idx][i] = word.getCodes().get(i);
+                points[idx][i] = word.getPoints().get(i);
+            }
+        }
+
+        long size = (long) numWords * layerSize;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalStateException("Unable to allocate weights for " + numWords + " words of layer size " + layerSize
+                    + ": " + size + " floats is over the maximum array length " + Integer.MAX_VALUE
+                    + ". Raise minWordFrequency or lower layerSize");
+
+        //same initialization as the C implementation: syn0 small and random, the output weights zero
+        Random r = new Random(seed);
+        syn0 = new float[(int) size];
+        for (int i = 0; i < syn0.length; i++)
+            syn0[i] = (r.nextFloat() - 0.5f) / layerSize;
+        if (hierarchicSoftmax)
+            syn1 = new float[(int) size];
+        if (negative > 0) {
+            syn1Neg = new float[(int) size];
+            initTable();
+        }
+    }
+
+    //unigram distribution raised to the 3/4 power, for picking negative samples
+    private void initTable() {
+        table = new int[tableSize];
+        double trainWordsPow = 0;
+        for (int i = 0; i < numWords; i++)
+            trainWordsPow += Math.pow(counts[i], 0.75);
+        int i = 0;
+        double d1 = Math.pow(counts[i], 0.75) / trainWordsPow;
+        for (int a = 0; a < tableSize; a++) {
+            table[a] = i;
+            if (a / (double) tableSize > d1 && i < numWords - 1) {
+                i++;
+                d1 += Math.pow(counts[i], 0.75) / trainWordsPow;
+            }
+        }
+    }
+
+    /**
+     * Turn sentences in to arrays of vocab indices. Words not in the vocab are dropped
+     * @param vocab the vocab to look words up in
+     * @param iter the sentences
+     * @param tokenizerFactory the tokenizer for each sentence
+     * @return one array of vocab indices per (non empty) sentence
+     */
+    public static List<int[]> encode(VocabCache vocab, SentenceIterator iter, TokenizerFactory tokenizerFactory) {
+        List<int[]> ret = new ArrayList<>();
+        while (iter.hasNext()) {
+            int[] sentence = encode(vocab, tokenizerFactory, iter.nextSentence());
+            if (sentence != null)
+                ret.add(sentence);
+        }
+        return ret;
+    }
+
+    //vocab indices of the sentence's words, or null if none are in the vocab
+    private static int[] encode(VocabCache vocab, TokenizerFactory tokenizerFactory, String text) {
+        if (text == null || text.isEmpty())
+            return null;
+        List<String> tokens = tokenizerFactory.create(text).getTokens();
+        int[] sentence = new int[tokens.size()];
+        int length = 0;
+        for (String token : tokens) {
+            int idx = vocab.indexOf(token);
+            if (idx >= 0)
+                sentence[length++] = idx;
+        }
+        if (length == 0)
+            return null;
+        return length == sentence.length ? sentence : Arrays.copyOf(sentence, length);
+    }
+
+    /**
+     * Train on the sentences of the given iterator, streaming them once per iteration:
+     * the iterator is reset before each iteration, and sentences are encoded on the calling
+     * thread and handed to the workers in batches, so the corpus is never held in memory.
+     * The learning rate decays over the vocab's total word occurrences times the number of iterations
+     * @param iter the sentences
+     * @param tokenizerFactory the tokenizer for each sentence
+     */
+    public void fit(SentenceIterator iter, TokenizerFactory tokenizerFactory) {
+        trainWords = iterations * vocab.totalWordOccurrences() + 1;
+        final BlockingQueue<List<int[]>> queue = new ArrayBlockingQueue<>(workers * 2);
+        final List<int[]> poison = new ArrayList<>();
+        Runnable[] runnables = new Runnable[workers];
+        for (int i = 0; i < workers; i++) {
+            final Worker worker = new Worker(seed + i);
+            runnables[i] = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<int[]> batch;
+                        while ((batch = queue.take()) != poison) {
+                            for (int[] sentence : batch)
+                                worker.train(sentence);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    worker.finish();
+                }
+            };
+        }
+
+        Thread[] threads = startWorkers(runnables);
+        boolean queued = false;
+        try {
+            for (int i = 0; i < iterations && error.get() == null; i++) {
+                iter.reset();
+                List<int[]> batch = new ArrayList<>(BATCH_SIZE);
+                while (iter.hasNext() && error.get() == null) {
+                    int[] sentence = encode(vocab, tokenizerFactory, iter.nextSentence());
+                    if (sentence == null)
+                        continue;
+                    batch.add(sentence);
+                    if (batch.size() >= BATCH_SIZE) {
+                        put(queue, batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty())
+                    put(queue, batch);
+            }
+            for (int i = 0; i < workers; i++)
+                put(queue, poison);
+            queued = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while training", e);
+        } finally {
+            //reading or encoding failed: the workers may never see their poison, so stop them
+            if (!queued) {
+                for (Thread t : threads)
+                    t.interrupt();
+            }
+        }
+        if (error.get() != null) {
+            for (Thread t : threads)
+                t.interrupt();
+        }
+        joinWorkers(threads);
+    }
+
+    //blocks until there is room in the queue, unless a worker has failed
+    private void put(BlockingQueue<List<int[]>> queue, List<int[]> batch) throws InterruptedException {
+        while (error.get() == null) {
+            if (queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+                return;
+        }
+    }
+
+    /**
+     * Train on the given sentences, each an array of vocab indices.
+     * The sentences are split in to one contiguous shard per worker
+     * @param sentences the sentences to train on
+     */
+    public void fit(final List<int[]> sentences) {
+        long corpusWords = 0;
+        for (int[] sentence : sentences)
+            corpusWords += sentence.length;
+        if (corpusWords < 1)
+            throw new IllegalStateException("Unable to train, no words in the sentences");
+        trainWords = iterations * corpusWords + 1;
+
+        int numWorkers = Math.min(workers, sentences.size());
+        Runnable[] runnables = new Runnable[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            final int from = (int) ((long) sentences.size() * i / numWorkers);
+            final int to = (int) ((long) sentences.size() * (i + 1) / numWorkers);
+            final Worker worker = new Worker(seed + i);
+            runnables[i] = new Runnable() {
+                @Override
+                public void run() {
+                    for (int iter = 0; iter < iterations; iter++) {
+                        for (int s = from; s < to; s++)
+                            worker.train(sentences.get(s));
+                    }
+                    worker.finish();
+                }
+            };
+        }
+        joinWorkers(startWorkers(runnables));
+    }
+
+    private Thread[] startWorkers(Runnable[] runnables) {
+        wordCount.set(0);
+        error.set(null);
+        trainingWorkers = runnables.length;
+        Thread[] threads = new Thread[runnables.length];
+        for (int i = 0; i < runnables.length; i++) {
+            threads[i] = new Thread(runnables[i], "HogwildWord2Vec-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+        }
+        log.info("Training with " + threads.length + " workers");
+        trainingStart = System.nanoTime();
+        for (Thread t : threads)
+            t.start();
+        return threads;
+    }
+
+    private void joinWorkers(Thread[] threads) {
+        try {
+            for (Thread t : threads)
+                t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while training", e);
+        }
+        trainingTimeNs = System.nanoTime() - trainingStart;
+        if (error.get() != null)
+            throw new RuntimeException("Worker failed", error.get());
+        log.info("Trained on " + getNumWordsProcessed() + " words, " + (int) getWordsPerSecondPerThread() + " words/sec/thread");
+    }
+
+    private class Worker {
+        private long nextRandom;
+        private final float[] neu1e = new float[layerSize];
+        private int[] sentence = new int[1000];
+        private long count;
+        private long lastCount;
+        private float alpha = learningRate;
+
+        private Worker(long nextRandom) {
+            this.nextRandom = nextRandom;
+        }
+
+        private void train(int[] raw) {
+            count += raw.length;
+            if (count - lastCount > UPDATE_EVERY) {
+                long actual = wordCount.addAndGet(count - lastCount);
+                lastCount = count;
+                alpha = Math.max(minLearningRate, learningRate * (1 - actual / (float) trainWords));
+            }
+            int length = subsample(raw);
+            for (int pos = 0; pos < length; pos++)
+                skipGram(pos, length, alpha);
+        }
+
+        private void finish() {
+            wordCount.addAndGet(count - lastCount);
+            lastCount = count;
+        }
+
+        //copy the sentence, randomly discarding frequent words while keeping the ranking the same
+        private int subsample(int[] raw) {
+            if (sentence.length < raw.length)
+                sentence = new int[raw.length];
+            if (sample <= 0) {
+                System.arraycopy(raw, 0, sentence, 0, raw.length);
+                return raw.length;
+            }
+            int length = 0;
+            double threshold = sample * totalCount;
+            for (int word : raw) {
+                double ran = (Math.sqrt(counts[word] / threshold) + 1) * threshold / counts[word];
+                nextRandom = nextRandom * 25214903917L + 11;
+                if (ran < (nextRandom & 0xFFFF) / 65536.0)
+                    continue;
+                sentence[length++] = word;
+            }
+            return length;
+        }
+
+        private void skipGram(int pos, int length, float alpha) {
+            int word = sentence[pos];
+            nextRandom = nextRandom * 25214903917L + 11;
+            int b = (int) ((nextRandom >>> 16) % window);
+            for (int a = b; a < window * 2 + 1 - b; a++) {
+                if (a == window)
+                    continue;
+                int c = pos - window + a;
+                if (c < 0 || c >= length)
+                    continue;
+                int l1 = sentence[c] * layerSize;
+                Arrays.fill(neu1e, 0f);
+
+                if (hierarchicSoftmax) {
+                    int[] code = codes[word];
+                    int[] point = points[word];
+                    for (int d = 0; d < code.length; d++) {
+                        int l2 = point[d] * layerSize;
+                        float f = dot(syn0, l1, syn1, l2, layerSize);
+                        if (f <= -MAX_EXP || f >= MAX_EXP)
+                            continue;
+                        f = expTable[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))];
+                        float g = (1 - code[d] - f) * alpha;
+                        axpy(g, syn1, l2, neu1e, 0, layerSize);
+                        axpy(g, syn0, l1, syn1, l2, layerSize);
+                    }
+                }
+
+                for (int d = 0; d < negative + 1 && negative > 0; d++) {
+                    int target;
+                    int label;
+                    if (d == 0) {
+                        target = word;
+                        label = 1;
+                    } else {
+                        nextRandom = nextRandom * 25214903917L + 11;
+                        target = table[(int) ((nextRandom >>> 16) % tableSize)];
+                        if (target == 0)
+                            target = (int) ((nextRandom >>> 1) % (numWords - 1)) + 1;
+                        if (target == word)
+                            continue;
+                        label = 0;
+                    }
+                    int l2 = target * layerSize;
+                    float f = dot(syn0, l1, syn1Neg, l2, layerSize);
+                    float g;
+                    if (f > MAX_EXP)
+                        g = (label - 1) * alpha;
+                    else if (f < -MAX_EXP)
+                        g = label * alpha;
+                    else
+                        g = (label - expTable[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))]) * alpha;
+                    axpy(g, syn1Neg, l2, neu1e, 0, layerSize);
+                    axpy(g, syn0, l1, syn1Neg, l2, layerSize);
+                }
+
+                axpy(1f, neu1e, 0, syn0, l1, layerSize);
+            }
+        }
+    }
+
+    private static float dot(float[] x, int xOffset, float[] y, int yOffset, int n) {
+        float ret = 0;
+        for (int i = 0; i < n; i++)
+            ret += x[xOffset + i] * y[yOffset + i];
+        return ret;
+    }
+
+    private static void axpy(float a, float[] x, int xOffset, float[] y, int yOffset, int n) {
+        for (int i = 0; i < n; i++)
+            y[yOffset + i] += a * x[xOffset + i];
+    }
+
+    /**
+     * Copy the trained weights in to a lookup table
+     * @return a lookup table for the vocab, one row of syn0 (and syn1/syn1Neg) per word
+     */
+    public InMemoryLookupTable lookupTable() {
+        InMemoryLookupTable table = (InMemoryLookupTable) new InMemoryLookupTable.Builder()
+                .cache(vocab).vectorLength(layerSize).negative(negative)
+                .lr(learningRate).seed(seed).build();
+        int[] shape = {numWords, layerSize};
+        table.setSyn0(Nd4j.create(syn0, shape));
+        if (syn1 != null)
+            table.setSyn1(Nd4j.create(syn1, shape));
+        if (syn1Neg != null) {
+            table.setSyn1Neg(Nd4j.create(syn1Neg, shape));
+            double[] pow = new double[numWords];
+            for (int i = 0; i < numWords; i++)
+                pow[i] = Math.pow(counts[i], 0.75);
+            table.setUnigramTable(new AliasTable(pow));
+        }
+        return table;
+    }
+
+    /**
+     * @return a model with the vocab and a copy of the trained weights
+     */
+    public Word2Vec toWord2Vec() {
+        Word2Vec ret = new Word2Vec();
+        ret.setVocab(vocab);
+        ret.setLookupTable(lookupTable());
+        return ret;
+    }
+
+    /** The input word vectors, numWords * layerSize, row major. Trained in place */
+    public float[] getSyn0() {
+        return syn0;
+    }
+
+    public VocabCache getVocab() {
+        return vocab;
+    }
+
+    public int getLayerSize() {
+        return layerSize;
+    }
+
+    /** Number of words (before subsampling) trained on by the last call to fit, over all iterations */
+    public long getNumWordsProcessed() {
+        return wordCount.get();
+    }
+
+    /** Throughput of the last call to fit, over all workers */
+    public double getWordsPerSecond() {
+        return trainingTimeNs == 0 ? 0.0 : getNumWordsProcessed() * 1e9 / trainingTimeNs;
+    }
+
+    /** Throughput of the last call to fit, per worker thread */
+    public double getWordsPerSecondPerThread() {
+        return getWordsPerSecond() / trainingWorkers;
+    }
+
+    public static class Builder {
+        protected VocabCache vocab;
+        protected int layerSize = 100;
+        protected int window = 5;
+        protected int negative = 0;
+        protected boolean hierarchicSoftmax = true;
+        protected double sample = 0;
+        protected double learningRate = 0.025;
+        protected double minLearningRate = 1e-4;
+        protected int iterations = 1;
+        protected int workers = Runtime.getRuntime().availableProcessors();
+        protected long seed = 123;
+        protected int tableSize = (int) 1e7;
+
+        /**
+         * @param vocab the vocab, with every word indexed. The Huffman tree is built if it hasn't been yet
+         */
+        public Builder(VocabCache vocab) {
+            this.vocab = vocab;
+        }
+
+        public Builder layerSize(int layerSize) {
+            this.layerSize = layerSize;
+            return this;
+        }
+
+        public Builder windowSize(int window) {
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Number of negative samples per word, 0 (the default) for none
+         */
+        public Builder negativeSample(int negative) {
+            this.negative = negative;
+            return this;
+        }
+
+        /**
+         * Whether to use hierarchical softmax, default true
+         */
+        public Builder useHierarchicSoftmax(boolean hierarchicSoftmax) {
+            this.hierarchicSoftmax = hierarchicSoftmax;
+            return this;
+        }
+
+        /**
+         * Threshold for subsampling frequent words, 0 (the default) for none. 1e-5 is typical
+         */
+        public Builder sampling(double sample) {
+            this.sample = sample;
+            return this;
+        }
+
+        public Builder learningRate(double learningRate) {
+            this.learningRate = learningRate;
+            return this;
+        }
+
+        public Builder minLearningRate(double minLearningRate) {
+            this.minLearningRate = minLearningRate;
+            return this;
+        }
+
+        public Builder iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * Number of threads training at once, defaults to the number of processors
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Size of the table negative samples are drawn from, default 1e7
+         */
+        public Builder negativeTableSize(int tableSize) {
+            this.tableSize = tableSize;
+            return this;
+        }
+
+        public HogwildWord2Vec build() {
+            if (vocab == null)
+                throw new IllegalStateException("Vocab cache must be specified");
+            if (layerSize < 1 || window < 1 || iterations < 1 || workers < 1 || tableSize < 1)
+                throw new IllegalArgumentException("Layer size, window size, iterations, workers and table size must be > 0");
+            if (!hierarchicSoftmax && negative < 1)
+                throw new IllegalArgumentException("Either hierarchical softmax or negative sampling must be used");
+            HogwildWord2Vec ret = new HogwildWord2Vec();
+            ret.vocab = vocab;
+            ret.layerSize = layerSize;
+            ret.window = window;
+            ret.negative = negative;
+            ret.hierarchicSoftmax = hierarchicSoftmax;
+            ret.sample = sample;
+            ret.learningRate = (float) learningRate;
+            ret.minLearningRate = (float) minLearningRate;
+            ret.iterations = iterations;
+            ret.workers = workers;
+            ret.seed = seed;
+            ret.tableSize = tableSize;
+            ret.init();
+            return ret;
+        }
+    }
+}
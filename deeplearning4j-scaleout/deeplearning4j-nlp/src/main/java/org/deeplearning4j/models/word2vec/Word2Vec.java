@@ -32,6 +32,8 @@ import org.deeplearning4j.bagofwords.vectorizer.TextVectorizer;
 import org.deeplearning4j.bagofwords.vectorizer.TfidfVectorizer;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.SubsamplingTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
 import org.deeplearning4j.parallel.Parallelization;
@@ -66,6 +68,7 @@ public class Word2Vec extends WordVectorsImpl {
     protected transient DocumentIterator docIter;
     protected int batchSize = 1000;
     protected double sample = 0;
+    protected transient SubsamplingTable subsampling;
     protected long totalWords = 1;
     //learning rate
     protected AtomicDouble alpha = new AtomicDouble(0.025);
@@ -79,6 +82,8 @@ public class Word2Vec extends WordVectorsImpl {
     protected int numIterations = 1;
     public final static String UNK = "UNK";
     protected long seed = 123;
+    //generators of the training threads, derived from the seed on every fit
+    protected transient ThreadLocal<XorShiftRandom> randoms;
     protected boolean saveVocab = false;
     protected double minLearningRate = 0.01;
     protected transient TextVectorizer vectorizer;
@@ -101,6 +106,7 @@ public class Word2Vec extends WordVectorsImpl {
      * Train the model
      */
     public void fit() throws IOException {
+        randoms = XorShiftRandom.perThread(seed);
         boolean loaded = buildVocab();
         //save vocab after building
         if (!loaded && saveVocab)
@@ -141,7 +147,7 @@ public class Word2Vec extends WordVectorsImpl {
 
 
         AtomicLong numWordsSoFar = new AtomicLong(0);
-        final AtomicLong nextRandom = new AtomicLong(5);
+        subsampling = sample > 0 ? new SubsamplingTable(vocab(), sample) : null;
         ExecutorService exec = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
                 Runtime.getRuntime().availableProcessors(),
                 0L, TimeUnit.MILLISECONDS,
@@ -162,7 +168,7 @@ public class Word2Vec extends WordVectorsImpl {
             @Override
             public Void apply(List<VocabWord> input) {
                 List<VocabWord> batch = new ArrayList<>();
-                addWords(input, nextRandom, batch);
+                addWords(input, batch);
                 if(!batch.isEmpty()) {
                   batch2.add(batch);
                 }
@@ -184,7 +190,7 @@ public class Word2Vec extends WordVectorsImpl {
         ActorSystem actorSystem = ActorSystem.create();
 
         for(int i = 0; i < numIterations; i++)
-            doIteration(batch2,numWordsSoFar,nextRandom,actorSystem);
+            doIteration(batch2,numWordsSoFar,actorSystem);
         actorSystem.shutdown();
 
 
@@ -192,7 +198,7 @@ public class Word2Vec extends WordVectorsImpl {
 
 
 
-    private void doIteration(Collection<List<VocabWord>> batch2,final AtomicLong numWordsSoFar,final AtomicLong nextRandom,ActorSystem actorSystem) {
+    private void doIteration(Collection<List<VocabWord>> batch2,final AtomicLong numWordsSoFar,ActorSystem actorSystem) {
         final AtomicLong lastReported = new AtomicLong(System.currentTimeMillis());
         Parallelization.iterateInParallel(batch2, new Parallelization.RunnableWithParams<List<VocabWord>>() {
             @Override
@@ -207,7 +213,7 @@ public class Word2Vec extends WordVectorsImpl {
                 }
 
 
-                trainSentence(sentence, nextRandom, alpha);
+                trainSentence(sentence, random(), alpha);
                 numWordsSoFar.set(numWordsSoFar.get() + sentence.size());
 
 
@@ -217,27 +223,31 @@ public class Word2Vec extends WordVectorsImpl {
 
 
 
-    protected void addWords(List<VocabWord> sentence,AtomicLong nextRandom,List<VocabWord> currMiniBatch) {
+    protected void addWords(List<VocabWord> sentence,List<VocabWord> currMiniBatch) {
+        XorShiftRandom random = random();
         for (VocabWord word : sentence) {
             if(word == null)
                 continue;
             // The subsampling randomly discards frequent words while keeping the ranking same
-            if (sample > 0) {
-                double numDocs =  vectorizer.index().numDocuments();
-                double ran = (Math.sqrt(word.getWordFrequency() / (sample * numDocs)) + 1)
-                        * (sample * numDocs) / word.getWordFrequency();
+            if (subsampling != null && !subsampling.keep(word, random))
+                continue;
+            currMiniBatch.add(word);
 
-                if (ran < (nextRandom.get() & 0xFFFF) / (double) 65536) {
-                    continue;
-                }
+        }
 
-                currMiniBatch.add(word);
-            }
-            else
-                currMiniBatch.add(word);
+    }
 
-        }
 
+    /**
+     * The random number generator of the calling thread, seeded from
+     * this model's seed and the order in which the thread first asked for one
+     * @return the generator, only to be used from the calling thread
+     */
+    protected XorShiftRandom random() {
+        ThreadLocal<XorShiftRandom> randoms = this.randoms;
+        if(randoms == null)
+            this.randoms = randoms = XorShiftRandom.perThread(seed);
+        return randoms.get();
     }
 
 
@@ -299,24 +309,36 @@ public class Word2Vec extends WordVectorsImpl {
     /**
      * Train on a list of vocab words
      * @param sentence the list of vocab words to train on
+     * @param random the random number generator of the calling thread
      */
-    public void trainSentence(final List<VocabWord> sentence,AtomicLong nextRandom,double alpha) {
+    public void trainSentence(final List<VocabWord> sentence,XorShiftRandom random,double alpha) {
         if(sentence == null || sentence.isEmpty())
             return;
         for(int i = 0; i < sentence.size(); i++) {
-            nextRandom.set(nextRandom.get() * 25214903917L + 11);
-            skipGram(i, sentence, (int) nextRandom.get() % window,nextRandom,alpha);
+            skipGram(i, sentence, random.nextInt(window),random,alpha);
         }
 
     }
 
 
+    /**
+     * Train on a list of vocab words
+     * @param sentence the list of vocab words to train on
+     * @param nextRandom the shared random state, advanced once to seed this sentence
+     * @deprecated use {@link #trainSentence(List, XorShiftRandom, double)}
+     */
+    @Deprecated
+    public void trainSentence(final List<VocabWord> sentence,AtomicLong nextRandom,double alpha) {
+        trainSentence(sentence, XorShiftRandom.of(nextRandom), alpha);
+    }
+
+
     /**
      * Train via skip gram
      * @param i
      * @param sentence
      */
-    public void skipGram(int i,List<VocabWord> sentence, int b,AtomicLong nextRandom,double alpha) {
+    public void skipGram(int i,List<VocabWord> sentence, int b,XorShiftRandom random,double alpha) {
 
         final VocabWord word = sentence.get(i);
         if(word == null || sentence.isEmpty())
@@ -328,20 +350,39 @@ public class Word2Vec extends WordVectorsImpl {
                 int c = i - window + a;
                 if(c >= 0 && c < sentence.size()) {
                     VocabWord lastWord = sentence.get(c);
-                    iterate(word,lastWord,nextRandom,alpha);
+                    iterate(word,lastWord,random,alpha);
                 }
             }
         }
     }
 
+    /**
+     * Train via skip gram
+     * @deprecated use {@link #skipGram(int, List, int, XorShiftRandom, double)}
+     */
+    @Deprecated
+    public void skipGram(int i,List<VocabWord> sentence, int b,AtomicLong nextRandom,double alpha) {
+        skipGram(i, sentence, b, XorShiftRandom.of(nextRandom), alpha);
+    }
+
     /**
      * Train the word vector
      * on the given words
      * @param w1 the first word to fit
      */
-    public void  iterate(VocabWord w1, VocabWord w2,AtomicLong nextRandom,double alpha) {
-        lookupTable.iterateSample(w1,w2,nextRandom,alpha);
+    public void  iterate(VocabWord w1, VocabWord w2,XorShiftRandom random,double alpha) {
+        lookupTable.iterateSample(w1,w2,random,alpha);
+
+    }
 
+    /**
+     * Train the word vector
+     * on the given words
+     * @deprecated use {@link #iterate(VocabWord, VocabWord, XorShiftRandom, double)}
+     */
+    @Deprecated
+    public void iterate(VocabWord w1, VocabWord w2,AtomicLong nextRandom,double alpha) {
+        iterate(w1, w2, XorShiftRandom.of(nextRandom), alpha);
     }
 
 
@@ -0,0 +1,446 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.word2vec.wordstore;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.ConcurrentVocabCache;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds a vocab in a single pass over a {@link SentenceIterator}, without an inverted index.
+ *
+ * Sentences are read on the calling thread and tokenized and counted by a number of worker threads.
+ * Each worker counts a batch of sentences in its own map, then merges it in to a number of shards,
+ * each an open addressing map probed by a 64 bit hash of the word, so merges rarely wait on each other.
+ * Like ReduceVocab in the original C word2vec, when a shard holds more than its share of maxVocabSize words,
+ * its rarest words are dropped and the count for dropping words is raised for the next time.
+ *
+ * The vocab built has the words occurring at least minWordFrequency times, indexed from the most frequent.
+ * It is a frozen {@link ConcurrentVocabCache}, so training threads can look words up without locking
+ */
+public class StreamingVocabBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingVocabBuilder.class);
+
+    private TokenizerFactory tokenizerFactory = new DefaultTokenizerFactory();
+    private Set<String> stopWords = new HashSet<>();
+    private int minWordFrequency = 5;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int numShards = 64;
+    private long maxVocabSize = 21000000;
+    private int batchSize = 1000;
+
+    private CountMap[] shards;
+    private int[] minReduce;
+    private final AtomicLong numTokens = new AtomicLong();
+    private final AtomicLong numSentences = new AtomicLong();
+    private final AtomicLong numPruned = new AtomicLong();
+
+    private StreamingVocabBuilder() {
+    }
+
+    /**
+     * Count the words of every sentence and build the vocab.
+     * The iterator is read once, from its current position
+     * @param iter the sentences
+     * @return the vocab
+     */
+    public VocabCache buildVocab(SentenceIterator iter) {
+        shards = new CountMap[numShards];
+        minReduce = new int[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new CountMap(1024);
+            minReduce[i] = 1;
+        }
+        numTokens.set(0);
+        numSentences.set(0);
+        numPruned.set(0);
+
+        final BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(workers * 2);
+        final List<String> poison = Collections.emptyList();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            threads[i] = new Thread(new Worker(queue, poison), "StreamingVocabBuilder-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+
+        long start = System.currentTimeMillis();
+        boolean joined = false;
+        try {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (iter.hasNext() && error.get() == null) {
+                String sentence = iter.nextSentence();
+                if (sentence == null || sentence.isEmpty())
+                    continue;
+                batch.add(sentence);
+                if (batch.size() >= batchSize) {
+                    put(queue, batch, error);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty())
+                put(queue, batch, error);
+            for (int i = 0; i < workers; i++)
+                put(queue, poison, error);
+            if (error.get() != null) {
+                for (Thread t : threads)
+                    t.interrupt();
+            }
+            for (Thread t : threads)
+                t.join();
+            joined = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building vocab", e);
+        } finally {
+            //the iterator or the tokenizer failed: the workers may never see their poison, so stop them
+            if (!joined) {
+                for (Thread t : threads)
+                    t.interrupt();
+            }
+        }
+        if (error.get() != null)
+            throw new RuntimeException("Worker failed", error.get());
+
+        VocabCache cache = toVocabCache();
+        log.info("Built vocab of " + cache.numWords() + " words from " + numTokens.get() + " tokens in "
+                + numSentences.get() + " sentences (" + numPruned.get() + " words pruned) in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return cache;
+    }
+
+    //blocks until there is room in the queue, unless a worker has failed
+    private static void put(BlockingQueue<List<String>> queue, List<String> batch, AtomicReference<Throwable> error)
+            throws InterruptedException {
+        while (error.get() == null) {
+            if (queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+                return;
+        }
+    }
+
+    private VocabCache toVocabCache() {
+        List<VocabWord> words = new ArrayList<>();
+        for (CountMap shard : shards) {
+            for (int i = 0; i < shard.capacity(); i++) {
+                if (shard.words[i] != null && shard.counts[i] >= minWordFrequency)
+                    words.add(new VocabWord(shard.counts[i], shard.words[i]));
+            }
+        }
+        //most frequent first: the order the Huffman tree is built in
+        Collections.sort(words, new Comparator<VocabWord>() {
+            @Override
+            public int compare(VocabWord o1, VocabWord o2) {
+                return Double.compare(o2.getWordFrequency(), o1.getWordFrequency());
+            }
+        });
+
+        ConcurrentVocabCache cache = new ConcurrentVocabCache();
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i).getWord();
+            VocabWord token = new VocabWord(0, word);
+            token.setIndex(i);
+            cache.addToken(token);
+            cache.incrementWordCount(word, (int) Math.min(Integer.MAX_VALUE, (long) words.get(i).getWordFrequency()));
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+        cache.incrementTotalDocCount((int) numSentences.get());
+        cache.freeze();
+        return cache;
+    }
+
+    //add a worker's counts to the shards, taking each shard's lock once
+    private void merge(CountMap local) {
+        int[] shardOf = new int[local.capacity()];
+        int[] shardCounts = new int[numShards + 1];
+        for (int i = 0; i < local.capacity(); i++) {
+            if (local.words[i] != null) {
+                shardOf[i] = shard(local.keys[i]);
+                shardCounts[shardOf[i] + 1]++;
+            }
+        }
+        for (int s = 0; s < numShards; s++)
+            shardCounts[s + 1] += shardCounts[s];
+        int[] order = new int[local.size()];
+        int[] next = Arrays.copyOf(shardCounts, numShards);
+        for (int i = 0; i < local.capacity(); i++) {
+            if (local.words[i] != null)
+                order[next[shardOf[i]]++] = i;
+        }
+
+        long maxPerShard = Math.max(1, maxVocabSize / numShards);
+        for (int s = 0; s < numShards; s++) {
+            if (shardCounts[s] == shardCounts[s + 1])
+                continue;
+            CountMap shard = shards[s];
+            synchronized (shard) {
+                for (int j = shardCounts[s]; j < shardCounts[s + 1]; j++) {
+                    int i = order[j];
+                    shard.increment(local.keys[i], local.words[i], local.counts[i]);
+                }
+                if (shard.size() > maxPerShard) {
+                    int before = shard.size();
+                    shard.prune(minReduce[s]);
+                    minReduce[s]++;
+                    numPruned.addAndGet(before - shard.size());
+                }
+            }
+        }
+    }
+
+    private int shard(long key) {
+        return (int) ((key >>> 40) % numShards);
+    }
+
+    //64 bit FNV-1a
+    private static long hash(String word) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            h ^= word.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private class Worker implements Runnable {
+        private final BlockingQueue<List<String>> queue;
+        private final List<String> poison;
+        private final CountMap local = new CountMap(16384);
+
+        private Worker(BlockingQueue<List<String>> queue, List<String> poison) {
+            this.queue = queue;
+            this.poison = poison;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<String> batch;
+                while ((batch = queue.take()) != poison) {
+                    long tokens = 0;
+                    for (String sentence : batch) {
+                        Tokenizer t = tokenizerFactory.create(sentence);
+                        while (t.hasMoreTokens()) {
+                            String token = t.nextToken();
+                            if (token == null || token.isEmpty() || stopWords.contains(token))
+                                continue;
+                            local.increment(hash(token), token, 1);
+                            tokens++;
+                        }
+                    }
+                    merge(local);
+                    local.clear();
+                    numTokens.addAndGet(tokens);
+                    numSentences.addAndGet(batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Open addressing (linear probing) map from a word to its count, probed by the word's hash.
+     * The word itself is compared on a hash match, so words whose hashes collide are counted apart. Not thread safe
+     */
+    private static class CountMap {
+        private long[] keys;
+        private long[] counts;
+        private String[] words;
+        private int size;
+
+        private CountMap(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            counts = new long[capacity];
+            words = new String[capacity];
+            size = 0;
+        }
+
+        private int capacity() {
+            return keys.length;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void increment(long key, String word, long by) {
+            int mask = keys.length - 1;
+            int i = (int) (key ^ (key >>> 32)) & mask;
+            while (words[i] != null) {
+                if (keys[i] == key && words[i].equals(word)) {
+                    counts[i] += by;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            words[i] = word;
+            counts[i] = by;
+            if (++size > keys.length * 0.7)
+                rehash(keys.length * 2, 0);
+        }
+
+        //drop every word occurring minCount times or less
+        private void prune(long minCount) {
+            rehash(keys.length, minCount + 1);
+        }
+
+        private void rehash(int capacity, long minCount) {
+            long[] oldKeys = keys;
+            long[] oldCounts = counts;
+            String[] oldWords = words;
+            allocate(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldWords[i] != null && oldCounts[i] >= minCount)
+                    increment(oldKeys[i], oldWords[i], oldCounts[i]);
+            }
+        }
+
+        private void clear() {
+            if (size == 0)
+                return;
+            Arrays.fill(words, null);
+            size = 0;
+        }
+    }
+
+    /** Number of tokens counted by the last build, stop words excluded */
+    public long getNumTokens() {
+        return numTokens.get();
+    }
+
+    public long getNumSentences() {
+        return numSentences.get();
+    }
+
+    /** Number of words dropped by the last build because the vocab grew past maxVocabSize */
+    public long getNumPruned() {
+        return numPruned.get();
+    }
+
+    public static class Builder {
+        protected TokenizerFactory tokenizerFactory = new DefaultTokenizerFactory();
+        protected List<String> stopWords = new ArrayList<>();
+        protected int minWordFrequency = 5;
+        protected int workers = Runtime.getRuntime().availableProcessors();
+        protected int numShards = 64;
+        protected long maxVocabSize = 21000000;
+        protected int batchSize = 1000;
+
+        public Builder tokenizerFactory(TokenizerFactory tokenizerFactory) {
+            this.tokenizerFactory = tokenizerFactory;
+            return this;
+        }
+
+        /**
+         * Words that are not counted
+         */
+        public Builder stopWords(List<String> stopWords) {
+            this.stopWords = stopWords;
+            return this;
+        }
+
+        public Builder minWordFrequency(int minWordFrequency) {
+            this.minWordFrequency = minWordFrequency;
+            return this;
+        }
+
+        /**
+         * Number of threads tokenizing and counting, defaults to the number of processors
+         */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Number of independently locked count maps, default 64
+         */
+        public Builder numShards(int numShards) {
+            this.numShards = numShards;
+            return this;
+        }
+
+        /**
+         * Max number of distinct words held while counting before rare words are pruned,
+         * default 21 million (the C word2vec default)
+         */
+        public Builder maxVocabSize(long maxVocabSize) {
+            this.maxVocabSize = maxVocabSize;
+            return this;
+        }
+
+        /**
+         * Number of sentences handed to a worker at a time, default 1000
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public StreamingVocabBuilder build() {
+            if (tokenizerFactory == null)
+                throw new IllegalStateException("Tokenizer factory must be specified");
+            if (workers < 1 || numShards < 1 || maxVocabSize < 1 || batchSize < 1)
+                throw new IllegalArgumentException("Workers, number of shards, max vocab size and batch size must be > 0");
+            StreamingVocabBuilder ret = new StreamingVocabBuilder();
+            ret.tokenizerFactory = tokenizerFactory;
+            if (stopWords != null)
+                ret.stopWords = new HashSet<>(stopWords);
+            ret.minWordFrequency = minWordFrequency;
+            ret.workers = workers;
+            ret.numShards = numShards;
+            ret.maxVocabSize = maxVocabSize;
+            ret.batchSize = batchSize;
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.models.word2vec.wordstore.inmemory;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.util.SerializationUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vocab cache for use from many threads at once.
+ *
+ * While the vocab is being built, it is kept in concurrent maps and any thread may add to it without
+ * taking a lock. Once built, {@link #freeze()} copies the vocab in to immutable arrays: the word at each index,
+ * the frequency at each index and an open addressing hash from word to index. From then on the vocab
+ * can't be changed, and {@link #indexOf(String)}, {@link #wordAtIndex(int)}, {@link #wordFrequency(String)}
+ * and {@link #wordFor(String)} are plain array reads.
+ */
+public class ConcurrentVocabCache implements VocabCache {
+
+    private static final long serialVersionUID = -6150383476574893521L;
+
+    private ConcurrentMap<String, VocabWord> vocabs = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, VocabWord> tokens = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, AtomicLong> wordFrequencies = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, AtomicInteger> docFrequencies = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, Integer> wordIndex = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, String> indexWords = new ConcurrentHashMap<>();
+    private AtomicLong totalWordOccurrences = new AtomicLong();
+    private AtomicInteger numDocs = new AtomicInteger();
+
+    //set once frozen
+    private volatile boolean frozen = false;
+    private String[] indexToWord;
+    private long[] frequencies;
+    private VocabWord[] indexToVocabWord;
+    //index + 1 of the word hashed to each slot, 0 for an empty slot
+    private int[] hashTable;
+    private List<String> wordList;
+    private List<VocabWord> vocabWordList;
+
+    /**
+     * Copy the vocab in to immutable arrays. After this the vocab can't be changed
+     * and lookups don't lock. Must not be called while other threads are still adding words.
+     * Calling this again does nothing
+     */
+    public synchronized void freeze() {
+        if (frozen)
+            return;
+        int size = 0;
+        for (Integer idx : wordIndex.values())
+            size = Math.max(size, idx + 1);
+
+        String[] words = new String[size];
+        long[] freqs = new long[size];
+        VocabWord[] vocabWordsAt = new VocabWord[size];
+        for (Map.Entry<String, Integer> e : wordIndex.entrySet()) {
+            String word = e.getKey();
+            int idx = e.getValue();
+            words[idx] = word;
+            AtomicLong freq = wordFrequencies.get(word);
+            freqs[idx] = freq == null ? 0 : freq.get();
+            vocabWordsAt[idx] = vocabs.get(word);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2 * wordIndex.size(), 2) - 1) << 1;
+        int[] table = new int[capacity];
+        for (int idx = 0; idx < size; idx++) {
+            if (words[idx] == null)
+                continue;
+            int slot = hash(words[idx]) & (capacity - 1);
+            while (table[slot] != 0)
+                slot = (slot + 1) & (capacity - 1);
+            table[slot] = idx + 1;
+        }
+
+        List<VocabWord> vocabWordsInOrder = new ArrayList<>(vocabs.size());
+        List<String> wordsInOrder = new ArrayList<>(vocabs.size());
+        for (int idx = 0; idx < size; idx++) {
+            if (vocabWordsAt[idx] != null) {
+                vocabWordsInOrder.add(vocabWordsAt[idx]);
+                wordsInOrder.add(words[idx]);
+            }
+        }
+
+        indexToWord = words;
+        frequencies = freqs;
+        indexToVocabWord = vocabWordsAt;
+        hashTable = table;
+        wordList = Collections.unmodifiableList(wordsInOrder);
+        vocabWordList = Collections.unmodifiableList(vocabWordsInOrder);
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private static int hash(String word) {
+        int h = word.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen)
+            throw new IllegalStateException("Vocab cache is frozen and can't be changed");
+    }
+
+    private static long get(ConcurrentMap<String, AtomicLong> map, String key) {
+        AtomicLong value = map.get(key);
+        return value == null ? 0 : value.get();
+    }
+
+    @Override
+    public void loadVocab() {
+        ConcurrentVocabCache cache = SerializationUtils.readObject(new File("ser"));
+        synchronized (this) {
+            this.vocabs = cache.vocabs;
+            this.tokens = cache.tokens;
+            this.wordFrequencies = cache.wordFrequencies;
+            this.docFrequencies = cache.docFrequencies;
+            this.wordIndex = cache.wordIndex;
+            this.indexWords = cache.indexWords;
+            this.totalWordOccurrences = cache.totalWordOccurrences;
+            this.numDocs = cache.numDocs;
+            this.frozen = false;
+            if (cache.frozen)
+                freeze();
+        }
+    }
+
+    @Override
+    public boolean vocabExists() {
+        return new File("ser").exists();
+    }
+
+    @Override
+    public void saveVocab() {
+        SerializationUtils.saveObject(this, new File("ser"));
+    }
+
+    @Override
+    public Collection<String> words() {
+        if (frozen)
+            return wordList;
+        return vocabs.keySet();
+    }
+
+    @Override
+    public void incrementWordCount(String word) {
+        incrementWordCount(word, 1);
+    }
+
+    @Override
+    public void incrementWordCount(String word, int increment) {
+        if (word == null || word.isEmpty())
+            throw new IllegalArgumentException("Word can't be empty or null");
+        checkNotFrozen();
+        AtomicLong count = wordFrequencies.get(word);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = wordFrequencies.putIfAbsent(word, newCount);
+            if (count == null)
+                count = newCount;
+        }
+        count.addAndGet(increment);
+        VocabWord token = tokens.get(word);
+        if (token != null)
+            token.increment(increment);
+        totalWordOccurrences.addAndGet(increment);
+    }
+
+    @Override
+    public int wordFrequency(String word) {
+        if (frozen) {
+            int idx = indexOf(word);
+            if (idx >= 0)
+                return (int) frequencies[idx];
+        }
+        return (int) get(wordFrequencies, word);
+    }
+
+    @Override
+    public boolean containsWord(String word) {
+        return vocabs.containsKey(word);
+    }
+
+    @Override
+    public String wordAtIndex(int index) {
+        if (frozen)
+            return index >= 0 && index < indexToWord.length ? indexToWord[index] : null;
+        return indexWords.get(index);
+    }
+
+    @Override
+    public int indexOf(String word) {
+        if (word == null)
+            return -1;
+        if (!frozen) {
+            Integer idx = wordIndex.get(word);
+            return idx == null ? -1 : idx;
+        }
+        int mask = hashTable.length - 1;
+        int slot = hash(word) & mask;
+        int entry;
+        while ((entry = hashTable[slot]) != 0) {
+            if (indexToWord[entry - 1].equals(word))
+                return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public Collection<VocabWord> vocabWords() {
+        if (frozen)
+            return vocabWordList;
+        return vocabs.values();
+    }
+
+    @Override
+    public long totalWordOccurrences() {
+        return totalWordOccurrences.get();
+    }
+
+    @Override
+    public VocabWord wordFor(String word) {
+        if (word == null)
+            return null;
+        if (frozen) {
+            int idx = indexOf(word);
+            return idx < 0 ? null : indexToVocabWord[idx];
+        }
+        return vocabs.get(word);
+    }
+
+    @Override
+    public void addWordToIndex(int index, String word) {
+        if (word == null || word.isEmpty())
+            throw new IllegalArgumentException("Word can't be empty or null");
+        if (index < 0)
+            throw new IllegalArgumentException("Index must be >= 0");
+        checkNotFrozen();
+        wordFrequencies.putIfAbsent(word, new AtomicLong(1));
+        wordIndex.put(word, index);
+        indexWords.put(index, word);
+    }
+
+    @Override
+    public void putVocabWord(String word) {
+        if (word == null || word.isEmpty())
+            throw new IllegalArgumentException("Word can't be empty or null");
+        // STOP and UNK are not added as tokens
+        if (word.equals("STOP") || word.equals("UNK"))
+            return;
+        checkNotFrozen();
+        VocabWord token = tokens.get(word);
+        if (token == null)
+            throw new IllegalStateException("Word " + word + " not found as token in vocab");
+        addWordToIndex(token.getIndex(), word);
+        vocabs.put(word, token);
+    }
+
+    @Override
+    public int numWords() {
+        return vocabs.size();
+    }
+
+    @Override
+    public int docAppearedIn(String word) {
+        AtomicInteger count = docFrequencies.get(word);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void incrementDocCount(String word, int howMuch) {
+        AtomicInteger count = docFrequencies.get(word);
+        if (count == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            count = docFrequencies.putIfAbsent(word, newCount);
+            if (count == null)
+                count = newCount;
+        }
+        count.addAndGet(howMuch);
+    }
+
+    @Override
+    public void setCountForDoc(String word, int count) {
+        docFrequencies.put(word, new AtomicInteger(count));
+    }
+
+    @Override
+    public int totalNumberOfDocs() {
+        return numDocs.get();
+    }
+
+    @Override
+    public void incrementTotalDocCount() {
+        numDocs.incrementAndGet();
+    }
+
+    @Override
+    public void incrementTotalDocCount(int by) {
+        numDocs.addAndGet(by);
+    }
+
+    @Override
+    public Collection<VocabWord> tokens() {
+        return tokens.values();
+    }
+
+    @Override
+    public void addToken(VocabWord word) {
+        checkNotFrozen();
+        tokens.put(word.getWord(), word);
+    }
+
+    @Override
+    public VocabWord tokenFor(String word) {
+        return tokens.get(word);
+    }
+
+    @Override
+    public boolean hasToken(String token) {
+        return tokens.containsKey(token);
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentVocabCache{" +
+                "numWords=" + numWords() +
+                ", numTokens=" + tokens.size() +
+                ", totalWordOccurrences=" + totalWordOccurrences +
+                ", numDocs=" + numDocs +
+                ", frozen=" + frozen +
+                '}';
+    }
+}
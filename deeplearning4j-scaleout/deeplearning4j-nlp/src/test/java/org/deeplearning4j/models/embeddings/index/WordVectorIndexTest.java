@@ -0,0 +1,147 @@
+package org.deeplearning4j.models.embeddings.index;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class WordVectorIndexTest {
+
+    @Test
+    public void testTopK() {
+        TopK topK = new TopK(3);
+        float[] scores = {0.1f, 0.9f, -1f, 0.5f, 0.7f, 0.2f};
+        for (int i = 0; i < scores.length; i++)
+            topK.offer(i, scores[i]);
+        assertArrayEquals(new int[]{1, 4, 3}, topK.indicesDescending());
+        assertEquals(0, topK.size());
+    }
+
+    @Test
+    public void testExactSameAsFullSort() {
+        INDArray vectors = getVectors(500, 20);
+        ExactWordVectorIndex index = new ExactWordVectorIndex(vectors);
+        assertTrue(index.isExact());
+        assertEquals(500, index.size());
+
+        INDArray query = vectors.getRow(7);
+        int[] nearest = index.search(query, 10);
+        assertEquals(10, nearest.length);
+        assertEquals(7, nearest[0]);
+
+        //compare to cosine similarities sorted in full
+        final double[] sims = new double[500];
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            sims[i] = Transforms.cosineSim(query, vectors.getRow(i));
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(sims[o2], sims[o1]);
+            }
+        });
+        for (int i = 0; i < 10; i++)
+            assertEquals((int) order.get(i), nearest[i]);
+    }
+
+    @Test
+    public void testForestRecall() {
+        INDArray vectors = getVectors(2000, 20);
+        ExactWordVectorIndex exact = new ExactWordVectorIndex(vectors);
+        RandomProjectionForestIndex forest = new RandomProjectionForestIndex.Builder(vectors)
+                .numTrees(10).maxLeafSize(16).seed(12345).build();
+        assertFalse(forest.isExact());
+
+        int k = 10;
+        int hits = 0;
+        Random r = new Random(12345);
+        for (int i = 0; i < 50; i++) {
+            INDArray query = vectors.getRow(r.nextInt(2000));
+            Set<Integer> expected = new HashSet<>();
+            for (int idx : exact.search(query, k))
+                expected.add(idx);
+            int[] found = forest.search(query, k);
+            assertEquals(k, found.length);
+            for (int idx : found)
+                if (expected.contains(idx))
+                    hits++;
+        }
+        assertTrue("Recall " + hits / 500.0, hits / 500.0 > 0.8);
+
+        //every item can be found exactly
+        assertArrayEquals(exact.search(vectors.getRow(3), k), forest.searchExact(vectors.getRow(3), k));
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        INDArray vectors = getVectors(300, 10);
+        RandomProjectionForestIndex forest = new RandomProjectionForestIndex.Builder(vectors).numTrees(3).build();
+        File file = WordVectorSerializer.indexFileFor(File.createTempFile("vectors", ".txt"));
+        file.deleteOnExit();
+        WordVectorSerializer.writeIndex(forest, file);
+        WordVectorIndex read = WordVectorSerializer.readIndex(file);
+        assertEquals(forest.size(), read.size());
+        for (int i = 0; i < 10; i++)
+            assertArrayEquals(forest.search(vectors.getRow(i), 5), read.search(vectors.getRow(i), 5));
+    }
+
+    @Test
+    public void testWordVectorsWithIndex() {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        List<String> words = Arrays.asList("cat", "dog", "car", "truck");
+        for (int i = 0; i < words.size(); i++) {
+            VocabWord word = new VocabWord(1, words.get(i));
+            word.setIndex(i);
+            cache.addToken(word);
+            cache.addWordToIndex(i, words.get(i));
+            cache.putVocabWord(words.get(i));
+        }
+        InMemoryLookupTable table = (InMemoryLookupTable) new InMemoryLookupTable.Builder()
+                .cache(cache).vectorLength(2).build();
+        table.setSyn0(Nd4j.create(new float[]{1, 0.1f, 1, 0.2f, 0.1f, 1, 0.2f, 1}, new int[]{4, 2}));
+        WordVectorsImpl vec = new WordVectorsImpl();
+        vec.setVocab(cache);
+        vec.setLookupTable(table);
+
+        for (boolean exact : new boolean[]{true, false}) {
+            vec.buildIndex(exact);
+            assertEquals(Arrays.asList("dog"), new ArrayList<>(vec.wordsNearest("cat", 1)));
+            assertEquals(Arrays.asList("car"), new ArrayList<>(vec.wordsNearestSum("truck", 1)));
+        }
+    }
+
+    //points around a number of random centers
+    private static INDArray getVectors(int n, int dims) {
+        Random r = new Random(12345);
+        float[][] centers = new float[20][dims];
+        for (float[] center : centers)
+            for (int j = 0; j < dims; j++)
+                center[j] = (float) r.nextGaussian();
+        float[] data = new float[n * dims];
+        for (int i = 0; i < n; i++) {
+            float[] center = centers[r.nextInt(centers.length)];
+            for (int j = 0; j < dims; j++)
+                data[i * dims + j] = center[j] + 0.3f * (float) r.nextGaussian();
+        }
+        return Nd4j.create(data, new int[]{n, dims});
+    }
+}
@@ -0,0 +1,100 @@
+package org.deeplearning4j.models.embeddings.mmap;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
+import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class MemoryMappedLookupTableTest {
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        InMemoryLookupCache cache = getVocab(100);
+        InMemoryLookupTable lookupTable = (InMemoryLookupTable) new InMemoryLookupTable.Builder()
+                .cache(cache).vectorLength(300).build();
+        lookupTable.setSyn0(Nd4j.rand(100, 300));
+
+        File file = File.createTempFile("lookuptable", ".bin");
+        file.deleteOnExit();
+        MemoryMappedLookupTable.write(lookupTable, file);
+        MemoryMappedLookupTable table = new MemoryMappedLookupTable.Builder(file).cache(cache).readOnly(true).build();
+
+        assertTrue(table.isReadOnly());
+        assertEquals(300, table.layerSize());
+        assertEquals(100, table.getNumRows());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(lookupTable.getSyn0().getRow(i), table.vector("word" + i));
+            //3 rows of 1200 bytes per 4KB page, none crossing a page boundary
+            long offset = table.rowOffset(i);
+            assertEquals(4096 + (i / 3) * 4096 + (i % 3) * 1200, offset);
+        }
+        assertEquals(lookupTable.getSyn0(), table.getWeights());
+
+        //Lookups through WordVectorsImpl, one row at a time
+        WordVectorsImpl vectors = new WordVectorsImpl();
+        vectors.setVocab(cache);
+        vectors.setLookupTable(table);
+        assertEquals(lookupTable.getSyn0().getRow(5), vectors.getWordVectorMatrix("word5"));
+        assertEquals(1.0, vectors.similarity("word7", "word7"), 1e-6);
+        assertTrue(vectors.hasWord("word99"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReadOnly() throws Exception {
+        InMemoryLookupCache cache = getVocab(10);
+        File file = File.createTempFile("lookuptable", ".bin");
+        file.deleteOnExit();
+        new MemoryMappedLookupTable.Builder(file).cache(cache).vectorLength(10).overwrite(true).build();
+        MemoryMappedLookupTable table = new MemoryMappedLookupTable.Builder(file).cache(cache).readOnly(true).build();
+        table.putVector("word1", Nd4j.ones(10));
+    }
+
+    @Test
+    public void testTrainAndReopen() throws Exception {
+        InMemoryLookupCache cache = getVocab(50);
+        File file = File.createTempFile("lookuptable", ".bin");
+        file.deleteOnExit();
+        //rows longer than a page start on their own pages
+        MemoryMappedLookupTable table = new MemoryMappedLookupTable.Builder(file).cache(cache)
+                .vectorLength(1500).negative(5).overwrite(true).build();
+        assertEquals(4096 + 2 * 8192, table.rowOffset(2));
+
+        INDArray before = table.vector("word3").dup();
+        XorShiftRandom random = new XorShiftRandom(5);
+        for (int i = 0; i < 1000; i++) {
+            VocabWord w1 = cache.wordFor("word" + (i % 50));
+            VocabWord w2 = cache.wordFor("word" + ((i + 3) % 50));
+            table.iterateSample(w1, w2, random, 0.025);
+        }
+        INDArray after = table.vector("word3");
+        assertNotEquals(before, after);
+        table.flush();
+
+        MemoryMappedLookupTable reopened = new MemoryMappedLookupTable.Builder(file).cache(cache).readOnly(true).build();
+        assertEquals(after, reopened.vector("word3"));
+    }
+
+    private static InMemoryLookupCache getVocab(int numWords) {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        for (int i = 0; i < numWords; i++) {
+            String word = "word" + i;
+            VocabWord vocabWord = new VocabWord(numWords - i, word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+            cache.incrementWordCount(word, numWords - i);
+        }
+        new Huffman(cache.vocabWords()).build();
+        return cache;
+    }
+}
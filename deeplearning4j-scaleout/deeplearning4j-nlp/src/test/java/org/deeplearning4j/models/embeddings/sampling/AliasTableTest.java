@@ -0,0 +1,82 @@
+package org.deeplearning4j.models.embeddings.sampling;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AliasTableTest {
+
+    @Test
+    public void testSampleDistribution() {
+        double[] weights = {1, 2, 3, 4, 0};
+        AliasTable table = new AliasTable(weights);
+        assertEquals(5, table.size());
+        double[] probabilities = table.probabilities();
+        for (int i = 0; i < weights.length; i++)
+            assertEquals(weights[i] / 10, probabilities[i], 1e-6);
+
+        XorShiftRandom random = new XorShiftRandom(42);
+        int numSamples = 200000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < numSamples; i++)
+            counts[table.sample(random)]++;
+        for (int i = 0; i < weights.length; i++)
+            assertEquals(weights[i] / 10, counts[i] / (double) numSamples, 0.01);
+        //a word with weight 0 is never picked
+        assertEquals(0, counts[4]);
+    }
+
+    @Test
+    public void testUnigram() {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        for (int i = 0; i < 20; i++) {
+            String word = "word" + i;
+            VocabWord vocabWord = new VocabWord(1, word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+            cache.incrementWordCount(word, (i + 1) * 10 - 1);
+        }
+        AliasTable table = AliasTable.unigram(cache, 20, 0.75);
+        double sum = 0;
+        for (int i = 0; i < 20; i++)
+            sum += Math.pow((i + 1) * 10, 0.75);
+        double[] probabilities = table.probabilities();
+        for (int i = 0; i < 20; i++)
+            assertEquals(Math.pow((i + 1) * 10, 0.75) / sum, probabilities[i], 1e-6);
+    }
+
+    @Test
+    public void testRandomSequences() {
+        XorShiftRandom a = new XorShiftRandom(0);
+        XorShiftRandom b = new XorShiftRandom(0);
+        XorShiftRandom c = new XorShiftRandom(1);
+        boolean differs = false;
+        for (int i = 0; i < 100; i++) {
+            long next = a.nextLong();
+            assertEquals(next, b.nextLong());
+            differs |= next != c.nextLong();
+            int n = a.nextInt(7);
+            b.nextInt(7);
+            assertTrue(n >= 0 && n < 7);
+            float f = a.nextFloat();
+            b.nextFloat();
+            assertTrue(f >= 0 && f < 1);
+        }
+        assertTrue(differs);
+        assertSame(XorShiftRandom.current(), XorShiftRandom.current());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAllZeroWeights() {
+        new AliasTable(new double[] {0, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() {
+        new AliasTable(new double[] {1, -1});
+    }
+}
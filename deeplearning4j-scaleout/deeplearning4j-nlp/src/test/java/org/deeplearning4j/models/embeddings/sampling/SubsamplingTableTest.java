@@ -0,0 +1,56 @@
+package org.deeplearning4j.models.embeddings.sampling;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SubsamplingTableTest {
+
+    @Test
+    public void testKeepProbabilities() {
+        //word0 is 9000 of the 10000 words, the other 1000 are 10 each of 100 words
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        for (int i = 0; i < 101; i++) {
+            String word = "word" + i;
+            int count = i == 0 ? 9000 : 10;
+            VocabWord vocabWord = new VocabWord(1, word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+            cache.incrementWordCount(word, count - 1);
+        }
+        long total = cache.totalWordOccurrences();
+        double sample = 1e-3;
+        SubsamplingTable table = new SubsamplingTable(cache, sample);
+
+        double threshold = sample * total;
+        double expected = (Math.sqrt(9000 / threshold) + 1) * threshold / 9000;
+        assertEquals(expected, table.keepProbability(0), 1e-6);
+        //rare words are always kept, as are words added to the vocab later
+        assertEquals(1f, table.keepProbability(50), 0f);
+        assertEquals(1f, table.keepProbability(500), 0f);
+
+        XorShiftRandom random = new XorShiftRandom(123);
+        VocabWord frequent = cache.wordFor("word0");
+        VocabWord rare = cache.wordFor("word50");
+        int keptFrequent = 0;
+        int keptRare = 0;
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            if (table.keep(frequent, random))
+                keptFrequent++;
+            if (table.keep(rare, random))
+                keptRare++;
+        }
+        assertEquals(expected, keptFrequent / (double) n, 0.01);
+        assertEquals(n, keptRare);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSample() {
+        new SubsamplingTable(new InMemoryLookupCache(), 0);
+    }
+}
@@ -0,0 +1,210 @@
+package org.deeplearning4j.models.glove;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CoOccurrenceCounterTest {
+
+    private static final int NUM_WORDS = 50;
+    private static final int WINDOW = 5;
+
+    private File output;
+    private File shuffled;
+
+    @Before
+    public void before() throws Exception {
+        output = File.createTempFile("cooccurrences", ".bin");
+        shuffled = File.createTempFile("cooccurrences-shuffled", ".bin");
+    }
+
+    @After
+    public void after() {
+        output.delete();
+        shuffled.delete();
+    }
+
+    @Test
+    public void testCountsMatchNaiveCount() throws Exception {
+        List<String> sentences = getSentences();
+        for (boolean symmetric : new boolean[]{true, false}) {
+            //a tiny memory budget, so shards are spilled to disk many times
+            CoOccurrenceCounter counter = new CoOccurrenceCounter.Builder()
+                    .vocab(getVocab()).windowSize(WINDOW).symmetric(symmetric)
+                    .workers(4).numShards(4).memoryBudget(4 * 40 * 50).batchSize(20)
+                    .build();
+            long written = counter.count(new CollectionSentenceIterator(sentences), output);
+
+            Map<Long, Double> expected = naiveCount(sentences, symmetric);
+            assertEquals(expected.size(), written);
+            assertEquals(written, CoOccurrenceReader.numRecords(output));
+            assertEquals(sentences.size(), counter.getNumSentences());
+
+            long previous = -1;
+            try (CoOccurrenceReader reader = new CoOccurrenceReader(output)) {
+                while (reader.next()) {
+                    long key = key(reader.getWord1(), reader.getWord2());
+                    //sorted by word1, then word2, each pair once
+                    assertTrue(key > previous);
+                    previous = key;
+                    assertNotEquals(reader.getWord1(), reader.getWord2());
+                    if (!symmetric)
+                        assertTrue(reader.getWord1() < reader.getWord2());
+                    assertEquals(expected.get(key), reader.getCount(), 1e-4);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testShuffleKeepsRecords() throws Exception {
+        List<String> sentences = getSentences();
+        CoOccurrenceCounter counter = new CoOccurrenceCounter.Builder()
+                .vocab(getVocab()).windowSize(WINDOW).workers(2).build();
+        long written = counter.count(new CollectionSentenceIterator(sentences), output);
+        Map<Long, Float> counts = readAll(output);
+
+        //in memory, and through temporary files
+        for (long budget : new long[]{written * CoOccurrenceReader.RECORD_SIZE, 100 * CoOccurrenceReader.RECORD_SIZE}) {
+            CoOccurrenceCounter.shuffle(output, shuffled, budget, null, 42);
+            assertEquals(output.length(), shuffled.length());
+            Map<Long, Float> shuffledCounts = readAll(shuffled);
+            assertEquals(counts, shuffledCounts);
+
+            int outOfOrder = 0;
+            long previous = -1;
+            try (CoOccurrenceReader reader = new CoOccurrenceReader(shuffled)) {
+                int[] words1 = new int[64];
+                int[] words2 = new int[64];
+                float[] c = new float[64];
+                int n;
+                while ((n = reader.read(words1, words2, c)) > 0) {
+                    for (int i = 0; i < n; i++) {
+                        long key = key(words1[i], words2[i]);
+                        if (key < previous)
+                            outOfOrder++;
+                        previous = key;
+                    }
+                }
+            }
+            assertTrue(outOfOrder > written / 4);
+        }
+    }
+
+    @Test
+    public void testUnknownWordsSkipped() throws Exception {
+        CoOccurrenceCounter counter = new CoOccurrenceCounter.Builder()
+                .vocab(getVocab()).windowSize(WINDOW).workers(1).build();
+        long written = counter.count(new CollectionSentenceIterator(Arrays.asList("w1 foo w1 bar w2")), output);
+        //w1 w2 in both orders, at distances 2 and 4
+        assertEquals(2, written);
+        Map<Long, Float> counts = readAll(output);
+        assertEquals(1.0f / 2 + 1.0f / 4, counts.get(key(1, 2)), 1e-6);
+        assertEquals(1.0f / 2 + 1.0f / 4, counts.get(key(2, 1)), 1e-6);
+    }
+
+    @Test
+    public void testIteratorFailureStopsWorkers() throws Exception {
+        CoOccurrenceCounter counter = new CoOccurrenceCounter.Builder()
+                .vocab(getVocab()).windowSize(WINDOW).workers(4).batchSize(20).build();
+        try {
+            counter.count(new CollectionSentenceIterator(getSentences()) {
+                private int read;
+
+                @Override
+                public String nextSentence() {
+                    if (++read > 100)
+                        throw new IllegalStateException("read failed");
+                    return super.nextSentence();
+                }
+            }, output);
+            fail("Expected the iterator's exception");
+        } catch (IllegalStateException e) {
+            assertEquals("read failed", e.getMessage());
+        }
+
+        for (Thread t : Thread.getAllStackTraces().keySet())
+            assertFalse(t.isAlive() && t.getName().startsWith("CoOccurrenceCounter-worker-"));
+    }
+
+    private static Map<Long, Double> naiveCount(List<String> sentences, boolean symmetric) {
+        Map<Long, Double> counts = new HashMap<>();
+        for (String sentence : sentences) {
+            String[] tokens = sentence.split(" ");
+            for (int i = 0; i < tokens.length; i++) {
+                for (int j = i + 1; j < Math.min(tokens.length, i + WINDOW + 1); j++) {
+                    int w1 = Integer.parseInt(tokens[i].substring(1));
+                    int w2 = Integer.parseInt(tokens[j].substring(1));
+                    if (w1 == w2)
+                        continue;
+                    double weight = 1.0 / (j - i);
+                    if (symmetric) {
+                        increment(counts, key(w1, w2), weight);
+                        increment(counts, key(w2, w1), weight);
+                    } else {
+                        increment(counts, key(Math.min(w1, w2), Math.max(w1, w2)), weight);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static void increment(Map<Long, Double> counts, long key, double by) {
+        Double count = counts.get(key);
+        counts.put(key, count == null ? by : count + by);
+    }
+
+    private static Map<Long, Float> readAll(File file) throws Exception {
+        Map<Long, Float> ret = new HashMap<>();
+        try (CoOccurrenceReader reader = new CoOccurrenceReader(file)) {
+            while (reader.next())
+                assertNull(ret.put(key(reader.getWord1(), reader.getWord2()), reader.getCount()));
+        }
+        return ret;
+    }
+
+    private static long key(int w1, int w2) {
+        return ((long) w1 << 32) | w2;
+    }
+
+    private static VocabCache getVocab() {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        for (int i = 0; i < NUM_WORDS; i++) {
+            String word = "w" + i;
+            VocabWord vocabWord = new VocabWord(1000, word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+        return cache;
+    }
+
+    private static List<String> getSentences() {
+        Random r = new Random(12345);
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + r.nextInt(20);
+            for (int j = 0; j < length; j++)
+                sb.append(j > 0 ? " " : "").append("w").append(r.nextInt(NUM_WORDS));
+            sentences.add(sb.toString());
+        }
+        return sentences;
+    }
+}
@@ -0,0 +1,101 @@
+package org.deeplearning4j.models.glove;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HogwildGloveTest {
+
+    private static final int NUM_WORDS = 10;
+
+    @Test
+    public void testWordsInSameContextAreSimilar() throws Exception {
+        HogwildGlove trainer = new HogwildGlove.Builder(getVocab())
+                .layerSize(10).windowSize(3).iterations(30).workers(4)
+                .build();
+        trainer.fit(new CollectionSentenceIterator(getSentences()), new DefaultTokenizerFactory());
+
+        List<Double> costs = trainer.getCosts();
+        assertEquals(30, costs.size());
+        assertTrue(costs.get(costs.size() - 1) < costs.get(0));
+        assertTrue(trainer.getRecordsPerSecondPerThread() > 0);
+
+        //words 0 to 4 only appear with each other, as do words 5 to 9
+        float[] vectors = trainer.getWordVectors();
+        assertTrue(cosine(vectors, 0, 1) > cosine(vectors, 0, 5));
+        assertTrue(cosine(vectors, 6, 7) > cosine(vectors, 6, 2));
+
+        Glove glove = trainer.toGlove();
+        assertEquals(cosine(vectors, 0, 1), glove.similarity("w0", "w1"), 1e-4);
+    }
+
+    @Test
+    public void testSingleWorkerIsDeterministic() throws Exception {
+        VocabCache vocab = getVocab();
+        File counts = File.createTempFile("cooccurrences", ".bin");
+        try {
+            new CoOccurrenceCounter.Builder().vocab(vocab).windowSize(3).workers(2).build()
+                    .count(new CollectionSentenceIterator(getSentences()), counts);
+            HogwildGlove.Builder builder = new HogwildGlove.Builder(vocab)
+                    .layerSize(10).iterations(3).workers(1).seed(42);
+            HogwildGlove first = builder.build();
+            first.fit(counts);
+            HogwildGlove second = builder.build();
+            second.fit(counts);
+            assertArrayEquals(first.getWeights(), second.getWeights(), 0.0f);
+            assertArrayEquals(first.getBiases(), second.getBiases(), 0.0f);
+            assertEquals(3 * CoOccurrenceReader.numRecords(counts), first.getNumRecordsProcessed());
+        } finally {
+            counts.delete();
+        }
+    }
+
+    private static double cosine(float[] vectors, int w1, int w2) {
+        int layerSize = vectors.length / NUM_WORDS;
+        double dot = 0, norm1 = 0, norm2 = 0;
+        for (int i = 0; i < layerSize; i++) {
+            float x = vectors[w1 * layerSize + i];
+            float y = vectors[w2 * layerSize + i];
+            dot += x * y;
+            norm1 += x * x;
+            norm2 += y * y;
+        }
+        return dot / Math.sqrt(norm1 * norm2);
+    }
+
+    private static VocabCache getVocab() {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        for (int i = 0; i < NUM_WORDS; i++) {
+            String word = "w" + i;
+            VocabWord vocabWord = new VocabWord(1000, word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+        return cache;
+    }
+
+    private static List<String> getSentences() {
+        Random r = new Random(12345);
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int offset = r.nextBoolean() ? 0 : NUM_WORDS / 2;
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < 10; j++)
+                sb.append(j > 0 ? " " : "").append("w").append(offset + r.nextInt(NUM_WORDS / 2));
+            sentences.add(sb.toString());
+        }
+        return sentences;
+    }
+}
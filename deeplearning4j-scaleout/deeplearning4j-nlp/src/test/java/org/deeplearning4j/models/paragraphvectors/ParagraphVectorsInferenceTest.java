@@ -0,0 +1,121 @@
+package org.deeplearning4j.models.paragraphvectors;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.models.word2vec.HogwildWord2Vec;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParagraphVectorsInferenceTest {
+
+    private static final int NUM_WORDS = 10;
+
+    private ParagraphVectors vec;
+
+    @Before
+    public void before() {
+        //label A only appears with words 0 to 4, label B with words 5 to 9. Trained skip gram,
+        //so each label's vector predicts the words of its documents, as in distributed bag of words
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < NUM_WORDS; i++)
+            words.add("w" + i);
+        words.add("A");
+        words.add("B");
+        for (int i = 0; i < words.size(); i++) {
+            VocabWord vocabWord = new VocabWord(1000, words.get(i));
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, words.get(i));
+            cache.putVocabWord(words.get(i));
+        }
+
+        Random r = new Random(12345);
+        List<int[]> sentences = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            boolean first = r.nextBoolean();
+            int[] sentence = new int[6];
+            sentence[0] = first ? NUM_WORDS : NUM_WORDS + 1;
+            for (int j = 1; j < sentence.length; j++)
+                sentence[j] = (first ? 0 : NUM_WORDS / 2) + r.nextInt(NUM_WORDS / 2);
+            sentences.add(sentence);
+        }
+        HogwildWord2Vec trainer = new HogwildWord2Vec.Builder(cache)
+                .layerSize(20).windowSize(6).iterations(5).workers(1).build();
+        trainer.fit(sentences);
+
+        vec = new ParagraphVectors.Builder()
+                .vocabCache(cache).lookupTable(trainer.lookupTable())
+                .labels(Arrays.asList("A", "B")).tokenizerFactory(new DefaultTokenizerFactory())
+                .build();
+    }
+
+    @Test
+    public void testNearestLabels() {
+        List<Pair<String, Double>> nearest = vec.nearestLabels(document(vec.vocab(), 0, 1, 2, 3), 2);
+        assertEquals(2, nearest.size());
+        assertEquals("A", nearest.get(0).getFirst());
+        assertTrue(nearest.get(0).getSecond() > nearest.get(1).getSecond());
+        assertEquals("B", vec.nearestLabels(document(vec.vocab(), 9, 7, 5), 1).get(0).getFirst());
+    }
+
+    @Test
+    public void testBatchMatchesSingleDocuments() {
+        ParagraphVectorsInference inference = new ParagraphVectorsInference.Builder(vec)
+                .epochs(20).workers(4).cacheSize(0).build();
+        List<List<VocabWord>> documents = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            documents.add(document(vec.vocab(), i % NUM_WORDS, (i + 3) % NUM_WORDS, (i * 7) % NUM_WORDS));
+        List<INDArray> batch = inference.inferVectors(documents);
+        assertEquals(documents.size(), batch.size());
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(inference.getLayerSize(), batch.get(i).length());
+            assertEquals(inference.inferVector(documents.get(i)), batch.get(i));
+        }
+        assertEquals(0, inference.getCacheSize());
+    }
+
+    @Test
+    public void testRepeatedDocumentsCached() {
+        ParagraphVectorsInference inference = new ParagraphVectorsInference.Builder(vec).cacheSize(2).build();
+        List<VocabWord> document = document(vec.vocab(), 1, 2, 3);
+        INDArray first = inference.inferVector(document);
+        assertEquals(1, inference.getCacheSize());
+        //a copy is returned, so changing it doesn't change the cached vector
+        first.muli(2);
+        assertEquals(first.div(2), inference.inferVector(document));
+
+        List<INDArray> batch = inference.inferVectors(Arrays.asList(document, document(vec.vocab(), 4, 5), document));
+        assertEquals(batch.get(0), batch.get(2));
+        assertEquals(2, inference.getCacheSize());
+        inference.inferVector(document(vec.vocab(), 6));
+        assertEquals(2, inference.getCacheSize());
+        inference.clearCache();
+        assertEquals(0, inference.getCacheSize());
+    }
+
+    @Test
+    public void testWeightsNotChanged() {
+        INDArray syn0 = vec.lookupTable().vector("A").dup();
+        vec.inferVectors(Arrays.asList(document(vec.vocab(), 0, 1), document(vec.vocab(), 5, 6)));
+        assertEquals(syn0, vec.lookupTable().vector("A"));
+    }
+
+    private static List<VocabWord> document(VocabCache vocab, int... words) {
+        List<VocabWord> ret = new ArrayList<>();
+        for (int word : words)
+            ret.add(vocab.wordFor("w" + word));
+        return ret;
+    }
+}
@@ -0,0 +1,154 @@
+package org.deeplearning4j.models.word2vec;
+
+import org.deeplearning4j.models.word2vec.wordstore.StreamingVocabBuilder;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HogwildWord2VecTest {
+
+    private static final int NUM_WORDS = 10;
+
+    @Test
+    public void testWordsInSameContextAreSimilar() {
+        VocabCache vocab = getVocab();
+        HogwildWord2Vec trainer = new HogwildWord2Vec.Builder(vocab)
+                .layerSize(20).windowSize(3).negativeSample(5).negativeTableSize(100000)
+                .iterations(5).workers(4).build();
+        List<int[]> sentences = getSentences();
+        trainer.fit(sentences);
+
+        assertEquals(5 * sentences.size() * 10, trainer.getNumWordsProcessed());
+        assertTrue(trainer.getWordsPerSecondPerThread() > 0);
+
+        Word2Vec vec = trainer.toWord2Vec();
+        //words 0 to 4 only appear with each other, as do words 5 to 9
+        assertTrue(vec.similarity("w0", "w1") > vec.similarity("w0", "w5"));
+        assertTrue(vec.similarity("w6", "w7") > vec.similarity("w6", "w2"));
+    }
+
+    @Test
+    public void testSingleWorkerIsDeterministic() {
+        List<int[]> sentences = getSentences();
+        HogwildWord2Vec.Builder builder = new HogwildWord2Vec.Builder(getVocab())
+                .layerSize(10).windowSize(2).negativeSample(3).negativeTableSize(100000)
+                .sampling(1e-3).workers(1).seed(42);
+        HogwildWord2Vec first = builder.build();
+        first.fit(sentences);
+        HogwildWord2Vec second = builder.build();
+        second.fit(sentences);
+        assertArrayEquals(first.getSyn0(), second.getSyn0(), 0.0f);
+    }
+
+    @Test
+    public void testStreamingSentences() {
+        List<String> text = new ArrayList<>();
+        for (int[] sentence : getSentences()) {
+            StringBuilder sb = new StringBuilder();
+            for (int word : sentence)
+                sb.append("w").append(word).append(" ");
+            text.add(sb.toString().trim());
+        }
+        VocabCache vocab = new StreamingVocabBuilder.Builder().minWordFrequency(1).build()
+                .buildVocab(new CollectionSentenceIterator(text));
+        assertEquals(NUM_WORDS, vocab.numWords());
+
+        HogwildWord2Vec trainer = new HogwildWord2Vec.Builder(vocab)
+                .layerSize(20).windowSize(3).negativeSample(5).negativeTableSize(100000)
+                .iterations(5).workers(4).build();
+        trainer.fit(new CollectionSentenceIterator(text), new DefaultTokenizerFactory());
+
+        assertEquals(5 * text.size() * 10, trainer.getNumWordsProcessed());
+        Word2Vec vec = trainer.toWord2Vec();
+        assertTrue(vec.similarity("w0", "w1") > vec.similarity("w0", "w5"));
+    }
+
+    @Test
+    public void testIteratorFailureStopsWorkers() throws Exception {
+        VocabCache vocab = getVocab();
+        List<String> text = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            text.add("w0 w1 w2 w3 w4");
+        HogwildWord2Vec trainer = new HogwildWord2Vec.Builder(vocab)
+                .layerSize(20).negativeSample(5).negativeTableSize(100000).workers(4).build();
+        try {
+            trainer.fit(new CollectionSentenceIterator(text) {
+                private int read;
+
+                @Override
+                public String nextSentence() {
+                    if (++read > 500)
+                        throw new IllegalStateException("read failed");
+                    return super.nextSentence();
+                }
+            }, new DefaultTokenizerFactory());
+            fail("Expected the iterator's exception");
+        } catch (IllegalStateException e) {
+            assertEquals("read failed", e.getMessage());
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (countWorkers() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(0, countWorkers());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWeightsOverMaxArrayLength() {
+        //10 words of 300 million floats each would overflow an int array length
+        new HogwildWord2Vec.Builder(getVocab()).layerSize(300000000).negativeSample(5).build();
+    }
+
+    @Test
+    public void testEncode() {
+        VocabCache vocab = getVocab();
+        List<int[]> encoded = HogwildWord2Vec.encode(vocab,
+                new CollectionSentenceIterator(Arrays.asList("w3 unknown w1", "nothing here")), new DefaultTokenizerFactory());
+        assertEquals(1, encoded.size());
+        assertArrayEquals(new int[]{vocab.indexOf("w3"), vocab.indexOf("w1")}, encoded.get(0));
+    }
+
+    private static int countWorkers() {
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && t.getName().startsWith("HogwildWord2Vec-worker-"))
+                count++;
+        }
+        return count;
+    }
+
+    private static VocabCache getVocab() {
+        InMemoryLookupCache cache = new InMemoryLookupCache();
+        for (int i = 0; i < NUM_WORDS; i++) {
+            String word = "w" + i;
+            VocabWord vocabWord = new VocabWord(1000, word);
+            vocabWord.setIndex(i);
+            cache.addToken(vocabWord);
+            cache.addWordToIndex(i, word);
+            cache.putVocabWord(word);
+        }
+        return cache;
+    }
+
+    private static List<int[]> getSentences() {
+        Random r = new Random(12345);
+        List<int[]> sentences = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int offset = r.nextBoolean() ? 0 : NUM_WORDS / 2;
+            int[] sentence = new int[10];
+            for (int j = 0; j < sentence.length; j++)
+                sentence[j] = offset + r.nextInt(NUM_WORDS / 2);
+            sentences.add(sentence);
+        }
+        return sentences;
+    }
+}
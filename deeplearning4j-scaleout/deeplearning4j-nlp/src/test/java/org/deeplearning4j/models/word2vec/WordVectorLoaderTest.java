@@ -0,0 +1,177 @@
+package org.deeplearning4j.models.word2vec;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.loader.WordVectorLoader;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class WordVectorLoaderTest {
+
+    private static final int NUM_WORDS = 500;
+    private static final int DIMS = 20;
+
+    @Test
+    public void testText() throws Exception {
+        float[][] vectors = getVectors();
+        File file = writeText(vectors, true);
+        //small chunks, so lines are split across many chunks and threads
+        Pair<InMemoryLookupTable, VocabCache> pair = new WordVectorLoader.Builder()
+                .chunkSize(1000).workers(4).build().load(file);
+        check(vectors, pair, NUM_WORDS, false);
+    }
+
+    @Test
+    public void testTextNoHeader() throws Exception {
+        float[][] vectors = getVectors();
+        File file = writeText(vectors, false);
+        Pair<InMemoryLookupTable, VocabCache> pair = new WordVectorLoader.Builder()
+                .chunkSize(1000).workers(4).build().load(file);
+        check(vectors, pair, NUM_WORDS, false);
+    }
+
+    @Test
+    public void testBinary() throws Exception {
+        float[][] vectors = getVectors();
+        File file = writeBinary(vectors);
+        Pair<InMemoryLookupTable, VocabCache> pair = new WordVectorLoader.Builder()
+                .binary(true).chunkSize(1000).workers(4).build().load(file);
+        check(vectors, pair, NUM_WORDS, false);
+
+        WordVectors normalized = WordVectorSerializer.loadGoogleModel(file, true);
+        assertEquals(NUM_WORDS, normalized.vocab().numWords());
+        assertEquals(1.0, normalized.getWordVectorMatrix("word7").norm2Number().doubleValue(), 1e-5);
+    }
+
+    @Test
+    public void testGzippedTextSameAsText() throws Exception {
+        float[][] vectors = getVectors();
+        File file = writeText(vectors, true);
+        File gzipped = File.createTempFile("vectors", ".txt.gz");
+        gzipped.deleteOnExit();
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipped))) {
+            Files.copy(file.toPath(), out);
+        }
+        WordVectors text = WordVectorSerializer.loadGoogleModel(file, false);
+        WordVectors compressed = WordVectorSerializer.loadGoogleModel(gzipped, false);
+        assertEquals(text.vocab().numWords(), compressed.vocab().numWords());
+        //neither is normalized
+        for (int i = 0; i < NUM_WORDS; i += 7) {
+            INDArray expected = text.getWordVectorMatrix(word(i));
+            INDArray actual = compressed.getWordVectorMatrix(word(i));
+            for (int j = 0; j < DIMS; j++) {
+                assertEquals(vectors[i][j], expected.getDouble(j), 1e-6 * Math.abs(vectors[i][j]));
+                assertEquals(vectors[i][j], actual.getDouble(j), 1e-6 * Math.abs(vectors[i][j]));
+            }
+        }
+    }
+
+    @Test
+    public void testMaxWords() throws Exception {
+        float[][] vectors = getVectors();
+        for (File file : new File[]{writeText(vectors, true), writeText(vectors, false)}) {
+            Pair<InMemoryLookupTable, VocabCache> pair = new WordVectorLoader.Builder()
+                    .maxWords(123).chunkSize(1000).build().load(file);
+            check(vectors, pair, 123, false);
+        }
+        Pair<InMemoryLookupTable, VocabCache> pair = new WordVectorLoader.Builder()
+                .binary(true).maxWords(123).normalize(true).build().load(writeBinary(vectors));
+        check(vectors, pair, 123, true);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingValues() throws Exception {
+        File file = File.createTempFile("vectors", ".txt");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write("2 3\nfoo 1 2 3\nbar 1 2\n");
+        }
+        new WordVectorLoader.Builder().build().load(file);
+    }
+
+    private static void check(float[][] vectors, Pair<InMemoryLookupTable, VocabCache> pair, int numWords,
+                              boolean normalized) {
+        VocabCache vocab = pair.getSecond();
+        INDArray syn0 = pair.getFirst().getSyn0();
+        assertEquals(numWords, vocab.numWords());
+        assertArrayEquals(new int[]{numWords, DIMS}, syn0.shape());
+        for (int i = 0; i < numWords; i++) {
+            assertEquals(word(i), vocab.wordAtIndex(i));
+            assertEquals(i, vocab.indexOf(word(i)));
+            double norm = 0.0;
+            for (float v : vectors[i])
+                norm += v * v;
+            double scale = normalized ? 1.0 / Math.sqrt(norm) : 1.0;
+            for (int j = 0; j < DIMS; j++)
+                assertEquals(vectors[i][j] * scale, syn0.getDouble(i, j), 1e-6 * Math.abs(vectors[i][j] * scale));
+        }
+    }
+
+    private static String word(int i) {
+        return i % 10 == 0 ? "wört_" + i : "word" + i;
+    }
+
+    private static float[][] getVectors() {
+        Random r = new Random(12345);
+        float[][] vectors = new float[NUM_WORDS][DIMS];
+        for (float[] vector : vectors)
+            for (int j = 0; j < DIMS; j++)
+                vector[j] = (float) (r.nextGaussian() * Math.pow(10, r.nextInt(6) - 4));
+        return vectors;
+    }
+
+    private static File writeText(float[][] vectors, boolean header) throws Exception {
+        File file = File.createTempFile("vectors", ".txt");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            if (header)
+                writer.write(NUM_WORDS + " " + DIMS + "\n");
+            for (int i = 0; i < NUM_WORDS; i++) {
+                writer.write(word(i));
+                for (int j = 0; j < DIMS; j++)
+                    writer.write(" " + (j % 2 == 0 ? String.valueOf(vectors[i][j]) : String.format(Locale.ROOT, "%.8e", vectors[i][j])));
+                //trailing spaces and \r\n line ends, as written by some tools
+                writer.write(i % 2 == 0 ? " \n" : "\r\n");
+            }
+        }
+        return file;
+    }
+
+    private static File writeBinary(float[][] vectors) throws Exception {
+        File file = File.createTempFile("vectors", ".bin");
+        file.deleteOnExit();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            out.write((NUM_WORDS + " " + DIMS + "\n").getBytes("UTF-8"));
+            ByteBuffer buffer = ByteBuffer.allocate(4 * DIMS).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < NUM_WORDS; i++) {
+                out.write((word(i) + " ").getBytes("UTF-8"));
+                buffer.clear();
+                for (int j = 0; j < DIMS; j++)
+                    buffer.putFloat(vectors[i][j]);
+                out.write(buffer.array());
+                //line breaks after some vectors only
+                if (i % 3 == 0)
+                    out.write('\n');
+            }
+        }
+        return file;
+    }
+}
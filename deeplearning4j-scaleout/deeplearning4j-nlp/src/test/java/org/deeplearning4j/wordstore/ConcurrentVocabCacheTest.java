@@ -0,0 +1,76 @@
+package org.deeplearning4j.wordstore;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.ConcurrentVocabCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentVocabCacheTest {
+
+    @Test
+    public void testConcurrentBuildThenFreeze() throws Exception {
+        final ConcurrentVocabCache cache = new ConcurrentVocabCache();
+        final int numWords = 1000;
+        for (int i = 0; i < numWords; i++) {
+            VocabWord word = new VocabWord(0, "word" + i);
+            word.setIndex(i);
+            cache.addToken(word);
+        }
+
+        //each thread counts every word once
+        int numThreads = 8;
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < numWords; i++)
+                        cache.incrementWordCount("word" + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        for (int i = 0; i < numWords; i++)
+            cache.putVocabWord("word" + i);
+
+        assertEquals(numWords, cache.numWords());
+        assertEquals(numThreads * numWords, cache.totalWordOccurrences());
+        assertEquals(numThreads, cache.wordFrequency("word5"));
+        assertEquals(numThreads, (int) cache.wordFor("word5").getWordFrequency());
+
+        cache.freeze();
+        assertTrue(cache.isFrozen());
+        assertEquals(numWords, cache.numWords());
+        for (int i = 0; i < numWords; i++) {
+            assertEquals(i, cache.indexOf("word" + i));
+            assertEquals("word" + i, cache.wordAtIndex(i));
+            assertEquals(numThreads, cache.wordFrequency("word" + i));
+            assertEquals(i, cache.wordFor("word" + i).getIndex());
+        }
+        assertEquals(-1, cache.indexOf("missing"));
+        assertNull(cache.wordAtIndex(numWords));
+        assertNull(cache.wordFor("missing"));
+
+        //vocab words and words are in index order once frozen
+        List<String> words = new ArrayList<>(cache.words());
+        assertEquals("word0", words.get(0));
+        assertEquals("word" + (numWords - 1), words.get(numWords - 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFrozenCantChange() {
+        ConcurrentVocabCache cache = new ConcurrentVocabCache();
+        VocabWord word = new VocabWord(1, "hello");
+        word.setIndex(0);
+        cache.addToken(word);
+        cache.putVocabWord("hello");
+        cache.freeze();
+        cache.incrementWordCount("hello");
+    }
+}
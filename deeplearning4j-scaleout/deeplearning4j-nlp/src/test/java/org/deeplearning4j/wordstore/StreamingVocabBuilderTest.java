@@ -0,0 +1,100 @@
+package org.deeplearning4j.wordstore;
+
+import org.deeplearning4j.models.word2vec.wordstore.StreamingVocabBuilder;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamingVocabBuilderTest {
+
+    @Test
+    public void testCounts() {
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            sentences.add("the cat sat on the mat rare" + i);
+
+        StreamingVocabBuilder builder = new StreamingVocabBuilder.Builder()
+                .minWordFrequency(2).workers(4).numShards(8).batchSize(10)
+                .stopWords(Arrays.asList("on"))
+                .build();
+        VocabCache vocab = builder.buildVocab(new CollectionSentenceIterator(sentences));
+
+        assertEquals(4, vocab.numWords());
+        assertEquals(6000, builder.getNumTokens());
+        assertEquals(1000, builder.getNumSentences());
+        assertEquals(0, builder.getNumPruned());
+        assertEquals(2000, vocab.wordFrequency("the"));
+        assertEquals(1000, vocab.wordFrequency("cat"));
+        assertEquals(5000, vocab.totalWordOccurrences());
+        assertFalse(vocab.containsWord("on"));
+        assertFalse(vocab.containsWord("rare1"));
+        //indexed from the most frequent word
+        assertEquals(0, vocab.indexOf("the"));
+        assertEquals(0, vocab.wordFor("the").getIndex());
+    }
+
+    @Test
+    public void testPruneRareWords() {
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            sentences.add("the cat sat rare" + i);
+
+        StreamingVocabBuilder builder = new StreamingVocabBuilder.Builder()
+                .minWordFrequency(1).workers(2).numShards(2).batchSize(10)
+                .maxVocabSize(100)
+                .build();
+        VocabCache vocab = builder.buildVocab(new CollectionSentenceIterator(sentences));
+
+        assertTrue(builder.getNumPruned() > 0);
+        assertTrue(vocab.numWords() <= 100);
+        //frequent words are never pruned and keep their full counts
+        assertEquals(1000, vocab.wordFrequency("the"));
+        assertEquals(1000, vocab.wordFrequency("sat"));
+    }
+
+    @Test
+    public void testIteratorFailureStopsWorkers() throws Exception {
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            sentences.add("the cat sat on the mat");
+
+        StreamingVocabBuilder builder = new StreamingVocabBuilder.Builder()
+                .workers(4).batchSize(10)
+                .build();
+        try {
+            builder.buildVocab(new CollectionSentenceIterator(sentences) {
+                private int read;
+
+                @Override
+                public String nextSentence() {
+                    if (++read > 500)
+                        throw new IllegalStateException("read failed");
+                    return super.nextSentence();
+                }
+            });
+            fail("Expected the iterator's exception");
+        } catch (IllegalStateException e) {
+            assertEquals("read failed", e.getMessage());
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (countWorkers() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(0, countWorkers());
+    }
+
+    private static int countWorkers() {
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && t.getName().startsWith("StreamingVocabBuilder-worker-"))
+                count++;
+        }
+        return count;
+    }
+}
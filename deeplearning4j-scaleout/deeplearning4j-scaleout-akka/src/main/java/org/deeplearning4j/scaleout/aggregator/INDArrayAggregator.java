@@ -19,43 +19,40 @@
 package org.deeplearning4j.scaleout.aggregator;
 
 import org.canova.api.conf.Configuration;
+import org.deeplearning4j.scaleout.api.encoding.DeltaAverager;
+import org.deeplearning4j.scaleout.api.encoding.EncodedUpdate;
 import org.deeplearning4j.scaleout.job.Job;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * INDArray averager
+ * INDArray averager. Results are parameters (INDArrays), or {@link EncodedUpdate}s
+ * of the change in the parameters since the last aggregate
  *
  * @author Adam Gibson
  */
 public class INDArrayAggregator extends WorkAccumulator {
-    private INDArray averaged;
+    private DeltaAverager averager = new DeltaAverager();
     private static final Logger log = LoggerFactory.getLogger(INDArrayAggregator.class);
 
     @Override
     public void accumulate(Job toAccumulate) {
-        if(toAccumulate.getResult() == null || !(toAccumulate.getResult() instanceof INDArray)) {
-            log.warn("Not accumulating result: must be of type INDArray and not null");
+        if(!(toAccumulate.getResult() instanceof INDArray) && !(toAccumulate.getResult() instanceof EncodedUpdate)) {
+            log.warn("Not accumulating result: must be of type INDArray or EncodedUpdate and not null");
             return;
         }
 
-        INDArray arr = (INDArray) toAccumulate.getResult();
+        averager.add(toAccumulate.getResult());
         seenSoFar++;
-        if(averaged == null) {
-            this.averaged = arr;
-        }
-
-        else {
-            averaged.addi(arr);
-        }
     }
 
     @Override
     public Job aggregate() {
-        if(averaged == null)
+        if(averager.isEmpty())
             return empty();
-        Job ret =  new Job(averaged.div(seenSoFar),"");
+        Job ret = new Job(averager.step(),"");
+        log.debug("Aggregated " + seenSoFar + " results of " + averager.getLastStepBytes() + " bytes");
         seenSoFar = 0.0;
         return ret;
     }
@@ -21,24 +21,34 @@ package org.deeplearning4j.scaleout.perform;
 import org.canova.api.conf.Configuration;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.scaleout.api.encoding.DeltaEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoders;
 import org.deeplearning4j.scaleout.job.Job;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 
 /**
- * Work performer for a base multi layer network
+ * Work performer for a base multi layer network.
+ * Results are the parameters until the first update, then the
+ * change in parameters since the last update, encoded with the configured {@link UpdateEncoder}
  * @author Adam Gibson
  */
 public class BaseMultiLayerNetworkWorkPerformer implements WorkerPerformer {
+    private static final Logger log = LoggerFactory.getLogger(BaseMultiLayerNetworkWorkPerformer.class);
     private MultiLayerNetwork multiLayerNetwork;
+    private DeltaEncoder deltaEncoder;
 
 
     @Override
     public void setup(Configuration conf) {
         MultiLayerConfiguration conf2 = MultiLayerConfiguration.fromJson(conf.get(MULTI_LAYER_CONF));
         multiLayerNetwork = new MultiLayerNetwork(conf2);
+        deltaEncoder = new DeltaEncoder(UpdateEncoders.create(conf.get(UpdateEncoder.ENCODING)));
     }
 
     @Override
@@ -47,7 +57,9 @@ public class BaseMultiLayerNetworkWorkPerformer implements WorkerPerformer {
         if(work instanceof DataSet) {
             DataSet data = (DataSet) work;
             multiLayerNetwork.fit(data);
-            job.setResult(multiLayerNetwork.params());
+            Serializable result = deltaEncoder.encode(multiLayerNetwork.params());
+            log.debug("Sending " + DeltaEncoder.numBytes(result) + " bytes");
+            job.setResult(result);
         }
     }
 
@@ -55,6 +67,7 @@ public class BaseMultiLayerNetworkWorkPerformer implements WorkerPerformer {
     public void update(Object... o) {
         INDArray arr = (INDArray) o[0];
         multiLayerNetwork.setParams(arr);
+        deltaEncoder.setBase(arr);
 
     }
 }
@@ -22,18 +22,27 @@ import org.canova.api.conf.Configuration;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.layers.factory.LayerFactories;
+import org.deeplearning4j.scaleout.api.encoding.DeltaEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoders;
 import org.deeplearning4j.scaleout.job.Job;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 
 /**
- * Neural network work performer
+ * Neural network work performer.
+ * Results are the parameters until the first update, then the
+ * change in parameters since the last update, encoded with the configured {@link UpdateEncoder}
  * @author Adam Gibson
  */
 public class NeuralNetWorkPerformer implements WorkerPerformer {
+    private static final Logger log = LoggerFactory.getLogger(NeuralNetWorkPerformer.class);
     protected Layer neuralNetwork;
+    protected DeltaEncoder deltaEncoder;
 
     public NeuralNetWorkPerformer() {
 
@@ -50,7 +59,9 @@ public class NeuralNetWorkPerformer implements WorkerPerformer {
             neuralNetwork.fit((INDArray) work);
         }
 
-        job.setResult(neuralNetwork.params());
+        Serializable result = deltaEncoder.encode(neuralNetwork.params());
+        log.debug("Sending " + DeltaEncoder.numBytes(result) + " bytes");
+        job.setResult(result);
 
 
     }
@@ -59,6 +70,7 @@ public class NeuralNetWorkPerformer implements WorkerPerformer {
     public void update(Object... o) {
         INDArray arr = (INDArray) o[0];
         neuralNetwork.setParams(arr);
+        deltaEncoder.setBase(arr);
 
     }
 
@@ -66,5 +78,6 @@ public class NeuralNetWorkPerformer implements WorkerPerformer {
     public void setup(Configuration conf) {
         NeuralNetConfiguration conf2 = NeuralNetConfiguration.fromJson(conf.get(NEURAL_NET_CONF));
         this.neuralNetwork = LayerFactories.getFactory(conf2.getLayer()).create(conf2);
+        this.deltaEncoder = new DeltaEncoder(UpdateEncoders.create(conf.get(UpdateEncoder.ENCODING)));
     }
 }
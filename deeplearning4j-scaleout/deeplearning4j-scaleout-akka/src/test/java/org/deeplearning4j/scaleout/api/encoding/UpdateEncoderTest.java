@@ -0,0 +1,149 @@
+package org.deeplearning4j.scaleout.api.encoding;
+
+import org.deeplearning4j.scaleout.api.ir.ParameterVectorUpdateable;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class UpdateEncoderTest {
+
+    private static final float[] UPDATE = {0.5f, -2f, 0.001f, 0f, 1.25f, -0.0001f, 3f, -0.75f};
+
+    @Test
+    public void testDense() {
+        UpdateEncoder encoder = UpdateEncoders.create(null);
+        EncodedUpdate encoded = encoder.encode(Nd4j.create(UPDATE));
+        assertEquals(UpdateEncoding.DENSE, encoded.getEncoding());
+        assertArrayEquals(UPDATE, encoded.decode(), 0f);
+        assertEquals(encoded.getDenseBytes(), encoded.getNumBytes());
+        assertEquals(encoded.getNumBytes(), encoder.getBytesEncoded());
+    }
+
+    @Test
+    public void testFloat16() {
+        EncodedUpdate encoded = UpdateEncoders.create("float16").encode(Nd4j.create(UPDATE));
+        assertEquals(UpdateEncoding.DENSE_FLOAT16, encoded.getEncoding());
+        float[] decoded = encoded.decode();
+        for(int i = 0; i < UPDATE.length; i++)
+            assertEquals(UPDATE[i], decoded[i], Math.abs(UPDATE[i]) * 1e-3 + 1e-7);
+        assertTrue(encoded.getNumBytes() < encoded.getDenseBytes());
+        //out of range values are clamped
+        assertEquals(65504f, Float16UpdateEncoder.toFloat(Float16UpdateEncoder.toHalf(1e6f)), 0f);
+    }
+
+    @Test
+    public void testTopK() {
+        TopKUpdateEncoder encoder = (TopKUpdateEncoder) UpdateEncoders.create("topk:0.25");
+        float[] decoded = encoder.encode(Nd4j.create(UPDATE)).decode();
+        //the 2 largest magnitudes
+        assertArrayEquals(new float[] {0, -2f, 0, 0, 0, 0, 3f, 0}, decoded, 0f);
+
+        //what wasn't sent is added to the next update
+        decoded = encoder.encode(Nd4j.create(new float[UPDATE.length])).decode();
+        assertArrayEquals(new float[] {0, 0, 0, 0, 1.25f, 0, 0, -0.75f}, decoded, 0f);
+    }
+
+    @Test
+    public void testThresholdErrorFeedback() {
+        UpdateEncoder encoder = UpdateEncoders.create("threshold:1");
+        float[] update = {0.4f, -0.4f, 2.5f};
+        float[] sent = new float[update.length];
+        for(int i = 0; i < 3; i++)
+            encoder.encode(Nd4j.create(update)).addTo(sent);
+        //at most one threshold per value per update, the rest is kept until it exceeds the threshold
+        assertArrayEquals(new float[] {1f, -1f, 3f}, sent, 0f);
+        encoder.reset();
+        assertEquals(0, encoder.getBytesEncoded());
+    }
+
+    @Test
+    public void testHasResidual() {
+        assertTrue(UpdateEncoders.hasResidual("topk:0.1"));
+        assertTrue(UpdateEncoders.hasResidual("threshold"));
+        assertFalse(UpdateEncoders.hasResidual("float16"));
+        assertFalse(UpdateEncoders.hasResidual(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownEncoding() {
+        UpdateEncoders.create("zip");
+    }
+
+    @Test
+    public void testBytesRoundTrip() {
+        for(String encoding : new String[] {"dense", "float16", "topk:0.5", "threshold:0.1"}) {
+            EncodedUpdate encoded = UpdateEncoders.create(encoding).encode(Nd4j.create(UPDATE));
+            ByteBuffer bytes = encoded.toBytes();
+            assertEquals(encoded.getNumBytes(), bytes.remaining());
+            EncodedUpdate read = EncodedUpdate.fromBytes(bytes);
+            assertEquals(encoded.getEncoding(), read.getEncoding());
+            assertArrayEquals(encoded.decode(), read.decode(), 0f);
+        }
+    }
+
+    @Test
+    public void testDeltas() {
+        INDArray initial = Nd4j.create(new float[] {1, 2, 3, 4});
+        DeltaEncoder worker1 = new DeltaEncoder(new DenseUpdateEncoder());
+        DeltaEncoder worker2 = new DeltaEncoder(new DenseUpdateEncoder());
+        DeltaAverager master = new DeltaAverager();
+
+        //parameters are sent until the master has sent some back
+        Serializable first = worker1.encode(initial);
+        assertTrue(first instanceof INDArray);
+        master.add(first);
+        master.add(worker2.encode(Nd4j.create(new float[] {3, 2, 1, 0})));
+        INDArray params = master.step();
+        assertEquals(Nd4j.create(new float[] {2, 2, 2, 2}), params);
+        assertEquals(32, master.getLastStepBytes());
+
+        worker1.setBase(params);
+        worker2.setBase(params);
+        Serializable delta = worker1.encode(Nd4j.create(new float[] {3, 2, 2, 2}));
+        assertTrue(delta instanceof EncodedUpdate);
+        master.add(delta);
+        master.add(worker2.encode(Nd4j.create(new float[] {2, 2, 2, 0})));
+        assertEquals(Nd4j.create(new float[] {2.5f, 2, 2, 1}), master.step());
+        assertTrue(master.isEmpty());
+    }
+
+    @Test
+    public void testParametersAfterFirstStep() {
+        DeltaAverager master = new DeltaAverager();
+        master.add(Nd4j.create(new float[] {2, 2, 2, 2}));
+        INDArray params = master.step();
+
+        //a worker that restarted sends its parameters: they count as a delta rather than replacing the model
+        DeltaEncoder worker = new DeltaEncoder(new DenseUpdateEncoder());
+        worker.setBase(params);
+        master.add(worker.encode(Nd4j.create(new float[] {4, 2, 2, 2})));
+        master.add(new DeltaEncoder(new DenseUpdateEncoder()).encode(Nd4j.create(new float[] {0, 0, 2, 4})));
+        assertEquals(Nd4j.create(new float[] {2, 1, 2, 3}), master.step());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDeltaWithoutParameters() {
+        DeltaAverager master = new DeltaAverager();
+        master.add(new DenseUpdateEncoder().encode(Nd4j.create(UPDATE)));
+        master.step();
+    }
+
+    @Test
+    public void testParameterVectorUpdateable() {
+        ParameterVectorUpdateable params = new ParameterVectorUpdateable(Nd4j.create(UPDATE));
+        ParameterVectorUpdateable read = new ParameterVectorUpdateable();
+        read.fromBytes(params.toBytes());
+        assertFalse(read.isDelta());
+        assertEquals(Nd4j.create(UPDATE), read.get());
+
+        EncodedUpdate encoded = new TopKUpdateEncoder(0.5).encode(Nd4j.create(UPDATE));
+        read.fromBytes(ParameterVectorUpdateable.fromResult(encoded).toBytes());
+        assertTrue(read.isDelta());
+        assertArrayEquals(encoded.decode(), read.getDelta().decode(), 0f);
+    }
+}
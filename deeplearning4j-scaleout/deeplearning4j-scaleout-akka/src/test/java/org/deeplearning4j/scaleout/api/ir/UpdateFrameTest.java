@@ -0,0 +1,138 @@
+package org.deeplearning4j.scaleout.api.ir;
+
+import org.deeplearning4j.scaleout.api.encoding.EncodedUpdate;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoders;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoding;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UpdateFrameTest {
+
+    private static final float[] UPDATE = {0.5f, -2f, 0.001f, 0f, 1.25f, -0.0001f};
+
+    @Test
+    public void testHeader() {
+        EncodedUpdate update = UpdateEncoders.create("float16").encode(Nd4j.create(UPDATE));
+        ByteBuffer bytes = UpdateFrame.write(UpdateFrame.Kind.DELTA, new int[] {2, 3}, update);
+        UpdateFrame frame = UpdateFrame.read(bytes);
+        assertEquals(UpdateFrame.VERSION, frame.getVersion());
+        assertEquals(UpdateFrame.Kind.DELTA, frame.getKind());
+        assertEquals(UpdateFrame.DataType.HALF, frame.getDataType());
+        assertEquals(UpdateFrame.Compression.NONE, frame.getCompression());
+        assertArrayEquals(new int[] {2, 3}, frame.getShape());
+        assertEquals(UpdateEncoding.DENSE_FLOAT16, frame.getEncoding());
+        assertEquals(0, bytes.remaining());
+    }
+
+    @Test
+    public void testDecodeInto() {
+        for(String encoding : new String[] {"dense", "float16", "topk:0.5", "threshold:0.1"}) {
+            EncodedUpdate update = UpdateEncoders.create(encoding).encode(Nd4j.create(UPDATE));
+            //reading works from read only buffers too
+            ByteBuffer bytes = UpdateFrame.write(UpdateFrame.Kind.DELTA, new int[] {1, UPDATE.length}, update).asReadOnlyBuffer();
+            UpdateFrame frame = UpdateFrame.read(bytes);
+            float[] target = new float[UPDATE.length];
+            Arrays.fill(target, 7f);
+            frame.decodeInto(target);
+            assertArrayEquals(update.decode(), target, 0f);
+            assertArrayEquals(update.decode(), frame.toEncodedUpdate().decode(), 0f);
+        }
+    }
+
+    @Test
+    public void testParameters() {
+        INDArray params = Nd4j.create(UPDATE, new int[] {2, 3});
+        ByteBuffer shared = new ParameterVectorUpdateable(params).toBytes().asReadOnlyBuffer();
+
+        ParameterVectorUpdateable read = new ParameterVectorUpdateable();
+        read.fromBytes(shared);
+        assertFalse(read.isDelta());
+        assertEquals(params, read.get());
+        assertArrayEquals(new int[] {2, 3}, read.get().shape());
+        //reading doesn't move the shared buffer
+        assertEquals(0, shared.position());
+        read.fromBytes(shared);
+        assertEquals(params, read.get());
+    }
+
+    @Test
+    public void testParametersIntoTarget() {
+        for(String encoding : new String[] {"dense", "float16", "topk:0.5", "threshold:0.1"}) {
+            EncodedUpdate update = UpdateEncoders.create(encoding).encode(Nd4j.create(UPDATE));
+            ByteBuffer bytes = UpdateFrame.write(UpdateFrame.Kind.PARAMETERS, new int[] {1, UPDATE.length}, update);
+            INDArray target = Nd4j.valueArrayOf(UPDATE.length, 7);
+            ParameterVectorUpdateable read = new ParameterVectorUpdateable();
+            read.setTarget(target);
+            read.fromBytes(bytes);
+            //decoded in place
+            assertTrue(read.get() == target);
+            assertEquals(Nd4j.create(update.decode()), target);
+        }
+
+        //a target of another length is not used
+        INDArray other = Nd4j.zeros(UPDATE.length + 1);
+        ParameterVectorUpdateable read = new ParameterVectorUpdateable();
+        read.setTarget(other);
+        read.fromBytes(new ParameterVectorUpdateable(Nd4j.create(UPDATE)).toBytes());
+        assertEquals(Nd4j.create(UPDATE), read.get());
+        assertEquals(Nd4j.zeros(UPDATE.length + 1), other);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadMagic() {
+        UpdateFrame.read(ByteBuffer.allocate(64));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNewerVersion() {
+        ByteBuffer bytes = new ParameterVectorUpdateable(Nd4j.create(UPDATE)).toBytes();
+        bytes.put(4, (byte) (UpdateFrame.VERSION + 1));
+        UpdateFrame.read(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        ByteBuffer bytes = new ParameterVectorUpdateable(Nd4j.create(UPDATE)).toBytes();
+        bytes.limit(bytes.limit() - 1);
+        UpdateFrame.read(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedShape() {
+        ByteBuffer bytes = new ParameterVectorUpdateable(Nd4j.create(UPDATE)).toBytes();
+        //magic, version, kind, data type, compression and rank of 2, but only one int of the shape
+        bytes.limit(4 + 5 + 4);
+        UpdateFrame.read(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPayloadDoesNotMatchShape() {
+        ByteBuffer bytes = new ParameterVectorUpdateable(Nd4j.create(UPDATE)).toBytes();
+        //a shape of 1 x (length - 1) for a payload of length floats
+        bytes.putInt(4 + 5 + 4, UPDATE.length - 1);
+        UpdateFrame.read(bytes);
+    }
+
+    @Test
+    public void testShortPayload() {
+        for(String encoding : new String[] {"dense", "float16", "topk:0.5", "threshold:0.1"}) {
+            EncodedUpdate update = UpdateEncoders.create(encoding).encode(Nd4j.create(UPDATE));
+            ByteBuffer bytes = UpdateFrame.write(UpdateFrame.Kind.DELTA, new int[] {1, UPDATE.length}, update);
+            //a payload length that fits the buffer, but is one byte short for the shape (or the count of sparse values)
+            int payloadLength = 4 + 5 + 4 * 2;
+            bytes.putInt(payloadLength, bytes.getInt(payloadLength) - 1);
+            try {
+                UpdateFrame.read(bytes);
+                fail("Payload of the wrong size for " + encoding + " should be rejected");
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+    }
+}
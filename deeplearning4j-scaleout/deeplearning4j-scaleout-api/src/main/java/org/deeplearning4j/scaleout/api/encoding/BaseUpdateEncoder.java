@@ -0,0 +1,71 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base update encoder: encodes a flat float copy of the update and counts the bytes encoded.
+ * Lossy encoders can keep what they didn't send in the residual, to be added to the next update
+ */
+public abstract class BaseUpdateEncoder implements UpdateEncoder {
+
+    private final AtomicLong bytesEncoded = new AtomicLong();
+    protected float[] residual;
+
+    @Override
+    public synchronized EncodedUpdate encode(INDArray update) {
+        EncodedUpdate ret = encode(update.dup().data().asFloat());
+        bytesEncoded.addAndGet(ret.getNumBytes());
+        return ret;
+    }
+
+    /**
+     * Encode an update
+     * @param update a copy of the update, which may be modified
+     * @return the encoded update
+     */
+    protected abstract EncodedUpdate encode(float[] update);
+
+    /**
+     * Add the residual of the last update to the given update
+     * @param update the update to add to
+     */
+    protected void addResidual(float[] update) {
+        if(residual == null)
+            return;
+        if(residual.length != update.length)
+            throw new IllegalArgumentException("Update of length " + update.length + " does not match residual of length " + residual.length);
+        for(int i = 0; i < update.length; i++)
+            update[i] += residual[i];
+    }
+
+    @Override
+    public long getBytesEncoded() {
+        return bytesEncoded.get();
+    }
+
+    @Override
+    public synchronized void reset() {
+        bytesEncoded.set(0);
+        residual = null;
+    }
+}
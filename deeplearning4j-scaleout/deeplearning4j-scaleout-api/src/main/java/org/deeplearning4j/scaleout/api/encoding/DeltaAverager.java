@@ -0,0 +1,154 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Serializable;
+
+/**
+ * Master side of sending parameters as encoded deltas (see {@link DeltaEncoder}):
+ * averages the results of a step, and applies them to the current parameters.
+ *
+ * Results are either parameters (INDArrays), from workers that haven't received parameters yet,
+ * or {@link EncodedUpdate}s of the change in a worker's parameters. Until there are current parameters,
+ * parameters are averaged to become the current parameters. After that, parameters (from a worker that
+ * joined late or restarted) count as the delta from the current parameters, so they are averaged in
+ * with the other deltas rather than replacing the model.
+ */
+public class DeltaAverager implements Serializable {
+
+    private float[] params;
+    private float[] paramSum;
+    private int numParams;
+    private float[] deltaSum;
+    private int numDeltas;
+    private long stepBytes;
+    private long lastStepBytes;
+    private long totalBytes;
+
+    /**
+     * Set the current parameters
+     * @param params the parameters
+     */
+    public synchronized void setParameters(INDArray params) {
+        this.params = params.dup().data().asFloat();
+    }
+
+    /**
+     * Add the result of a worker to the current step
+     * @param result the parameters (INDArray) or change in parameters (EncodedUpdate)
+     */
+    public synchronized void add(Serializable result) {
+        if(result instanceof EncodedUpdate) {
+            EncodedUpdate update = (EncodedUpdate) result;
+            if(deltaSum == null)
+                deltaSum = new float[update.getLength()];
+            update.addTo(deltaSum);
+            numDeltas++;
+        }
+        else if(result instanceof INDArray) {
+            float[] arr = ((INDArray) result).dup().data().asFloat();
+            if(params != null) {
+                if(arr.length != params.length)
+                    throw new IllegalArgumentException("Parameters of length " + arr.length + " do not match " + params.length);
+                if(deltaSum == null)
+                    deltaSum = new float[arr.length];
+                for(int i = 0; i < arr.length; i++)
+                    deltaSum[i] += arr[i] - params[i];
+                numDeltas++;
+            }
+            else {
+                if(paramSum == null) {
+                    paramSum = arr;
+                }
+                else {
+                    if(arr.length != paramSum.length)
+                        throw new IllegalArgumentException("Parameters of length " + arr.length + " do not match " + paramSum.length);
+                    for(int i = 0; i < arr.length; i++)
+                        paramSum[i] += arr[i];
+                }
+                numParams++;
+            }
+        }
+        else
+            throw new IllegalArgumentException("Result must be an INDArray or EncodedUpdate, not " + result);
+        stepBytes += DeltaEncoder.numBytes(result);
+    }
+
+    /**
+     * @return whether no results have been added for the current step
+     */
+    public synchronized boolean isEmpty() {
+        return numParams == 0 && numDeltas == 0;
+    }
+
+    /**
+     * End the current step: apply the averaged results to the current parameters
+     * @return the new parameters
+     */
+    public synchronized INDArray step() {
+        if(numParams > 0) {
+            for(int i = 0; i < paramSum.length; i++)
+                paramSum[i] /= numParams;
+            params = paramSum;
+        }
+        if(numDeltas > 0) {
+            if(params == null)
+                throw new IllegalStateException("Received parameter deltas before any parameters");
+            if(params.length != deltaSum.length)
+                throw new IllegalStateException("Parameter deltas of length " + deltaSum.length + " do not match parameters of length " + params.length);
+            for(int i = 0; i < params.length; i++)
+                params[i] += deltaSum[i] / numDeltas;
+        }
+        if(params == null)
+            throw new IllegalStateException("No parameters");
+
+        paramSum = null;
+        deltaSum = null;
+        numParams = 0;
+        numDeltas = 0;
+        lastStepBytes = stepBytes;
+        totalBytes += stepBytes;
+        stepBytes = 0;
+        return Nd4j.create(params.clone());
+    }
+
+    /**
+     * @return the current parameters, or null if there are none yet
+     */
+    public synchronized INDArray getParameters() {
+        return params == null ? null : Nd4j.create(params.clone());
+    }
+
+    /**
+     * @return the number of bytes of results received in the last step
+     */
+    public synchronized long getLastStepBytes() {
+        return lastStepBytes;
+    }
+
+    /**
+     * @return the number of bytes of results received in all steps
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+}
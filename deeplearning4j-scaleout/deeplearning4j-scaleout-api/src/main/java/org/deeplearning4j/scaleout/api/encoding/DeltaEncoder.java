@@ -0,0 +1,84 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+
+/**
+ * Worker side of sending parameters as encoded deltas: encodes the change in the parameters
+ * since they were last received from the master. Until parameters have been received
+ * from the master the parameters themselves are sent. See {@link DeltaAverager} for the master side.
+ */
+public class DeltaEncoder implements Serializable {
+
+    private UpdateEncoder encoder;
+    private INDArray base;
+
+    /**
+     * @param encoder the encoder for the deltas
+     */
+    public DeltaEncoder(UpdateEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * Set the parameters received from the master, that deltas are relative to.
+     * The parameters are copied, in to the last base if it is of the same length
+     * @param params the parameters
+     */
+    public void setBase(INDArray params) {
+        if(base != null && base.length() == params.length())
+            base.assign(params);
+        else
+            this.base = params.dup();
+    }
+
+    /**
+     * Encode the current parameters of the worker
+     * @param params the parameters
+     * @return an {@link EncodedUpdate} of the delta from the last parameters received,
+     * or a copy of the parameters (an INDArray) if none have been received
+     */
+    public Serializable encode(INDArray params) {
+        if(base == null)
+            return params.dup();
+        return encoder.encode(params.sub(base));
+    }
+
+    /**
+     * Number of bytes the given result of {@link #encode(INDArray)} takes to send
+     * @param encoded the encoded parameters
+     * @return the number of bytes
+     */
+    public static long numBytes(Serializable encoded) {
+        if(encoded instanceof EncodedUpdate)
+            return ((EncodedUpdate) encoded).getNumBytes();
+        return 4L * ((INDArray) encoded).length();
+    }
+
+    public UpdateEncoder getEncoder() {
+        return encoder;
+    }
+
+    public INDArray getBase() {
+        return base;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lossless encoding of every value as a 32 bit float
+ */
+public class DenseUpdateEncoder extends BaseUpdateEncoder {
+
+    @Override
+    protected EncodedUpdate encode(float[] update) {
+        ByteBuffer buf = ByteBuffer.allocate(4 * update.length);
+        buf.asFloatBuffer().put(update);
+        return new EncodedUpdate(UpdateEncoding.DENSE, update.length, buf.array());
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * An update encoded by an {@link UpdateEncoder}: the encoding, the length of the update
+ * and the encoded bytes. Decoding needs no state, so updates can be decoded anywhere.
+ */
+public class EncodedUpdate implements Serializable {
+
+    //encoding ordinal and length
+    public final static int HEADER_BYTES = 5;
+
+    private final UpdateEncoding encoding;
+    private final int length;
+    private final byte[] data;
+
+    /**
+     * @param encoding the encoding of the data
+     * @param length the length of the (decoded) update
+     * @param data the encoded update
+     */
+    public EncodedUpdate(UpdateEncoding encoding, int length, byte[] data) {
+        this.encoding = encoding;
+        this.length = length;
+        this.data = data;
+    }
+
+    /**
+     * Decode the update
+     * @return the update
+     */
+    public float[] decode() {
+        float[] ret = new float[length];
+        addTo(ret);
+        return ret;
+    }
+
+    /**
+     * Decode the update
+     * @return the update as a row vector
+     */
+    public INDArray toArray() {
+        return Nd4j.create(decode());
+    }
+
+    /**
+     * Decode the update, adding it to the given array
+     * @param target the array to add to, of the same length as the update
+     */
+    public void addTo(float[] target) {
+        addTo(encoding, length, ByteBuffer.wrap(data), target);
+    }
+
+    /**
+     * Decode an update straight from a buffer, adding it to the given array
+     * @param encoding the encoding of the data
+     * @param length the length of the (decoded) update
+     * @param buf the encoded data, read from its position
+     * @param target the array to add to, of the same length as the update
+     */
+    public static void addTo(UpdateEncoding encoding, int length, ByteBuffer buf, float[] target) {
+        if(target.length != length)
+            throw new IllegalArgumentException("Update of length " + length + " can't be added to array of length " + target.length);
+        switch(encoding) {
+            case DENSE:
+                for(int i = 0; i < length; i++)
+                    target[i] += buf.getFloat();
+                break;
+            case DENSE_FLOAT16:
+                for(int i = 0; i < length; i++)
+                    target[i] += Float16UpdateEncoder.toFloat(buf.getShort());
+                break;
+            case SPARSE: {
+                int count = buf.getInt();
+                for(int i = 0; i < count; i++) {
+                    int idx = buf.getInt();
+                    target[idx] += buf.getFloat();
+                }
+                break;
+            }
+            case THRESHOLD: {
+                float threshold = buf.getFloat();
+                int count = buf.getInt();
+                for(int i = 0; i < count; i++) {
+                    //index + 1, negated for -threshold
+                    int idx = buf.getInt();
+                    if(idx > 0)
+                        target[idx - 1] += threshold;
+                    else
+                        target[-idx - 1] -= threshold;
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown encoding " + encoding);
+        }
+    }
+
+    /**
+     * Decode an update straight from a buffer, adding it to the given float buffer (such as the data of an INDArray)
+     * @param encoding the encoding of the data
+     * @param length the length of the (decoded) update
+     * @param buf the encoded data, read from its position
+     * @param target the buffer to add to, from index 0, at least as long as the update
+     */
+    public static void addTo(UpdateEncoding encoding, int length, ByteBuffer buf, FloatBuffer target) {
+        if(target.limit() < length)
+            throw new IllegalArgumentException("Update of length " + length + " can't be added to buffer of length " + target.limit());
+        switch(encoding) {
+            case DENSE:
+                for(int i = 0; i < length; i++)
+                    target.put(i, target.get(i) + buf.getFloat());
+                break;
+            case DENSE_FLOAT16:
+                for(int i = 0; i < length; i++)
+                    target.put(i, target.get(i) + Float16UpdateEncoder.toFloat(buf.getShort()));
+                break;
+            case SPARSE: {
+                int count = buf.getInt();
+                for(int i = 0; i < count; i++) {
+                    int idx = checkIndex(buf.getInt(), length);
+                    target.put(idx, target.get(idx) + buf.getFloat());
+                }
+                break;
+            }
+            case THRESHOLD: {
+                float threshold = buf.getFloat();
+                int count = buf.getInt();
+                for(int i = 0; i < count; i++) {
+                    //index + 1, negated for -threshold
+                    int idx = buf.getInt();
+                    if(idx > 0)
+                        target.put(checkIndex(idx - 1, length), target.get(idx - 1) + threshold);
+                    else
+                        target.put(checkIndex(-idx - 1, length), target.get(-idx - 1) - threshold);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown encoding " + encoding);
+        }
+    }
+
+    private static int checkIndex(int idx, int length) {
+        if(idx < 0 || idx >= length)
+            throw new IllegalArgumentException("Index " + idx + " out of range for update of length " + length);
+        return idx;
+    }
+
+    /**
+     * Write the encoding, length and data to a buffer
+     * @return the encoded update, {@link #getNumBytes()} long
+     */
+    public ByteBuffer toBytes() {
+        ByteBuffer buf = ByteBuffer.allocate(getNumBytes());
+        buf.put((byte) encoding.ordinal());
+        buf.putInt(length);
+        buf.put(data);
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Read an update written by {@link #toBytes()}
+     * @param buf the buffer to read from, positioned at the start of the update.
+     *            All remaining bytes are read
+     * @return the update
+     */
+    public static EncodedUpdate fromBytes(ByteBuffer buf) {
+        int ordinal = buf.get();
+        if(ordinal < 0 || ordinal >= UpdateEncoding.values().length)
+            throw new IllegalArgumentException("Unknown encoding " + ordinal);
+        int length = buf.getInt();
+        byte[] data = new byte[buf.remaining()];
+        buf.get(data);
+        return new EncodedUpdate(UpdateEncoding.values()[ordinal], length, data);
+    }
+
+    public UpdateEncoding getEncoding() {
+        return encoding;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return a read only view of the encoded data, without the encoding and length
+     */
+    public ByteBuffer getData() {
+        return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the number of bytes of the encoded update
+     */
+    public int getNumBytes() {
+        return HEADER_BYTES + data.length;
+    }
+
+    /**
+     * @return the number of bytes the update would take as 32 bit floats
+     */
+    public int getDenseBytes() {
+        return HEADER_BYTES + 4 * length;
+    }
+}
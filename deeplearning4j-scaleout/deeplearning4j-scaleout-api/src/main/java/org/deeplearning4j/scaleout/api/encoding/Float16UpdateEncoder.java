@@ -0,0 +1,84 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding of every value as a 16 bit (IEEE 754 half precision) float: half the size of
+ * dense 32 bit floats, with about 3 significant digits. Values beyond +/- 65504 are clamped.
+ */
+public class Float16UpdateEncoder extends BaseUpdateEncoder {
+
+    @Override
+    protected EncodedUpdate encode(float[] update) {
+        ByteBuffer buf = ByteBuffer.allocate(2 * update.length);
+        for(float f : update)
+            buf.putShort(toHalf(f));
+        return new EncodedUpdate(UpdateEncoding.DENSE_FLOAT16, update.length, buf.array());
+    }
+
+    /**
+     * Round a float to the nearest half precision float
+     * @param f the float
+     * @return the bits of the half precision float
+     */
+    public static short toHalf(float f) {
+        int bits = Float.floatToIntBits(f);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7fffffff;
+        //rounded: adds half of the lowest bit kept
+        int val = abs + 0x1000;
+        if(val >= 0x47800000) {
+            if(abs >= 0x7f800000)
+                //NaN or infinity
+                return (short) (sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 : 0));
+            //too big: largest half
+            return (short) (sign | 0x7bff);
+        }
+        if(val >= 0x38800000)
+            //normal
+            return (short) (sign | ((val - 0x38000000) >>> 13));
+        if(val < 0x33000000)
+            //too small: zero
+            return (short) sign;
+        //subnormal
+        int exp = abs >>> 23;
+        return (short) (sign | (((abs & 0x7fffff | 0x800000) + (0x800000 >>> (exp - 102))) >>> (126 - exp)));
+    }
+
+    /**
+     * @param half the bits of a half precision float
+     * @return the float
+     */
+    public static float toFloat(short half) {
+        int h = half & 0xffff;
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1f;
+        int mantissa = h & 0x3ff;
+        if(exp == 0x1f)
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        if(exp == 0) {
+            //zero or subnormal: mantissa * 2^-24
+            float val = mantissa * 5.9604645e-8f;
+            return sign == 0 ? val : -val;
+        }
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mantissa << 13));
+    }
+}
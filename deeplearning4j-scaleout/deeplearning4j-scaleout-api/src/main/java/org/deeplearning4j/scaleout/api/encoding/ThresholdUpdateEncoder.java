@@ -0,0 +1,70 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Threshold quantization with error feedback: each value of at least threshold (in magnitude)
+ * is sent as +/- threshold, 4 bytes for its signed index. What isn't sent (values smaller
+ * than the threshold, and the rest of larger values) is kept and added to the next update.
+ */
+public class ThresholdUpdateEncoder extends BaseUpdateEncoder {
+
+    private float threshold;
+
+    /**
+     * @param threshold the threshold, > 0
+     */
+    public ThresholdUpdateEncoder(float threshold) {
+        if(threshold <= 0)
+            throw new IllegalArgumentException("Threshold must be > 0");
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected EncodedUpdate encode(float[] update) {
+        addResidual(update);
+        int count = 0;
+        for(float val : update)
+            if(Math.abs(val) >= threshold)
+                count++;
+
+        ByteBuffer buf = ByteBuffer.allocate(8 + 4 * count);
+        buf.putFloat(threshold);
+        buf.putInt(count);
+        for(int i = 0; i < update.length; i++) {
+            if(update[i] >= threshold) {
+                buf.putInt(i + 1);
+                update[i] -= threshold;
+            }
+            else if(update[i] <= -threshold) {
+                buf.putInt(-(i + 1));
+                update[i] += threshold;
+            }
+        }
+
+        residual = update;
+        return new EncodedUpdate(UpdateEncoding.THRESHOLD, update.length, buf.array());
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Sparse encoding of the k largest (by magnitude) values of each update, as index and value pairs.
+ * With error feedback (the default) the values not sent are kept, and added to the next update,
+ * so that small but consistent changes are sent eventually.
+ */
+public class TopKUpdateEncoder extends BaseUpdateEncoder {
+
+    private double fraction;
+    private boolean errorFeedback;
+
+    /**
+     * @param fraction the fraction of values to send each update, > 0 and <= 1
+     */
+    public TopKUpdateEncoder(double fraction) {
+        this(fraction, true);
+    }
+
+    /**
+     * @param fraction the fraction of values to send each update, > 0 and <= 1
+     * @param errorFeedback whether to keep the values not sent, and add them to the next update
+     */
+    public TopKUpdateEncoder(double fraction, boolean errorFeedback) {
+        if(fraction <= 0 || fraction > 1)
+            throw new IllegalArgumentException("Fraction must be > 0 and <= 1");
+        this.fraction = fraction;
+        this.errorFeedback = errorFeedback;
+    }
+
+    @Override
+    protected EncodedUpdate encode(float[] update) {
+        if(errorFeedback)
+            addResidual(update);
+        int k = (int) Math.min(update.length, Math.max(1, Math.ceil(fraction * update.length)));
+        float threshold = kthLargestMagnitude(update, k);
+
+        ByteBuffer buf = ByteBuffer.allocate(4 + 8 * k);
+        buf.putInt(0);
+        int count = 0;
+        for(int i = 0; i < update.length && count < k; i++) {
+            float val = update[i];
+            if(val != 0 && Math.abs(val) >= threshold) {
+                buf.putInt(i);
+                buf.putFloat(val);
+                update[i] = 0;
+                count++;
+            }
+        }
+        buf.putInt(0, count);
+
+        //what's left wasn't sent
+        if(errorFeedback)
+            residual = update;
+        return new EncodedUpdate(UpdateEncoding.SPARSE, update.length, Arrays.copyOf(buf.array(), 4 + 8 * count));
+    }
+
+    //quickselect on the magnitudes
+    private static float kthLargestMagnitude(float[] values, int k) {
+        float[] abs = new float[values.length];
+        for(int i = 0; i < abs.length; i++)
+            abs[i] = Math.abs(values[i]);
+        int target = abs.length - k;
+        int left = 0;
+        int right = abs.length - 1;
+        while(left < right) {
+            int mid = (left + right) >>> 1;
+            float pivot = median(abs[left], abs[mid], abs[right]);
+            int i = left;
+            int j = right;
+            while(i <= j) {
+                while(abs[i] < pivot)
+                    i++;
+                while(abs[j] > pivot)
+                    j--;
+                if(i <= j) {
+                    float tmp = abs[i];
+                    abs[i] = abs[j];
+                    abs[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if(target <= j)
+                right = j;
+            else if(target >= i)
+                left = i;
+            else
+                break;
+        }
+        return abs[target];
+    }
+
+    private static float median(float a, float b, float c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    public double getFraction() {
+        return fraction;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+
+/**
+ * Encodes updates (parameter deltas or gradients) to be sent to the master.
+ * Encoders may be lossy and may keep state between updates (the residual of what
+ * wasn't sent yet), so there should be one instance per worker.
+ */
+public interface UpdateEncoder extends Serializable {
+
+    /**
+     * Configuration key for the encoding used by workers,
+     * see {@link UpdateEncoders#create(String)} for the values
+     */
+    String ENCODING = "org.deeplearning4j.scaleout.encoding";
+
+    /**
+     * Encode an update
+     * @param update the update to encode, not modified
+     * @return the encoded update
+     */
+    EncodedUpdate encode(INDArray update);
+
+    /**
+     * Total number of bytes encoded so far
+     * @return the number of bytes
+     */
+    long getBytesEncoded();
+
+    /**
+     * Forget any state kept between updates
+     */
+    void reset();
+
+}
@@ -0,0 +1,85 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+/**
+ * Creates {@link UpdateEncoder}s from a configuration value
+ */
+public class UpdateEncoders {
+
+    public final static String DENSE = "dense";
+    public final static String FLOAT16 = "float16";
+    public final static String TOP_K = "topk";
+    public final static String THRESHOLD = "threshold";
+
+    public final static double DEFAULT_TOP_K_FRACTION = 0.01;
+    public final static float DEFAULT_THRESHOLD = 1e-3f;
+
+    private UpdateEncoders() {
+    }
+
+    /**
+     * Create an encoder
+     * @param encoding one of dense (the default, for null), float16, topk[:fraction] (default 0.01)
+     *                 or threshold[:threshold] (default 1e-3)
+     * @return a new encoder
+     */
+    public static UpdateEncoder create(String encoding) {
+        if(encoding == null || encoding.isEmpty())
+            return new DenseUpdateEncoder();
+        String name = encoding;
+        String arg = null;
+        int colon = encoding.indexOf(':');
+        if(colon >= 0) {
+            name = encoding.substring(0, colon);
+            arg = encoding.substring(colon + 1);
+        }
+
+        try {
+            switch(name.trim().toLowerCase()) {
+                case DENSE:
+                    return new DenseUpdateEncoder();
+                case FLOAT16:
+                    return new Float16UpdateEncoder();
+                case TOP_K:
+                    return new TopKUpdateEncoder(arg == null ? DEFAULT_TOP_K_FRACTION : Double.parseDouble(arg));
+                case THRESHOLD:
+                    return new ThresholdUpdateEncoder(arg == null ? DEFAULT_THRESHOLD : Float.parseFloat(arg));
+                default:
+                    throw new IllegalArgumentException("Unknown update encoding " + encoding);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal update encoding " + encoding, e);
+        }
+    }
+
+    /**
+     * Whether encoders of the given encoding keep a residual between updates (error feedback),
+     * so that the same encoder should be used for every update of a worker
+     * @param encoding the encoding, as for {@link #create(String)}
+     * @return true for top k and threshold encodings
+     */
+    public static boolean hasResidual(String encoding) {
+        if(encoding == null)
+            return false;
+        int colon = encoding.indexOf(':');
+        String name = (colon >= 0 ? encoding.substring(0, colon) : encoding).trim().toLowerCase();
+        return name.equals(TOP_K) || name.equals(THRESHOLD);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.encoding;
+
+/**
+ * The encodings of an {@link EncodedUpdate}
+ */
+public enum UpdateEncoding {
+    /** Every value, as a 32 bit float */
+    DENSE,
+    /** Every value, as a 16 bit (half precision) float */
+    DENSE_FLOAT16,
+    /** The indices and values of some of the values, the rest are 0 */
+    SPARSE,
+    /** Signed indices of values of +/- a threshold, the rest are 0 */
+    THRESHOLD
+}
@@ -18,24 +18,35 @@
 
 package org.deeplearning4j.scaleout.api.ir;
 
-import org.apache.commons.compress.utils.IOUtils;
+import org.deeplearning4j.scaleout.api.encoding.DenseUpdateEncoder;
+import org.deeplearning4j.scaleout.api.encoding.EncodedUpdate;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
-import java.io.IOException;
+import java.io.Serializable;
 import java.nio.ByteBuffer;
 
 
 /**
- * Parameter vecotr updateable
+ * Parameter vector updateable: either a parameter vector, or an encoded
+ * change in the parameters (see {@link org.deeplearning4j.scaleout.api.encoding.DeltaEncoder}).
+ * Sent as an {@link UpdateFrame}.
+ *
+ * Parameters read with {@link #fromBytes(ByteBuffer)} are decoded in to a buffer that is reused by
+ * the next call of the same length: an updateable reused to receive parameters doesn't allocate
+ * per update, but the parameters it returned before are overwritten. With a target set
+ * (see {@link #setTarget(INDArray)}) they are decoded straight in to the target instead.
  * @author Adam Gibson
  */
 public class ParameterVectorUpdateable implements Updateable<INDArray> {
 
     INDArray paramMessage = null;
+    EncodedUpdate delta = null;
+    //parameters are decoded in to this
+    private float[] buffer;
+    //or in to this, if set and of the same length
+    private INDArray target;
 
     public ParameterVectorUpdateable() {
     }
@@ -44,35 +55,92 @@ public class ParameterVectorUpdateable implements Updateable<INDArray> {
         this.paramMessage = g;
     }
 
+    public ParameterVectorUpdateable(EncodedUpdate delta) {
+        this.delta = delta;
+    }
+
+    /**
+     * @param result parameters (INDArray) or an encoded change in the parameters (EncodedUpdate)
+     * @return an updateable for the result
+     */
+    public static ParameterVectorUpdateable fromResult(Serializable result) {
+        if(result instanceof EncodedUpdate)
+            return new ParameterVectorUpdateable((EncodedUpdate) result);
+        return new ParameterVectorUpdateable((INDArray) result);
+    }
+
     @Override
     public void fromBytes(ByteBuffer b) {
-        b.rewind();
-        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(b.array()));
-        try {
-            paramMessage = Nd4j.read(dis);
-        } catch (IOException e) {
-            e.printStackTrace();
+        ByteBuffer buf = b.duplicate();
+        buf.rewind();
+        UpdateFrame frame = UpdateFrame.read(buf);
+        if(frame.getKind() == UpdateFrame.Kind.DELTA) {
+            delta = frame.toEncodedUpdate();
+            paramMessage = null;
         }
+        else if(target != null && target.length() == frame.getLength()) {
+            frame.decodeInto(target);
+            paramMessage = target;
+            delta = null;
+        }
+        else {
+            if(buffer == null || buffer.length != frame.getLength())
+                buffer = new float[frame.getLength()];
+            frame.decodeInto(buffer);
+            paramMessage = Nd4j.create(buffer, frame.getShape());
+            delta = null;
+        }
+    }
 
-        IOUtils.closeQuietly(dis);
-
+    /**
+     * Decode the parameters read by {@link #fromBytes(ByteBuffer)} straight in to the given array,
+     * such as the flattened parameters of a network, rather than in to a buffer of this updateable.
+     * {@link #get()} then returns the target itself
+     * @param target the array to decode parameters in to, or null to use a buffer
+     */
+    public void setTarget(INDArray target) {
+        this.target = target;
     }
 
+    /**
+     * @return the parameters, or the decoded change in the parameters if this is a delta
+     */
     @Override
     public INDArray get() {
+        if(paramMessage == null && delta != null)
+            return delta.toArray();
         return this.paramMessage;
     }
 
     @Override
     public void set(INDArray t) {
         this.paramMessage = t;
+        this.delta = null;
+    }
+
+    /**
+     * @return whether this is an encoded change in the parameters, rather than the parameters
+     */
+    public boolean isDelta() {
+        return delta != null;
+    }
+
+    public EncodedUpdate getDelta() {
+        return delta;
+    }
+
+    /**
+     * @return the parameters (INDArray) or encoded change in the parameters (EncodedUpdate)
+     */
+    public Serializable getResult() {
+        return delta != null ? delta : paramMessage;
     }
 
     @Override
     public ByteBuffer toBytes() {
-        byte[] bytes = paramMessage.data().asBytes();
-        ByteBuffer buf = ByteBuffer.wrap(bytes);
-        return buf;
+        if(delta != null)
+            return UpdateFrame.write(UpdateFrame.Kind.DELTA, new int[] {1, delta.getLength()}, delta);
+        return UpdateFrame.write(UpdateFrame.Kind.PARAMETERS, paramMessage.shape(), new DenseUpdateEncoder().encode(paramMessage));
     }
 
     @Override
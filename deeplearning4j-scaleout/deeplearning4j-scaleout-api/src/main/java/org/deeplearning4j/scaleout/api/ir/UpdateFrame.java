@@ -0,0 +1,318 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.scaleout.api.ir;
+
+import org.deeplearning4j.scaleout.api.encoding.EncodedUpdate;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoding;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Framed binary format of a {@link ParameterVectorUpdateable}, as sent between
+ * IterativeReduce workers and the master. Big endian:
+ *
+ * <pre>
+ * int     magic
+ * byte    version
+ * byte    kind         (parameters or delta)
+ * byte    data type    (of the values in the payload)
+ * byte    compression  (how the values are laid out)
+ * byte    rank
+ * int[]   shape
+ * int     payload length in bytes
+ * byte[]  payload      (the data of an {@link EncodedUpdate})
+ * </pre>
+ *
+ * Reading a frame doesn't copy the payload, so frames can be read from shared read only buffers
+ * and decoded straight into an existing array with {@link #decodeInto(float[])}.
+ */
+public class UpdateFrame {
+
+    public final static int MAGIC = 0x444C3455;
+    public final static byte VERSION = 1;
+
+    public enum Kind {
+        PARAMETERS, DELTA
+    }
+
+    public enum DataType {
+        FLOAT, HALF
+    }
+
+    public enum Compression {
+        NONE, SPARSE, THRESHOLD
+    }
+
+    private final byte version;
+    private final Kind kind;
+    private final DataType dataType;
+    private final Compression compression;
+    private final int[] shape;
+    private final ByteBuffer payload;
+
+    private UpdateFrame(byte version, Kind kind, DataType dataType, Compression compression, int[] shape, ByteBuffer payload) {
+        this.version = version;
+        this.kind = kind;
+        this.dataType = dataType;
+        this.compression = compression;
+        this.shape = shape;
+        this.payload = payload;
+    }
+
+    /**
+     * Write a frame
+     * @param kind whether the update is parameters or a change in parameters
+     * @param shape the shape of the (decoded) update
+     * @param update the encoded update
+     * @return the frame, positioned at its start
+     */
+    public static ByteBuffer write(Kind kind, int[] shape, EncodedUpdate update) {
+        if(length(shape) != update.getLength())
+            throw new IllegalArgumentException("Shape " + Arrays.toString(shape) + " does not match update of length " + update.getLength());
+        ByteBuffer data = update.getData();
+        ByteBuffer buf = ByteBuffer.allocate(headerBytes(shape.length) + data.remaining());
+        buf.putInt(MAGIC);
+        buf.put(VERSION);
+        buf.put((byte) kind.ordinal());
+        buf.put((byte) dataType(update.getEncoding()).ordinal());
+        buf.put((byte) compression(update.getEncoding()).ordinal());
+        buf.put((byte) shape.length);
+        for(int i : shape)
+            buf.putInt(i);
+        buf.putInt(data.remaining());
+        buf.put(data);
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Read a frame from the position of the given buffer, which is left at the end of the frame.
+     * The payload is a view of the buffer, not a copy
+     * @param buf the buffer to read from
+     * @return the frame
+     */
+    public static UpdateFrame read(ByteBuffer buf) {
+        if(buf.remaining() < headerBytes(0))
+            throw new IllegalArgumentException("Buffer of " + buf.remaining() + " bytes is too short for an update frame");
+        int magic = buf.getInt();
+        if(magic != MAGIC)
+            throw new IllegalArgumentException("Not an update frame: bad magic number " + Integer.toHexString(magic));
+        byte version = buf.get();
+        if(version < 1 || version > VERSION)
+            throw new IllegalArgumentException("Unsupported update frame version " + version + ", at most " + VERSION + " is supported");
+        Kind kind = valueOf(Kind.values(), buf.get(), "kind");
+        DataType dataType = valueOf(DataType.values(), buf.get(), "data type");
+        Compression compression = valueOf(Compression.values(), buf.get(), "compression");
+        int rank = buf.get();
+        if(rank < 0)
+            throw new IllegalArgumentException("Illegal rank " + rank);
+        if(buf.remaining() < 4 * rank + 4)
+            throw new IllegalArgumentException("Buffer of " + buf.remaining() + " bytes is too short for the shape of rank " + rank);
+        int[] shape = new int[rank];
+        long length = 1;
+        for(int i = 0; i < rank; i++) {
+            shape[i] = buf.getInt();
+            length *= shape[i];
+            if(shape[i] < 0 || length > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Illegal shape " + Arrays.toString(shape));
+        }
+        int payloadBytes = buf.getInt();
+        if(payloadBytes < 0 || payloadBytes > buf.remaining())
+            throw new IllegalArgumentException("Payload of " + payloadBytes + " bytes does not fit the " + buf.remaining() + " remaining");
+
+        ByteBuffer payload = buf.slice();
+        payload.limit(payloadBytes);
+        buf.position(buf.position() + payloadBytes);
+        UpdateFrame frame = new UpdateFrame(version, kind, dataType, compression, shape, payload.asReadOnlyBuffer());
+        //fail on unsupported combinations and truncated payloads here rather than when decoding
+        long expected = frame.expectedPayloadBytes();
+        if(payloadBytes != expected)
+            throw new IllegalArgumentException("Payload of " + payloadBytes + " bytes for " + frame.getEncoding()
+                    + " update of length " + frame.getLength() + ", expected " + expected);
+        return frame;
+    }
+
+    //Size of the payload implied by the encoding and shape (and, for sparse encodings, the count of values)
+    private long expectedPayloadBytes() {
+        UpdateEncoding encoding = getEncoding();
+        int length = getLength();
+        switch(encoding) {
+            case DENSE:
+                return 4L * length;
+            case DENSE_FLOAT16:
+                return 2L * length;
+            case SPARSE:
+                return payload.remaining() < 4 ? 4 : 4 + 8L * count(payload.getInt(0), length);
+            case THRESHOLD:
+                return payload.remaining() < 8 ? 8 : 8 + 4L * count(payload.getInt(4), length);
+            default:
+                throw new IllegalStateException("Unknown encoding " + encoding);
+        }
+    }
+
+    private static int count(int count, int length) {
+        if(count < 0 || count > length)
+            throw new IllegalArgumentException("Illegal count of " + count + " values for update of length " + length);
+        return count;
+    }
+
+    /**
+     * Decode the update in to the given array, overwriting its contents
+     * @param target the array to decode in to, of the length of the update
+     */
+    public void decodeInto(float[] target) {
+        if(target.length != getLength())
+            throw new IllegalArgumentException("Update of length " + getLength() + " can't be decoded in to array of length " + target.length);
+        UpdateEncoding encoding = getEncoding();
+        if(encoding == UpdateEncoding.DENSE) {
+            payload.duplicate().asFloatBuffer().get(target);
+            return;
+        }
+        Arrays.fill(target, 0f);
+        EncodedUpdate.addTo(encoding, target.length, payload.duplicate(), target);
+    }
+
+    /**
+     * Decode the update in to the given array, such as the flattened parameters of a network,
+     * overwriting its contents. Where the array is the whole of a float buffer (as the flattened parameters are),
+     * dense float updates are bulk copied from the payload in to the buffer, and sparse updates are added to
+     * the zeroed buffer, without allocating a decoded copy
+     * @param target the array to decode in to, of the length of the update
+     */
+    public void decodeInto(INDArray target) {
+        if(target.length() != getLength())
+            throw new IllegalArgumentException("Update of length " + getLength() + " can't be decoded in to array of length " + target.length());
+        UpdateEncoding encoding = getEncoding();
+        FloatBuffer values = floatBuffer(target);
+        if(values == null) {
+            float[] decoded = new float[getLength()];
+            decodeInto(decoded);
+            for(int i = 0; i < decoded.length; i++)
+                target.putScalar(i, decoded[i]);
+            return;
+        }
+        if(encoding == UpdateEncoding.DENSE) {
+            values.put(payload.duplicate().asFloatBuffer());
+            return;
+        }
+        target.assign(0);
+        EncodedUpdate.addTo(encoding, getLength(), payload.duplicate(), values);
+    }
+
+    //Writable view of the data of an array that is the whole of a float buffer, or null
+    private static FloatBuffer floatBuffer(INDArray arr) {
+        DataBuffer data = arr.data();
+        if(data.dataType() != DataBuffer.Type.FLOAT || arr.offset() != 0 || arr.length() != data.length())
+            return null;
+        FloatBuffer ret = data.asNioFloat().duplicate();
+        ret.clear();
+        return ret;
+    }
+
+    /**
+     * @return a copy of the payload as an encoded update
+     */
+    public EncodedUpdate toEncodedUpdate() {
+        byte[] data = new byte[payload.remaining()];
+        payload.duplicate().get(data);
+        return new EncodedUpdate(getEncoding(), getLength(), data);
+    }
+
+    /**
+     * @return the encoding of the payload
+     */
+    public UpdateEncoding getEncoding() {
+        switch(compression) {
+            case NONE:
+                return dataType == DataType.HALF ? UpdateEncoding.DENSE_FLOAT16 : UpdateEncoding.DENSE;
+            case SPARSE:
+                if(dataType == DataType.FLOAT)
+                    return UpdateEncoding.SPARSE;
+                break;
+            case THRESHOLD:
+                if(dataType == DataType.FLOAT)
+                    return UpdateEncoding.THRESHOLD;
+                break;
+        }
+        throw new IllegalArgumentException("Unsupported compression " + compression + " of data type " + dataType);
+    }
+
+    /**
+     * @return the number of elements of the (decoded) update
+     */
+    public int getLength() {
+        return length(shape);
+    }
+
+    public byte getVersion() {
+        return version;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public DataType getDataType() {
+        return dataType;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public int[] getShape() {
+        return shape.clone();
+    }
+
+    private static DataType dataType(UpdateEncoding encoding) {
+        return encoding == UpdateEncoding.DENSE_FLOAT16 ? DataType.HALF : DataType.FLOAT;
+    }
+
+    private static Compression compression(UpdateEncoding encoding) {
+        switch(encoding) {
+            case SPARSE:
+                return Compression.SPARSE;
+            case THRESHOLD:
+                return Compression.THRESHOLD;
+            default:
+                return Compression.NONE;
+        }
+    }
+
+    private static int headerBytes(int rank) {
+        return 4 + 5 + 4 * rank + 4;
+    }
+
+    private static int length(int[] shape) {
+        int length = 1;
+        for(int i : shape)
+            length *= i;
+        return length;
+    }
+
+    private static <E> E valueOf(E[] values, byte ordinal, String name) {
+        if(ordinal < 0 || ordinal >= values.length)
+            throw new IllegalArgumentException("Unknown " + name + " " + ordinal);
+        return values[ordinal];
+    }
+}
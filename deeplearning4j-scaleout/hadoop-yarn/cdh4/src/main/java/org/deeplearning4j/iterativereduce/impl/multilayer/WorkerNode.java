@@ -18,6 +18,7 @@
 
 package org.deeplearning4j.iterativereduce.impl.multilayer;
 
+import java.io.Serializable;
 import java.util.List;
 
 
@@ -28,6 +29,9 @@ import org.apache.hadoop.mapreduce.RecordReader;
 import org.deeplearning4j.datasets.iterator.DataSetIterator;
 import org.deeplearning4j.iterativereduce.impl.reader.RecordReaderDataSetIterator;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
+import org.deeplearning4j.scaleout.api.encoding.DeltaEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoders;
 import org.deeplearning4j.scaleout.api.ir.ParameterVectorUpdateable;
 import org.deeplearning4j.iterativereduce.runtime.ComputableWorker;
 
@@ -35,6 +39,7 @@ import org.deeplearning4j.iterativereduce.runtime.ComputableWorker;
 import org.deeplearning4j.nn.conf.DeepLearningConfigurable;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +62,8 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
     private long totalRecordsProcessed = 0;
     private StopWatch totalRunTimeWatch = new StopWatch();
     private StopWatch batchWatch = new StopWatch();
+    //sends the change in parameters since the last master update
+    private DeltaEncoder deltaEncoder;
 
     // confs (for now, may get rid of later)
     private int batchSize = 20;
@@ -104,9 +111,9 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
             log.info("Worker > Idle pass, no records left to process");
 
 
-
-
-        return new ParameterVectorUpdateable(multiLayerNetwork.params());
+        Serializable result = deltaEncoder.encode(multiLayerNetwork.params());
+        log.info("Worker > Sending " + DeltaEncoder.numBytes(result) + " bytes, " + deltaEncoder.getEncoder().getBytesEncoded() + " bytes of deltas in total");
+        return ParameterVectorUpdateable.fromResult(result);
     }
 
     @Override
@@ -149,6 +156,11 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
         if(labelIndex < 0)
             throw new IllegalStateException("Illegal label index");
         multiLayerNetwork = new MultiLayerNetwork(conf2);
+        multiLayerNetwork.init();
+        //layer parameters as views of one vector, that master updates are decoded straight in to
+        if(!multiLayerNetwork.isParamsFlattened())
+            multiLayerNetwork.reDistributeParams();
+        deltaEncoder = new DeltaEncoder(UpdateEncoders.create(conf.get(UpdateEncoder.ENCODING)));
 
 
     }
@@ -162,7 +174,13 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
      */
     @Override
     public void update(ParameterVectorUpdateable masterUpdateUpdateable) {
-        multiLayerNetwork.setParameters(masterUpdateUpdateable.get());
+        INDArray params = multiLayerNetwork.params();
+        INDArray update = masterUpdateUpdateable.get();
+        //already decoded in to the network's parameters, unless this is the first update
+        if(update != params)
+            multiLayerNetwork.setParameters(update);
+        deltaEncoder.setBase(params);
+        masterUpdateUpdateable.setTarget(params);
     }
 
 
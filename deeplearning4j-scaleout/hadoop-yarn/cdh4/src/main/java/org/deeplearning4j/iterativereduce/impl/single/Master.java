@@ -21,6 +21,7 @@ package org.deeplearning4j.iterativereduce.impl.single;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ToolRunner;
+import org.deeplearning4j.scaleout.api.encoding.DeltaAverager;
 import org.deeplearning4j.scaleout.api.ir.ParameterVectorUpdateable;
 import org.deeplearning4j.iterativereduce.runtime.ComputableMaster;
 import org.deeplearning4j.iterativereduce.runtime.yarn.appmaster.ApplicationMaster;
@@ -41,6 +42,7 @@ public class Master implements ComputableMaster<ParameterVectorUpdateable> {
     ParameterVectorUpdateable lastMasterUpdate = null;
     protected Configuration conf = null;
     protected INDArray paramVector;
+    protected DeltaAverager averager = new DeltaAverager();
     private static final Logger log = LoggerFactory.getLogger(Master.class);
 
 
@@ -71,17 +73,14 @@ public class Master implements ComputableMaster<ParameterVectorUpdateable> {
             Collection<ParameterVectorUpdateable> masterUpdates) {
 
         log.info("--------------- Master::Compute() -------------- ");
-        ParameterVectorUpdateable first = null;
-        for(ParameterVectorUpdateable update : workerUpdates) {
-            if(first == null)
-                first = update;
-            else
-                first.get().addi(update.get());
-        }
-
-        first.get().divi(workerUpdates.size());
-
-        return first;
+        //workers send their parameters, or the (encoded) change in them once they have received parameters
+        for(ParameterVectorUpdateable update : workerUpdates)
+            averager.add(update.getResult());
+
+        paramVector = averager.step();
+        lastMasterUpdate = new ParameterVectorUpdateable(paramVector);
+        log.info("Master received " + averager.getLastStepBytes() + " bytes from " + workerUpdates.size() + " workers");
+        return lastMasterUpdate;
     }
 
 
@@ -20,6 +20,9 @@ package org.deeplearning4j.iterativereduce.impl.single;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.RecordReader;
+import org.deeplearning4j.scaleout.api.encoding.DeltaEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoders;
 import org.deeplearning4j.scaleout.api.ir.ParameterVectorUpdateable;
 import org.deeplearning4j.iterativereduce.runtime.ComputableWorker;
 import org.deeplearning4j.nn.api.Layer;
@@ -31,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.List;
 
 
@@ -45,6 +49,8 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
     private static final Logger LOG = LoggerFactory.getLogger(WorkerNode.class);
     private Layer neuralNetwork;
     private RecordReader recordParser;
+    //sends the change in parameters since the last master update
+    private DeltaEncoder deltaEncoder;
 
 
     /**
@@ -97,7 +103,9 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
             e.printStackTrace();
         }
 
-        return new ParameterVectorUpdateable(neuralNetwork.params());
+        Serializable result = deltaEncoder.encode(neuralNetwork.params());
+        LOG.info("Worker > Sending " + DeltaEncoder.numBytes(result) + " bytes");
+        return ParameterVectorUpdateable.fromResult(result);
     }
 
     @Override
@@ -130,6 +138,7 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
         NeuralNetConfiguration conf2 = NeuralNetConfiguration.fromJson(conf.get(NEURAL_NET_CONF));
 
         neuralNetwork = LayerFactories.getFactory(conf2.getLayer()).create(conf2);
+        deltaEncoder = new DeltaEncoder(UpdateEncoders.create(conf.get(UpdateEncoder.ENCODING)));
 
 
     }
@@ -144,6 +153,7 @@ public class WorkerNode implements ComputableWorker<ParameterVectorUpdateable>,D
     @Override
     public void update(ParameterVectorUpdateable masterUpdateUpdateable) {
         neuralNetwork.setParams(masterUpdateUpdateable.get());
+        deltaEncoder.setBase(masterUpdateUpdateable.get());
     }
 
 
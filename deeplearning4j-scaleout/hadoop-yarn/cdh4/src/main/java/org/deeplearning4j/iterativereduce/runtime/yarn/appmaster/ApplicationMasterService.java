@@ -82,6 +82,10 @@ public class ApplicationMasterService<T extends Updateable> implements
   private MasterState masterState;
   private int currentUpdateId = 0;
   private Map<Integer, T> masterUpdates;
+  // Each master update is encoded once, and the buffer shared by all fetches.
+  // The buffers are never written to once added: fetches only get duplicates of them.
+  // They aren't read only, so that Avro can write out their backing array without copying it
+  private Map<Integer, ByteBuffer> masterUpdateBytes;
 
   private ComputableMaster<T> computable;
   private Class<T> updateable;
@@ -117,6 +121,7 @@ public class ApplicationMasterService<T extends Updateable> implements
 
     this.masterState = MasterState.WAITING;
     this.masterUpdates = new HashMap<>();
+    this.masterUpdateBytes = new HashMap<>();
     this.masterAddr = masterAddr;
     this.computable = computable;
     this.updateable = updatable;
@@ -376,12 +381,18 @@ public class ApplicationMasterService<T extends Updateable> implements
             // check master computable to see if it wants to end early
             //earlyTerminationDetected = computable.checkEarlyTerminationCondition();
 
+            // encode outside the lock, once for all the workers
+            ByteBuffer resultBytes = result.toBytes();
+
             synchronized (masterUpdates) {
 
               // we pre-do this so
               currentUpdateId++;
               // changed around the id to inc after put
               masterUpdates.put(currentUpdateId, result);
+              masterUpdateBytes.put(currentUpdateId, resultBytes);
+              // workers only fetch the latest update
+              masterUpdateBytes.remove(currentUpdateId - 1);
 
               LOG.info("Adding master update for " + currentUpdateId + "");
 
@@ -431,10 +442,24 @@ public class ApplicationMasterService<T extends Updateable> implements
       workersState.put(workerId, WorkerState.RUNNING);
     }
 
-    ByteBuffer bytes = masterUpdates.get(updateId).toBytes();
-    bytes.rewind();
+    ByteBuffer bytes;
+    synchronized (masterUpdates) {
+      bytes = masterUpdateBytes.get(updateId);
+      if (bytes == null) {
+        T update = masterUpdates.get(updateId);
+        if (update == null)
+          throw ServiceError.newBuilder()
+                  .setDescription("Unknown update " + updateId).build();
+
+        bytes = update.toBytes();
+      }
+    }
+
+    // An independent position and limit over the shared bytes, not a copy
+    ByteBuffer ret = bytes.duplicate();
+    ret.rewind();
 
-    return bytes;
+    return ret;
   }
 
   @Override
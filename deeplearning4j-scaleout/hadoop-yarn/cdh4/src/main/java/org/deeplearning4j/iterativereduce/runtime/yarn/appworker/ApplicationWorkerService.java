@@ -62,6 +62,8 @@ public class ApplicationWorkerService<T extends Updateable> {
   private CanovaRecordReader recordParser;
   private ComputableWorker<T> computable;
   private Class<T> updateable;
+  // Reused for every update fetched from the master, so it can decode in to the same buffers
+  private T masterUpdate;
 
   private Map<String, Integer> progressCounters;
   private ProgressReport progressReport;
@@ -244,7 +246,8 @@ public class ApplicationWorkerService<T extends Updateable> {
       try {
         ByteBuffer b = masterService.fetch(workerId, nextUpdate);
         b.rewind();
-        T masterUpdate = updateable.newInstance();
+        if (masterUpdate == null)
+          masterUpdate = updateable.newInstance();
         masterUpdate.fromBytes(b);
         computable.update(masterUpdate);
         lastUpdate = nextUpdate;
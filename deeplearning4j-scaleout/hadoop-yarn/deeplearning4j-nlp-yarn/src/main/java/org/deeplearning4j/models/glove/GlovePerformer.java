@@ -148,11 +148,12 @@ public class GlovePerformer implements WorkerPerformer {
         conf.set(JobAggregator.AGGREGATOR, GloveJobAggregator.class.getName());
         conf.set(WorkerPerformerFactory.WORKER_PERFORMER,GlovePerformerFactory.class.getName());
         table.resetWeights();
-        if(table.getNegative() > 0) {
+        if(table.getNegative() > 0 && table.getUnigramTable() != null) {
+            //the probability of sampling each word, as for word2vec
             ByteArrayOutputStream bis = new ByteArrayOutputStream();
             try {
                 DataOutputStream ois = new DataOutputStream(bis);
-                Nd4j.write(table.getTable(),ois);
+                Nd4j.write(Nd4j.create(table.getUnigramTable().probabilities()),ois);
             } catch (IOException e) {
                 e.printStackTrace();
             }
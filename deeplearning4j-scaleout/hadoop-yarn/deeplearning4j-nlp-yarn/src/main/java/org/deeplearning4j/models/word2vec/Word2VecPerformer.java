@@ -21,6 +21,8 @@ package org.deeplearning4j.models.word2vec;
 import org.apache.commons.math3.util.FastMath;
 import org.canova.api.conf.Configuration;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.sampling.AliasTable;
+import org.deeplearning4j.models.embeddings.sampling.XorShiftRandom;
 import org.deeplearning4j.scaleout.aggregator.JobAggregator;
 import org.deeplearning4j.scaleout.api.statetracker.StateTracker;
 import org.deeplearning4j.scaleout.job.Job;
@@ -39,7 +41,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Base line word 2 vec performer
@@ -62,15 +63,18 @@ public class Word2VecPerformer implements WorkerPerformer {
     public final static String TOTAL_WORDS = NAME_SPACE + ".totalwords";
     public final static String NUM_WORDS_SO_FAR = NAME_SPACE + ".wordssofar";
     public final static String ITERATIONS = NAME_SPACE + ".iterations";
+    public final static String SEED = NAME_SPACE + ".seed";
 
     double[] expTable = new double[1000];
     static double MAX_EXP = 6;
     private boolean useAdaGrad = false;
     private double negative = 5;
     private int numWords = 1;
-    private INDArray table;
+    private AliasTable unigramTable;
     private int window = 5;
-    private AtomicLong nextRandom = new AtomicLong(5);
+    private long seed = 5;
+    //seeded from the seed and the worker id on the first job
+    private XorShiftRandom random;
     private double alpha = 0.025;
     private double minAlpha = 1e-2;
     private int totalWords = 1;
@@ -87,6 +91,8 @@ public class Word2VecPerformer implements WorkerPerformer {
 
     @Override
     public void perform(Job job) {
+        if(random == null)
+            random = new XorShiftRandom(seed + (job.workerId() == null ? 0 : job.workerId().hashCode()));
 
         if(job.getWork() instanceof Word2VecWork) {
             double numWordsSoFar = stateTracker.count(NUM_WORDS_SO_FAR);
@@ -166,6 +172,8 @@ public class Word2VecPerformer implements WorkerPerformer {
         minAlpha = conf.getFloat(MIN_ALPHA, 1e-2f);
         totalWords = conf.getInt(NUM_WORDS,1);
         iterations = conf.getInt(ITERATIONS,5);
+        seed = conf.getLong(SEED,5);
+        random = null;
 
         initExpTable();
 
@@ -186,7 +194,11 @@ public class Word2VecPerformer implements WorkerPerformer {
             try {
                 ByteArrayInputStream bis = new ByteArrayInputStream(conf.get(TABLE).getBytes());
                 DataInputStream dis = new DataInputStream(bis);
-                table = Nd4j.read(dis);
+                INDArray probabilities = Nd4j.read(dis);
+                double[] weights = new double[probabilities.length()];
+                for(int i = 0; i < weights.length; i++)
+                    weights[i] = probabilities.getDouble(i);
+                unigramTable = new AliasTable(weights);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -211,11 +223,12 @@ public class Word2VecPerformer implements WorkerPerformer {
         conf.set(JobAggregator.AGGREGATOR, Word2VecJobAggregator.class.getName());
         conf.set(WorkerPerformerFactory.WORKER_PERFORMER, Word2VecPerformerFactory.class.getName());
         table.resetWeights();
-        if(table.getNegative() > 0) {
+        if(table.getNegative() > 0 && table.getUnigramTable() != null) {
+            //the probability of sampling each word: workers rebuild the alias table from it
             ByteArrayOutputStream bis = new ByteArrayOutputStream();
             try {
                 DataOutputStream ois = new DataOutputStream(bis);
-                Nd4j.write(table.getTable(),ois);
+                Nd4j.write(Nd4j.create(table.getUnigramTable().probabilities()),ois);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -234,8 +247,7 @@ public class Word2VecPerformer implements WorkerPerformer {
         for(int i = 0; i < sentence.size(); i++) {
             if(sentence.get(i).getWord().endsWith("STOP"))
                 continue;
-            nextRandom.set(nextRandom.get() * 25214903917L + 11);
-            skipGram(i, sentence, (int) nextRandom.get() % window,work,alpha);
+            skipGram(i, sentence, random.nextInt(window),work,alpha);
         }
 
 
@@ -352,7 +364,7 @@ public class Word2VecPerformer implements WorkerPerformer {
 
 
         //negative sampling
-        if(negative > 0) {
+        if(negative > 0 && unigramTable != null) {
             int target = w1.getIndex();
             int label;
             INDArray syn1Neg = work.getNegativeVectors().get(work.getIndexes().get(target).getWord()).getSecond();
@@ -362,10 +374,7 @@ public class Word2VecPerformer implements WorkerPerformer {
 
                     label = 1;
                 } else {
-                    nextRandom.set(nextRandom.get() * 25214903917L + 11);
-                    target = table.getInt((int) (nextRandom.get() >> 16) % table.length());
-                    if (target == 0)
-                        target = (int) nextRandom.get() % (numWords - 1) + 1;
+                    target = unigramTable.sample(random);
                     if (target == w1.getIndex())
                         continue;
                     label = 0;
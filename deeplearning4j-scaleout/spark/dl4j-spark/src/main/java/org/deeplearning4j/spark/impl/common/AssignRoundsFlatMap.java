@@ -0,0 +1,76 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.impl.common;
+
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.nd4j.linalg.dataset.DataSet;
+import scala.Tuple2;
+
+import java.util.Iterator;
+
+/**
+ * Splits a partition into minibatches of batchSize examples, each keyed by the round of
+ * averaging it is fit in: minibatches [r * averagingFrequency, (r + 1) * averagingFrequency)
+ * of the partition go to round r. The partition is read once, one minibatch at a time.
+ */
+public class AssignRoundsFlatMap implements PairFlatMapFunction<Iterator<DataSet>,Integer,DataSet> {
+
+    private int batchSize;
+    private int averagingFrequency;
+
+    /**
+     * @param batchSize the number of examples per minibatch
+     * @param averagingFrequency the number of minibatches per round
+     */
+    public AssignRoundsFlatMap(int batchSize, int averagingFrequency) {
+        if(averagingFrequency < 1)
+            throw new IllegalArgumentException("Averaging frequency must be > 0");
+        this.batchSize = batchSize;
+        this.averagingFrequency = averagingFrequency;
+    }
+
+    @Override
+    public Iterable<Tuple2<Integer, DataSet>> call(final Iterator<DataSet> dataSetIterator) throws Exception {
+        return new Iterable<Tuple2<Integer, DataSet>>() {
+            @Override
+            public Iterator<Tuple2<Integer, DataSet>> iterator() {
+                final MiniBatchDataSetIterator iter = new MiniBatchDataSetIterator(dataSetIterator, batchSize);
+                return new Iterator<Tuple2<Integer, DataSet>>() {
+                    private int batches = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public Tuple2<Integer, DataSet> next() {
+                        DataSet next = iter.next();
+                        return new Tuple2<>(batches++ / averagingFrequency, next);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+}
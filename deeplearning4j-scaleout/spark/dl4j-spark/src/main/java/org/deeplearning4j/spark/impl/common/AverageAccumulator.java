@@ -0,0 +1,202 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.impl.common;
+
+import org.deeplearning4j.scaleout.api.encoding.EncodedUpdate;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Running sum and count of arrays of the same length, for averaging parameters
+ * (or summing gradients) with treeAggregate. Accumulators are merged in place, so
+ * at most one array per task (and one in the driver) is held at any time.
+ *
+ * Serialized as the count followed by the sum as a flat float buffer, rather than as an INDArray.
+ * An accumulator holding a single {@link EncodedUpdate} keeps (and is serialized as) the encoded
+ * form until it is merged with another, so a partition's update is sent from the task as encoded.
+ *
+ * The sum is kept in single precision whatever the nd4j data type: double arrays are rounded
+ * to float when added, and the sum and average are created in the current data type from it.
+ */
+public class AverageAccumulator implements Serializable {
+
+    private transient float[] sum;
+    private transient EncodedUpdate encoded;
+    private transient long count;
+    private transient long numBytes;
+
+    /**
+     * An empty accumulator, the zero value for aggregation
+     */
+    public AverageAccumulator() {
+    }
+
+    /**
+     * Add an array to the sum. Double arrays are rounded to float
+     * @param arr the array to add
+     * @return this accumulator
+     */
+    public AverageAccumulator add(INDArray arr) {
+        numBytes += arr.length() * 4;
+        return add(arr.dup().data().asFloat(), 1);
+    }
+
+    /**
+     * Add an encoded array to the sum
+     * @param update the encoded array to add
+     * @return this accumulator
+     */
+    public AverageAccumulator add(EncodedUpdate update) {
+        numBytes += update.getNumBytes();
+        if(isEmpty()) {
+            encoded = update;
+            count = 1;
+            return this;
+        }
+        decodePending();
+        if(update.getLength() != sum.length)
+            throw new IllegalArgumentException("Array of length " + update.getLength() + " can't be added to sum of length " + sum.length);
+        update.addTo(sum);
+        count++;
+        return this;
+    }
+
+    /**
+     * Add the sum and count of another accumulator to this one
+     * @param other the accumulator to merge in
+     * @return this accumulator
+     */
+    public AverageAccumulator merge(AverageAccumulator other) {
+        if(other.isEmpty())
+            return this;
+        numBytes += other.numBytes;
+        if(isEmpty()) {
+            sum = other.sum == null ? null : other.sum.clone();
+            encoded = other.encoded;
+            count = other.count;
+            return this;
+        }
+        decodePending();
+        if(other.encoded != null) {
+            if(other.encoded.getLength() != sum.length)
+                throw new IllegalArgumentException("Array of length " + other.encoded.getLength() + " can't be added to sum of length " + sum.length);
+            other.encoded.addTo(sum);
+            count += other.count;
+            return this;
+        }
+        return add(other.sum, other.count);
+    }
+
+    private void decodePending() {
+        if(encoded != null) {
+            sum = encoded.decode();
+            encoded = null;
+        }
+    }
+
+    private AverageAccumulator add(float[] arr, long n) {
+        decodePending();
+        if(sum == null) {
+            sum = arr;
+        }
+        else {
+            if(arr.length != sum.length)
+                throw new IllegalArgumentException("Array of length " + arr.length + " can't be added to sum of length " + sum.length);
+            for(int i = 0; i < sum.length; i++)
+                sum[i] += arr[i];
+        }
+        count += n;
+        return this;
+    }
+
+    /**
+     * @return the sum of the arrays added, or null if none were
+     */
+    public INDArray getSum() {
+        decodePending();
+        return sum == null ? null : Nd4j.create(sum);
+    }
+
+    /**
+     * @return the average of the arrays added, or null if none were
+     */
+    public INDArray getAverage() {
+        decodePending();
+        return sum == null ? null : Nd4j.create(sum).divi(count);
+    }
+
+    /**
+     * @return the number of arrays added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of bytes the arrays added were sent as: 4 per element for INDArrays,
+     * the encoded size for {@link EncodedUpdate}s
+     */
+    public long getNumBytes() {
+        return numBytes;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(numBytes);
+        if(encoded != null) {
+            out.writeInt(-2);
+            out.writeObject(encoded);
+            return;
+        }
+        if(sum == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(sum.length);
+        ByteBuffer buffer = ByteBuffer.allocate(sum.length * 4);
+        buffer.asFloatBuffer().put(sum);
+        out.write(buffer.array());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        count = in.readLong();
+        numBytes = in.readLong();
+        int length = in.readInt();
+        if(length == -2) {
+            encoded = (EncodedUpdate) in.readObject();
+            return;
+        }
+        if(length < 0)
+            return;
+        byte[] bytes = new byte[length * 4];
+        in.readFully(bytes);
+        sum = new float[length];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(sum);
+    }
+}
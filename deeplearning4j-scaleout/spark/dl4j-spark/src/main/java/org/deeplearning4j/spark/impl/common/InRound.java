@@ -0,0 +1,40 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.impl.common;
+
+import org.apache.spark.api.java.function.Function;
+import org.nd4j.linalg.dataset.DataSet;
+import scala.Tuple2;
+
+/**
+ * Keeps the minibatches of one round, see {@link AssignRoundsFlatMap}
+ */
+public class InRound implements Function<Tuple2<Integer,DataSet>,Boolean> {
+
+    private int round;
+
+    public InRound(int round) {
+        this.round = round;
+    }
+
+    @Override
+    public Boolean call(Tuple2<Integer, DataSet> batch) throws Exception {
+        return batch._1() == round;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.impl.common;
+
+import org.deeplearning4j.datasets.iterator.DataSetIterator;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the data sets of a partition as minibatches of a fixed number of examples.
+ * Data sets are merged (or split) as needed, so only one minibatch (plus what's left of
+ * the last data set read) is held at a time, however big the partition is.
+ *
+ * The underlying iterator can only be read once: this can't be reset.
+ */
+public class MiniBatchDataSetIterator implements DataSetIterator {
+
+    private transient Iterator<DataSet> iterator;
+    private int batchSize;
+    private DataSet pending;
+    private int cursor;
+    private DataSetPreProcessor preProcessor;
+
+    /**
+     * @param iterator the data sets to iterate over
+     * @param batchSize the number of examples per minibatch. The last one may be smaller
+     */
+    public MiniBatchDataSetIterator(Iterator<DataSet> iterator, int batchSize) {
+        if(batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be > 0");
+        this.iterator = iterator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Skip the given number of minibatches, without merging the data sets making them up
+     * @param numBatches the number of minibatches to skip
+     */
+    public void skip(int numBatches) {
+        long toSkip = (long) numBatches * batchSize;
+        while(toSkip > 0 && hasNext()) {
+            DataSet next = nextDataSet();
+            int n = next.numExamples();
+            if(n <= toSkip) {
+                toSkip -= n;
+                cursor += n;
+            }
+            else {
+                pending = rows(next, (int) toSkip, n);
+                cursor += toSkip;
+                toSkip = 0;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null || iterator.hasNext();
+    }
+
+    @Override
+    public DataSet next() {
+        return next(batchSize);
+    }
+
+    @Override
+    public DataSet next(int num) {
+        List<DataSet> batch = new ArrayList<>();
+        int examples = 0;
+        while(examples < num && hasNext()) {
+            DataSet next = nextDataSet();
+            int n = next.numExamples();
+            if(examples + n > num) {
+                int take = num - examples;
+                pending = rows(next, take, n);
+                next = rows(next, 0, take);
+                n = take;
+            }
+            batch.add(next);
+            examples += n;
+        }
+        if(batch.isEmpty())
+            throw new NoSuchElementException();
+        cursor += examples;
+
+        DataSet ret = batch.size() == 1 ? batch.get(0) : DataSet.merge(batch, false);
+        if(preProcessor != null)
+            preProcessor.preProcess(ret);
+        return ret;
+    }
+
+    private DataSet nextDataSet() {
+        if(pending != null) {
+            DataSet ret = pending;
+            pending = null;
+            return ret;
+        }
+        return iterator.next();
+    }
+
+    //copy of examples from (inclusive) to to (exclusive)
+    private static DataSet rows(DataSet d, int from, int to) {
+        return new DataSet(rows(d.getFeatureMatrix(), from, to), rows(d.getLabels(), from, to));
+    }
+
+    private static INDArray rows(INDArray arr, int from, int to) {
+        INDArrayIndex[] indexes = new INDArrayIndex[arr.rank()];
+        indexes[0] = NDArrayIndex.interval(from, to);
+        for(int i = 1; i < indexes.length; i++)
+            indexes[i] = NDArrayIndex.all();
+        return arr.get(indexes).dup();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int totalExamples() {
+        throw new UnsupportedOperationException("Total number of examples is not known until the partition has been read");
+    }
+
+    @Override
+    public int inputColumns() {
+        return peek().getFeatureMatrix().columns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return peek().getLabels().columns();
+    }
+
+    private DataSet peek() {
+        if(pending == null)
+            pending = iterator.next();
+        return pending;
+    }
+
+    @Override
+    public void reset() {
+        throw new UnsupportedOperationException("Partition data can only be read once");
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public int cursor() {
+        return cursor;
+    }
+
+    @Override
+    public int numExamples() {
+        throw new UnsupportedOperationException("Number of examples is not known until the partition has been read");
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+}
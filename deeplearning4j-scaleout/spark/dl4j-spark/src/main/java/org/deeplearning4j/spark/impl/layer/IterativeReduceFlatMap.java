@@ -27,7 +27,6 @@ import org.deeplearning4j.nn.layers.OutputLayer;
 import org.deeplearning4j.nn.layers.factory.LayerFactories;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,7 +62,8 @@ public class IterativeReduceFlatMap implements FlatMapFunction<Iterator<DataSet>
     @Override
     public Iterable<INDArray> call(Iterator<DataSet> dataSetIterator) throws Exception {
         if(!dataSetIterator.hasNext()) {
-            return Collections.singletonList(Nd4j.zeros(params.value().shape()));
+            //nothing to train on: don't count towards the average
+            return Collections.emptyList();
         }
 
         List<DataSet> collect = new ArrayList<>();
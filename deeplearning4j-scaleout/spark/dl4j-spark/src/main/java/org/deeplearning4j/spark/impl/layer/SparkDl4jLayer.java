@@ -31,11 +31,13 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
 import org.deeplearning4j.nn.layers.factory.LayerFactories;
 import org.deeplearning4j.spark.canova.RecordReaderFunction;
-import org.deeplearning4j.spark.impl.common.Add;
+import org.deeplearning4j.spark.impl.common.AddToAverage;
+import org.deeplearning4j.spark.impl.common.AverageAccumulator;
+import org.deeplearning4j.spark.impl.common.MergeAverages;
+import org.deeplearning4j.spark.impl.multilayer.SparkDl4jMultiLayer;
 import org.deeplearning4j.spark.util.MLLibUtil;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.factory.Nd4j;
 import parquet.org.slf4j.Logger;
 import parquet.org.slf4j.LoggerFactory;
 
@@ -111,6 +113,7 @@ public class SparkDl4jLayer implements Serializable {
         if(batchSize == 0)
             batchSize = 10;
 
+        int depth = sc.getConf().getInt(SparkDl4jMultiLayer.AGGREGATION_DEPTH,2);
         log.info("Running distributed training averaging each iteration " + averageEachIteration + " and " + rdd.partitions().size() + " partitions");
         if(!averageEachIteration) {
             Layer layer = LayerFactories.getFactory(conf.getLayer()).create(conf);
@@ -120,11 +123,11 @@ public class SparkDl4jLayer implements Serializable {
             int paramsLength = layer.numParams();
             if(params.length() != paramsLength)
                 throw new IllegalStateException("Number of params " + paramsLength + " was not equal to " + params.length());
-            JavaRDD<INDArray> results = rdd.sample(true,0.4).mapPartitions(new IterativeReduceFlatMap(conf.toJson(), this.params));
-            log.debug("Ran iterative reduce...averaging results now.");
-            INDArray newParams = results.fold(Nd4j.zeros(results.first().shape()),new Add());
-            newParams.divi(rdd.partitions().size());
-            layer.setParams(newParams);
+            AverageAccumulator results = rdd.sample(true,0.4).mapPartitions(new IterativeReduceFlatMap(conf.toJson(), this.params))
+                    .treeAggregate(new AverageAccumulator(), new AddToAverage(), new MergeAverages(), depth);
+            log.debug("Averaged parameters of " + results.getCount() + " partitions");
+            if(!results.isEmpty())
+                layer.setParams(results.getAverage());
             this.layer = layer;
         }
         else {
@@ -133,18 +136,23 @@ public class SparkDl4jLayer implements Serializable {
             final INDArray params = layer.params();
             this.params = sc.broadcast(params);
 
+            int paramsLength = layer.numParams();
+            if(params.length() != paramsLength)
+                throw new IllegalStateException("Number of params " + paramsLength + " was not equal to " + params.length());
+
             for(int i = 0; i < iterations; i++) {
                 JavaRDD<INDArray> results = rdd.sample(true,0.3).mapPartitions(new IterativeReduceFlatMap(conf.toJson(), this.params));
-
-                int paramsLength = layer.numParams();
-                if(params.length() != paramsLength)
-                    throw new IllegalStateException("Number of params " + paramsLength + " was not equal to " + params.length());
-
-                INDArray newParams = results.fold(Nd4j.zeros(results.first().shape()), new Add());
-                newParams.divi(rdd.partitions().size());
+                AverageAccumulator average = results.treeAggregate(new AverageAccumulator(), new AddToAverage(), new MergeAverages(), depth);
+                log.debug("Averaged parameters of " + average.getCount() + " partitions for iteration " + i);
+                if(average.isEmpty())
+                    continue;
+                //the next iteration starts from the averaged parameters
+                layer.setParams(average.getAverage());
+                Broadcast<INDArray> old = this.params;
+                this.params = sc.broadcast(layer.params());
+                old.unpersist();
             }
 
-            layer.setParams(this.params.value());
             this.layer = layer;
 
 
@@ -0,0 +1,51 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.impl.multilayer;
+
+import org.apache.spark.api.java.function.VoidFunction;
+import org.nd4j.linalg.dataset.DataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+
+/**
+ * Drops the encoders of a training run kept by {@link IterativeReduceFlatMap} in the executors.
+ * Run over the training rdd, so that it (usually) runs on the executors that trained; the partitions
+ * themselves are not read.
+ */
+public class ClearEncodersFunction implements VoidFunction<Iterator<DataSet>> {
+
+    private static Logger log = LoggerFactory.getLogger(ClearEncodersFunction.class);
+    private String trainingId;
+
+    /**
+     * @param trainingId the training run to drop the encoders of
+     */
+    public ClearEncodersFunction(String trainingId) {
+        this.trainingId = trainingId;
+    }
+
+    @Override
+    public void call(Iterator<DataSet> dataSetIterator) throws Exception {
+        int cleared = IterativeReduceFlatMap.clearEncoders(trainingId);
+        if(cleared > 0)
+            log.debug("Dropped " + cleared + " encoders of training run " + trainingId);
+    }
+}
@@ -18,32 +18,57 @@
 
 package org.deeplearning4j.spark.impl.multilayer;
 
+import org.apache.spark.TaskContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.broadcast.Broadcast;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.optimize.listeners.ScoreIterationListener;
+import org.deeplearning4j.scaleout.api.encoding.EncodedUpdate;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoders;
+import org.deeplearning4j.spark.impl.common.MiniBatchDataSetIterator;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Iterative reduce with
- * flat map using map partitions
+ * flat map using map partitions.
+ *
+ * The partition is streamed through the network as minibatches of batchSize examples.
+ * With an averaging frequency of N > 0, only minibatches [round * N, (round + 1) * N) of the
+ * partition are fit, so that the driver can average the parameters every N minibatches;
+ * otherwise the whole partition is fit.
+ *
+ * Returns the change in parameters from the broadcast ones, encoded with the configured
+ * {@link UpdateEncoder}. Encoders (and so their residuals) are kept per partition for the
+ * duration of a training run, in the executor that ran the partition, until
+ * {@link #clearEncoders(String)} is called for the run. Error feedback is best effort:
+ * a partition that Spark runs on a different executor in a later round starts with no residual,
+ * and the residual left on the old executor is never sent.
  *
  * @author Adam Gibson
  */
-public class IterativeReduceFlatMap implements FlatMapFunction<Iterator<DataSet>,INDArray> {
+public class IterativeReduceFlatMap implements FlatMapFunction<Iterator<DataSet>,EncodedUpdate> {
+
+    public final static int DEFAULT_BATCH_SIZE = 32;
+    //encoders by training id and partition
+    private final static Map<String,UpdateEncoder> encoders = new ConcurrentHashMap<>();
 
     private String json;
     private Broadcast<INDArray> params;
+    private int batchSize;
+    private int averagingFrequency;
+    private int round;
+    private String encoding;
+    private String trainingId;
     private static Logger log = LoggerFactory.getLogger(IterativeReduceFlatMap.class);
 
     /**
@@ -52,25 +77,69 @@ public class IterativeReduceFlatMap implements FlatMapFunction<Iterator<DataSet>
      * @param params the parameters to use for the network
      */
     public IterativeReduceFlatMap(String json, Broadcast<INDArray> params) {
+        this(json, params, DEFAULT_BATCH_SIZE, 0, 0, UpdateEncoders.DENSE, null);
+    }
+
+    /**
+     * @param json json configuration for the network
+     * @param params the parameters to use for the network
+     * @param batchSize the number of examples per minibatch
+     * @param averagingFrequency the number of minibatches to fit per round, or 0 to fit the whole partition
+     * @param round the round of averaging, from 0
+     * @param encoding the update encoding, see {@link UpdateEncoders#create(String)}
+     * @param trainingId identifies the training run the encoders of the partitions belong to,
+     *                   or null to use a new encoder each time
+     */
+    public IterativeReduceFlatMap(String json, Broadcast<INDArray> params, int batchSize, int averagingFrequency, int round,
+                                  String encoding, String trainingId) {
         this.json = json;
         this.params = params;
+        this.batchSize = batchSize;
+        this.averagingFrequency = averagingFrequency;
+        this.round = round;
+        this.encoding = encoding;
+        this.trainingId = trainingId;
     }
 
+    private UpdateEncoder encoder() {
+        TaskContext context = TaskContext.get();
+        if(trainingId == null || context == null || !UpdateEncoders.hasResidual(encoding))
+            return UpdateEncoders.create(encoding);
+        String key = trainingId + "/" + context.partitionId();
+        UpdateEncoder encoder = encoders.get(key);
+        if(encoder == null) {
+            encoder = UpdateEncoders.create(encoding);
+            encoders.put(key, encoder);
+        }
+        return encoder;
+    }
 
-
-    @Override
-    public Iterable<INDArray> call(Iterator<DataSet> dataSetIterator) throws Exception {
-        if(!dataSetIterator.hasNext()) {
-            return Collections.singletonList(Nd4j.zeros(params.value().shape()));
+    /**
+     * Drop the encoders (and residuals) of a training run kept in this JVM
+     * @param trainingId the training run
+     * @return the number of encoders dropped
+     */
+    public static int clearEncoders(String trainingId) {
+        int cleared = 0;
+        for(String key : encoders.keySet()) {
+            if(key.startsWith(trainingId + "/") && encoders.remove(key) != null)
+                cleared++;
         }
+        return cleared;
+    }
 
-        List<DataSet> collect = new ArrayList<>();
-        while(dataSetIterator.hasNext()) {
-            collect.add(dataSetIterator.next());
+
+
+    @Override
+    public Iterable<EncodedUpdate> call(Iterator<DataSet> dataSetIterator) throws Exception {
+        MiniBatchDataSetIterator iter = new MiniBatchDataSetIterator(dataSetIterator, batchSize);
+        if(averagingFrequency > 0)
+            iter.skip(round * averagingFrequency);
+        if(!iter.hasNext()) {
+            //nothing (left) to train on: don't count towards the average
+            return Collections.emptyList();
         }
 
-        DataSet data = DataSet.merge(collect,false);
-        log.debug("Training on " + data.labelCounts());
         MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(json));
         network.init();
         network.setListeners(new ScoreIterationListener(1));
@@ -78,9 +147,17 @@ public class IterativeReduceFlatMap implements FlatMapFunction<Iterator<DataSet>
         if(val.length() != network.numParams())
             throw new IllegalStateException("Network did not have same number of parameters as the broadcasted set parameters");
         network.setParameters(val);
-        network.fit(data);
 
-        return Collections.singletonList(network.params());
+        int batches = 0;
+        while(iter.hasNext() && (averagingFrequency <= 0 || batches < averagingFrequency)) {
+            network.fit(iter.next());
+            batches++;
+        }
+        log.debug("Trained on " + batches + " minibatches");
+
+        EncodedUpdate update = encoder().encode(network.params().subi(val));
+        log.debug("Sending " + update.getNumBytes() + " bytes of " + update.getDenseBytes() + " dense");
+        return Collections.singletonList(update);
 
     }
 }
@@ -19,29 +19,46 @@
 package org.deeplearning4j.spark.impl.multilayer;
 
 import org.apache.spark.SparkContext;
+import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
 import org.apache.spark.mllib.linalg.Matrix;
 import org.apache.spark.mllib.linalg.Vector;
 import org.apache.spark.mllib.regression.LabeledPoint;
+import org.apache.spark.storage.StorageLevel;
 import org.canova.api.records.reader.RecordReader;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
-import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.spark.canova.RecordReaderFunction;
-import org.deeplearning4j.spark.impl.common.Adder;
-import org.deeplearning4j.spark.impl.common.gradient.GradientAdder;
+import org.deeplearning4j.scaleout.api.encoding.UpdateEncoders;
+import org.deeplearning4j.spark.impl.common.AddEncodedToAverage;
+import org.deeplearning4j.spark.impl.common.AssignRoundsFlatMap;
+import org.deeplearning4j.spark.impl.common.AverageAccumulator;
+import org.deeplearning4j.spark.impl.common.InRound;
+import org.deeplearning4j.spark.impl.common.MergeAverages;
+import org.deeplearning4j.spark.impl.common.gradient.AddGradientToAverage;
 import org.deeplearning4j.spark.impl.multilayer.gradientaccum.GradientAccumFlatMap;
+import org.deeplearning4j.spark.impl.multilayer.paramserver.LocalParameterServerClient;
+import org.deeplearning4j.spark.impl.multilayer.paramserver.ParameterServer;
+import org.deeplearning4j.spark.impl.multilayer.paramserver.ParameterServerFlatMap;
+import org.deeplearning4j.spark.impl.multilayer.paramserver.ParameterServerSocketServer;
+import org.deeplearning4j.spark.impl.multilayer.paramserver.ShardedParameterServer;
+import org.deeplearning4j.spark.impl.multilayer.paramserver.SocketParameterServerClient;
 import org.deeplearning4j.spark.util.MLLibUtil;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.Serializable;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Master class for spark
@@ -56,9 +73,32 @@ public class SparkDl4jMultiLayer implements Serializable {
     private MultiLayerNetwork network;
     private Broadcast<INDArray> params;
     private boolean averageEachIteration = false;
+    private String trainingId;
     public final static String AVERAGE_EACH_ITERATION = "org.deeplearning4j.spark.iteration.average";
     public final static String ACCUM_GRADIENT = "org.deeplearning4j.spark.iteration.accumgrad";
     public final static String DIVIDE_ACCUM_GRADIENT = "org.deeplearning4j.spark.iteration.dividegrad";
+    //number of examples per minibatch each partition is streamed in, default 32
+    public final static String BATCH_SIZE = "org.deeplearning4j.spark.iteration.batchsize";
+    //average parameters every N minibatches of each partition, default 0: once the whole partition has been fit.
+    //the rdd is read once to split it into rounds, which are persisted (memory and disk) until the fit is done
+    public final static String AVERAGING_FREQUENCY = "org.deeplearning4j.spark.iteration.averagingfrequency";
+    //depth of the tree used to aggregate parameters or gradients from the partitions
+    public final static String AGGREGATION_DEPTH = "org.deeplearning4j.spark.iteration.aggregationdepth";
+    //encoding of the parameter updates sent by the partitions when averaging, see UpdateEncoders. Default dense.
+    //error feedback of the topk and threshold encodings is best effort: residuals are kept by the executor
+    //that ran a partition, and lost if Spark runs the partition elsewhere in a later round
+    public final static String UPDATE_ENCODING = "org.deeplearning4j.spark.iteration.encoding";
+    //train asynchronously against a parameter server rather than averaging parameters
+    public final static String PARAMETER_SERVER = "org.deeplearning4j.spark.paramserver";
+    //host:port of a parameter server running in a separate process. By default one is started in the driver
+    public final static String PARAMETER_SERVER_ADDRESS = "org.deeplearning4j.spark.paramserver.address";
+    //port for the parameter server started in the driver, default any free port
+    public final static String PARAMETER_SERVER_PORT = "org.deeplearning4j.spark.paramserver.port";
+    public final static String PARAMETER_SERVER_SHARDS = "org.deeplearning4j.spark.paramserver.shards";
+    //max number of pushes a partition can be ahead of the slowest partition
+    public final static String PARAMETER_SERVER_STALENESS = "org.deeplearning4j.spark.paramserver.staleness";
+    //number of data sets each partition fits between pushes
+    public final static String PARAMETER_SERVER_PUSH_FREQUENCY = "org.deeplearning4j.spark.paramserver.pushfrequency";
 
     private static final Logger log = LoggerFactory.getLogger(SparkDl4jMultiLayer.class);
 
@@ -176,25 +216,106 @@ public class SparkDl4jMultiLayer implements Serializable {
      * @return the multi layer network
      */
     public MultiLayerNetwork fitDataSet(JavaRDD<DataSet> rdd) {
+        if(sc.getConf().getBoolean(PARAMETER_SERVER,false))
+            return fitParameterServer(rdd);
         int iterations = conf.getConf(0).getNumIterations();
+        trainingId = UUID.randomUUID().toString();
         log.info("Running distributed training averaging each iteration " + averageEachIteration + " and " + rdd.partitions().size() + " partitions");
-        if(!averageEachIteration)
-              runIteration(rdd);
-
-        else {
-            for(NeuralNetConfiguration conf : this.conf.getConfs())
-                conf.setNumIterations(1);
-            MultiLayerNetwork network = new MultiLayerNetwork(conf);
-            network.init();
-            final INDArray params = network.params();
-            this.params = sc.broadcast(params);
-
-            for(int i = 0; i < iterations; i++)
+        try {
+            if(!averageEachIteration)
                 runIteration(rdd);
 
+            else {
+                for(NeuralNetConfiguration conf : this.conf.getConfs())
+                    conf.setNumIterations(1);
+                MultiLayerNetwork network = new MultiLayerNetwork(conf);
+                network.init();
+                final INDArray params = network.params();
+                this.params = sc.broadcast(params);
+
+                for(int i = 0; i < iterations; i++)
+                    runIteration(rdd);
+
+            }
+        } finally {
+            //the residuals of the partitions are kept by the executors until the fit is done
+            if(UpdateEncoders.hasResidual(sc.getConf().get(UPDATE_ENCODING,UpdateEncoders.DENSE))) {
+                rdd.foreachPartition(new ClearEncodersFunction(trainingId));
+                IterativeReduceFlatMap.clearEncoders(trainingId);
+            }
+        }
+
+
+        return network;
+    }
+
+    /**
+     * Fit the dataset rdd against a parameter server: each partition trains on its data sets in turn,
+     * pushing the change in its parameters to the server and pulling the latest parameters
+     * every {@link #PARAMETER_SERVER_PUSH_FREQUENCY} data sets. Parameters never pass through
+     * the driver unless the server runs there.
+     *
+     * The server is the one at {@link #PARAMETER_SERVER_ADDRESS} if set, otherwise one is started in the driver:
+     * in memory for a local master, served over TCP on the driver host otherwise
+     * @param rdd the rdd to fit
+     * @return the multi layer network
+     */
+    public MultiLayerNetwork fitParameterServer(JavaRDD<DataSet> rdd) {
+        MultiLayerNetwork network = new MultiLayerNetwork(conf);
+        network.init();
+        int numShards = sc.getConf().getInt(PARAMETER_SERVER_SHARDS, 16);
+        int staleness = sc.getConf().getInt(PARAMETER_SERVER_STALENESS, 2);
+        int pushFrequency = sc.getConf().getInt(PARAMETER_SERVER_PUSH_FREQUENCY, 1);
+        String address = sc.getConf().get(PARAMETER_SERVER_ADDRESS, null);
+
+        //the driver talks to the server directly where it can; the partitions through a serializable client
+        ParameterServer server;
+        ParameterServer client;
+        Closeable close;
+        try {
+            if(address != null) {
+                int colon = address.lastIndexOf(':');
+                if(colon < 0)
+                    throw new IllegalArgumentException("Parameter server address must be host:port, not " + address);
+                SocketParameterServerClient socketClient = new SocketParameterServerClient(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+                server = socketClient;
+                client = socketClient;
+                close = socketClient;
+            }
+            else if(sc.isLocal()) {
+                server = new ShardedParameterServer(numShards, staleness);
+                LocalParameterServerClient localClient = LocalParameterServerClient.register((ShardedParameterServer) server);
+                client = localClient;
+                close = localClient;
+            }
+            else {
+                server = new ShardedParameterServer(numShards, staleness);
+                String host = sc.getConf().get("spark.driver.host", InetAddress.getLocalHost().getHostAddress());
+                ParameterServerSocketServer socketServer = new ParameterServerSocketServer((ShardedParameterServer) server,
+                        host, sc.getConf().getInt(PARAMETER_SERVER_PORT, 0)).start();
+                client = new SocketParameterServerClient(host, socketServer.getPort());
+                close = socketServer;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to start parameter server", e);
         }
 
+        try {
+            server.setParameters(network.params());
+            log.info("Training against parameter server with " + network.numParams() + " parameters, staleness " + staleness
+                    + " and " + rdd.partitions().size() + " partitions");
+            List<Double> scores = rdd.mapPartitionsWithIndex(new ParameterServerFlatMap(conf.toJson(), client, pushFrequency), true).collect();
+            log.info("Partition scores " + scores);
+            network.setParameters(server.getParameters());
+        } finally {
+            try {
+                close.close();
+            } catch (IOException e) {
+                log.warn("Error closing parameter server", e);
+            }
+        }
 
+        this.network = network;
         return network;
     }
 
@@ -208,31 +329,56 @@ public class SparkDl4jMultiLayer implements Serializable {
         if(params.length() != paramsLength)
             throw new IllegalStateException("Number of params " + paramsLength + " was not equal to " + params.length());
         boolean accumGrad = sc.getConf().getBoolean(ACCUM_GRADIENT,false);
+        int depth = sc.getConf().getInt(AGGREGATION_DEPTH,2);
         if(accumGrad) {
-            JavaRDD<Gradient> results = rdd.mapPartitions(new GradientAccumFlatMap(conf.toJson(), this.params),true).cache();
-            log.info("Ran iterative reduce...averaging results now.");
-            GradientAdder a = new GradientAdder(params.length());
-            results.foreach(a);
-            INDArray accumulatedGradient = a.getAccumulator().value();
+            AverageAccumulator results = rdd.mapPartitions(new GradientAccumFlatMap(conf.toJson(), this.params),true)
+                    .treeAggregate(new AverageAccumulator(), new AddGradientToAverage(), new MergeAverages(), depth);
+            log.info("Summed gradients of " + results.getCount() + " partitions");
+            if(results.isEmpty()) {
+                log.warn("No partitions returned a gradient, parameters are unchanged");
+                this.network = network;
+                return;
+            }
             boolean divideGrad = sc.getConf().getBoolean(DIVIDE_ACCUM_GRADIENT,false);
-            if(divideGrad)
-                accumulatedGradient.divi(results.partitions().size());
-            log.info("Accumulated parameters");
-            log.info("Summed gradients.");
+            INDArray accumulatedGradient = divideGrad ? results.getAverage() : results.getSum();
             network.setParameters(network.params().addi(accumulatedGradient));
             log.info("Set parameters");
             this.network = network;
         }
         else {
-            JavaRDD<INDArray> results = rdd.mapPartitions(new IterativeReduceFlatMap(conf.toJson(), this.params),true).cache();
-            log.info("Ran iterative reduce...averaging results now.");
-            Adder a = new Adder(params.length());
-            results.foreach(a);
-            INDArray newParams = a.getAccumulator().value();
-            log.info("Accumulated parameters");
-            newParams.divi(rdd.partitions().size());
-            log.info("Divided by partitions");
-            network.setParameters(newParams);
+            int batchSize = sc.getConf().getInt(BATCH_SIZE,IterativeReduceFlatMap.DEFAULT_BATCH_SIZE);
+            int averagingFrequency = sc.getConf().getInt(AVERAGING_FREQUENCY,0);
+            String encoding = sc.getConf().get(UPDATE_ENCODING,UpdateEncoders.DENSE);
+            //each round fits (up to) averagingFrequency more minibatches of each partition, until all are used up.
+            //the partitions are split into rounds once, rather than re-read up to the current round every round
+            JavaPairRDD<Integer,DataSet> rounds = null;
+            if(averagingFrequency > 0)
+                rounds = rdd.mapPartitionsToPair(new AssignRoundsFlatMap(batchSize, averagingFrequency), true)
+                        .persist(StorageLevel.MEMORY_AND_DISK());
+            try {
+                for(int round = 0; ; round++) {
+                    //a round's minibatches are already of batchSize examples: fit them all
+                    JavaRDD<DataSet> batches = rounds == null ? rdd : rounds.filter(new InRound(round)).values();
+                    AverageAccumulator results = batches.mapPartitions(new IterativeReduceFlatMap(conf.toJson(), this.params, batchSize, 0, 0, encoding, trainingId),true)
+                            .treeAggregate(new AverageAccumulator(), new AddEncodedToAverage(), new MergeAverages(), depth);
+                    if(results.isEmpty()) {
+                        if(round == 0)
+                            log.warn("No partitions returned parameters, parameters are unchanged");
+                        break;
+                    }
+                    log.info("Averaged updates of " + results.getCount() + " partitions for round " + round + ": "
+                            + results.getNumBytes() + " bytes sent, " + results.getCount() * paramsLength * 4 + " dense");
+                    network.setParameters(network.params().addi(results.getAverage()));
+                    if(rounds == null)
+                        break;
+                    Broadcast<INDArray> old = this.params;
+                    this.params = sc.broadcast(network.params());
+                    old.unpersist();
+                }
+            } finally {
+                if(rounds != null)
+                    rounds.unpersist();
+            }
             log.info("Set parameters");
             this.network = network;
         }
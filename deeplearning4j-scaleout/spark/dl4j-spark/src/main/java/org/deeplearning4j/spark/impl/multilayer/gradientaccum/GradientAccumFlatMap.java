@@ -21,12 +21,10 @@ package org.deeplearning4j.spark.impl.multilayer.gradientaccum;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.broadcast.Broadcast;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
-import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,7 +60,7 @@ public class GradientAccumFlatMap implements FlatMapFunction<Iterator<DataSet>,G
     @Override
     public Iterable<Gradient> call(Iterator<DataSet> dataSetIterator) throws Exception {
         if(!dataSetIterator.hasNext()) {
-            return Collections.singletonList((Gradient) new DefaultGradient());
+            return Collections.emptyList();
         }
 
         List<DataSet> collect = new ArrayList<>();
@@ -0,0 +1,105 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.spark.impl.multilayer.paramserver;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client for a {@link ShardedParameterServer} in the same JVM, such as in tests or with a local spark master.
+ * Servers are registered under a random id: the client only holds the id, so it can be serialized in to
+ * spark closures and find the server again on the other side
+ */
+public class LocalParameterServerClient implements ParameterServer, Closeable, Serializable {
+
+    private static final Map<String, ShardedParameterServer> SERVERS = new ConcurrentHashMap<>();
+
+    private final String id;
+
+    private LocalParameterServerClient(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Register a server in this JVM
+     * @param server the server
+     * @return a client for it. {@link #close()} unregisters the server
+     */
+    public static LocalParameterServerClient register(ShardedParameterServer server) {
+        String id = UUID.randomUUID().toString();
+        SERVERS.put(id, server);
+        return new LocalParameterServerClient(id);
+    }
+
+    /**
+     * @return the server
+     * @throws IllegalStateException if the server is not registered in this JVM
+     */
+    public ShardedParameterServer getServer() {
+        ShardedParameterServer server = SERVERS.get(id);
+        if (server == null)
+            throw new IllegalStateException("No parameter server " + id + " in this JVM");
+        return server;
+    }
+
+    @Override
+    public void setParameters(INDArray params) {
+        getServer().setParameters(params);
+    }
+
+    @Override
+    public INDArray getParameters() {
+        return getServer().getParameters();
+    }
+
+    @Override
+    public void register(long worker) {
+        getServer().register(worker);
+    }
+
+    @Override
+    public INDArray pull(long worker) {
+        return getServer().pull(worker);
+    }
+
+    @Override
+    public void push(long worker, INDArray delta) {
+        getServer().push(worker, delta);
+    }
+
+    @Override
+    public void finish(long worker) {
+        getServer().finish(worker);
+    }
+
+    /**
+     * Unregister the server
+     */
+    @Override
+    public void close() {
+        SERVERS.remove(id);
+    }
+
+}
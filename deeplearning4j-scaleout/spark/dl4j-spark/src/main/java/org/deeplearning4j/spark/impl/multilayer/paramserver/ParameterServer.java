@@ -0,0 +1,77 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.spark.impl.multilayer.paramserver;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * A parameter server: workers pull the current parameters, train on some of their data,
+ * and push the change to their parameters back, asynchronously of the other workers.
+ *
+ * Staleness is bounded: each push advances the clock of the worker that made it,
+ * and a pull blocks while the worker's clock is more than the server's staleness ahead
+ * of the slowest worker still training.
+ *
+ * {@link ShardedParameterServer} is the server itself. {@link LocalParameterServerClient}
+ * reaches one in the same JVM, {@link SocketParameterServerClient} one served by a
+ * {@link ParameterServerSocketServer} in the driver or in a separate process.
+ */
+public interface ParameterServer {
+
+    /**
+     * Replace the parameters (such as the initial parameters of a network) and forget all workers
+     * @param params the parameters, a row vector
+     */
+    void setParameters(INDArray params);
+
+    /**
+     * @return a copy of the current parameters, a row vector
+     */
+    INDArray getParameters();
+
+    /**
+     * Start a worker. Its clock starts at the clock of the slowest worker training,
+     * so a worker that starts late doesn't hold back the others
+     * @param worker the id of the worker, such as the attempt id of its spark task
+     * @throws IllegalStateException if a worker with the same id is still training
+     */
+    void register(long worker);
+
+    /**
+     * Pull the current parameters, waiting while the worker is too far ahead of the slowest worker
+     * @param worker the id of the worker
+     * @return a copy of the parameters, a row vector
+     */
+    INDArray pull(long worker);
+
+    /**
+     * Add a change in parameters to the server's parameters, and advance the worker's clock
+     * @param worker the id of the worker
+     * @param delta the change in parameters since the worker's last pull
+     */
+    void push(long worker, INDArray delta);
+
+    /**
+     * Stop a worker: other workers no longer wait for it
+     * @param worker the id of the worker
+     */
+    void finish(long worker);
+
+}
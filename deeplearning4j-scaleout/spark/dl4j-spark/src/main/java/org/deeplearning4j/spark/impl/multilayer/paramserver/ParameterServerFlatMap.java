@@ -0,0 +1,99 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.spark.impl.multilayer.paramserver;
+
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.function.Function2;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Trains on a partition against a {@link ParameterServer}: the network is fit on each data set
+ * (minibatch) of the partition in turn, and every pushFrequency data sets the change in
+ * parameters is pushed to the server and the latest parameters pulled from it.
+ * Only the score of the partition is returned to the driver, not its parameters.
+ * The worker id is the attempt id of the task, so a retried or speculative attempt of a partition
+ * gets its own clock rather than sharing one with an attempt still training
+ */
+public class ParameterServerFlatMap implements Function2<Integer, Iterator<DataSet>, Iterator<Double>> {
+
+    private String json;
+    private ParameterServer server;
+    private int pushFrequency;
+    private static Logger log = LoggerFactory.getLogger(ParameterServerFlatMap.class);
+
+    /**
+     * @param json json configuration for the network
+     * @param server the parameter server, serializable (such as a client for it)
+     * @param pushFrequency the number of data sets to fit between pushes
+     */
+    public ParameterServerFlatMap(String json, ParameterServer server, int pushFrequency) {
+        if (pushFrequency < 1)
+            throw new IllegalArgumentException("Push frequency must be > 0");
+        this.json = json;
+        this.server = server;
+        this.pushFrequency = pushFrequency;
+    }
+
+    @Override
+    public Iterator<Double> call(Integer partition, Iterator<DataSet> dataSetIterator) throws Exception {
+        if (!dataSetIterator.hasNext())
+            return Collections.<Double>emptyList().iterator();
+
+        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(json));
+        network.init();
+        TaskContext context = TaskContext.get();
+        long worker = context != null ? context.taskAttemptId() : partition;
+        server.register(worker);
+        try {
+            INDArray pulled = server.pull(worker);
+            if (pulled.length() != network.numParams())
+                throw new IllegalStateException("Network did not have same number of parameters as the parameter server");
+            network.setParameters(pulled.dup());
+            int numFit = 0;
+            while (dataSetIterator.hasNext()) {
+                network.fit(dataSetIterator.next());
+                numFit++;
+                if (numFit % pushFrequency == 0) {
+                    server.push(worker, network.params().sub(pulled));
+                    if (dataSetIterator.hasNext()) {
+                        pulled = server.pull(worker);
+                        network.setParameters(pulled.dup());
+                    }
+                }
+            }
+            if (numFit % pushFrequency != 0)
+                server.push(worker, network.params().sub(pulled));
+            log.debug("Partition " + partition + " fit " + numFit + " data sets with score " + network.score());
+            return Collections.singletonList(network.score()).iterator();
+        } finally {
+            server.finish(worker);
+            if (server instanceof SocketParameterServerClient)
+                ((SocketParameterServerClient) server).close();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.spark.impl.multilayer.paramserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves a {@link ShardedParameterServer} over TCP to {@link SocketParameterServerClient}s,
+ * with one thread per connected client. Runs in the driver, or as a separate (sidecar) process with {@link #main(String[])}.
+ *
+ * Each request is an op code byte followed by its arguments; each response a status byte (0 for success,
+ * otherwise followed by an error message) followed by any result. Worker ids are sent as longs, parameters as
+ * their length (int) followed by the raw floats, big endian.
+ * Workers registered over a connection that closes before they finish are finished by the server,
+ * so a lost executor doesn't hold back the other workers
+ */
+public class ParameterServerSocketServer implements Closeable {
+
+    static final byte SET_PARAMETERS = 1;
+    static final byte GET_PARAMETERS = 2;
+    static final byte REGISTER = 3;
+    static final byte PULL = 4;
+    static final byte PUSH = 5;
+    static final byte FINISH = 6;
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+    //floats read at a time, so memory is only allocated for the floats actually sent, not the length claimed
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final Logger log = LoggerFactory.getLogger(ParameterServerSocketServer.class);
+
+    private final ShardedParameterServer server;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> connections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    private volatile boolean running = true;
+
+    /**
+     * @param server the server to serve
+     * @param host the host name or address to listen on, such as the driver host
+     * @param port the port to listen on, 0 for any free port
+     */
+    public ParameterServerSocketServer(ShardedParameterServer server, String host, int port) throws IOException {
+        this.server = server;
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getByName(host));
+    }
+
+    /**
+     * Start accepting connections, in a daemon thread
+     * @return this server
+     */
+    public ParameterServerSocketServer start() {
+        Thread accept = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        connections.add(socket);
+                        Thread handler = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        }, "ParameterServer-" + socket.getRemoteSocketAddress());
+                        handler.setDaemon(true);
+                        handler.start();
+                    } catch (IOException e) {
+                        if (running)
+                            log.warn("Error accepting parameter server connection", e);
+                    }
+                }
+            }
+        }, "ParameterServer-accept-" + getPort());
+        accept.setDaemon(true);
+        accept.start();
+        log.info("Parameter server listening on " + serverSocket.getInetAddress().getHostAddress() + ":" + getPort());
+        return this;
+    }
+
+    private void serve(Socket socket) {
+        //workers registered over this connection and not finished yet
+        Set<Long> workers = new HashSet<>();
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (running) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    //client closed the connection
+                    return;
+                }
+                float[] result = null;
+                try {
+                    switch (op) {
+                        case SET_PARAMETERS:
+                            server.setParameters(readFloats(in));
+                            break;
+                        case GET_PARAMETERS:
+                            result = server.getParameterArray();
+                            break;
+                        case REGISTER:
+                            long registered = in.readLong();
+                            server.register(registered);
+                            workers.add(registered);
+                            break;
+                        case PULL:
+                            result = server.pullArray(in.readLong());
+                            break;
+                        case PUSH:
+                            long worker = in.readLong();
+                            server.push(worker, readFloats(in, server.getNumParameters()));
+                            break;
+                        case FINISH:
+                            long finished = in.readLong();
+                            server.finish(finished);
+                            workers.remove(finished);
+                            break;
+                        default:
+                            throw new IOException("Unknown parameter server op " + op);
+                    }
+                } catch (RuntimeException e) {
+                    out.writeByte(ERROR);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                    out.flush();
+                    continue;
+                }
+                out.writeByte(OK);
+                if (result != null)
+                    writeFloats(out, result);
+                out.flush();
+            }
+        } catch (SocketException e) {
+            if (running)
+                log.debug("Parameter server connection closed", e);
+        } catch (IOException e) {
+            log.warn("Error serving parameter server connection", e);
+        } finally {
+            //a worker whose connection closed (such as on an executor that died) would otherwise hold back
+            //the other workers forever: its task fails, and is retried as a new worker
+            if (!workers.isEmpty())
+                log.warn("Parameter server connection closed with workers " + workers + " training: finishing them");
+            for (long worker : workers)
+                server.finish(worker);
+            connections.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //ignore
+            }
+        }
+    }
+
+    static void writeFloats(DataOutputStream out, float[] floats) throws IOException {
+        out.writeInt(floats.length);
+        ByteBuffer buffer = ByteBuffer.allocate(floats.length * 4);
+        buffer.asFloatBuffer().put(floats);
+        out.write(buffer.array());
+    }
+
+    static float[] readFloats(DataInputStream in) throws IOException {
+        return readChunks(in, readLength(in));
+    }
+
+    /**
+     * Read floats that must be as many as the server's parameters, such as a delta.
+     * Floats of any other length are skipped rather than read, and rejected
+     * @throws IllegalArgumentException if the length isn't the expected length. The stream can still be read
+     */
+    static float[] readFloats(DataInputStream in, int expectedLength) throws IOException {
+        int length = readLength(in);
+        if (length != expectedLength) {
+            long skip = length * 4L;
+            while (skip > 0) {
+                int skipped = in.skipBytes((int) Math.min(skip, Integer.MAX_VALUE));
+                if (skipped <= 0)
+                    throw new EOFException();
+                skip -= skipped;
+            }
+            throw new IllegalArgumentException("Delta of length " + length + " pushed for " + expectedLength + " parameters");
+        }
+        return readChunks(in, length);
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Invalid parameter length " + length);
+        return length;
+    }
+
+    private static float[] readChunks(DataInputStream in, int length) throws IOException {
+        float[] ret = new float[Math.min(length, CHUNK_SIZE)];
+        byte[] bytes = new byte[Math.min(length, CHUNK_SIZE) * 4];
+        int read = 0;
+        while (read < length) {
+            int n = Math.min(CHUNK_SIZE, length - read);
+            in.readFully(bytes, 0, n * 4);
+            if (ret.length < read + n)
+                ret = Arrays.copyOf(ret, (int) Math.min(length, 2L * ret.length));
+            ByteBuffer.wrap(bytes, 0, n * 4).asFloatBuffer().get(ret, read, n);
+            read += n;
+        }
+        return ret;
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public ShardedParameterServer getServer() {
+        return server;
+    }
+
+    /**
+     * Stop accepting connections and close the connected ones
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket socket : connections)
+            socket.close();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Run a parameter server as a separate process
+     * @param args host to listen on, port, number of shards (default 16) and staleness (default 2)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ParameterServerSocketServer host port [numShards] [staleness]");
+            System.exit(1);
+        }
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        int numShards = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int staleness = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        ParameterServerSocketServer server = new ParameterServerSocketServer(new ShardedParameterServer(numShards, staleness), host, port).start();
+        synchronized (server) {
+            while (server.running)
+                server.wait();
+        }
+    }
+
+}
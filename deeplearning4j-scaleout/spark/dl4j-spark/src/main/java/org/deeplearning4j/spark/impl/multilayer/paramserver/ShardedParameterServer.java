@@ -0,0 +1,250 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.spark.impl.multilayer.paramserver;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory parameter server. The parameters are split in to contiguous shards,
+ * each with its own lock, so pushes and pulls from different workers only contend per shard.
+ * Pushes are applied as they arrive (pushes are not atomic across shards).
+ *
+ * Used directly by workers in the same JVM (see {@link LocalParameterServerClient}), or served
+ * to workers in other processes by a {@link ParameterServerSocketServer}
+ */
+public class ShardedParameterServer implements ParameterServer {
+
+    private final int numShards;
+    private final int staleness;
+    private volatile float[][] shards;
+
+    //worker id to number of pushes, for the workers training
+    private final Map<Long, Long> clocks = new HashMap<>();
+    private final Object clockLock = new Object();
+
+    private final AtomicLong numPushes = new AtomicLong();
+    private final AtomicLong numPulls = new AtomicLong();
+    private final AtomicLong waitTimeNanos = new AtomicLong();
+
+    /**
+     * @param numShards the number of shards to split the parameters in to
+     * @param staleness the max number of pushes a worker can be ahead of the slowest worker. 0 keeps
+     *                  all workers in lock step
+     */
+    public ShardedParameterServer(int numShards, int staleness) {
+        if (numShards < 1)
+            throw new IllegalArgumentException("Number of shards must be > 0");
+        if (staleness < 0)
+            throw new IllegalArgumentException("Staleness must be >= 0");
+        this.numShards = numShards;
+        this.staleness = staleness;
+    }
+
+    @Override
+    public void setParameters(INDArray params) {
+        setParameters(params.dup().data().asFloat());
+    }
+
+    /**
+     * Replace the parameters and forget all workers
+     * @param params the parameters
+     */
+    public void setParameters(float[] params) {
+        int n = Math.max(1, Math.min(numShards, params.length));
+        int shardSize = (params.length + n - 1) / n;
+        float[][] shards = new float[n][];
+        for (int i = 0; i < n; i++) {
+            int from = Math.min(params.length, i * shardSize);
+            int to = Math.min(params.length, from + shardSize);
+            shards[i] = new float[to - from];
+            System.arraycopy(params, from, shards[i], 0, to - from);
+        }
+        synchronized (clockLock) {
+            clocks.clear();
+            this.shards = shards;
+            clockLock.notifyAll();
+        }
+    }
+
+    @Override
+    public INDArray getParameters() {
+        return Nd4j.create(getParameterArray());
+    }
+
+    /**
+     * @return a copy of the current parameters
+     */
+    public float[] getParameterArray() {
+        float[][] shards = shards();
+        float[] ret = new float[length(shards)];
+        int offset = 0;
+        for (float[] shard : shards) {
+            synchronized (shard) {
+                System.arraycopy(shard, 0, ret, offset, shard.length);
+            }
+            offset += shard.length;
+        }
+        return ret;
+    }
+
+    @Override
+    public void register(long worker) {
+        synchronized (clockLock) {
+            if (clocks.containsKey(worker))
+                throw new IllegalStateException("Worker " + worker + " is already training");
+            clocks.put(worker, clocks.isEmpty() ? 0L : minClock());
+            clockLock.notifyAll();
+        }
+    }
+
+    @Override
+    public INDArray pull(long worker) {
+        return Nd4j.create(pullArray(worker));
+    }
+
+    /**
+     * Pull the current parameters, waiting while the worker is too far ahead of the slowest worker
+     * @param worker the id of the worker
+     * @return a copy of the parameters
+     */
+    public float[] pullArray(long worker) {
+        long start = System.nanoTime();
+        synchronized (clockLock) {
+            while (clocks.containsKey(worker) && clocks.get(worker) - minClock() > staleness) {
+                try {
+                    clockLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for slower workers", e);
+                }
+            }
+        }
+        waitTimeNanos.addAndGet(System.nanoTime() - start);
+        numPulls.incrementAndGet();
+        return getParameterArray();
+    }
+
+    @Override
+    public void push(long worker, INDArray delta) {
+        push(worker, delta.dup().data().asFloat());
+    }
+
+    /**
+     * Add a change in parameters to the server's parameters, and advance the worker's clock
+     * @param worker the id of the worker
+     * @param delta the change in parameters since the worker's last pull
+     */
+    public void push(long worker, float[] delta) {
+        float[][] shards = shards();
+        if (delta.length != length(shards))
+            throw new IllegalArgumentException("Delta of length " + delta.length + " pushed for " + length(shards) + " parameters");
+        int offset = 0;
+        for (float[] shard : shards) {
+            synchronized (shard) {
+                for (int i = 0; i < shard.length; i++)
+                    shard[i] += delta[offset + i];
+            }
+            offset += shard.length;
+        }
+        numPushes.incrementAndGet();
+        synchronized (clockLock) {
+            Long clock = clocks.get(worker);
+            if (clock != null)
+                clocks.put(worker, clock + 1);
+            clockLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void finish(long worker) {
+        synchronized (clockLock) {
+            clocks.remove(worker);
+            clockLock.notifyAll();
+        }
+    }
+
+    //callers hold clockLock
+    private long minClock() {
+        long min = Long.MAX_VALUE;
+        for (long clock : clocks.values())
+            min = Math.min(min, clock);
+        return min;
+    }
+
+    private static int length(float[][] shards) {
+        int ret = 0;
+        for (float[] shard : shards)
+            ret += shard.length;
+        return ret;
+    }
+
+    private float[][] shards() {
+        float[][] ret = shards;
+        if (ret == null)
+            throw new IllegalStateException("Parameters have not been set");
+        return ret;
+    }
+
+    /**
+     * @return the number of parameters, 0 if they have not been set
+     */
+    public int getNumParameters() {
+        float[][] shards = this.shards;
+        return shards == null ? 0 : length(shards);
+    }
+
+    public int getNumShards() {
+        return numShards;
+    }
+
+    public int getStaleness() {
+        return staleness;
+    }
+
+    public long getNumPushes() {
+        return numPushes.get();
+    }
+
+    public long getNumPulls() {
+        return numPulls.get();
+    }
+
+    /**
+     * @return total time workers spent waiting in pulls for slower workers, in milliseconds
+     */
+    public long getWaitTimeMs() {
+        return waitTimeNanos.get() / 1000000;
+    }
+
+    /**
+     * @return the number of workers training
+     */
+    public int getNumWorkers() {
+        synchronized (clockLock) {
+            return clocks.size();
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+
+package org.deeplearning4j.spark.impl.multilayer.paramserver;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.Socket;
+
+/**
+ * Client for a parameter server served by a {@link ParameterServerSocketServer}.
+ * Only the address is serialized: the connection is opened on first use, on whichever side of a spark closure that is.
+ * Requests from one client are serialized; use one client per thread for concurrent requests
+ */
+public class SocketParameterServerClient implements ParameterServer, Closeable, Serializable {
+
+    private final String host;
+    private final int port;
+    private transient Socket socket;
+    private transient DataInputStream in;
+    private transient DataOutputStream out;
+
+    /**
+     * @param host the host of the server
+     * @param port the port of the server
+     */
+    public SocketParameterServerClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public synchronized void setParameters(INDArray params) {
+        try {
+            connect();
+            out.writeByte(ParameterServerSocketServer.SET_PARAMETERS);
+            ParameterServerSocketServer.writeFloats(out, params.dup().data().asFloat());
+            response();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public synchronized INDArray getParameters() {
+        try {
+            connect();
+            out.writeByte(ParameterServerSocketServer.GET_PARAMETERS);
+            response();
+            return Nd4j.create(ParameterServerSocketServer.readFloats(in));
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public synchronized void register(long worker) {
+        workerRequest(ParameterServerSocketServer.REGISTER, worker);
+    }
+
+    @Override
+    public synchronized INDArray pull(long worker) {
+        try {
+            workerRequest(ParameterServerSocketServer.PULL, worker);
+            return Nd4j.create(ParameterServerSocketServer.readFloats(in));
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public synchronized void push(long worker, INDArray delta) {
+        try {
+            connect();
+            out.writeByte(ParameterServerSocketServer.PUSH);
+            out.writeLong(worker);
+            ParameterServerSocketServer.writeFloats(out, delta.dup().data().asFloat());
+            response();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public synchronized void finish(long worker) {
+        workerRequest(ParameterServerSocketServer.FINISH, worker);
+    }
+
+    private void workerRequest(byte op, long worker) {
+        try {
+            connect();
+            out.writeByte(op);
+            out.writeLong(worker);
+            response();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private void connect() throws IOException {
+        if (socket != null)
+            return;
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    //send the request and read the status of the response
+    private void response() throws IOException {
+        out.flush();
+        byte status = in.readByte();
+        if (status != ParameterServerSocketServer.OK)
+            throw new IllegalStateException("Parameter server " + host + ":" + port + " failed: " + in.readUTF());
+    }
+
+    private IllegalStateException failed(IOException e) {
+        close();
+        return new IllegalStateException("Error talking to parameter server " + host + ":" + port, e);
+    }
+
+    /**
+     * Close the connection. It is opened again if the client is used again
+     */
+    @Override
+    public synchronized void close() {
+        if (socket == null)
+            return;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //ignore
+        }
+        socket = null;
+        in = null;
+        out = null;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.deeplearning4j.spark.impl.common;
+
+import org.deeplearning4j.scaleout.api.encoding.EncodedUpdate;
+import org.deeplearning4j.scaleout.api.encoding.TopKUpdateEncoder;
+import org.junit.Test;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.*;
+
+public class AverageAccumulatorTest {
+
+    @Test
+    public void testAverage() throws Exception {
+        AverageAccumulator a = new AddToAverage().call(new AverageAccumulator(), Nd4j.create(new float[] {1, 2, 3}));
+        AverageAccumulator b = new AverageAccumulator()
+                .add(Nd4j.create(new float[] {2, 2, 2}))
+                .add(Nd4j.create(new float[] {3, 2, 1}));
+        AverageAccumulator merged = new MergeAverages().call(new MergeAverages().call(new AverageAccumulator(), a), b);
+        assertEquals(3, merged.getCount());
+        assertEquals(Nd4j.create(new float[] {6, 6, 6}), merged.getSum());
+        assertEquals(Nd4j.create(new float[] {2, 2, 2}), merged.getAverage());
+        //merging in to an empty accumulator doesn't share the array
+        assertEquals(Nd4j.create(new float[] {1, 2, 3}), a.getSum());
+    }
+
+    @Test
+    public void testEmpty() {
+        AverageAccumulator a = new AverageAccumulator();
+        assertTrue(a.isEmpty());
+        assertNull(a.getAverage());
+        a.merge(new AverageAccumulator());
+        assertTrue(a.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentLengths() {
+        new AverageAccumulator().add(Nd4j.create(new float[] {1, 2})).add(Nd4j.create(new float[] {1, 2, 3}));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        AverageAccumulator a = new AverageAccumulator()
+                .add(Nd4j.create(new float[] {1, -2, 3.5f}))
+                .add(Nd4j.create(new float[] {1, 0, 0.5f}));
+        AverageAccumulator read = roundTrip(a);
+        assertEquals(2, read.getCount());
+        assertEquals(a.getSum(), read.getSum());
+        assertTrue(roundTrip(new AverageAccumulator()).isEmpty());
+    }
+
+    @Test
+    public void testEncoded() throws Exception {
+        EncodedUpdate update = new TopKUpdateEncoder(0.25).encode(Nd4j.create(new float[] {0, 4, 0, 1}));
+        AverageAccumulator a = new AddEncodedToAverage().call(new AverageAccumulator(), update);
+        assertEquals(update.getNumBytes(), a.getNumBytes());
+        //a single update is sent as encoded
+        AverageAccumulator read = roundTrip(a);
+        assertEquals(1, read.getCount());
+        assertEquals(update.getNumBytes(), read.getNumBytes());
+
+        AverageAccumulator merged = new AverageAccumulator().add(Nd4j.create(new float[] {2, 2, 2, 2})).merge(read);
+        assertEquals(Nd4j.create(new float[] {1, 3, 1, 1}), merged.getAverage());
+        assertEquals(16 + update.getNumBytes(), merged.getNumBytes());
+        assertEquals(Nd4j.create(new float[] {0, 4, 0, 0}), read.merge(new AverageAccumulator()).getSum());
+    }
+
+    private static AverageAccumulator roundTrip(AverageAccumulator a) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(a);
+        out.close();
+        return (AverageAccumulator) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+}
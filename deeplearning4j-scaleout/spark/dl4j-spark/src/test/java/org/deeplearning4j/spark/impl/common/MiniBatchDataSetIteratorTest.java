@@ -0,0 +1,71 @@
+package org.deeplearning4j.spark.impl.common;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MiniBatchDataSetIteratorTest {
+
+    @Test
+    public void testMiniBatches() {
+        MiniBatchDataSetIterator iter = new MiniBatchDataSetIterator(dataSets(3, 5, 2).iterator(), 4);
+        assertEquals(2, iter.inputColumns());
+        assertEquals(1, iter.totalOutcomes());
+        assertTrue(iter.hasNext());
+        assertEquals(examples(0, 4), iter.next().getFeatureMatrix());
+        DataSet second = iter.next();
+        assertEquals(examples(4, 8), second.getFeatureMatrix());
+        assertEquals(Nd4j.create(new float[] {4, 5, 6, 7}, new int[] {4, 1}), second.getLabels());
+        assertEquals(8, iter.cursor());
+        //last minibatch is what's left
+        assertEquals(examples(8, 10), iter.next().getFeatureMatrix());
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testSkip() {
+        MiniBatchDataSetIterator iter = new MiniBatchDataSetIterator(dataSets(3, 5, 2).iterator(), 3);
+        iter.skip(1);
+        assertEquals(3, iter.cursor());
+        assertEquals(examples(3, 6), iter.next().getFeatureMatrix());
+        iter.skip(1);
+        assertEquals(examples(9, 10), iter.next().getFeatureMatrix());
+        assertFalse(iter.hasNext());
+        iter.skip(5);
+        assertFalse(iter.hasNext());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReset() {
+        new MiniBatchDataSetIterator(dataSets(1).iterator(), 1).reset();
+    }
+
+    //data sets of the given sizes, for examples 0, 1, 2... with features (i, -i) and label i
+    private static List<DataSet> dataSets(int... sizes) {
+        List<DataSet> ret = new ArrayList<>();
+        int start = 0;
+        for(int size : sizes) {
+            float[] labels = new float[size];
+            for(int i = 0; i < size; i++)
+                labels[i] = start + i;
+            ret.add(new DataSet(examples(start, start + size), Nd4j.create(labels, new int[] {size, 1})));
+            start += size;
+        }
+        return ret;
+    }
+
+    private static INDArray examples(int from, int to) {
+        float[] features = new float[(to - from) * 2];
+        for(int i = from; i < to; i++) {
+            features[(i - from) * 2] = i;
+            features[(i - from) * 2 + 1] = -i;
+        }
+        return Nd4j.create(features, new int[] {to - from, 2});
+    }
+}
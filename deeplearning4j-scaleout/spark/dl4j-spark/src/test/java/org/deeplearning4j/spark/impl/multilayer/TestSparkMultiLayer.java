@@ -20,7 +20,9 @@ package org.deeplearning4j.spark.impl.multilayer;
 
 
 
+import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.mllib.linalg.Vectors;
 import org.apache.spark.mllib.regression.LabeledPoint;
@@ -37,6 +39,7 @@ import org.deeplearning4j.nn.conf.override.ConfOverride;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.spark.BaseSparkTest;
+import org.deeplearning4j.spark.impl.common.AssignRoundsFlatMap;
 import org.deeplearning4j.spark.util.MLLibUtil;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -50,9 +53,11 @@ import org.springframework.core.io.ClassPathResource;
 import java.io.File;
 import java.io.FileInputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 
 /**
@@ -205,6 +210,95 @@ public class TestSparkMultiLayer extends BaseSparkTest {
         System.out.println(evaluation.stats());
     }
 
+    @Test
+    public void testParameterServer() throws Exception {
+        sc.close();
+        sc = new JavaSparkContext(new SparkConf().set(SparkDl4jMultiLayer.PARAMETER_SERVER, "true")
+                .set(SparkDl4jMultiLayer.PARAMETER_SERVER_STALENESS, "1")
+                .setMaster("local[4]").setAppName("sparktest"));
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(123)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                .iterations(5)
+                .list(2)
+                .layer(0, new DenseLayer.Builder()
+                        .nIn(4).nOut(10)
+                        .weightInit(WeightInit.XAVIER)
+                        .activation("tanh")
+                        .build())
+                .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .nIn(10).nOut(3)
+                        .activation("softmax")
+                        .weightInit(WeightInit.XAVIER)
+                        .build())
+                .backprop(true)
+                .build();
+
+        DataSet d = new IrisDataSetIterator(150,150).next();
+        d.normalizeZeroMeanZeroUnitVariance();
+        d.shuffle();
+        JavaRDD<DataSet> data = sc.parallelize(d.asList(), 4);
+
+        MultiLayerNetwork initial = new MultiLayerNetwork(conf);
+        initial.init();
+        SparkDl4jMultiLayer master = new SparkDl4jMultiLayer(sc,conf);
+        MultiLayerNetwork network = master.fitDataSet(data);
+        assertEquals(initial.numParams(), network.numParams());
+        assertNotEquals(initial.params(), network.params());
+        Evaluation evaluation = new Evaluation();
+        evaluation.eval(d.getLabels(), network.output(d.getFeatureMatrix()));
+        System.out.println(evaluation.stats());
+    }
+
+    @Test
+    public void testAveragingFrequency() throws Exception {
+        sc.close();
+        sc = new JavaSparkContext(new SparkConf().set(SparkDl4jMultiLayer.BATCH_SIZE, "10")
+                .set(SparkDl4jMultiLayer.AVERAGING_FREQUENCY, "2")
+                .setMaster("local[3]").setAppName("sparktest"));
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(123)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                .iterations(5)
+                .list(2)
+                .layer(0, new DenseLayer.Builder()
+                        .nIn(4).nOut(10)
+                        .weightInit(WeightInit.XAVIER)
+                        .activation("tanh")
+                        .build())
+                .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .nIn(10).nOut(3)
+                        .activation("softmax")
+                        .weightInit(WeightInit.XAVIER)
+                        .build())
+                .backprop(true)
+                .build();
+
+        DataSet d = new IrisDataSetIterator(150,150).next();
+        d.normalizeZeroMeanZeroUnitVariance();
+        d.shuffle();
+        JavaRDD<DataSet> data = sc.parallelize(d.asList(), 3);
+
+        //3 partitions of 5 minibatches: rounds of 2, 2 and 1 minibatches of each partition
+        Map<Integer, Object> rounds = data.mapPartitionsToPair(new AssignRoundsFlatMap(10, 2), true).countByKey();
+        assertEquals(3, rounds.size());
+        assertEquals(6L, rounds.get(0));
+        assertEquals(6L, rounds.get(1));
+        assertEquals(3L, rounds.get(2));
+
+        MultiLayerNetwork initial = new MultiLayerNetwork(conf);
+        initial.init();
+        SparkDl4jMultiLayer master = new SparkDl4jMultiLayer(sc,conf);
+        MultiLayerNetwork network = master.fitDataSet(data);
+        assertEquals(initial.numParams(), network.numParams());
+        assertNotEquals(initial.params(), network.params());
+        Evaluation evaluation = new Evaluation();
+        evaluation.eval(d.getLabels(), network.output(d.getFeatureMatrix()));
+        System.out.println(evaluation.stats());
+    }
+
     @Test
     public void testStaticInvocation() throws Exception {
         Nd4j.ENFORCE_NUMERICAL_STABILITY = true;
@@ -0,0 +1,186 @@
+package org.deeplearning4j.spark.impl.multilayer.paramserver;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ShardedParameterServerTest {
+
+    @Test
+    public void testPushAndPull() {
+        ShardedParameterServer server = new ShardedParameterServer(3, 2);
+        server.setParameters(new float[] {1, 2, 3, 4, 5, 6, 7});
+        server.register(0);
+        server.register(1);
+        server.push(0, new float[] {1, 1, 1, 1, 1, 1, 1});
+        server.push(1, new float[] {0, 0, 0, 0, 0, 0, 10});
+        assertArrayEquals(new float[] {2, 3, 4, 5, 6, 7, 18}, server.pullArray(0), 0f);
+        assertEquals(2, server.getNumPushes());
+        assertEquals(1, server.getNumPulls());
+        assertEquals(2, server.getNumWorkers());
+        server.finish(0);
+        server.finish(1);
+        assertEquals(0, server.getNumWorkers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongLength() {
+        ShardedParameterServer server = new ShardedParameterServer(2, 0);
+        server.setParameters(new float[] {1, 2, 3});
+        server.push(0, new float[] {1, 2});
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterLiveWorker() {
+        ShardedParameterServer server = new ShardedParameterServer(2, 0);
+        server.setParameters(new float[] {1, 2, 3});
+        server.register(0);
+        server.register(0);
+    }
+
+    @Test
+    public void testReadFloats() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ParameterServerSocketServer.writeFloats(out, new float[] {1, 2});
+        ParameterServerSocketServer.writeFloats(out, new float[] {3, 4, 5});
+        out.writeInt(Integer.MAX_VALUE);
+        out.writeFloat(6);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        //a delta of the wrong length is skipped, leaving the stream at the next request
+        try {
+            ParameterServerSocketServer.readFloats(in, 3);
+            fail("Floats of the wrong length should be rejected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        assertArrayEquals(new float[] {3, 4, 5}, ParameterServerSocketServer.readFloats(in, 3), 0f);
+        //a length the floats sent don't back up fails on the missing floats, rather than allocating for the length
+        try {
+            ParameterServerSocketServer.readFloats(in);
+            fail("Missing floats should fail");
+        } catch (EOFException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testBoundedStaleness() throws Exception {
+        final ShardedParameterServer server = new ShardedParameterServer(2, 1);
+        server.setParameters(new float[] {0, 0});
+        server.register(0);
+        server.register(1);
+        //worker 0 may be 1 push ahead of worker 1, not 2
+        server.push(0, new float[] {1, 1});
+        server.pullArray(0);
+        server.push(0, new float[] {1, 1});
+
+        final CountDownLatch pulled = new CountDownLatch(1);
+        final AtomicReference<float[]> result = new AtomicReference<>();
+        Thread fast = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.set(server.pullArray(0));
+                pulled.countDown();
+            }
+        });
+        fast.start();
+        assertFalse(pulled.await(200, TimeUnit.MILLISECONDS));
+
+        server.push(1, new float[] {10, 10});
+        assertTrue(pulled.await(5, TimeUnit.SECONDS));
+        assertArrayEquals(new float[] {12, 12}, result.get(), 0f);
+        fast.join();
+    }
+
+    @Test
+    public void testFinishAndLateRegister() throws Exception {
+        ShardedParameterServer server = new ShardedParameterServer(1, 0);
+        server.setParameters(new float[] {0});
+        server.register(0);
+        server.register(1);
+        server.push(0, new float[] {1});
+        server.push(1, new float[] {1});
+        server.push(0, new float[] {1});
+        //worker 1 finishing stops worker 0 waiting for it
+        server.finish(1);
+        assertArrayEquals(new float[] {3}, server.pullArray(0), 0f);
+        //a worker starting late starts at the slowest worker's clock, so doesn't hold it back
+        server.register(2);
+        server.push(0, new float[] {1});
+        server.push(2, new float[] {1});
+        assertArrayEquals(new float[] {5}, server.pullArray(2), 0f);
+    }
+
+    @Test
+    public void testLocalClient() {
+        ShardedParameterServer server = new ShardedParameterServer(4, 2);
+        LocalParameterServerClient client = LocalParameterServerClient.register(server);
+        client.setParameters(Nd4j.create(new float[] {1, 2, 3}));
+        client.register(0);
+        client.push(0, Nd4j.create(new float[] {1, 1, 1}));
+        assertEquals(Nd4j.create(new float[] {2, 3, 4}), client.pull(0));
+        client.finish(0);
+        assertSame(server, client.getServer());
+        client.close();
+        try {
+            client.getParameters();
+            fail("Server should have been unregistered");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testSocketClient() throws Exception {
+        ShardedParameterServer server = new ShardedParameterServer(2, 2);
+        ParameterServerSocketServer socketServer = new ParameterServerSocketServer(server, "localhost", 0).start();
+        SocketParameterServerClient client = new SocketParameterServerClient("localhost", socketServer.getPort());
+        SocketParameterServerClient client2 = new SocketParameterServerClient("localhost", socketServer.getPort());
+        try {
+            client.setParameters(Nd4j.create(new float[] {1, 2, 3, 4}));
+            client.register(0);
+            client2.register(1);
+            client.push(0, Nd4j.create(new float[] {1, 0, 0, 1}));
+            client2.push(1, Nd4j.create(new float[] {0, 1, 1, 0}));
+            INDArray expected = Nd4j.create(new float[] {2, 3, 4, 5});
+            assertEquals(expected, client.pull(0));
+            assertEquals(expected, client2.getParameters());
+            assertArrayEquals(new float[] {2, 3, 4, 5}, server.getParameterArray(), 0f);
+            try {
+                client.push(0, Nd4j.create(new float[] {1}));
+                fail("Pushing a delta of the wrong length should fail");
+            } catch (IllegalStateException e) {
+                //the connection is still usable
+                assertEquals(expected, client.pull(0));
+            }
+            client.finish(0);
+            client2.finish(1);
+            assertEquals(0, server.getNumWorkers());
+
+            //a worker whose connection closes without finishing (such as on an executor that died) is finished
+            client.register(2);
+            assertEquals(1, server.getNumWorkers());
+            client.close();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.getNumWorkers() > 0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertEquals(0, server.getNumWorkers());
+        } finally {
+            client.close();
+            client2.close();
+            socketServer.close();
+        }
+    }
+}